@@ -0,0 +1,23 @@
+package com.magadiflo.app;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Arranca la aplicación completa para los benchmarks que la necesitan. Con el classpath de test se usa
+ * src/test/resources/application.properties, es decir, la BD H2 embebida con los datos de SetupDataLoader.
+ */
+public final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        return new SpringApplicationBuilder(SpringSecurityRolesPermissionsApplication.class)
+                .web(webApplicationType)
+                .properties("logging.level.root=WARN", "server.port=0", "spring.main.banner-mode=off")
+                .properties(properties)
+                .run();
+    }
+}
@@ -0,0 +1,164 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.repository.RolePermissionView;
+import com.magadiflo.app.repository.UserAuthorityView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de ApplicationUserService.getAuthorities(...): de las filas usuario-rol de la consulta de login
+ * al AuthoritySet del principal. Los permisos se reparten entre los roles y cada rol comparte además los
+ * primeros permisos con los demás, como ocurre con student:read en los datos reales. Los roles forman una
+ * cadena (cada uno hereda del anterior), el peor caso para la profundidad de la jerarquía.
+ * <ul>
+ *     <li>getAuthorities: unión de las clausuras precalculadas por RoleHierarchyClosure (configuración actual).</li>
+ *     <li>graphWalk: recorrer los padres de cada rol en cada login y juntar sus permisos propios.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorityResolutionBenchmark {
+
+    private static final int SHARED_PERMISSIONS = 2;
+
+    @Param({"1", "10", "50"})
+    public int roles;
+
+    @Param({"10", "500", "5000"})
+    public int permissions;
+
+    private ApplicationUserService service;
+    private List<UserAuthorityView> rows;
+    private final Map<String, String> parents = new HashMap<>();
+    private final Map<String, Set<String>> ownPermissions = new HashMap<>();
+
+    @Setup
+    public void setUp() {
+        List<RolePermissionView> hierarchy = new ArrayList<>();
+        for (int p = 0; p < this.permissions; p++) {
+            this.addPermission(hierarchy, p % this.roles, "bench:permission:" + p);
+        }
+        for (int r = 0; r < this.roles; r++) {
+            for (int p = 0; p < Math.min(SHARED_PERMISSIONS, this.permissions); p++) {
+                this.addPermission(hierarchy, r, "bench:permission:" + p);
+            }
+        }
+        RoleHierarchyClosure closure = new RoleHierarchyClosure(null, null);
+        closure.replaceAll(hierarchy);
+        this.service = new ApplicationUserService(null, null, closure, null, null);
+        this.rows = new ArrayList<>();
+        for (int r = 0; r < this.roles; r++) {
+            this.rows.add(new Row(roleName(r)));
+        }
+        // Primera resolución fuera de la medida: interna todos los nombres, como ocurre tras el primer login
+        this.service.getAuthorities(this.rows);
+    }
+
+    @Benchmark
+    public AuthoritySet getAuthorities() {
+        return this.service.getAuthorities(this.rows);
+    }
+
+    @Benchmark
+    public AuthoritySet graphWalk() {
+        Set<String> authorities = new LinkedHashSet<>();
+        this.rows.forEach(row -> authorities.add(row.getRoleName()));
+        for (UserAuthorityView row : this.rows) {
+            for (String role = row.getRoleName(); role != null; role = this.parents.get(role)) {
+                authorities.addAll(this.ownPermissions.get(role));
+            }
+        }
+        return AuthoritySet.of(authorities);
+    }
+
+    private void addPermission(List<RolePermissionView> hierarchy, int role, String permission) {
+        String parent = role == 0 ? null : roleName(role - 1);
+        hierarchy.add(new HierarchyRow(roleName(role), parent, permission));
+        if (parent != null) {
+            this.parents.put(roleName(role), parent);
+        }
+        this.ownPermissions.computeIfAbsent(roleName(role), name -> new LinkedHashSet<>()).add(permission);
+    }
+
+    private static String roleName(int role) {
+        return "ROLE_BENCH_" + role;
+    }
+
+    private static final class Row implements UserAuthorityView {
+
+        private final String roleName;
+
+        private Row(String roleName) {
+            this.roleName = roleName;
+        }
+
+        @Override
+        public String getEmail() {
+            return "bench@test.com";
+        }
+
+        @Override
+        public String getPassword() {
+            return "{noop}bench";
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public String getRoleName() {
+            return roleName;
+        }
+    }
+
+    private static final class HierarchyRow implements RolePermissionView {
+
+        private final String roleName;
+        private final String parentName;
+        private final String permissionName;
+
+        private HierarchyRow(String roleName, String parentName, String permissionName) {
+            this.roleName = roleName;
+            this.parentName = parentName;
+            this.permissionName = permissionName;
+        }
+
+        @Override
+        public String getRoleName() {
+            return roleName;
+        }
+
+        @Override
+        public String getParentName() {
+            return parentName;
+        }
+
+        @Override
+        public String getPermissionName() {
+            return permissionName;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.BenchmarkContexts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * loadUserByUsername(...) contra la BD H2 embebida (consulta + transacción + construcción del principal),
+ * sin pasar por la caché de UserDetails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadUserByUsernameBenchmark {
+
+    @Param({"student.test@test.com", "student.admin.trainee.test@test.com"})
+    public String email;
+
+    private ConfigurableApplicationContext context;
+    private ApplicationUserService applicationUserService;
+
+    @Setup
+    public void setUp() {
+        this.context = BenchmarkContexts.start(WebApplicationType.NONE);
+        this.applicationUserService = this.context.getBean(ApplicationUserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return this.applicationUserService.loadUserByUsername(this.email);
+    }
+}
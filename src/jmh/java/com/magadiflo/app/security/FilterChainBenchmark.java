@@ -0,0 +1,109 @@
+package com.magadiflo.app.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.magadiflo.app.BenchmarkContexts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Peticiones completas a través del FilterChainProxy (MockMvc, sin red) de un usuario ya autenticado:
+ * <ul>
+ *     <li>mode=session: sesión HTTP obtenida con el formulario de login (configuración por defecto).</li>
+ *     <li>mode=token: modo stateless, con "Authorization: Bearer" (app.security.token.enabled=true).</li>
+ * </ul>
+ * apiGet solo pasa por la autorización por URL; managementGet añade además el @PreAuthorize del controlador.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterChainBenchmark {
+
+    @Param({"session", "token"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private RequestBuilder apiGet;
+    private RequestBuilder managementGet;
+
+    @Setup
+    public void setUp() throws Exception {
+        boolean token = "token".equals(this.mode);
+        this.context = BenchmarkContexts.start(WebApplicationType.SERVLET, "app.security.token.enabled=" + token);
+        this.mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) this.context)
+                .apply(springSecurity())
+                .build();
+
+        // El usuario tiene ROLE_STUDENT (para /api/**) y ROLE_ADMINTRAINEE (para el GET de /management/**)
+        MvcResult login = this.mockMvc.perform(post("/login")
+                        .param("username", "student.admin.trainee.test@test.com").param("password", "test"))
+                .andReturn();
+        if (token) {
+            String accessToken = this.context.getBean(ObjectMapper.class)
+                    .readTree(login.getResponse().getContentAsString()).get("access_token").asText();
+            this.apiGet = withToken(get("/api/v1/students/1"), accessToken);
+            this.managementGet = withToken(get("/management/api/v1/students"), accessToken);
+        } else {
+            MockHttpSession session = (MockHttpSession) login.getRequest().getSession(false);
+            this.apiGet = get("/api/v1/students/1").session(session);
+            this.managementGet = get("/management/api/v1/students").session(session);
+        }
+        assertOk(this.apiGet);
+        assertOk(this.managementGet);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int apiGet() throws Exception {
+        return this.mockMvc.perform(this.apiGet).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int managementGet() throws Exception {
+        return this.mockMvc.perform(this.managementGet).andReturn().getResponse().getStatus();
+    }
+
+    private void assertOk(RequestBuilder request) throws Exception {
+        int status = this.mockMvc.perform(request).andReturn().getResponse().getStatus();
+        if (status != 200) {
+            throw new IllegalStateException("La petición de calentamiento devolvió " + status + " en modo " + this.mode);
+        }
+    }
+
+    private static MockHttpServletRequestBuilder withToken(MockHttpServletRequestBuilder request, String token) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
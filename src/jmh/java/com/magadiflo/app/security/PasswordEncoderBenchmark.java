@@ -0,0 +1,64 @@
+package com.magadiflo.app.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCryptPasswordEncoder.matches(...) según el coste, directamente y a través del PasswordEncoder de la
+ * aplicación (DelegatingPasswordEncoder en el pool de OffloadingPasswordEncoder), para ver lo que añade el
+ * traspaso al pool frente al propio BCrypt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"4", "8", "10", "12"})
+    public int strength;
+
+    private BCryptPasswordEncoder bcrypt;
+    private PasswordEncoder applicationEncoder;
+    private String hash;
+    private String prefixedHash;
+
+    @Setup
+    public void setUp() {
+        this.bcrypt = new BCryptPasswordEncoder(this.strength);
+        this.applicationEncoder = new PasswordConfig().passwordEncoder(this.strength, 1, 64, Duration.ofMinutes(1));
+        this.hash = this.bcrypt.encode("test");
+        this.prefixedHash = this.applicationEncoder.encode("test");
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((OffloadingPasswordEncoder) this.applicationEncoder).destroy();
+    }
+
+    @Benchmark
+    public boolean bcryptMatches() {
+        return this.bcrypt.matches("test", this.hash);
+    }
+
+    @Benchmark
+    public boolean applicationEncoderMatches() {
+        return this.applicationEncoder.matches("test", this.prefixedHash);
+    }
+}
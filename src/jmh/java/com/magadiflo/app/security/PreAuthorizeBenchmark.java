@@ -0,0 +1,109 @@
+package com.magadiflo.app.security;
+
+import com.magadiflo.app.audit.AuditLog;
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthoritySet;
+import com.magadiflo.app.repository.InMemoryStudentRepository;
+import com.magadiflo.app.resource.Student;
+import com.magadiflo.app.resource.StudentManagamentController;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.expression.method.ExpressionBasedPreInvocationAdvice;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.access.prepost.PreInvocationAttribute;
+import org.springframework.security.access.prepost.PreInvocationAuthorizationAdvice;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por invocación de la decisión de @PreAuthorize sobre StudentManagamentController.registerNewStudent:
+ * <ul>
+ *     <li>springSpel: configuración estándar de Spring (SpEL + MethodSecurityExpressionRoot).</li>
+ *     <li>authoritySetSpel: SpEL con la raíz basada en AuthoritySet (app.security.method-security.precompiled=false).</li>
+ *     <li>compiled: expresión precompilada a predicado (configuración por defecto).</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreAuthorizeBenchmark {
+
+    @Param({"hasAuthority('student:write')", "hasAnyRole('ROLE_ADMIN', 'ROLE_ADMINTRAINEE')"})
+    public String expression;
+
+    private Authentication authentication;
+    private MethodInvocation invocation;
+
+    private PreInvocationAuthorizationAdvice springAdvice;
+    private PreInvocationAttribute springAttribute;
+    private PreInvocationAuthorizationAdvice authoritySetAdvice;
+    private PreInvocationAttribute authoritySetAttribute;
+    private PreInvocationAuthorizationAdvice compiledAdvice;
+    private PreInvocationAttribute compiledAttribute;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        ApplicationUser admin = new ApplicationUser("admin.test@test.com", null, true, AuthoritySet.of(Arrays.asList(
+                "ROLE_ADMIN", "student:read", "student:write", "course:read", "course:write")));
+        this.authentication = new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities());
+        this.invocation = new SimpleMethodInvocation(new StudentManagamentController(new InMemoryStudentRepository(), null, null, null,
+                        new StaticListableBeanFactory().getBeanProvider(AuditLog.class)),
+                StudentManagamentController.class.getMethod("registerNewStudent", Student.class), new Student(7, "Lucía"));
+
+        DefaultMethodSecurityExpressionHandler springHandler = new DefaultMethodSecurityExpressionHandler();
+        this.springAdvice = advice(springHandler);
+        this.springAttribute = new ExpressionBasedAnnotationAttributeFactory(springHandler)
+                .createPreInvocationAttribute(null, null, this.expression);
+
+        AuthoritySetMethodSecurityExpressionHandler authoritySetHandler = new AuthoritySetMethodSecurityExpressionHandler();
+        this.authoritySetAdvice = advice(authoritySetHandler);
+        this.authoritySetAttribute = new ExpressionBasedAnnotationAttributeFactory(authoritySetHandler)
+                .createPreInvocationAttribute(null, null, this.expression);
+
+        this.compiledAdvice = new CompiledPreInvocationAdvice(this.authoritySetAdvice);
+        this.compiledAttribute = new CompiledPrePostInvocationAttributeFactory(
+                new ExpressionBasedAnnotationAttributeFactory(authoritySetHandler), new PreAuthorizeExpressionCompiler("ROLE_"))
+                .createPreInvocationAttribute(null, null, this.expression);
+    }
+
+    @Benchmark
+    public boolean springSpel() {
+        return this.springAdvice.before(this.authentication, this.invocation, this.springAttribute);
+    }
+
+    @Benchmark
+    public boolean authoritySetSpel() {
+        return this.authoritySetAdvice.before(this.authentication, this.invocation, this.authoritySetAttribute);
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return this.compiledAdvice.before(this.authentication, this.invocation, this.compiledAttribute);
+    }
+
+    private static PreInvocationAuthorizationAdvice advice(MethodSecurityExpressionHandler expressionHandler) {
+        ExpressionBasedPreInvocationAdvice advice = new ExpressionBasedPreInvocationAdvice();
+        advice.setExpressionHandler(expressionHandler);
+        return advice;
+    }
+}
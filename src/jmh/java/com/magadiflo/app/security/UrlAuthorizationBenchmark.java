@@ -0,0 +1,73 @@
+package com.magadiflo.app.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de resolver la regla de autorización de una petición con N reglas por delante de la que coincide:
+ * <ul>
+ *     <li>antMatchers: AntPathRequestMatcher evaluados en orden, como hace authorizeRequests().</li>
+ *     <li>trie: reglas compiladas en un UrlAuthorizationTrie (app.security.url-authorization.precompiled=true).</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlAuthorizationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int rules;
+
+    private MockHttpServletRequest request;
+    private List<AntPathRequestMatcher> matchers;
+    private UrlAuthorizationTrie trie;
+
+    @Setup
+    public void setUp() {
+        List<UrlAuthorizationRule> urlRules = new ArrayList<>();
+        for (int i = 0; i < this.rules; i++) {
+            urlRules.add(UrlAuthorizationRule.hasRole("MODULE" + i, "/module" + i + "/api/*/items/**"));
+        }
+        urlRules.addAll(ApplicationSecurityConfig.URL_RULES);
+
+        this.matchers = new ArrayList<>();
+        urlRules.forEach(rule -> rule.getPatterns().forEach(pattern -> this.matchers.add(new AntPathRequestMatcher(pattern))));
+        this.trie = new UrlAuthorizationTrie(urlRules);
+
+        this.request = new MockHttpServletRequest("GET", "/management/api/v1/students/42");
+        this.request.setServletPath("/management/api/v1/students/42");
+    }
+
+    @Benchmark
+    public AntPathRequestMatcher antMatchers() {
+        for (AntPathRequestMatcher matcher : this.matchers) {
+            if (matcher.matches(this.request)) {
+                return matcher;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public UrlAuthorizationRule trie() {
+        return this.trie.match(this.request.getServletPath());
+    }
+}
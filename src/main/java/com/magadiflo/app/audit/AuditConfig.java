@@ -0,0 +1,27 @@
+package com.magadiflo.app.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Log de auditoría de logins, denegaciones de acceso y operaciones de administración de estudiantes
+ * (app.audit.enabled=true). Sin él, StudentManagamentController no registra nada.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.audit", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    @Bean
+    public AuditLog auditLog(AuditProperties properties, MeterRegistry meterRegistry) {
+        return new AuditLog(properties, meterRegistry);
+    }
+
+    @Bean
+    public AuditEventListener auditEventListener(AuditLog auditLog) {
+        return new AuditEventListener(auditLog);
+    }
+}
@@ -0,0 +1,56 @@
+package com.magadiflo.app.audit;
+
+/**
+ * Casilla del {@link AuditRingBuffer}. Se reservan todas al crear el buffer y se reutilizan: el hilo que registra
+ * un evento rellena los campos de la casilla que reclamó y el escritor los lee antes de liberarla, así registrar
+ * no crea objetos. Los campos solo son visibles para el escritor a través de la publicación de la casilla.
+ */
+final class AuditEvent {
+
+    private long timestamp;
+    private AuditEventType type;
+    private String principal;
+    private String action;
+    private String outcome;
+    private String remoteAddress;
+
+    void set(long timestamp, AuditEventType type, String principal, String action, String outcome, String remoteAddress) {
+        this.timestamp = timestamp;
+        this.type = type;
+        this.principal = principal;
+        this.action = action;
+        this.outcome = outcome;
+        this.remoteAddress = remoteAddress;
+    }
+
+    /**
+     * Suelta las referencias una vez escrito, para no retener objetos hasta que la casilla se reutilice.
+     */
+    void clear() {
+        this.set(0L, null, null, null, null, null);
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    AuditEventType getType() {
+        return type;
+    }
+
+    String getPrincipal() {
+        return principal;
+    }
+
+    String getAction() {
+        return action;
+    }
+
+    String getOutcome() {
+        return outcome;
+    }
+
+    String getRemoteAddress() {
+        return remoteAddress;
+    }
+}
@@ -0,0 +1,82 @@
+package com.magadiflo.app.audit;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.access.event.AuthorizationFailureEvent;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.authorization.event.AuthorizationDeniedEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Traduce los eventos de Spring Security a eventos de auditoría: logins correctos y fallidos, denegaciones de
+ * {@code @PreAuthorize} (AuthorizationFailureEvent) y de las reglas por URL (AuthorizationDeniedEvent).
+ * Se ejecuta en el hilo de la petición: solo copia unos pocos campos al buffer de {@link AuditLog}.
+ */
+public class AuditEventListener {
+
+    private final AuditLog auditLog;
+
+    public AuditEventListener(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        Authentication authentication = event.getAuthentication();
+        this.auditLog.record(AuditEventType.AUTHENTICATION_SUCCESS, authentication.getName(), "login", "success",
+                remoteAddress(authentication));
+    }
+
+    @EventListener
+    public void onAuthenticationFailure(AbstractAuthenticationFailureEvent event) {
+        Authentication authentication = event.getAuthentication();
+        this.auditLog.record(AuditEventType.AUTHENTICATION_FAILURE, authentication.getName(), "login",
+                event.getException().getClass().getSimpleName(), remoteAddress(authentication));
+    }
+
+    @EventListener
+    public void onMethodAuthorizationFailure(AuthorizationFailureEvent event) {
+        Object secured = event.getSource();
+        String action = secured instanceof MethodInvocation
+                ? ((MethodInvocation) secured).getMethod().getDeclaringClass().getSimpleName() + "."
+                + ((MethodInvocation) secured).getMethod().getName()
+                : String.valueOf(secured);
+        Authentication authentication = event.getAuthentication();
+        this.auditLog.record(AuditEventType.ACCESS_DENIED, authentication.getName(), action,
+                event.getAccessDeniedException().getClass().getSimpleName(), remoteAddress(authentication));
+    }
+
+    @EventListener
+    public void onRequestAuthorizationDenied(AuthorizationDeniedEvent<?> event) {
+        Authentication authentication = event.getAuthentication().get();
+        String principal = authentication == null ? null : authentication.getName();
+        if (event.getSource() instanceof HttpServletRequest) {
+            HttpServletRequest request = (HttpServletRequest) event.getSource();
+            this.auditLog.record(AuditEventType.ACCESS_DENIED, principal,
+                    request.getMethod() + " " + request.getRequestURI(), "denied", request.getRemoteAddr());
+        } else {
+            this.auditLog.record(AuditEventType.ACCESS_DENIED, principal, String.valueOf(event.getSource()), "denied",
+                    remoteAddress(authentication));
+        }
+    }
+
+    /**
+     * La IP guardada en el login o, si la autenticación no la tiene (tokens), la de la petición en curso.
+     */
+    private static String remoteAddress(Authentication authentication) {
+        if (authentication != null && authentication.getDetails() instanceof WebAuthenticationDetails) {
+            return ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes
+                ? ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr()
+                : null;
+    }
+}
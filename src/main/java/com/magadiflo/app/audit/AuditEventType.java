@@ -0,0 +1,27 @@
+package com.magadiflo.app.audit;
+
+/**
+ * Tipos de registro del log de auditoría.
+ */
+public enum AuditEventType {
+
+    /**
+     * Login correcto (AuthenticationSuccessEvent).
+     */
+    AUTHENTICATION_SUCCESS,
+
+    /**
+     * Login fallido; el resultado es el tipo de la excepción (BadCredentialsException, DisabledException...).
+     */
+    AUTHENTICATION_FAILURE,
+
+    /**
+     * Acceso denegado por una regla de URL o por @PreAuthorize.
+     */
+    ACCESS_DENIED,
+
+    /**
+     * Operación sobre /management/api/v1/students.
+     */
+    MANAGEMENT_OPERATION
+}
@@ -0,0 +1,110 @@
+package com.magadiflo.app.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fichero de auditoría de solo anexado. Solo lo usa el hilo escritor de {@link AuditLog}.
+ */
+interface AuditFile extends Closeable {
+
+    void append(ByteBuffer bytes) throws IOException;
+
+    static AuditFile open(Path path, boolean memoryMapped, int mappedRegionSize) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return memoryMapped ? new Mapped(path, mappedRegionSize) : new Channel(path);
+    }
+
+    /**
+     * Un write al FileChannel abierto en modo APPEND por lote: una llamada al sistema por lote, no por evento.
+     */
+    final class Channel implements AuditFile {
+
+        private final FileChannel channel;
+
+        Channel(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void append(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                this.channel.write(bytes);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Proyecta en memoria una región del fichero a continuación del final y copia los lotes en ella, sin llamadas
+     * al sistema hasta que la región se llena y se proyecta la siguiente. El fichero crece de región en región; al
+     * cerrar se recorta a lo escrito. Si el proceso termina sin cerrar, la última región queda rellena de bytes
+     * 0: al reabrir se continúa tras el último byte no nulo (ninguna línea contiene bytes 0).
+     */
+    final class Mapped implements AuditFile {
+
+        private final FileChannel channel;
+        private final int regionSize;
+        private long regionStart;
+        private MappedByteBuffer region;
+
+        Mapped(Path path, int regionSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.regionSize = regionSize;
+            this.regionStart = this.logicalEnd();
+            this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, this.regionStart, this.regionSize);
+        }
+
+        @Override
+        public void append(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                if (!this.region.hasRemaining()) {
+                    this.region.force();
+                    this.regionStart += this.regionSize;
+                    this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, this.regionStart, this.regionSize);
+                }
+                int chunk = Math.min(bytes.remaining(), this.region.remaining());
+                this.region.put(this.region.position(), bytes, bytes.position(), chunk);
+                this.region.position(this.region.position() + chunk);
+                bytes.position(bytes.position() + chunk);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.region.force();
+            this.channel.truncate(this.regionStart + this.region.position());
+            this.channel.close();
+        }
+
+        private long logicalEnd() throws IOException {
+            long size = this.channel.size();
+            long from = Math.max(0L, size - this.regionSize);
+            ByteBuffer tail = ByteBuffer.allocate((int) (size - from));
+            int read = 0;
+            while (tail.hasRemaining() && read >= 0) {
+                read = this.channel.read(tail, from + tail.position());
+            }
+            int end = tail.position();
+            while (end > 0 && tail.get(end - 1) == 0) {
+                end--;
+            }
+            return from + end;
+        }
+    }
+}
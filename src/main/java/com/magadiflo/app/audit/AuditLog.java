@@ -0,0 +1,225 @@
+package com.magadiflo.app.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log de auditoría asíncrono: {@link #record} deja el evento en un {@link AuditRingBuffer} preasignado (sin locks ni
+ * E/S en el hilo de la petición) y un hilo escritor lo vacía por lotes en un fichero de solo anexado, una línea
+ * JSON por evento. Con app.audit.memory-mapped=true el fichero se escribe a través de una región proyectada en
+ * memoria (ver AuditFile).
+ * <p>
+ * Si el escritor no da abasto y el buffer se llena, se aplica app.audit.overflow-policy: drop descarta el evento y
+ * wait espera como mucho overflow-wait. Los descartes se cuentan en audit.events.dropped (reason=overflow, io-error
+ * si falla la escritura, o stopped si el log ya no está en marcha); audit.events.written cuenta los escritos y
+ * audit.buffer.pending los que esperan.
+ * <p>
+ * Arranca antes que el servidor web y se para después ({@link #PHASE}), así que las peticiones que aún se atienden
+ * durante el apagado siguen auditándose; al parar se escribe lo pendiente antes de cerrar el fichero.
+ */
+public class AuditLog implements SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuditLog.class);
+    private static final long OVERFLOW_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Por debajo de la fase del servidor web embebido (SmartLifecycle.DEFAULT_PHASE - 1) y de su apagado ordenado.
+     */
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    private final AuditRingBuffer ringBuffer;
+    private final Path path;
+    private final boolean memoryMapped;
+    private final int mappedRegionSize;
+    private final int batchSize;
+    private final AuditProperties.OverflowPolicy overflowPolicy;
+    private final long overflowWaitNanos;
+    private final long pollIntervalNanos;
+    private final Counter written;
+    private final Counter droppedOnOverflow;
+    private final Counter droppedOnError;
+    private final Counter droppedWhenStopped;
+    private final StringBuilder batch = new StringBuilder();
+
+    private volatile boolean running;
+    private Thread writer;
+    private AuditFile file;
+    private boolean failing;
+
+    public AuditLog(AuditProperties properties, MeterRegistry meterRegistry) {
+        this.ringBuffer = new AuditRingBuffer(properties.getCapacity());
+        this.path = Paths.get(properties.getPath());
+        this.memoryMapped = properties.isMemoryMapped();
+        this.mappedRegionSize = (int) properties.getMappedRegionSize().toBytes();
+        this.batchSize = properties.getBatchSize();
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.overflowWaitNanos = properties.getOverflowWait().toNanos();
+        this.pollIntervalNanos = properties.getPollInterval().toNanos();
+        this.written = Counter.builder("audit.events.written")
+                .description("Eventos de auditoría escritos en el fichero").register(meterRegistry);
+        this.droppedOnOverflow = Counter.builder("audit.events.dropped").tag("reason", "overflow")
+                .description("Eventos de auditoría descartados").register(meterRegistry);
+        this.droppedOnError = Counter.builder("audit.events.dropped").tag("reason", "io-error")
+                .description("Eventos de auditoría descartados").register(meterRegistry);
+        this.droppedWhenStopped = Counter.builder("audit.events.dropped").tag("reason", "stopped")
+                .description("Eventos de auditoría descartados").register(meterRegistry);
+        Gauge.builder("audit.buffer.pending", this.ringBuffer, AuditRingBuffer::size)
+                .description("Eventos de auditoría en el buffer, pendientes de escribir").register(meterRegistry);
+    }
+
+    /**
+     * Registra un evento sin bloquear (salvo con overflow-policy=wait y el buffer lleno). Los campos pueden ser null.
+     */
+    public void record(AuditEventType type, String principal, String action, String outcome, String remoteAddress) {
+        if (!this.running) {
+            this.droppedWhenStopped.increment();
+            return;
+        }
+        long sequence = this.claim();
+        if (sequence < 0) {
+            this.droppedOnOverflow.increment();
+            return;
+        }
+        this.ringBuffer.slot(sequence).set(System.currentTimeMillis(), type, principal, action, outcome, remoteAddress);
+        this.ringBuffer.publish(sequence);
+    }
+
+    public long written() {
+        return (long) this.written.count();
+    }
+
+    public long dropped() {
+        return (long) (this.droppedOnOverflow.count() + this.droppedOnError.count() + this.droppedWhenStopped.count());
+    }
+
+    private long claim() {
+        long sequence = this.ringBuffer.tryClaim();
+        if (sequence >= 0 || this.overflowPolicy == AuditProperties.OverflowPolicy.DROP) {
+            return sequence;
+        }
+        long deadline = System.nanoTime() + this.overflowWaitNanos;
+        while (sequence < 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(OVERFLOW_PARK_NANOS);
+            sequence = this.ringBuffer.tryClaim();
+        }
+        return sequence;
+    }
+
+    @Override
+    public void start() {
+        try {
+            this.file = AuditFile.open(this.path, this.memoryMapped, this.mappedRegionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el fichero de auditoría " + this.path.toAbsolutePath(), e);
+        }
+        this.running = true;
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        LOG.info("Log de auditoría en {} (buffer de {} eventos, {})", this.path.toAbsolutePath(),
+                this.ringBuffer.capacity(), this.memoryMapped ? "memory-mapped" : "FileChannel");
+    }
+
+    @Override
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            this.file.close();
+        } catch (IOException e) {
+            LOG.warn("Error al cerrar el fichero de auditoría {}", this.path.toAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    private void writeLoop() {
+        while (true) {
+            int drained = this.ringBuffer.drain(this::append, this.batchSize);
+            if (drained > 0) {
+                this.flush(drained);
+            } else if (!this.running) {
+                return;
+            } else {
+                LockSupport.parkNanos(this.pollIntervalNanos);
+            }
+        }
+    }
+
+    private void flush(int events) {
+        ByteBuffer bytes = ByteBuffer.wrap(this.batch.toString().getBytes(StandardCharsets.UTF_8));
+        this.batch.setLength(0);
+        try {
+            this.file.append(bytes);
+            this.written.increment(events);
+            if (this.failing) {
+                LOG.info("El fichero de auditoría {} vuelve a admitir escrituras", this.path.toAbsolutePath());
+                this.failing = false;
+            }
+        } catch (IOException e) {
+            this.droppedOnError.increment(events);
+            if (!this.failing) {
+                LOG.warn("No se pudo escribir en el fichero de auditoría {}; se descartan los eventos hasta que se recupere",
+                        this.path.toAbsolutePath(), e);
+                this.failing = true;
+            }
+        }
+    }
+
+    private void append(AuditEvent event) {
+        this.batch.append("{\"timestamp\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(event.getTimestamp()), this.batch);
+        this.batch.append("\",\"type\":\"").append(event.getType()).append('"');
+        this.field("principal", event.getPrincipal());
+        this.field("action", event.getAction());
+        this.field("outcome", event.getOutcome());
+        this.field("remoteAddress", event.getRemoteAddress());
+        this.batch.append("}\n");
+    }
+
+    private void field(String name, String value) {
+        if (value == null) {
+            return;
+        }
+        this.batch.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                this.batch.append('\\').append(c);
+            } else if (c < 0x20) {
+                this.batch.append(String.format("\\u%04x", (int) c));
+            } else {
+                this.batch.append(c);
+            }
+        }
+        this.batch.append('"');
+    }
+}
@@ -0,0 +1,103 @@
+package com.magadiflo.app.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Log de auditoría (app.audit.*), ver {@link AuditLog}.
+ */
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditProperties {
+
+    /**
+     * Qué hacer cuando el buffer está lleno: descartar el evento enseguida o esperar hasta overflow-wait a que el
+     * escritor libere sitio (y descartarlo si no lo hace).
+     */
+    public enum OverflowPolicy {
+        DROP, WAIT
+    }
+
+    private boolean enabled;
+    private String path = "logs/audit.log";
+    private int capacity = 8192;
+    private int batchSize = 512;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private Duration overflowWait = Duration.ofMillis(5);
+    private Duration pollInterval = Duration.ofMillis(10);
+    private boolean memoryMapped;
+    private DataSize mappedRegionSize = DataSize.ofMegabytes(8);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public Duration getOverflowWait() {
+        return overflowWait;
+    }
+
+    public void setOverflowWait(Duration overflowWait) {
+        this.overflowWait = overflowWait;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    public DataSize getMappedRegionSize() {
+        return mappedRegionSize;
+    }
+
+    public void setMappedRegionSize(DataSize mappedRegionSize) {
+        this.mappedRegionSize = mappedRegionSize;
+    }
+}
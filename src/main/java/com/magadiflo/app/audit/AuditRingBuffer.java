@@ -0,0 +1,96 @@
+package com.magadiflo.app.audit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular sin locks para varios productores y un único consumidor, con las casillas reservadas de antemano.
+ * <p>
+ * Cada evento ocupa la secuencia siguiente: el productor la reclama con un CAS sobre el contador (solo si la
+ * casilla que le corresponde ya fue consumida), rellena la casilla y la publica escribiendo su secuencia en
+ * published con semántica release. El consumidor avanza mientras la casilla de la secuencia esperada esté
+ * publicada y, al terminar el lote, mueve consumed para devolver las casillas a los productores.
+ * <p>
+ * Si un productor se detiene entre reclamar y publicar, el consumidor espera a esa casilla (los eventos se escriben
+ * en orden de secuencia). Con el buffer lleno tryClaim devuelve -1 y quien llama decide (ver AuditLog).
+ */
+final class AuditRingBuffer {
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final AuditEvent[] slots;
+    private final long[] published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    AuditRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacidad del buffer de auditoría debe ser una potencia de 2: " + capacity);
+        }
+        this.slots = new AuditEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new AuditEvent();
+        }
+        this.published = new long[capacity];
+        Arrays.fill(this.published, -1L);
+        this.mask = capacity - 1;
+    }
+
+    int capacity() {
+        return this.slots.length;
+    }
+
+    /**
+     * Reclama la siguiente secuencia, o devuelve -1 si el buffer está lleno.
+     */
+    long tryClaim() {
+        while (true) {
+            long sequence = this.claimed.get();
+            if (sequence - this.consumed >= this.slots.length) {
+                return -1L;
+            }
+            if (this.claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    AuditEvent slot(long sequence) {
+        return this.slots[(int) sequence & this.mask];
+    }
+
+    void publish(long sequence) {
+        PUBLISHED.setRelease(this.published, (int) sequence & this.mask, sequence);
+    }
+
+    /**
+     * Entrega en orden hasta max eventos publicados y libera sus casillas. Solo desde el hilo consumidor: el
+     * consumer debe copiar lo que necesite, la casilla se reutiliza en cuanto este método termina.
+     */
+    int drain(Consumer<AuditEvent> consumer, int max) {
+        long next = this.consumed;
+        int count = 0;
+        while (count < max && (long) PUBLISHED.getAcquire(this.published, (int) next & this.mask) == next) {
+            AuditEvent event = this.slots[(int) next & this.mask];
+            consumer.accept(event);
+            event.clear();
+            next++;
+            count++;
+        }
+        if (count > 0) {
+            this.consumed = next;
+        }
+        return count;
+    }
+
+    /**
+     * Eventos reclamados y aún no consumidos (aproximado si hay productores activos).
+     */
+    int size() {
+        return (int) Math.max(0L, this.claimed.get() - this.consumed);
+    }
+}
@@ -0,0 +1,131 @@
+package com.magadiflo.app.auth;
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Objects;
+
+/**
+ * Principal de la aplicación. A diferencia de org.springframework.security.core.userdetails.User,
+ * que copia los authorities a un TreeSet de SimpleGrantedAuthority, este conserva el
+ * {@link AuthoritySet} tal cual, así que las comprobaciones de roles y permisos son O(1)
+ * y el principal no duplica las cadenas de cada authority.
+ * <p>
+ * authorityVersion es la versión de los cambios de authorities (ver AuthorityVersionRegistry) vigente cuando se
+ * leyeron de la BD; permite detectar en cada petición si la sesión tiene authorities obsoletos. loadStamp son
+ * las versiones de la caché de usuarios y de revocación de tokens leídas antes de esa carga (null si el principal
+ * no sale de la BD).
+ */
+public class ApplicationUser implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private String password;
+    private final boolean enabled;
+    private final AuthoritySet authorities;
+    private volatile long authorityVersion;
+    private final LoadStamp loadStamp;
+
+    public ApplicationUser(String username, String password, boolean enabled, AuthoritySet authorities) {
+        this(username, password, enabled, authorities, 0L);
+    }
+
+    public ApplicationUser(String username, String password, boolean enabled, AuthoritySet authorities,
+                           long authorityVersion) {
+        this(username, password, enabled, authorities, authorityVersion, null);
+    }
+
+    public ApplicationUser(String username, String password, boolean enabled, AuthoritySet authorities,
+                           long authorityVersion, LoadStamp loadStamp) {
+        this.username = Objects.requireNonNull(username, "username");
+        this.password = password;
+        this.enabled = enabled;
+        this.authorities = Objects.requireNonNull(authorities, "authorities");
+        this.authorityVersion = authorityVersion;
+        this.loadStamp = loadStamp;
+    }
+
+    public ApplicationUser(ApplicationUser user) {
+        this(user.username, user.password, user.enabled, user.authorities, user.authorityVersion, user.loadStamp);
+    }
+
+    @Override
+    public AuthoritySet getAuthorities() {
+        return authorities;
+    }
+
+    public long getAuthorityVersion() {
+        return authorityVersion;
+    }
+
+    public LoadStamp getLoadStamp() {
+        return loadStamp;
+    }
+
+    /**
+     * La adelanta AuthorityVersionRegistry cuando comprueba que los cambios posteriores no afectan a este usuario,
+     * así la siguiente petición no vuelve a revisarlos.
+     */
+    public void setAuthorityVersion(long authorityVersion) {
+        this.authorityVersion = authorityVersion;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+
+    // Igual que el User de Spring: dos principals son iguales si tienen el mismo username
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ApplicationUser)) return false;
+        return this.username.equals(((ApplicationUser) o).username);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.username.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("ApplicationUser{");
+        sb.append("username='").append(username).append('\'');
+        sb.append(", enabled=").append(enabled);
+        sb.append(", authorities=").append(authorities);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -1,88 +1,122 @@
 package com.magadiflo.app.auth;
 
-import com.magadiflo.app.domain.Permission;
-import com.magadiflo.app.domain.Role;
-import com.magadiflo.app.domain.User;
+import com.magadiflo.app.auth.refresh.AuthorityVersionRegistry;
 import com.magadiflo.app.repository.IUserRepository;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.magadiflo.app.repository.UserAuthorityView;
+import com.magadiflo.app.security.token.TokenRevocationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @Transactional
-public class ApplicationUserService implements UserDetailsService {
+public class ApplicationUserService implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApplicationUserService.class);
 
     private final IUserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final RoleHierarchyClosure roleHierarchyClosure;
+    private final ObjectProvider<AuthorityVersionRegistry> authorityVersionRegistry;
+    private final ObjectProvider<TokenRevocationRegistry> tokenRevocationRegistry;
 
-    public ApplicationUserService(IUserRepository userRepository) {
+    public ApplicationUserService(IUserRepository userRepository, UserDetailsCache userDetailsCache,
+                                  RoleHierarchyClosure roleHierarchyClosure,
+                                  ObjectProvider<AuthorityVersionRegistry> authorityVersionRegistry,
+                                  ObjectProvider<TokenRevocationRegistry> tokenRevocationRegistry) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.roleHierarchyClosure = roleHierarchyClosure;
+        this.authorityVersionRegistry = authorityVersionRegistry;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
     }
 
+    /**
+     * Los datos del usuario y sus roles se obtienen en una única consulta (ver IUserRepository.findRolesByEmail)
+     * y los permisos, propios y heredados, salen de la clausura precalculada ({@link RoleHierarchyClosure}),
+     * así el número de sentencias SQL por login no depende de cuántos roles tenga el usuario ni de la
+     * profundidad de la jerarquía.
+     * <p>
+     * La versión de authorities se lee antes de la consulta: cualquier cambio posterior a ella se detectará en
+     * la siguiente petición del usuario (ver AuthorityRefreshFilter), aunque ya esté reflejado en lo leído. Por
+     * lo mismo, la generación de UserDetailsCache y, en modo stateless, las versiones de revocación de tokens se
+     * leen antes y viajan en el {@link LoadStamp} hasta que se guarda el usuario en la caché o se emite el token.
+     */
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = this.userRepository.findByEmail(username);
-        if (user == null) {
+        AuthorityVersionRegistry versionRegistry = this.authorityVersionRegistry.getIfAvailable();
+        long authorityVersion = versionRegistry == null ? 0L : versionRegistry.currentVersion();
+        TokenRevocationRegistry revocationRegistry = this.tokenRevocationRegistry.getIfAvailable();
+        long userCacheGeneration = this.userDetailsCache.generation();
+        LoadStamp loadStamp = revocationRegistry == null ? new LoadStamp(userCacheGeneration, 0L, 0L)
+                : new LoadStamp(userCacheGeneration, revocationRegistry.currentVersion(username),
+                revocationRegistry.currentAuthorityVersion());
+        List<UserAuthorityView> rows = this.userRepository.findRolesByEmail(username);
+        if (rows.isEmpty()) {
             throw new UsernameNotFoundException(String.format("El usuario %s no fue encontrado en la BD", username));
         } else {
-            return new org.springframework.security.core.userdetails.User(
+            UserAuthorityView user = rows.get(0);
+            if (revocationRegistry != null && !user.getEmail().equals(username)) {
+                // Login con otra capitalización (collation que no distingue): se revoca por el email guardado
+                loadStamp = new LoadStamp(userCacheGeneration, revocationRegistry.currentVersion(user.getEmail()),
+                        loadStamp.getTokenAuthorityVersion());
+            }
+            return new ApplicationUser(
                     user.getEmail(),
                     user.getPassword(),
                     user.isEnabled(),
-                    true, true, true,
-                    this.getAuthorities(user.getRoles()));
+                    this.getAuthorities(rows),
+                    authorityVersion,
+                    loadStamp);
         }
     }
 
-    private Collection<? extends GrantedAuthority> getAuthorities(Collection<Role> roles) {
-        return this.getGrantedAuthorities(this.getPermissions(roles));
-    }
-
     /**
-     * Método que devuelve una lista con el nombre de los roles y permisos.
-     * Sí, todos estarán en una sola lista y serán considerados como authorities (por el lado de spring).
-     * Ejemplo de la lista que podría retorna:
-     * "ROLE_ADMIN", "student:read", "student:write", "course:read", "course:write"
+     * El DaoAuthenticationProvider lo llama tras un login correcto cuando PasswordEncoder.upgradeEncoding(...)
+     * indica que el hash guardado es antiguo (sin prefijo {bcrypt} o con un coste menor al configurado).
+     * Se actualiza solo la columna password con una sentencia UPDATE: no es un cambio de datos del usuario,
+     * así que no debe revocar sus tokens; basta con sacarlo de la caché para que no siga viendo el hash antiguo.
      */
-    private List<String> getPermissions(Collection<Role> roles) {
-        return Stream.concat(this.getRolesNameAsPermission(roles).stream(), this.getNameOfEachPermission(roles).stream())
-                .collect(Collectors.toList());
-    }
-
-    // Método que devuelve el nombre de cada rol dentro de una lista
-    private List<String> getRolesNameAsPermission(Collection<Role> roles) {
-        return roles.stream().map(Role::getName).collect(Collectors.toList());
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        this.userRepository.updatePassword(user.getUsername(), newPassword);
+        this.userDetailsCache.removeUserFromCache(user.getUsername());
+        LOG.info("Se actualizó la codificación del password del usuario {}", user.getUsername());
+        if (user instanceof ApplicationUser) {
+            ApplicationUser applicationUser = (ApplicationUser) user;
+            return new ApplicationUser(applicationUser.getUsername(), newPassword, applicationUser.isEnabled(),
+                    applicationUser.getAuthorities(), applicationUser.getAuthorityVersion(),
+                    applicationUser.getLoadStamp());
+        }
+        return User.withUserDetails(user).password(newPassword).build();
     }
 
     /**
-     * Método que devuelve a partir de cada uno de los roles el nombre de cada uno de sus permisos.
-     * El flatMap recibe las colecciones de los permisos y como salida los aplana en un único stream de permisos.
-     * El método por referencia: Collection::stream es igual a lambda: permissions -> permissions.stream()
-     * Nota: Podría suceder que varios roles tengan el mismo permission, produciéndose duplicado en el retorno
-     * de esta lista. Entonces, como el map nos devuelve un string de cada nombre del permiso,
-     * aplicamos en ese caso el distinct(), pero ¡Ojo!, si usáramos el objeto Permission y no una cadena, entonces
-     * sería en ese caso necesario agregar en la clase Permission el método equals and hasCode, puesto que estos
-     * sirven precisamente para comparar los objetos, pero ese no es nuestro caso, ya que el map devuelve un string
-     * de los nombres de los permisos.
+     * Método que devuelve un conjunto con el nombre de los roles directos y sus permisos (incluidos los heredados).
+     * Sí, todos estarán en un solo conjunto y serán considerados como authorities (por el lado de spring).
+     * Ejemplo del conjunto que podría retornar:
+     * "ROLE_ADMIN", "student:read", "student:write", "course:read", "course:write"
+     * <p>
+     * Los nombres de rol heredados no se añaden (un ROLE_ADMIN no es ROLE_STUDENT), solo sus permisos.
+     * El resultado es un bitset con O(1) por consulta (ver {@link AuthoritySet}) en lugar de una lista de
+     * SimpleGrantedAuthority. Visibilidad de paquete para poder medirlo aislado (AuthorityResolutionBenchmark).
      */
-    private List<String> getNameOfEachPermission(Collection<Role> roles) {
-        return roles.stream()
-                .map(Role::getPermissions)
-                .flatMap(Collection::stream)
-                .map(Permission::getName)
-                .distinct()
-                .collect(Collectors.toList());
-    }
-
-    private List<GrantedAuthority> getGrantedAuthorities(List<String> permissions) {
-        return permissions.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+    AuthoritySet getAuthorities(List<UserAuthorityView> rows) {
+        Set<String> roles = new LinkedHashSet<>();
+        rows.stream().map(UserAuthorityView::getRoleName).filter(Objects::nonNull).forEach(roles::add);
+        return this.roleHierarchyClosure.resolve(roles);
     }
 }
@@ -0,0 +1,185 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.domain.Role;
+import com.magadiflo.app.domain.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Escucha los eventos de Hibernate sobre User, Role y Permission (incluidas las colecciones
+ * users_roles y roles_permissions) y, una vez confirmada la transacción, publica un
+ * {@link AuthorityDataChangedEvent} por cada tipo de entidad afectada.
+ * Publicar después del commit evita que otro hilo vuelva a cachear datos aún no confirmados.
+ */
+@Component
+public class AuthorityDataChangeListener implements PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionUpdateEventListener, PostCollectionRecreateEventListener, PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient EntityManagerFactory entityManagerFactory;
+    private final transient ApplicationEventPublisher eventPublisher;
+
+    public AuthorityDataChangeListener(EntityManagerFactory entityManagerFactory, ApplicationEventPublisher eventPublisher) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        SessionFactoryImplementor sessionFactory = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        this.entityChanged(event.getEntity(), event.getPersister(), event.getOldState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        this.entityChanged(event.getEntity(), event.getPersister(), event.getDeletedState());
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        this.collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        this.collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        this.collectionChanged(event);
+    }
+
+    // Los cambios se procesan en el mismo hilo del flush, no hace falta esperar al commit para registrarlos
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // Hibernate 5.6 aún declara abstracta la variante mal escrita
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return this.requiresPostCommitHandling(persister);
+    }
+
+    private void entityChanged(Object entity, EntityPersister persister, Object[] previousState) {
+        if (entity instanceof User) {
+            User user = (User) entity;
+            this.record(AuthorityDataChangedEvent.Kind.USER, user.getEmail(), previousValue(persister, previousState, "email"));
+        } else if (entity instanceof Role) {
+            Role role = (Role) entity;
+            this.record(AuthorityDataChangedEvent.Kind.ROLE, role.getName(), previousValue(persister, previousState, "name"));
+        } else if (entity instanceof Permission) {
+            Permission permission = (Permission) entity;
+            this.record(AuthorityDataChangedEvent.Kind.PERMISSION, permission.getName(), previousValue(persister, previousState, "name"));
+        }
+    }
+
+    private void collectionChanged(AbstractCollectionEvent event) {
+        Object owner = event.getAffectedOwnerOrNull();
+        if (owner instanceof User) {
+            this.record(AuthorityDataChangedEvent.Kind.USER, ((User) owner).getEmail(), null);
+        } else if (owner instanceof Role) {
+            this.record(AuthorityDataChangedEvent.Kind.ROLE, ((Role) owner).getName(), null);
+        }
+    }
+
+    private static String previousValue(EntityPersister persister, Object[] state, String propertyName) {
+        if (state == null) {
+            return null;
+        }
+        String[] propertyNames = persister.getPropertyNames();
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyNames[i].equals(propertyName)) {
+                return (String) state[i];
+            }
+        }
+        return null;
+    }
+
+    private void record(AuthorityDataChangedEvent.Kind kind, String name, String previousName) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<AuthorityDataChangedEvent.Kind, Set<String>> changes = new EnumMap<>(AuthorityDataChangedEvent.Kind.class);
+            addChange(changes, kind, name, previousName);
+            this.publish(changes);
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        addChange(pending.changes, kind, name, previousName);
+    }
+
+    private static void addChange(Map<AuthorityDataChangedEvent.Kind, Set<String>> changes, AuthorityDataChangedEvent.Kind kind,
+                                  String name, String previousName) {
+        Set<String> names = changes.computeIfAbsent(kind, k -> new LinkedHashSet<>());
+        if (name != null) {
+            names.add(name);
+        }
+        if (previousName != null) {
+            names.add(previousName);
+        }
+    }
+
+    private void publish(Map<AuthorityDataChangedEvent.Kind, Set<String>> changes) {
+        changes.forEach((kind, names) -> this.eventPublisher.publishEvent(new AuthorityDataChangedEvent(this, kind, names)));
+    }
+
+    /**
+     * Cambios acumulados durante una transacción. Se publican en afterCommit y se descartan si hay rollback.
+     */
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<AuthorityDataChangedEvent.Kind, Set<String>> changes = new EnumMap<>(AuthorityDataChangedEvent.Kind.class);
+
+        @Override
+        public void afterCommit() {
+            publish(this.changes);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AuthorityDataChangeListener.this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.magadiflo.app.auth;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Evento que se publica (después del commit) cuando cambia alguna fila de la que dependen
+ * los authorities de un usuario: un usuario, un rol o un permiso.
+ * Los names son los identificadores de negocio afectados: emails para USER,
+ * nombres de rol para ROLE y nombres de permiso para PERMISSION.
+ */
+public class AuthorityDataChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind {
+        USER, ROLE, PERMISSION
+    }
+
+    private final Kind kind;
+    private final Set<String> names;
+
+    public AuthorityDataChangedEvent(Object source, Kind kind, Set<String> names) {
+        super(source);
+        this.kind = kind;
+        this.names = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("AuthorityDataChangedEvent{");
+        sb.append("kind=").append(kind);
+        sb.append(", names=").append(names);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.magadiflo.app.auth;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro que interna el nombre de cada rol y permiso (authority) en un id entero denso: 0, 1, 2, ...
+ * Gracias a esos ids, los authorities de un usuario se pueden guardar en un {@link AuthoritySet}
+ * (un bitset) en lugar de una lista de cadenas.
+ * <p>
+ * Cada authority tiene una única instancia de GrantedAuthority compartida por todos los principals.
+ * Los ids solo son válidos dentro de este proceso: nunca deben salir de él (sesiones serializadas,
+ * tokens, etc.), para eso se usan los nombres.
+ * <p>
+ * Las lecturas (idOf, authority) no bloquean; solo el alta de un nombre nuevo se sincroniza.
+ */
+public final class AuthorityRegistry {
+
+    private static final AuthorityRegistry SHARED = new AuthorityRegistry();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile GrantedAuthority[] authorities = new GrantedAuthority[64];
+    private int size;
+
+    AuthorityRegistry() {
+    }
+
+    /**
+     * Registro compartido por toda la aplicación.
+     */
+    public static AuthorityRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Devuelve el id del authority, registrándolo si es la primera vez que se ve.
+     */
+    public int intern(String name) {
+        Integer id = this.ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = this.ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            GrantedAuthority[] current = this.authorities;
+            if (this.size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            int next = this.size;
+            current[next] = new SimpleGrantedAuthority(name);
+            // La escritura volátil publica el nuevo elemento antes de que el id sea visible en el mapa
+            this.authorities = current;
+            this.ids.put(name, next);
+            this.size++;
+            return next;
+        }
+    }
+
+    /**
+     * Devuelve el id del authority o -1 si nunca se ha registrado (en ese caso nadie lo puede tener).
+     */
+    public int idOf(String name) {
+        Integer id = this.ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public GrantedAuthority authority(int id) {
+        return this.authorities[id];
+    }
+
+    public String name(int id) {
+        return this.authority(id).getAuthority();
+    }
+
+    public int size() {
+        return this.ids.size();
+    }
+}
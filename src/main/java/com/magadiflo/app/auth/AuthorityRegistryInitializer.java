@@ -0,0 +1,36 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.repository.IPermissionRepository;
+import com.magadiflo.app.repository.IRoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Interna en el {@link AuthorityRegistry} todos los permisos y roles existentes cuando la aplicación
+ * ya arrancó (después del SetupDataLoader), así los ids quedan densos y agrupados: primero los
+ * permisos y luego los roles. Los authorities que se creen más adelante se registran al vuelo.
+ */
+@Component
+public class AuthorityRegistryInitializer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuthorityRegistryInitializer.class);
+
+    private final IPermissionRepository permissionRepository;
+    private final IRoleRepository roleRepository;
+
+    public AuthorityRegistryInitializer(IPermissionRepository permissionRepository, IRoleRepository roleRepository) {
+        this.permissionRepository = permissionRepository;
+        this.roleRepository = roleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void internAuthorities() {
+        AuthorityRegistry registry = AuthorityRegistry.shared();
+        this.permissionRepository.findAllNames().forEach(registry::intern);
+        this.roleRepository.findAllNames().forEach(registry::intern);
+        LOG.info("Authorities registrados en el AuthorityRegistry: {}", registry.size());
+    }
+}
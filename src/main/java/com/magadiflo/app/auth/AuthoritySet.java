@@ -0,0 +1,222 @@
+package com.magadiflo.app.auth;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Colección inmutable de authorities respaldada por un bitset sobre los ids del {@link AuthorityRegistry}.
+ * contains(...) es O(1): se resuelve el id del nombre y se consulta un bit, sin recorrer ni comparar cadenas.
+ * Al iterar se devuelven las instancias de GrantedAuthority compartidas del registro, así que un
+ * principal solo ocupa unos pocos long, sin importar cuántos roles y permisos tenga.
+ * <p>
+ * Al serializarse (por ejemplo dentro de la sesión HTTP) se escriben los nombres y no los ids,
+ * porque estos últimos solo tienen sentido dentro del proceso que los asignó.
+ */
+public final class AuthoritySet extends AbstractCollection<GrantedAuthority> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final long[] NO_WORDS = new long[0];
+
+    private final transient AuthorityRegistry registry;
+    private final transient long[] words;
+    private final transient int size;
+
+    private AuthoritySet(AuthorityRegistry registry, long[] words) {
+        this.registry = registry;
+        this.words = trim(words);
+        int count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        this.size = count;
+    }
+
+    public static AuthoritySet of(Collection<String> names) {
+        return of(AuthorityRegistry.shared(), names);
+    }
+
+    public static AuthoritySet of(AuthorityRegistry registry, Collection<String> names) {
+        long[] words = NO_WORDS;
+        for (String name : names) {
+            words = set(words, registry.intern(name));
+        }
+        return new AuthoritySet(registry, words);
+    }
+
+    public static AuthoritySet ofIds(AuthorityRegistry registry, int[] ids) {
+        long[] words = NO_WORDS;
+        for (int id : ids) {
+            words = set(words, id);
+        }
+        return new AuthoritySet(registry, words);
+    }
+
+    /**
+     * Devuelve la misma colección si ya es un AuthoritySet; en caso contrario (principals que no vienen
+     * de ApplicationUserService, como el usuario anónimo) la convierte registrando sus nombres.
+     */
+    public static AuthoritySet from(Collection<? extends GrantedAuthority> authorities) {
+        if (authorities instanceof AuthoritySet) {
+            return (AuthoritySet) authorities;
+        }
+        long[] words = NO_WORDS;
+        AuthorityRegistry registry = AuthorityRegistry.shared();
+        for (GrantedAuthority authority : authorities) {
+            if (authority.getAuthority() != null) {
+                words = set(words, registry.intern(authority.getAuthority()));
+            }
+        }
+        return new AuthoritySet(registry, words);
+    }
+
+    public boolean contains(String name) {
+        return this.containsId(this.registry.idOf(name));
+    }
+
+    public boolean containsId(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int index = id >>> 6;
+        return index < this.words.length && (this.words[index] & (1L << id)) != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof GrantedAuthority) {
+            return this.contains(((GrantedAuthority) o).getAuthority());
+        }
+        return o instanceof String && this.contains((String) o);
+    }
+
+    /**
+     * Unión de dos conjuntos del mismo registro: un OR palabra a palabra.
+     */
+    public AuthoritySet union(AuthoritySet other) {
+        long[] larger = this.words.length >= other.words.length ? this.words : other.words;
+        long[] smaller = larger == this.words ? other.words : this.words;
+        long[] result = larger.clone();
+        for (int i = 0; i < smaller.length; i++) {
+            result[i] |= smaller[i];
+        }
+        return new AuthoritySet(this.registry, result);
+    }
+
+    /**
+     * Ids de los authorities en orden ascendente.
+     */
+    public int[] ids() {
+        int[] ids = new int[this.size];
+        int i = 0;
+        for (int id = this.nextId(0); id >= 0; id = this.nextId(id + 1)) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    @Override
+    public Iterator<GrantedAuthority> iterator() {
+        return new Iterator<GrantedAuthority>() {
+
+            private int next = nextId(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.next >= 0;
+            }
+
+            @Override
+            public GrantedAuthority next() {
+                if (this.next < 0) {
+                    throw new NoSuchElementException();
+                }
+                GrantedAuthority authority = registry.authority(this.next);
+                this.next = nextId(this.next + 1);
+                return authority;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AuthoritySet)) return false;
+        AuthoritySet other = (AuthoritySet) o;
+        return this.registry == other.registry && Arrays.equals(this.words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.words);
+    }
+
+    private int nextId(int from) {
+        int index = from >>> 6;
+        if (index >= this.words.length) {
+            return -1;
+        }
+        long word = this.words[index] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++index == this.words.length) {
+                return -1;
+            }
+            word = this.words[index];
+        }
+    }
+
+    private static long[] set(long[] words, int id) {
+        int index = id >>> 6;
+        if (index >= words.length) {
+            words = Arrays.copyOf(words, index + 1);
+        }
+        words[index] |= 1L << id;
+        return words;
+    }
+
+    private static long[] trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return length == words.length ? words : Arrays.copyOf(words, length);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        String[] names = new String[this.size];
+        int i = 0;
+        for (GrantedAuthority authority : this) {
+            names[i++] = authority.getAuthority();
+        }
+        return new SerializedForm(names);
+    }
+
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] names;
+
+        private SerializedForm(String[] names) {
+            this.names = names;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            return AuthoritySet.of(Arrays.asList(this.names));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.magadiflo.app.auth;
+
+import java.io.Serializable;
+
+/**
+ * Versiones leídas justo antes de resolver un usuario y sus authorities en la BD (ver ApplicationUserService).
+ * Una invalidación o revocación que las avance después puede no estar reflejada en lo leído: UserDetailsCache no
+ * guarda un usuario cargado antes de su última invalidación, y AuthTokenService firma los tokens con estas
+ * versiones y no con las vigentes al emitirlos (el DaoAuthenticationProvider puede tardar entre la carga, o
+ * sacarlo de la caché, y la emisión).
+ * <p>
+ * Solo se usa al autenticar; no se guarda en la sesión (ver SecurityContextCodec).
+ */
+public final class LoadStamp implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long userCacheGeneration;
+    private final long tokenVersion;
+    private final long tokenAuthorityVersion;
+
+    public LoadStamp(long userCacheGeneration, long tokenVersion, long tokenAuthorityVersion) {
+        this.userCacheGeneration = userCacheGeneration;
+        this.tokenVersion = tokenVersion;
+        this.tokenAuthorityVersion = tokenAuthorityVersion;
+    }
+
+    /**
+     * UserDetailsCache.generation() antes de la carga.
+     */
+    public long getUserCacheGeneration() {
+        return userCacheGeneration;
+    }
+
+    /**
+     * TokenRevocationRegistry.currentVersion(username) antes de la carga (0 sin modo stateless).
+     */
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * TokenRevocationRegistry.currentAuthorityVersion() antes de la carga (0 sin modo stateless).
+     */
+    public long getTokenAuthorityVersion() {
+        return tokenAuthorityVersion;
+    }
+}
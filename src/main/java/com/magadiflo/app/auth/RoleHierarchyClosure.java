@@ -0,0 +1,287 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.repository.IRoleRepository;
+import com.magadiflo.app.repository.RolePermissionView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Clausura transitiva precalculada de la jerarquía de roles (ROLE_ADMIN ⊇ ROLE_ADMINTRAINEE ⊇ ROLE_STUDENT):
+ * para cada rol se guarda un {@link AuthoritySet} con sus permisos propios más los de todos sus ancestros.
+ * Así los authorities de un usuario son la unión de unos pocos conjuntos ya calculados (uno por rol directo)
+ * y el login no recorre el grafo ni consulta roles_permissions.
+ * <p>
+ * La clausura se calcula completa una vez (al arrancar o en el primer uso) y se publica como una instantánea
+ * inmutable, de modo que las lecturas no se bloquean. Cuando cambia un rol (AuthorityDataChangedEvent de tipo
+ * ROLE) solo se vuelven a leer ese rol y sus hijos directos, y solo se recalculan él y sus descendientes;
+ * un cambio de permiso afecta únicamente a los roles que lo tenían como propio. Este listener se ejecuta antes
+ * que el de {@link UserDetailsCache}, así un usuario que se vuelva a cachear ya ve la jerarquía nueva.
+ * <p>
+ * Los roles con nombre desconocido (creados con JDBC, sin evento) se cargan al vuelo la primera vez que se
+ * piden. Un ciclo en los padres se registra como warning y se corta en el rol que lo cierra.
+ */
+@Component
+public class RoleHierarchyClosure {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RoleHierarchyClosure.class);
+    private static final AuthoritySet NO_PERMISSIONS = AuthoritySet.of(Collections.emptyList());
+
+    private final IRoleRepository roleRepository;
+    private final TransactionTemplate currentTransaction;
+    private final TransactionTemplate newTransaction;
+    // Las cargas consultan la BD: con hilos virtuales un ReentrantLock no fija el hilo portador como synchronized
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public RoleHierarchyClosure(IRoleRepository roleRepository, PlatformTransactionManager transactionManager) {
+        this.roleRepository = roleRepository;
+        this.currentTransaction = readOnly(transactionManager, TransactionDefinition.PROPAGATION_REQUIRED);
+        // Los eventos llegan en afterCommit: la consulta necesita su propia transacción
+        this.newTransaction = readOnly(transactionManager, TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Nombres de los roles más la clausura de permisos de cada uno, en un único AuthoritySet.
+     */
+    public AuthoritySet resolve(Collection<String> roleNames) {
+        Snapshot current = this.snapshotContaining(roleNames);
+        AuthoritySet authorities = AuthoritySet.of(roleNames);
+        for (String roleName : roleNames) {
+            AuthoritySet closure = current.closures.get(roleName);
+            if (closure != null) {
+                authorities = authorities.union(closure);
+            }
+        }
+        return authorities;
+    }
+
+    /**
+     * Permisos propios y heredados del rol (vacío si el rol no existe).
+     */
+    public AuthoritySet permissionsOf(String roleName) {
+        return this.snapshotContaining(Collections.singleton(roleName)).closures.getOrDefault(roleName, NO_PERMISSIONS);
+    }
+
+    /**
+     * true si todos los roles están ya en la instantánea, es decir, si {@link #resolve(Collection)} no consultará la BD.
+     */
+    public boolean isLoaded(Collection<String> roleNames) {
+        Snapshot current = this.snapshot;
+        return current != null && current.closures.keySet().containsAll(roleNames);
+    }
+
+    /**
+     * Roles que heredan (directa o indirectamente) de alguno de los indicados, sin incluirlos a ellos.
+     */
+    public Set<String> descendantsOf(Collection<String> roleNames) {
+        Snapshot current = this.snapshot;
+        return current == null ? Collections.emptySet() : descendants(roleNames, current.children);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        this.lock.lock();
+        try {
+            this.replaceAll(this.currentTransaction.execute(status -> this.roleRepository.findAllRolePermissions()));
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onAuthorityDataChanged(AuthorityDataChangedEvent event) {
+        Snapshot current = this.snapshot;
+        if (current == null || event.getKind() == AuthorityDataChangedEvent.Kind.USER) {
+            // Sin instantánea todavía no hay nada que actualizar: el primer uso la cargará completa
+            return;
+        }
+        Set<String> roles = new LinkedHashSet<>();
+        if (event.getKind() == AuthorityDataChangedEvent.Kind.ROLE) {
+            roles.addAll(event.getNames());
+        } else {
+            current.own.forEach((role, permissions) -> {
+                if (event.getNames().stream().anyMatch(permissions::contains)) {
+                    roles.add(role);
+                }
+            });
+        }
+        if (!roles.isEmpty()) {
+            this.refresh(roles, this.newTransaction);
+        }
+    }
+
+    /**
+     * Reconstruye la instantánea completa a partir de las filas indicadas.
+     * Visibilidad de paquete para poder alimentarla sin BD (AuthorityResolutionBenchmark y tests).
+     */
+    void replaceAll(List<RolePermissionView> rows) {
+        Map<String, String> parents = new HashMap<>();
+        Map<String, AuthoritySet> own = new HashMap<>();
+        group(rows, parents, own);
+        Map<String, AuthoritySet> closures = new HashMap<>();
+        own.keySet().forEach(role -> closureOf(role, parents, own, closures, new HashSet<>()));
+        this.snapshot = new Snapshot(parents, own, closures, childrenOf(parents));
+        LOG.info("Clausura de la jerarquía de roles calculada para {} roles", own.size());
+    }
+
+    private Snapshot snapshotContaining(Collection<String> roleNames) {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            this.lock.lock();
+            try {
+                if (this.snapshot == null) {
+                    this.replaceAll(this.currentTransaction.execute(status -> this.roleRepository.findAllRolePermissions()));
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            current = this.snapshot;
+        }
+        if (!current.closures.keySet().containsAll(roleNames)) {
+            Set<String> missing = new LinkedHashSet<>(roleNames);
+            missing.removeAll(current.closures.keySet());
+            this.refresh(missing, this.currentTransaction);
+            current = this.snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * Vuelve a leer los roles indicados y sus hijos directos (su parentName cambia si el rol se renombra)
+     * y recalcula la clausura solo de ellos y de sus descendientes; el resto se reutiliza tal cual.
+     */
+    private void refresh(Set<String> changedRoles, TransactionTemplate transactionTemplate) {
+        this.lock.lock();
+        try {
+            Snapshot current = this.snapshot;
+            Set<String> reload = new LinkedHashSet<>(changedRoles);
+            changedRoles.forEach(role -> reload.addAll(current.children.getOrDefault(role, Collections.emptySet())));
+            List<RolePermissionView> rows = transactionTemplate.execute(status ->
+                    this.roleRepository.findRolePermissionsByNameIn(reload));
+
+            Map<String, String> parents = new HashMap<>(current.parents);
+            Map<String, AuthoritySet> own = new HashMap<>(current.own);
+            parents.keySet().removeAll(reload);
+            own.keySet().removeAll(reload);
+            group(rows, parents, own);
+            Map<String, Set<String>> children = childrenOf(parents);
+
+            Set<String> affected = new LinkedHashSet<>(reload);
+            affected.addAll(descendants(reload, children));
+            Map<String, AuthoritySet> closures = new HashMap<>(current.closures);
+            closures.keySet().removeAll(affected);
+            affected.stream().filter(own::containsKey)
+                    .forEach(role -> closureOf(role, parents, own, closures, new HashSet<>()));
+
+            this.snapshot = new Snapshot(parents, own, closures, children);
+            LOG.debug("Clausura recalculada para {} de {} roles (cambios en {})", affected.size(), own.size(), changedRoles);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static void group(List<RolePermissionView> rows, Map<String, String> parents, Map<String, AuthoritySet> own) {
+        Map<String, Set<String>> permissions = new LinkedHashMap<>();
+        for (RolePermissionView row : rows) {
+            Set<String> rolePermissions = permissions.computeIfAbsent(row.getRoleName(), role -> new LinkedHashSet<>());
+            if (row.getPermissionName() != null) {
+                rolePermissions.add(row.getPermissionName());
+            }
+            if (row.getParentName() != null) {
+                parents.put(row.getRoleName(), row.getParentName());
+            }
+        }
+        permissions.forEach((role, names) -> own.put(role, AuthoritySet.of(names)));
+    }
+
+    private static AuthoritySet closureOf(String role, Map<String, String> parents, Map<String, AuthoritySet> own,
+                                          Map<String, AuthoritySet> closures, Set<String> visiting) {
+        AuthoritySet closure = closures.get(role);
+        if (closure != null) {
+            return closure;
+        }
+        closure = own.getOrDefault(role, NO_PERMISSIONS);
+        String parent = parents.get(role);
+        visiting.add(role);
+        if (parent != null && own.containsKey(parent)) {
+            if (visiting.contains(parent)) {
+                LOG.warn("Ciclo en la jerarquía de roles: {} tiene como padre a {}, se ignora la herencia", role, parent);
+            } else {
+                closure = closure.union(closureOf(parent, parents, own, closures, visiting));
+            }
+        }
+        closures.put(role, closure);
+        return closure;
+    }
+
+    private static Map<String, Set<String>> childrenOf(Map<String, String> parents) {
+        Map<String, Set<String>> children = new HashMap<>();
+        parents.forEach((role, parent) -> children.computeIfAbsent(parent, p -> new HashSet<>()).add(role));
+        return children;
+    }
+
+    private static Set<String> descendants(Collection<String> roleNames, Map<String, Set<String>> children) {
+        Set<String> descendants = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(roleNames);
+        while (!pending.isEmpty()) {
+            for (String child : children.getOrDefault(pending.poll(), Collections.emptySet())) {
+                if (descendants.add(child)) {
+                    pending.add(child);
+                }
+            }
+        }
+        descendants.removeAll(roleNames);
+        return descendants;
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager, int propagation) {
+        if (transactionManager == null) {
+            return null;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(propagation);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    /**
+     * Estado inmutable: padre y permisos propios de cada rol, la clausura ya calculada y el índice inverso de hijos.
+     */
+    private static final class Snapshot {
+
+        private final Map<String, String> parents;
+        private final Map<String, AuthoritySet> own;
+        private final Map<String, AuthoritySet> closures;
+        private final Map<String, Set<String>> children;
+
+        private Snapshot(Map<String, String> parents, Map<String, AuthoritySet> own,
+                         Map<String, AuthoritySet> closures, Map<String, Set<String>> children) {
+            this.parents = parents;
+            this.own = own;
+            this.closures = closures;
+            this.children = children;
+        }
+    }
+}
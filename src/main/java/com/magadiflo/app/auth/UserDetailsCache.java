@@ -0,0 +1,173 @@
+package com.magadiflo.app.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché acotada (por tamaño y por TTL) de los UserDetails resueltos por {@link ApplicationUserService},
+ * indexada por email. El DaoAuthenticationProvider la consulta antes de llamar a loadUserByUsername(...).
+ * <p>
+ * Se guarda y se devuelve siempre una copia, porque el ProviderManager borra el password del principal
+ * autenticado (eraseCredentials) y eso dejaría inservible la entrada cacheada.
+ * <p>
+ * Las entradas se invalidan con precisión a partir de los {@link AuthorityDataChangedEvent}:
+ * por email para cambios de usuario y por nombre de authority para cambios de rol o permiso. Un cambio
+ * de rol invalida también a quienes tienen alguno de sus roles descendientes, porque heredan sus permisos
+ * sin llevar su nombre (ver {@link RoleHierarchyClosure}).
+ * <p>
+ * Cada invalidación avanza {@link #generation()}. Un usuario cuya carga empezó antes (su {@link LoadStamp}) pudo
+ * leer los datos previos al cambio y llegar a putUserInCache(...) después de la invalidación: no se guarda. La
+ * comprobación se hace después de insertarlo, así una invalidación concurrente o lo elimina ella o la ve el put,
+ * y no hace falta repetirla al leer. La generación es una sola para todos los usuarios: una carga que coincide
+ * con cualquier cambio se queda sin cachear, lo que solo cuesta otra consulta en el siguiente login.
+ * <p>
+ * Sus estadísticas se publican como métricas cache.* con cache=userDetails.
+ */
+@Component
+public class UserDetailsCache implements UserCache, MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    private final boolean enabled;
+    private final Cache<String, UserDetails> cache;
+    private final RoleHierarchyClosure roleHierarchyClosure;
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserDetailsCache(@Value("${app.security.user-cache.enabled:true}") boolean enabled,
+                            @Value("${app.security.user-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${app.security.user-cache.time-to-live:10m}") Duration timeToLive,
+                            RoleHierarchyClosure roleHierarchyClosure) {
+        this.enabled = enabled;
+        this.roleHierarchyClosure = roleHierarchyClosure;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        if (!this.enabled) {
+            return null;
+        }
+        UserDetails user = this.cache.getIfPresent(username);
+        return user == null ? null : copyOf(user);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (!this.enabled) {
+            return;
+        }
+        UserDetails copy = copyOf(user);
+        this.cache.put(user.getUsername(), copy);
+        if (loadedBefore(user, this.generation.get())) {
+            LOG.debug("No se cachea {}: se cargó antes de la última invalidación", user.getUsername());
+            this.cache.asMap().remove(user.getUsername(), copy);
+        }
+    }
+
+    /**
+     * Avanza con cada invalidación por cambios de authorities; ApplicationUserService la lee antes de cargar un
+     * usuario.
+     */
+    public long generation() {
+        return this.generation.get();
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        this.cache.invalidate(username);
+    }
+
+    /**
+     * Elimina todos los usuarios cuyos authorities contengan alguno de los nombres indicados
+     * (nombres de rol o de permiso).
+     */
+    public void removeUsersWithAnyAuthority(Set<String> authorities) {
+        this.cache.asMap().values().removeIf(user -> hasAnyAuthority(user, authorities));
+    }
+
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * Contadores de aciertos, fallos y desalojos, útiles para dimensionar la caché.
+     */
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+
+    public long size() {
+        return this.cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, this.cache, "userDetails");
+    }
+
+    @EventListener
+    public void onAuthorityDataChanged(AuthorityDataChangedEvent event) {
+        LOG.debug("Invalidando la caché de usuarios por {}", event);
+        this.generation.incrementAndGet();
+        if (event.getKind() == AuthorityDataChangedEvent.Kind.USER) {
+            this.cache.invalidateAll(event.getNames());
+        } else if (event.getKind() == AuthorityDataChangedEvent.Kind.ROLE) {
+            // La clausura ya se recalculó (su listener va antes), así que los descendientes están al día
+            Set<String> roles = new LinkedHashSet<>(event.getNames());
+            roles.addAll(this.roleHierarchyClosure.descendantsOf(event.getNames()));
+            this.removeUsersWithAnyAuthority(roles);
+        } else {
+            this.removeUsersWithAnyAuthority(event.getNames());
+        }
+    }
+
+    private static boolean loadedBefore(UserDetails user, long generation) {
+        if (!(user instanceof ApplicationUser)) {
+            return false;
+        }
+        LoadStamp loadStamp = ((ApplicationUser) user).getLoadStamp();
+        return loadStamp != null && loadStamp.getUserCacheGeneration() < generation;
+    }
+
+    private static boolean hasAnyAuthority(UserDetails user, Set<String> authorities) {
+        if (user.getAuthorities() instanceof AuthoritySet) {
+            AuthoritySet authoritySet = (AuthoritySet) user.getAuthorities();
+            return authorities.stream().anyMatch(authoritySet::contains);
+        }
+        for (GrantedAuthority authority : user.getAuthorities()) {
+            if (authorities.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static UserDetails copyOf(UserDetails user) {
+        if (user instanceof ApplicationUser) {
+            return new ApplicationUser((ApplicationUser) user);
+        }
+        return User.withUserDetails(user).build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Cambio de authorities tal como lo entrega un {@link AuthorityChangeBus}: el {@link AuthorityDataChangedEvent}
+ * original más su versión (creciente y común a todos los nodos del bus) y si se originó en este nodo.
+ */
+public final class AuthorityChange {
+
+    private final long version;
+    private final AuthorityDataChangedEvent.Kind kind;
+    private final Set<String> names;
+    private final boolean local;
+
+    public AuthorityChange(long version, AuthorityDataChangedEvent.Kind kind, Set<String> names, boolean local) {
+        this.version = version;
+        this.kind = kind;
+        this.names = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+        this.local = local;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public AuthorityDataChangedEvent.Kind getKind() {
+        return kind;
+    }
+
+    public Set<String> getNames() {
+        return names;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("AuthorityChange{");
+        sb.append("version=").append(version);
+        sb.append(", kind=").append(kind);
+        sb.append(", names=").append(names);
+        sb.append(", local=").append(local);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Difunde los cambios de usuarios, roles y permisos a todos los nodos, incluido el que los publica.
+ * Cada cambio recibe una versión mayor que la de todos los anteriores ya entregados en cualquier nodo,
+ * que es la que guarda el principal (ApplicationUser.getAuthorityVersion()) al cargarse.
+ * <p>
+ * Hay dos implementaciones: {@link InProcessAuthorityChangeBus} (un solo nodo, por defecto) y
+ * {@link JdbcPollingAuthorityChangeBus} (varios nodos contra la misma BD). Para otro transporte (Redis, Kafka, ...)
+ * basta con registrar un bean propio.
+ */
+public interface AuthorityChangeBus {
+
+    /**
+     * Se llama después del commit de la transacción que hizo el cambio.
+     */
+    void publish(AuthorityDataChangedEvent.Kind kind, Set<String> names);
+
+    void subscribe(Consumer<AuthorityChange> subscriber);
+
+}
@@ -0,0 +1,48 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.RoleHierarchyClosure;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+
+/**
+ * Cuando un administrador cambia los permisos de un rol, las sesiones ya abiertas conservan los authorities que
+ * se resolvieron en el login. Con app.security.authority-refresh.enabled=true (valor por defecto) cada petición
+ * comprueba, casi sin coste, si el principal de la sesión está afectado por algún cambio posterior y, solo en
+ * ese caso, vuelve a leer sus authorities (ver AuthorityRefreshFilter) sin obligarle a repetir el login.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.security.authority-refresh", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AuthorityRefreshProperties.class)
+public class AuthorityRefreshConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(AuthorityChangeBus.class)
+    @ConditionalOnProperty(prefix = "app.security.authority-refresh", name = "bus", havingValue = "jdbc")
+    public JdbcPollingAuthorityChangeBus jdbcAuthorityChangeBus(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                                                AuthorityRefreshProperties properties) {
+        return new JdbcPollingAuthorityChangeBus(dataSource, transactionManager, properties.getPollInterval(),
+                properties.getGapTimeout(), properties.getRetention(), Clock.systemUTC());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(AuthorityChangeBus.class)
+    @ConditionalOnProperty(prefix = "app.security.authority-refresh", name = "bus", havingValue = "in-process", matchIfMissing = true)
+    public InProcessAuthorityChangeBus inProcessAuthorityChangeBus() {
+        return new InProcessAuthorityChangeBus();
+    }
+
+    @Bean
+    public AuthorityVersionRegistry authorityVersionRegistry(AuthorityChangeBus bus, RoleHierarchyClosure roleHierarchyClosure,
+                                                             ApplicationEventPublisher eventPublisher,
+                                                             AuthorityRefreshProperties properties) {
+        return new AuthorityVersionRegistry(bus, roleHierarchyClosure, eventPublisher, properties.getHistorySize());
+    }
+}
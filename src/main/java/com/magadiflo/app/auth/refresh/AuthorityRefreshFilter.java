@@ -0,0 +1,116 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.UserDetailsCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * Justo después de recuperar el SecurityContext de la sesión, comprueba con {@link AuthorityVersionRegistry} si
+ * el principal está obsoleto y, solo entonces, sustituye su Authentication en el mismo SecurityContext (que es el
+ * que guarda la sesión) por otra con los authorities actuales. Si el usuario ya no existe o está deshabilitado
+ * se vacía el contexto y la petición sigue como anónima.
+ * <p>
+ * Los datos se toman de {@link UserDetailsCache} si la entrada cacheada es posterior al cambio: con muchas
+ * sesiones del mismo usuario solo la primera vuelve a la BD.
+ * <p>
+ * Si el principal no está afectado, isStale(...) le adelanta la versión hasta la actual y el SecurityContext se
+ * vuelve a guardar en la sesión: los almacenes que solo reescriben las sesiones modificadas (el off-heap) la
+ * persisten, y las siguientes peticiones no recorren otra vez los mismos cambios.
+ * <p>
+ * No se registra como bean (igual que TokenAuthenticationFilter): lo instancia ApplicationSecurityConfig.
+ */
+public class AuthorityRefreshFilter extends OncePerRequestFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuthorityRefreshFilter.class);
+
+    private final AuthorityVersionRegistry versionRegistry;
+    private final UserDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final Counter refreshed;
+    private final Counter revoked;
+
+    public AuthorityRefreshFilter(AuthorityVersionRegistry versionRegistry, UserDetailsService userDetailsService,
+                                  UserDetailsCache userDetailsCache, MeterRegistry meterRegistry) {
+        this.versionRegistry = versionRegistry;
+        this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
+        this.refreshed = Counter.builder("security.authority.refresh").tag("result", "refreshed")
+                .description("Sesiones cuyos authorities se actualizaron en caliente").register(meterRegistry);
+        this.revoked = Counter.builder("security.authority.refresh").tag("result", "revoked")
+                .description("Sesiones cerradas porque el usuario ya no existe o está deshabilitado").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SecurityContext context = SecurityContextHolder.getContext();
+        Authentication authentication = context.getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof ApplicationUser) {
+            ApplicationUser principal = (ApplicationUser) authentication.getPrincipal();
+            long version = principal.getAuthorityVersion();
+            if (this.versionRegistry.isStale(principal)) {
+                this.refresh(context, authentication, principal.getUsername());
+            } else if (principal.getAuthorityVersion() != version) {
+                storeInSession(request, context);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void refresh(SecurityContext context, Authentication authentication, String username) {
+        ApplicationUser current = this.currentUser(username);
+        if (current == null || !current.isEnabled()) {
+            LOG.info("El usuario {} ya no existe o está deshabilitado, se cierra su sesión", username);
+            context.setAuthentication(null);
+            this.revoked.increment();
+            return;
+        }
+        current.eraseCredentials();
+        UsernamePasswordAuthenticationToken updated = new UsernamePasswordAuthenticationToken(
+                current, authentication.getCredentials(), current.getAuthorities());
+        updated.setDetails(authentication.getDetails());
+        context.setAuthentication(updated);
+        this.refreshed.increment();
+        LOG.debug("Authorities de {} actualizados en la sesión: {}", username, current.getAuthorities());
+    }
+
+    private static void storeInSession(HttpServletRequest request, SecurityContext context) {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY) == context) {
+            session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+        }
+    }
+
+    private ApplicationUser currentUser(String username) {
+        UserDetails cached = this.userDetailsCache.getUserFromCache(username);
+        if (cached instanceof ApplicationUser && !this.versionRegistry.isStale((ApplicationUser) cached)) {
+            return (ApplicationUser) cached;
+        }
+        try {
+            UserDetails loaded = this.userDetailsService.loadUserByUsername(username);
+            this.userDetailsCache.putUserInCache(loaded);
+            return loaded instanceof ApplicationUser ? new ApplicationUser((ApplicationUser) loaded) : null;
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+}
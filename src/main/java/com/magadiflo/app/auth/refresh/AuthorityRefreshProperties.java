@@ -0,0 +1,76 @@
+package com.magadiflo.app.auth.refresh;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Propagación de cambios de authorities a las sesiones ya autenticadas (app.security.authority-refresh.*).
+ * Con varios nodos se usa bus=jdbc:
+ * <pre>
+ * app.security.authority-refresh.bus=jdbc
+ * app.security.authority-refresh.poll-interval=1s
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "app.security.authority-refresh")
+public class AuthorityRefreshProperties {
+
+    public enum Bus {
+        IN_PROCESS, JDBC
+    }
+
+    private boolean enabled = true;
+    private Bus bus = Bus.IN_PROCESS;
+    private int historySize = 10000;
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private Duration gapTimeout = Duration.ofSeconds(5);
+    private Duration retention = Duration.ofHours(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Bus getBus() {
+        return bus;
+    }
+
+    public void setBus(Bus bus) {
+        this.bus = bus;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public Duration getGapTimeout() {
+        return gapTimeout;
+    }
+
+    public void setGapTimeout(Duration gapTimeout) {
+        this.gapTimeout = gapTimeout;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+}
@@ -0,0 +1,120 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+import com.magadiflo.app.auth.AuthoritySet;
+import com.magadiflo.app.auth.RoleHierarchyClosure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Historial reciente de cambios de authorities, indexado por versión, con el que se decide en cada petición si
+ * el principal de una sesión está obsoleto:
+ * <ul>
+ *     <li>Si su versión es la actual (lo normal) basta con una lectura volátil.</li>
+ *     <li>Si no, se revisan solo los cambios posteriores a ella: está obsoleto si alguno nombra su email, uno de
+ *     sus roles (o un rol del que hereda) o uno de sus permisos. Si ninguno le afecta se adelanta su versión.</li>
+ *     <li>Si su versión es más antigua que el historial retenido (historySize) se considera obsoleto.</li>
+ * </ul>
+ * Los {@link AuthorityDataChangedEvent} de este nodo se publican en el {@link AuthorityChangeBus}; los que llegan
+ * de otros nodos se vuelven a publicar aquí como eventos locales (con este registro como source, para no
+ * reenviarlos), así RoleHierarchyClosure, UserDetailsCache y la revocación de tokens se enteran igual.
+ */
+public class AuthorityVersionRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuthorityVersionRegistry.class);
+
+    private final AuthorityChangeBus bus;
+    private final RoleHierarchyClosure roleHierarchyClosure;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int historySize;
+    private final ConcurrentNavigableMap<Long, Set<String>> changes = new ConcurrentSkipListMap<>();
+    private volatile long currentVersion;
+    private volatile long forgottenUpTo;
+
+    public AuthorityVersionRegistry(AuthorityChangeBus bus, RoleHierarchyClosure roleHierarchyClosure,
+                                    ApplicationEventPublisher eventPublisher, int historySize) {
+        this.bus = bus;
+        this.roleHierarchyClosure = roleHierarchyClosure;
+        this.eventPublisher = eventPublisher;
+        this.historySize = historySize;
+        bus.subscribe(this::record);
+    }
+
+    public long currentVersion() {
+        return this.currentVersion;
+    }
+
+    public boolean isStale(ApplicationUser user) {
+        long current = this.currentVersion;
+        long version = user.getAuthorityVersion();
+        if (version >= current) {
+            return false;
+        }
+        if (version < this.forgottenUpTo) {
+            return true;
+        }
+        for (Set<String> names : this.changes.tailMap(version, false).values()) {
+            if (affects(user, names)) {
+                return true;
+            }
+        }
+        user.setAuthorityVersion(current);
+        return false;
+    }
+
+    /**
+     * Se ejecuta después del resto de listeners locales (caché, clausura de roles, tokens).
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onAuthorityDataChanged(AuthorityDataChangedEvent event) {
+        if (event.getSource() != this) {
+            this.bus.publish(event.getKind(), event.getNames());
+        }
+    }
+
+    void record(AuthorityChange change) {
+        if (!change.isLocal()) {
+            this.eventPublisher.publishEvent(new AuthorityDataChangedEvent(this, change.getKind(), change.getNames()));
+        }
+        Set<String> names = new LinkedHashSet<>(change.getNames());
+        if (change.getKind() == AuthorityDataChangedEvent.Kind.ROLE) {
+            // Quien tiene un rol hijo hereda sus permisos sin llevar su nombre
+            names.addAll(this.roleHierarchyClosure.descendantsOf(change.getNames()));
+        }
+        synchronized (this) {
+            this.changes.put(change.getVersion(), Collections.unmodifiableSet(names));
+            while (this.changes.size() > this.historySize) {
+                Map.Entry<Long, Set<String>> oldest = this.changes.pollFirstEntry();
+                this.forgottenUpTo = oldest.getKey();
+            }
+            this.currentVersion = Math.max(this.currentVersion, change.getVersion());
+        }
+        LOG.debug("Registrado {}", change);
+    }
+
+    private static boolean affects(ApplicationUser user, Set<String> names) {
+        if (names.contains(user.getUsername())) {
+            return true;
+        }
+        AuthoritySet authorities = user.getAuthorities();
+        for (String name : names) {
+            if (authorities.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
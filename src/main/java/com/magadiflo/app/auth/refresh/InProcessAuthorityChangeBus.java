@@ -0,0 +1,30 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bus de un solo nodo: entrega cada cambio de forma síncrona, en el mismo hilo que lo publica, con una versión
+ * que empieza en 1 en cada arranque (las sesiones no sobreviven a un reinicio sin un almacén compartido).
+ */
+public class InProcessAuthorityChangeBus implements AuthorityChangeBus {
+
+    private final AtomicLong versions = new AtomicLong();
+    private final List<Consumer<AuthorityChange>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(AuthorityDataChangedEvent.Kind kind, Set<String> names) {
+        AuthorityChange change = new AuthorityChange(this.versions.incrementAndGet(), kind, names, true);
+        this.subscribers.forEach(subscriber -> subscriber.accept(change));
+    }
+
+    @Override
+    public void subscribe(Consumer<AuthorityChange> subscriber) {
+        this.subscribers.add(subscriber);
+    }
+}
@@ -0,0 +1,207 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bus para varios nodos sobre la misma BD: publicar es insertar una fila por nombre en authority_change_log
+ * (ver AuthorityChangeLog) y cada nodo consulta periódicamente las filas con id mayor que la última que vio.
+ * El id de la fila es la versión del cambio, así que es la misma en todos los nodos. Los cambios propios
+ * también llegan por el sondeo (con local=true), de modo que todos los nodos aplican el mismo orden.
+ * <p>
+ * Un id puede confirmarse después que otro mayor (dos transacciones concurrentes): si aparece un hueco, el sondeo
+ * no avanza más allá de él durante gapTimeout, tiempo tras el cual se da por perdido (p. ej. un id descartado por
+ * la BD). Las filas más antiguas que retention se borran.
+ */
+public class JdbcPollingAuthorityChangeBus implements AuthorityChangeBus, SmartLifecycle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcPollingAuthorityChangeBus.class);
+    private static final int MAX_ROWS_PER_POLL = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration pollInterval;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final Clock clock;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<AuthorityChange>> subscribers = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+    private long lastSeen;
+    private Instant gapSince;
+    private Instant lastPurge;
+
+    public JdbcPollingAuthorityChangeBus(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                         Duration pollInterval, Duration gapTimeout, Duration retention, Clock clock) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setMaxRows(MAX_ROWS_PER_POLL);
+        // Se publica desde afterCommit: la inserción necesita su propia transacción
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pollInterval = pollInterval;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    @Override
+    public void publish(AuthorityDataChangedEvent.Kind kind, Set<String> names) {
+        Timestamp now = Timestamp.from(this.clock.instant());
+        List<Object[]> rows = new ArrayList<>(names.size());
+        names.forEach(name -> rows.add(new Object[]{kind.name(), name, this.nodeId, now}));
+        this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.batchUpdate(
+                "insert into authority_change_log (kind, name, node_id, created_at) values (?, ?, ?, ?)", rows));
+    }
+
+    @Override
+    public void subscribe(Consumer<AuthorityChange> subscriber) {
+        this.subscribers.add(subscriber);
+    }
+
+    /**
+     * Entrega los cambios nuevos, agrupando las filas consecutivas del mismo tipo y nodo en un solo cambio con la
+     * versión de la última. Visibilidad de paquete para poder sondear a demanda en los tests.
+     */
+    synchronized void poll() {
+        List<LogRow> rows = this.jdbcTemplate.query(
+                "select id, kind, name, node_id from authority_change_log where id > ? order by id",
+                (rs, rowNum) -> new LogRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)),
+                this.lastSeen);
+        List<LogRow> batch = new ArrayList<>();
+        for (LogRow row : rows) {
+            if (row.id != this.lastSeen + 1 && !this.gapExpired(row.id)) {
+                break;
+            }
+            this.gapSince = null;
+            if (!batch.isEmpty() && !batch.get(0).sameOrigin(row)) {
+                this.deliver(batch);
+                batch.clear();
+            }
+            batch.add(row);
+            this.lastSeen = row.id;
+        }
+        if (!batch.isEmpty()) {
+            this.deliver(batch);
+        }
+        this.purgeIfDue();
+    }
+
+    private boolean gapExpired(long nextId) {
+        Instant now = this.clock.instant();
+        if (this.gapSince == null) {
+            this.gapSince = now;
+        }
+        if (Duration.between(this.gapSince, now).compareTo(this.gapTimeout) < 0) {
+            return false;
+        }
+        LOG.warn("Se da por perdido el hueco entre las versiones {} y {} de authority_change_log", this.lastSeen, nextId);
+        return true;
+    }
+
+    private void deliver(List<LogRow> rows) {
+        LogRow last = rows.get(rows.size() - 1);
+        Set<String> names = new LinkedHashSet<>();
+        rows.forEach(row -> names.add(row.name));
+        AuthorityChange change = new AuthorityChange(last.id, AuthorityDataChangedEvent.Kind.valueOf(last.kind), names,
+                this.nodeId.equals(last.nodeId));
+        for (Consumer<AuthorityChange> subscriber : this.subscribers) {
+            try {
+                subscriber.accept(change);
+            } catch (RuntimeException e) {
+                LOG.error("Error al aplicar {}", change, e);
+            }
+        }
+    }
+
+    private void purgeIfDue() {
+        Instant now = this.clock.instant();
+        if (this.lastPurge != null && Duration.between(this.lastPurge, now).compareTo(this.retention.dividedBy(4)) < 0) {
+            return;
+        }
+        this.lastPurge = now;
+        int purged = this.jdbcTemplate.update("delete from authority_change_log where created_at < ?",
+                Timestamp.from(now.minus(this.retention)));
+        if (purged > 0) {
+            LOG.debug("Borradas {} filas antiguas de authority_change_log", purged);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            this.poll();
+        } catch (RuntimeException e) {
+            LOG.warn("No se pudo consultar authority_change_log: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Arranca cuando el esquema ya existe: los cambios anteriores ya están reflejados en la BD, se empieza por el último.
+     */
+    @Override
+    public synchronized void start() {
+        Long max = this.jdbcTemplate.queryForObject("select max(id) from authority_change_log", Long.class);
+        this.lastSeen = max == null ? 0L : max;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "authority-change-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::pollSafely, this.pollInterval.toMillis(),
+                this.pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        LOG.info("Bus JDBC de cambios de authorities iniciado en el nodo {} desde la versión {}", this.nodeId, this.lastSeen);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return this.scheduler != null;
+    }
+
+    private static final class LogRow {
+        private final long id;
+        private final String kind;
+        private final String name;
+        private final String nodeId;
+
+        private LogRow(long id, String kind, String name, String nodeId) {
+            this.id = id;
+            this.kind = kind;
+            this.name = name;
+            this.nodeId = nodeId;
+        }
+
+        private boolean sameOrigin(LogRow other) {
+            return this.kind.equals(other.kind) && this.nodeId.equals(other.nodeId);
+        }
+    }
+}
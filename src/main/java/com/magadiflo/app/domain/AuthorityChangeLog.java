@@ -0,0 +1,67 @@
+package com.magadiflo.app.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Registro de cambios de usuarios, roles y permisos que usa el bus JDBC (JdbcPollingAuthorityChangeBus) para
+ * avisar al resto de nodos. Cada fila es un nombre afectado (email, rol o permiso) y su id es la versión global
+ * del cambio. Solo se escribe y se lee con JdbcTemplate; la entidad existe para que el esquema la incluya.
+ */
+@Entity
+@Table(name = "authority_change_log")
+public class AuthorityChangeLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String kind;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false, length = 36)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public AuthorityChangeLog() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("AuthorityChangeLog{");
+        sb.append("id=").append(id);
+        sb.append(", kind='").append(kind).append('\'');
+        sb.append(", name='").append(name).append('\'');
+        sb.append(", nodeId='").append(nodeId).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
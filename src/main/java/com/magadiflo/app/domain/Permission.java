@@ -1,11 +1,17 @@
 package com.magadiflo.app.domain;
 
+import com.magadiflo.app.repository.cache.CacheRegions;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Collection;
 
 @Entity
-@Table(name = "permissions")
+@Table(name = "permissions", uniqueConstraints = @UniqueConstraint(name = "ux_permissions_name", columnNames = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PERMISSIONS)
 public class Permission implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -1,11 +1,20 @@
 package com.magadiflo.app.domain;
 
+import com.magadiflo.app.repository.cache.CacheRegions;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Collection;
 
+/**
+ * Se guarda en la caché de segundo nivel junto con sus permisos (ver SecondLevelCacheConfig).
+ */
 @Entity
-@Table(name = "roles")
+@Table(name = "roles", uniqueConstraints = @UniqueConstraint(name = "ux_roles_name", columnNames = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ROLES)
 public class Role implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -16,10 +25,27 @@ public class Role implements Serializable {
 
     private String name;
 
+    /**
+     * Bloqueo optimista (igual que en User): de dos ediciones concurrentes de la misma fila, la segunda falla con
+     * OptimisticLockException en vez de sobrescribir la primera. Hibernate la incrementa también cuando cambian
+     * sus colecciones.
+     */
+    @Version
+    private long version;
+
+    /**
+     * Rol del que hereda los permisos (ROLE_ADMIN ⊇ ROLE_ADMINTRAINEE ⊇ ROLE_STUDENT). La clausura
+     * transitiva no se recorre al autenticar: la mantiene precalculada RoleHierarchyClosure.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_id")
+    private Role parent;
+
     @ManyToMany(mappedBy = "roles")
     private Collection<User> users;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ROLE_PERMISSIONS)
     @JoinTable(
             name = "roles_permissions",
             joinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id"),
@@ -41,6 +67,10 @@ public class Role implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -49,6 +79,14 @@ public class Role implements Serializable {
         this.name = name;
     }
 
+    public Role getParent() {
+        return parent;
+    }
+
+    public void setParent(Role parent) {
+        this.parent = parent;
+    }
+
     public Collection<User> getUsers() {
         return users;
     }
@@ -0,0 +1,53 @@
+package com.magadiflo.app.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Fila de la tabla students, usada solo por el almacén JPA de estudiantes (app.students.store=jpa).
+ * El id lo asigna el cliente (studentId), por eso no es autogenerado.
+ */
+@Entity
+@Table(name = "students")
+public class StudentEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private Integer id;
+
+    private String name;
+
+    public StudentEntity() {
+    }
+
+    public StudentEntity(Integer id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("StudentEntity{");
+        sb.append("id=").append(id);
+        sb.append(", name='").append(name).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -5,7 +5,7 @@ import java.io.Serializable;
 import java.util.Collection;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "ux_users_email", columnNames = "email"))
 public class User implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -20,6 +20,9 @@ public class User implements Serializable {
     private boolean enabled;
     private boolean tokenExpired;
 
+    @Version
+    private long version;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "users_roles",
@@ -54,6 +57,10 @@ public class User implements Serializable {
         this.lastName = lastName;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getEmail() {
         return email;
     }
@@ -0,0 +1,36 @@
+package com.magadiflo.app.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * StatementInspector de Hibernate que cuenta las sentencias SQL preparadas en el hilo actual entre begin()
+ * y end(). No modifica el SQL. Fuera de una petición (sin begin()) no cuenta nada.
+ */
+public class HibernateStatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ThreadLocal<int[]> counter = new ThreadLocal<>();
+
+    public void begin() {
+        this.counter.set(new int[1]);
+    }
+
+    /**
+     * Devuelve las sentencias contadas desde begin() y deja de contar.
+     */
+    public int end() {
+        int[] count = this.counter.get();
+        this.counter.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = this.counter.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,31 @@
+package com.magadiflo.app.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+
+/**
+ * /actuator/hibernatestatements: sentencias SQL por petición agrupadas por ruta (peticiones, total, media,
+ * máximo y última). DELETE reinicia los contadores, útil antes de una prueba de carga.
+ */
+@Endpoint(id = "hibernatestatements")
+public class HibernateStatementsEndpoint {
+
+    private final RequestStatementStatistics statistics;
+
+    public HibernateStatementsEndpoint(RequestStatementStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> statements() {
+        return this.statistics.snapshot();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        this.statistics.reset();
+    }
+}
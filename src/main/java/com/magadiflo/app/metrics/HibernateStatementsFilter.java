@@ -0,0 +1,64 @@
+package com.magadiflo.app.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Cuenta las sentencias de Hibernate de cada petición, incluidas las de la cadena de Spring Security
+ * (login, carga del usuario), y las publica como hibernate.statements.per.request por ruta.
+ * La ruta es el patrón del controlador (/api/v1/students/{studentId}), no la URI, para no disparar la
+ * cardinalidad de las métricas; POST /login, que atiende un filtro y no un controlador, se etiqueta aparte.
+ */
+public class HibernateStatementsFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN = "/login";
+    private static final String UNMATCHED = "UNMATCHED";
+
+    private final HibernateStatementCounter counter;
+    private final RequestStatementStatistics statistics;
+    private final MeterRegistry meterRegistry;
+
+    public HibernateStatementsFilter(HibernateStatementCounter counter, RequestStatementStatistics statistics,
+                                     MeterRegistry meterRegistry) {
+        this.counter = counter;
+        this.statistics = statistics;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        this.counter.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = this.counter.end();
+            String route = route(request);
+            this.statistics.record(route, statements);
+            DistributionSummary.builder("hibernate.statements.per.request")
+                    .description("Sentencias SQL ejecutadas por Hibernate en cada petición")
+                    .tag("uri", route)
+                    .register(this.meterRegistry)
+                    .record(statements);
+        }
+    }
+
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return request.getMethod() + " " + pattern;
+        }
+        if (LOGIN.equals(request.getRequestURI().substring(request.getContextPath().length()))) {
+            return request.getMethod() + " " + LOGIN;
+        }
+        return UNMATCHED;
+    }
+}
@@ -0,0 +1,59 @@
+package com.magadiflo.app.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Métricas propias de la aplicación, además de las de Spring Boot Actuator:
+ * tiempo exclusivo de cada filtro de Spring Security y sentencias de Hibernate por petición.
+ * Las del login (security.authentication, security.user.lookup, security.password.*) y las de la caché de
+ * usuarios las registran MeteredDaoAuthenticationProvider, OffloadingPasswordEncoder y UserDetailsCache.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // static: es un BeanPostProcessor y debe crearse antes que el resto de beans de esta configuración
+    @Bean
+    @ConditionalOnProperty(name = "app.metrics.security-filters.enabled", havingValue = "true", matchIfMissing = true)
+    public static SecurityFilterMetricsPostProcessor securityFilterMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SecurityFilterMetricsPostProcessor(meterRegistry);
+    }
+
+    @Bean
+    public HibernateStatementCounter hibernateStatementCounter() {
+        return new HibernateStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateStatementCounterCustomizer(HibernateStatementCounter counter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+
+    @Bean
+    public RequestStatementStatistics requestStatementStatistics() {
+        return new RequestStatementStatistics();
+    }
+
+    // Antes que la cadena de Spring Security, para contar también las consultas del login
+    @Bean
+    public FilterRegistrationBean<HibernateStatementsFilter> hibernateStatementsFilter(HibernateStatementCounter counter,
+                                                                                       RequestStatementStatistics statistics,
+                                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<HibernateStatementsFilter> registration =
+                new FilterRegistrationBean<>(new HibernateStatementsFilter(counter, statistics, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public HibernateStatementsEndpoint hibernateStatementsEndpoint(RequestStatementStatistics statistics) {
+        return new HibernateStatementsEndpoint(statistics);
+    }
+}
@@ -0,0 +1,59 @@
+package com.magadiflo.app.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumulado, por ruta, de las sentencias SQL que ejecutó Hibernate en cada petición.
+ * Lo alimenta {@link HibernateStatementsFilter} y lo expone {@link HibernateStatementsEndpoint}.
+ */
+public class RequestStatementStatistics {
+
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    public void record(String route, int statements) {
+        this.routes.computeIfAbsent(route, key -> new Route()).record(statements);
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        this.routes.forEach((route, stats) -> snapshot.put(route, stats.snapshot()));
+        return snapshot;
+    }
+
+    public void reset() {
+        this.routes.clear();
+    }
+
+    private static final class Route {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private volatile int last;
+
+        void record(int count) {
+            this.requests.increment();
+            this.statements.add(count);
+            this.max.accumulate(count);
+            this.last = count;
+        }
+
+        Map<String, Object> snapshot() {
+            long requests = this.requests.sum();
+            long statements = this.statements.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("requests", requests);
+            snapshot.put("statements", statements);
+            snapshot.put("mean", requests == 0 ? 0.0 : (double) statements / requests);
+            snapshot.put("max", this.max.get());
+            snapshot.put("last", this.last);
+            return snapshot;
+        }
+    }
+}
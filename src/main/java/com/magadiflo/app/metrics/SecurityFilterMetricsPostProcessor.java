@@ -0,0 +1,111 @@
+package com.magadiflo.app.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envuelve cada filtro de las cadenas del FilterChainProxy (las que construye ApplicationSecurityConfig)
+ * para medir su tiempo exclusivo: lo que tarda el propio filtro, sin contar el resto de la cadena que ejecuta
+ * por debajo. Se publica como security.filter con el tag filter=nombre simple de la clase, así se ve cuánto
+ * de una petición es autenticación, sesión, autorización por URL, etc.
+ */
+public class SecurityFilterMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SecurityFilterMetricsPostProcessor.class);
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public SecurityFilterMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof FilterChainProxy) {
+            MeterRegistry registry = this.meterRegistry.getObject();
+            for (SecurityFilterChain chain : ((FilterChainProxy) bean).getFilterChains()) {
+                this.instrument(chain.getFilters(), registry);
+            }
+        }
+        return bean;
+    }
+
+    private void instrument(List<Filter> filters, MeterRegistry registry) {
+        try {
+            for (ListIterator<Filter> it = filters.listIterator(); it.hasNext(); ) {
+                Filter filter = it.next();
+                if (!(filter instanceof TimedFilter)) {
+                    it.set(new TimedFilter(filter, Timer.builder("security.filter")
+                            .description("Tiempo exclusivo de cada filtro de Spring Security")
+                            .tag("filter", filter.getClass().getSimpleName())
+                            .publishPercentiles(0.5, 0.95, 0.99)
+                            .register(registry)));
+                }
+            }
+        } catch (UnsupportedOperationException e) {
+            LOG.warn("La cadena de filtros no es modificable, no se medirán sus filtros");
+        }
+    }
+
+    static final class TimedFilter implements Filter {
+
+        private final Filter delegate;
+        private final Timer timer;
+
+        TimedFilter(Filter delegate, Timer timer) {
+            this.delegate = delegate;
+            this.timer = timer;
+        }
+
+        @Override
+        public void init(FilterConfig filterConfig) throws ServletException {
+            this.delegate.init(filterConfig);
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+                throws IOException, ServletException {
+            long[] downstream = new long[1];
+            long start = System.nanoTime();
+            try {
+                this.delegate.doFilter(request, response, (req, res) -> {
+                    long chainStart = System.nanoTime();
+                    try {
+                        chain.doFilter(req, res);
+                    } finally {
+                        downstream[0] += System.nanoTime() - chainStart;
+                    }
+                });
+            } finally {
+                this.timer.record(System.nanoTime() - start - downstream[0], TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void destroy() {
+            this.delegate.destroy();
+        }
+
+        @Override
+        public String toString() {
+            return this.delegate.toString();
+        }
+    }
+}
@@ -1,10 +1,30 @@
 package com.magadiflo.app.repository;
 
 import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.repository.cache.CacheRegions;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 public interface IPermissionRepository extends CrudRepository<Permission, Long> {
 
+    /**
+     * Resultado en la caché de consultas de Hibernate (y la entidad en la de segundo nivel).
+     */
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheRegions.AUTHORITY_QUERIES)})
     Permission findByName(String name);
 
+    @Query("select p.name from Permission p order by p.id")
+    List<String> findAllNames();
+
+    List<Permission> findByNameIn(Collection<String> names);
+
 }
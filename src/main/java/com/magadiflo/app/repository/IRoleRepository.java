@@ -1,10 +1,48 @@
 package com.magadiflo.app.repository;
 
 import com.magadiflo.app.domain.Role;
+import com.magadiflo.app.repository.cache.CacheRegions;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
 
 public interface IRoleRepository extends CrudRepository<Role, Long> {
 
+    /**
+     * Resultado en la caché de consultas de Hibernate (y la entidad en la de segundo nivel).
+     */
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheRegions.AUTHORITY_QUERIES)})
     Role findByName(String name);
 
+    @Query("select r.name from Role r order by r.id")
+    List<String> findAllNames();
+
+    /**
+     * Roles con sus permisos propios en una sola consulta (carga de los datos iniciales, ver SetupDataLoader).
+     */
+    @EntityGraph(attributePaths = "permissions")
+    List<Role> findByNameIn(Collection<String> names);
+
+    /**
+     * Todos los roles con su padre y sus permisos propios (no los heredados), sin hidratar entidades.
+     */
+    @Query("select r.name as roleName, pr.name as parentName, p.name as permissionName " +
+            "from Role r left join r.parent pr left join r.permissions p")
+    List<RolePermissionView> findAllRolePermissions();
+
+    @Query("select r.name as roleName, pr.name as parentName, p.name as permissionName " +
+            "from Role r left join r.parent pr left join r.permissions p " +
+            "where r.name in :names")
+    List<RolePermissionView> findRolePermissionsByNameIn(@Param("names") Collection<String> names);
+
 }
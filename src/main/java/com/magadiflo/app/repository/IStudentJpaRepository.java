@@ -0,0 +1,15 @@
+package com.magadiflo.app.repository;
+
+import com.magadiflo.app.domain.StudentEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface IStudentJpaRepository extends CrudRepository<StudentEntity, Integer> {
+
+    Iterable<StudentEntity> findAllByOrderByIdAsc();
+
+    List<StudentEntity> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+}
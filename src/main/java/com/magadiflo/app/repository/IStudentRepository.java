@@ -0,0 +1,83 @@
+package com.magadiflo.app.repository;
+
+import com.magadiflo.app.resource.Student;
+import com.magadiflo.app.resource.StudentChange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Almacén de estudiantes compartido por StudentController y StudentManagamentController.
+ * Implementaciones: {@link InMemoryStudentRepository} (por defecto, app.students.store=memory)
+ * y {@link JpaStudentRepository} (app.students.store=jpa).
+ */
+public interface IStudentRepository {
+
+    Optional<Student> findById(int studentId);
+
+    /**
+     * Todos los estudiantes ordenados por studentId.
+     */
+    List<Student> findAll();
+
+    /**
+     * Paginación por cursor (keyset): hasta limit estudiantes con studentId mayor que afterId, ordenados por id.
+     * El cursor de la página siguiente es el studentId del último elemento devuelto.
+     */
+    List<Student> findPage(int afterId, int limit);
+
+    boolean existsById(int studentId);
+
+    /**
+     * Inserta el estudiante o reemplaza el que tenga el mismo studentId.
+     */
+    Student save(Student student);
+
+    /**
+     * @return false si no existía
+     */
+    boolean deleteById(int studentId);
+
+    long count();
+
+    /**
+     * Versión actual del almacén: avanza con cada escritura que modifica algún estudiante, así que mientras no
+     * cambie las lecturas devuelven lo mismo. Léase antes que los datos (ver {@link StudentStoreVersion}).
+     */
+    StudentStoreVersion version();
+
+    /**
+     * Aplica, en orden, un lote de operaciones ya validadas (ver StudentChange.isValid()) y devuelve el resultado
+     * de cada una en la misma posición. create falla si el id ya existe; update y delete, si no existe.
+     * Esta implementación las aplica una a una; las implementaciones pueden agruparlas.
+     */
+    default List<StudentChange.Result> applyBatch(List<StudentChange> changes) {
+        List<StudentChange.Result> results = new ArrayList<>(changes.size());
+        for (StudentChange change : changes) {
+            int studentId = change.getStudentId();
+            switch (change.operation()) {
+                case CREATE:
+                    if (this.existsById(studentId)) {
+                        results.add(StudentChange.Result.ALREADY_EXISTS);
+                    } else {
+                        this.save(change.toStudent());
+                        results.add(StudentChange.Result.CREATED);
+                    }
+                    break;
+                case UPDATE:
+                    if (this.existsById(studentId)) {
+                        this.save(change.toStudent());
+                        results.add(StudentChange.Result.UPDATED);
+                    } else {
+                        results.add(StudentChange.Result.NOT_FOUND);
+                    }
+                    break;
+                default:
+                    results.add(this.deleteById(studentId) ? StudentChange.Result.DELETED : StudentChange.Result.NOT_FOUND);
+            }
+        }
+        return results;
+    }
+
+}
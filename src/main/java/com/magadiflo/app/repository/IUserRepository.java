@@ -1,10 +1,32 @@
 package com.magadiflo.app.repository;
 
 import com.magadiflo.app.domain.User;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface IUserRepository extends CrudRepository<User, Long> {
 
     User findByEmail(String email);
 
+    List<User> findByEmailIn(Collection<String> emails);
+
+    /**
+     * Resuelve en una sola consulta el estado del usuario junto con los nombres de sus roles directos,
+     * sin hidratar las entidades User ni Role. Los permisos (propios y heredados) de cada rol ya están
+     * precalculados en RoleHierarchyClosure.
+     */
+    @Query("select u.email as email, u.password as password, u.enabled as enabled, r.name as roleName " +
+            "from User u left join u.roles r " +
+            "where u.email = :email")
+    List<UserAuthorityView> findRolesByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
+
 }
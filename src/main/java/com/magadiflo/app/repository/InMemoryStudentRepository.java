@@ -0,0 +1,230 @@
+package com.magadiflo.app.repository;
+
+import com.magadiflo.app.resource.Student;
+import com.magadiflo.app.resource.StudentChange;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Almacén en memoria indexado directamente por studentId: un directorio de páginas de 4096 posiciones
+ * (AtomicReferenceArray), de modo que findById(...) son dos accesos a array sin boxing, sin hash y sin locks,
+ * y su coste no depende de cuántos estudiantes haya. Las páginas se crean al escribir el primer id que cae
+ * en ellas, así que ids dispersos no reservan memoria para los huecos entre páginas.
+ * <p>
+ * Las lecturas no bloquean nunca. Las escrituras sobre páginas existentes tampoco; crear una página o ampliar
+ * el directorio se hace bajo un lock, y el directorio ampliado se publica con una escritura volatile.
+ * findAll() recorre las páginas en orden, así que devuelve los estudiantes ordenados por id.
+ * <p>
+ * Cada escritura que modifica algo avanza {@link #version()} después de aplicarse.
+ */
+@Repository
+@ConditionalOnProperty(name = "app.students.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryStudentRepository implements IStudentRepository {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private volatile AtomicReferenceArray<Student>[] pages = newDirectory(16);
+    private final AtomicLong size = new AtomicLong();
+    private final Object resizeLock = new Object();
+    private final AtomicReference<StudentStoreVersion> version =
+            new AtomicReference<>(new StudentStoreVersion(0, System.currentTimeMillis()));
+
+    @Override
+    public Optional<Student> findById(int studentId) {
+        return Optional.ofNullable(this.get(studentId));
+    }
+
+    @Override
+    public boolean existsById(int studentId) {
+        return this.get(studentId) != null;
+    }
+
+    @Override
+    public List<Student> findAll() {
+        List<Student> students = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, this.size.get()));
+        for (AtomicReferenceArray<Student> page : this.pages) {
+            if (page != null) {
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    Student student = page.get(i);
+                    if (student != null) {
+                        students.add(student);
+                    }
+                }
+            }
+        }
+        return students;
+    }
+
+    @Override
+    public List<Student> findPage(int afterId, int limit) {
+        List<Student> students = new ArrayList<>(Math.min(limit, PAGE_SIZE));
+        if (afterId == Integer.MAX_VALUE) {
+            return students;
+        }
+        int from = Math.max(0, afterId + 1);
+        AtomicReferenceArray<Student>[] directory = this.pages;
+        for (int pageIndex = from >>> PAGE_BITS; pageIndex < directory.length && students.size() < limit; pageIndex++) {
+            AtomicReferenceArray<Student> page = directory[pageIndex];
+            if (page == null) {
+                continue;
+            }
+            int first = pageIndex == from >>> PAGE_BITS ? from & PAGE_MASK : 0;
+            for (int i = first; i < PAGE_SIZE && students.size() < limit; i++) {
+                Student student = page.get(i);
+                if (student != null) {
+                    students.add(student);
+                }
+            }
+        }
+        return students;
+    }
+
+    @Override
+    public Student save(Student student) {
+        int studentId = checkId(student.getStudentId());
+        if (this.pageForWrite(studentId).getAndSet(studentId & PAGE_MASK, student) == null) {
+            this.size.incrementAndGet();
+        }
+        this.changed();
+        return student;
+    }
+
+    /**
+     * create y update se resuelven con compareAndSet sobre la posición del id, así que son atómicos aunque
+     * otro hilo escriba el mismo estudiante a la vez.
+     */
+    @Override
+    public List<StudentChange.Result> applyBatch(List<StudentChange> changes) {
+        List<StudentChange.Result> results = new ArrayList<>(changes.size());
+        for (StudentChange change : changes) {
+            int studentId = change.getStudentId();
+            switch (change.operation()) {
+                case CREATE:
+                    if (this.pageForWrite(studentId).compareAndSet(studentId & PAGE_MASK, null, change.toStudent())) {
+                        this.size.incrementAndGet();
+                        results.add(StudentChange.Result.CREATED);
+                    } else {
+                        results.add(StudentChange.Result.ALREADY_EXISTS);
+                    }
+                    break;
+                case UPDATE:
+                    results.add(this.replace(studentId, change.toStudent())
+                            ? StudentChange.Result.UPDATED : StudentChange.Result.NOT_FOUND);
+                    break;
+                default:
+                    results.add(this.remove(studentId) ? StudentChange.Result.DELETED : StudentChange.Result.NOT_FOUND);
+            }
+        }
+        if (results.stream().anyMatch(StudentChange.Result::isChange)) {
+            this.changed();
+        }
+        return results;
+    }
+
+    private boolean replace(int studentId, Student student) {
+        AtomicReferenceArray<Student> page = this.page(studentId);
+        if (page == null) {
+            return false;
+        }
+        int slot = studentId & PAGE_MASK;
+        for (Student current = page.get(slot); current != null; current = page.get(slot)) {
+            if (page.compareAndSet(slot, current, student)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean deleteById(int studentId) {
+        if (this.remove(studentId)) {
+            this.changed();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long count() {
+        return this.size.get();
+    }
+
+    @Override
+    public StudentStoreVersion version() {
+        return this.version.get();
+    }
+
+    private boolean remove(int studentId) {
+        AtomicReferenceArray<Student> page = this.page(studentId);
+        if (page != null && page.getAndSet(studentId & PAGE_MASK, null) != null) {
+            this.size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void changed() {
+        long now = System.currentTimeMillis();
+        this.version.updateAndGet(current -> current.next(now));
+    }
+
+    private Student get(int studentId) {
+        AtomicReferenceArray<Student> page = this.page(studentId);
+        return page == null ? null : page.get(studentId & PAGE_MASK);
+    }
+
+    private AtomicReferenceArray<Student> page(int studentId) {
+        if (studentId < 0) {
+            return null;
+        }
+        AtomicReferenceArray<Student>[] directory = this.pages;
+        int pageIndex = studentId >>> PAGE_BITS;
+        return pageIndex < directory.length ? directory[pageIndex] : null;
+    }
+
+    private AtomicReferenceArray<Student> pageForWrite(int studentId) {
+        AtomicReferenceArray<Student> page = this.page(studentId);
+        if (page != null) {
+            return page;
+        }
+        synchronized (this.resizeLock) {
+            int pageIndex = studentId >>> PAGE_BITS;
+            AtomicReferenceArray<Student>[] directory = this.pages;
+            if (pageIndex >= directory.length) {
+                AtomicReferenceArray<Student>[] grown = newDirectory(Math.max(pageIndex + 1, directory.length * 2));
+                System.arraycopy(directory, 0, grown, 0, directory.length);
+                directory = grown;
+            } else if (directory[pageIndex] != null) {
+                return directory[pageIndex];
+            } else {
+                // Copia para publicar la página nueva con la escritura volatile de this.pages
+                directory = directory.clone();
+            }
+            page = new AtomicReferenceArray<>(PAGE_SIZE);
+            directory[pageIndex] = page;
+            this.pages = directory;
+            return page;
+        }
+    }
+
+    private static int checkId(Integer studentId) {
+        if (studentId == null || studentId < 0) {
+            throw new IllegalArgumentException("El studentId debe ser un entero no negativo: " + studentId);
+        }
+        return studentId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Student>[] newDirectory(int length) {
+        return (AtomicReferenceArray<Student>[]) new AtomicReferenceArray[length];
+    }
+}
@@ -0,0 +1,239 @@
+package com.magadiflo.app.repository;
+
+import com.magadiflo.app.domain.StudentEntity;
+import com.magadiflo.app.resource.Student;
+import com.magadiflo.app.resource.StudentChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Almacén de estudiantes en la tabla students (app.students.store=jpa). La búsqueda por id va por la
+ * clave primaria, así que su coste tampoco crece de forma apreciable con el número de estudiantes.
+ * <p>
+ * La versión del almacén ({@link #version()}) es una fila de student_store_version que se incrementa en la
+ * misma transacción que cada escritura: la comparten todos los nodos, así que un cambio hecho en cualquiera
+ * invalida los ETag y las respuestas cacheadas de todos. A cambio, las escrituras de estudiantes se serializan
+ * en esa fila.
+ */
+@Repository
+@Transactional
+@ConditionalOnProperty(name = "app.students.store", havingValue = "jpa")
+public class JpaStudentRepository implements IStudentRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JpaStudentRepository.class);
+    private static final int MAX_IN_LIST = 1_000;
+
+    private final IStudentJpaRepository studentJpaRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JpaStudentRepository(IStudentJpaRepository studentJpaRepository, NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager) {
+        this.studentJpaRepository = studentJpaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Student> findById(int studentId) {
+        return this.studentJpaRepository.findById(studentId).map(JpaStudentRepository::toStudent);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Student> findAll() {
+        List<Student> students = new ArrayList<>();
+        this.studentJpaRepository.findAllByOrderByIdAsc().forEach(entity -> students.add(toStudent(entity)));
+        return students;
+    }
+
+    /**
+     * where id > :afterId order by id limit :limit, que recorre el índice de la clave primaria: cada página
+     * cuesta lo mismo sea la primera o la millonésima (a diferencia de un OFFSET).
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Student> findPage(int afterId, int limit) {
+        List<Student> students = new ArrayList<>();
+        this.studentJpaRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit))
+                .forEach(entity -> students.add(toStudent(entity)));
+        return students;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsById(int studentId) {
+        return this.studentJpaRepository.existsById(studentId);
+    }
+
+    @Override
+    public Student save(Student student) {
+        this.studentJpaRepository.save(new StudentEntity(student.getStudentId(), student.getStudentName()));
+        this.changed();
+        return student;
+    }
+
+    @Override
+    public boolean deleteById(int studentId) {
+        if (!this.studentJpaRepository.existsById(studentId)) {
+            return false;
+        }
+        this.studentJpaRepository.deleteById(studentId);
+        this.changed();
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return this.studentJpaRepository.count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StudentStoreVersion version() {
+        return this.jdbcTemplate.getJdbcTemplate().queryForObject(
+                "select version, updated_at from student_store_version where id = 1",
+                (rs, row) -> new StudentStoreVersion(rs.getLong(1), rs.getTimestamp(2).getTime()));
+    }
+
+    /**
+     * El lote entero va en una transacción: una consulta para saber qué ids existen y, después, como mucho tres
+     * sentencias JDBC en batch (insert, update y delete) en lugar de una ida y vuelta por estudiante. Si el
+     * mismo id aparece dos veces se ejecuta antes lo acumulado, para respetar el orden de las operaciones.
+     * Si el lote falla (p. ej. otro hilo insertó el mismo id entre la consulta y el insert) se deshace y se
+     * reintenta fila a fila, cada una en su transacción, para que solo las filas culpables queden en FAILED.
+     * <p>
+     * Las escrituras no pasan por Hibernate: no disparan listeners ni quedan en su contexto de persistencia.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StudentChange.Result> applyBatch(List<StudentChange> changes) {
+        try {
+            return this.transactionTemplate.execute(status -> this.applyInTransaction(changes));
+        } catch (DataAccessException e) {
+            LOG.warn("Falló el lote de {} operaciones sobre estudiantes, se reintenta fila a fila: {}",
+                    changes.size(), e.getMessage());
+        }
+        List<StudentChange.Result> results = new ArrayList<>(changes.size());
+        for (StudentChange change : changes) {
+            try {
+                results.add(this.transactionTemplate.execute(status ->
+                        this.applyInTransaction(Collections.singletonList(change)).get(0)));
+            } catch (DataAccessException e) {
+                LOG.warn("Falló la operación {}: {}", change, e.getMessage());
+                results.add(StudentChange.Result.FAILED);
+            }
+        }
+        return results;
+    }
+
+    private List<StudentChange.Result> applyInTransaction(List<StudentChange> changes) {
+        Set<Integer> existing = this.findExistingIds(changes);
+        List<StudentChange.Result> results = new ArrayList<>(changes.size());
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        Set<Integer> pending = new HashSet<>();
+        for (StudentChange change : changes) {
+            Integer studentId = change.getStudentId();
+            if (!pending.add(studentId)) {
+                this.flush(inserts, updates, deletes);
+                pending.clear();
+                pending.add(studentId);
+            }
+            switch (change.operation()) {
+                case CREATE:
+                    if (existing.add(studentId)) {
+                        inserts.add(new Object[]{studentId, change.getStudentName()});
+                        results.add(StudentChange.Result.CREATED);
+                    } else {
+                        results.add(StudentChange.Result.ALREADY_EXISTS);
+                    }
+                    break;
+                case UPDATE:
+                    if (existing.contains(studentId)) {
+                        updates.add(new Object[]{change.getStudentName(), studentId});
+                        results.add(StudentChange.Result.UPDATED);
+                    } else {
+                        results.add(StudentChange.Result.NOT_FOUND);
+                    }
+                    break;
+                default:
+                    if (existing.remove(studentId)) {
+                        deletes.add(new Object[]{studentId});
+                        results.add(StudentChange.Result.DELETED);
+                    } else {
+                        results.add(StudentChange.Result.NOT_FOUND);
+                    }
+            }
+        }
+        this.flush(inserts, updates, deletes);
+        if (results.stream().anyMatch(StudentChange.Result::isChange)) {
+            this.changed();
+        }
+        return results;
+    }
+
+    /**
+     * Avanza la versión dentro de la transacción de la escritura: se confirma o se deshace con ella.
+     */
+    private void changed() {
+        this.jdbcTemplate.getJdbcTemplate().update(
+                "update student_store_version set version = version + 1, updated_at = ? where id = 1",
+                new Timestamp(System.currentTimeMillis()));
+    }
+
+    private Set<Integer> findExistingIds(List<StudentChange> changes) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        changes.forEach(change -> ids.add(change.getStudentId()));
+        List<Integer> distinct = new ArrayList<>(ids);
+        Set<Integer> existing = new HashSet<>();
+        for (int from = 0; from < distinct.size(); from += MAX_IN_LIST) {
+            List<Integer> chunk = distinct.subList(from, Math.min(distinct.size(), from + MAX_IN_LIST));
+            existing.addAll(this.jdbcTemplate.queryForList("select id from students where id in (:ids)",
+                    Collections.singletonMap("ids", chunk), Integer.class));
+        }
+        return existing;
+    }
+
+    private void flush(List<Object[]> inserts, List<Object[]> updates, List<Object[]> deletes) {
+        JdbcTemplate jdbc = this.jdbcTemplate.getJdbcTemplate();
+        if (!inserts.isEmpty()) {
+            jdbc.batchUpdate("insert into students (id, name) values (?, ?)", inserts);
+            inserts.clear();
+        }
+        if (!updates.isEmpty()) {
+            jdbc.batchUpdate("update students set name = ? where id = ?", updates);
+            updates.clear();
+        }
+        if (!deletes.isEmpty()) {
+            jdbc.batchUpdate("delete from students where id = ?", deletes);
+            deletes.clear();
+        }
+    }
+
+    private static Student toStudent(StudentEntity entity) {
+        return new Student(entity.getId(), entity.getName());
+    }
+}
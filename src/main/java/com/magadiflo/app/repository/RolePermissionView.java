@@ -0,0 +1,16 @@
+package com.magadiflo.app.repository;
+
+/**
+ * Proyección de solo lectura de la jerarquía de roles: cada fila es una combinación rol-permiso propio
+ * junto con el nombre del rol padre. parentName y permissionName pueden ser null (rol raíz o sin permisos
+ * propios) y el rol se repite en tantas filas como permisos propios tenga.
+ */
+public interface RolePermissionView {
+
+    String getRoleName();
+
+    String getParentName();
+
+    String getPermissionName();
+
+}
@@ -0,0 +1,35 @@
+package com.magadiflo.app.repository;
+
+/**
+ * Versión de un almacén de estudiantes: un contador que avanza con cada escritura que modifica algún estudiante y
+ * el momento de ese cambio. De ella salen el ETag y el Last-Modified de las lecturas (ver StudentResponseCache).
+ * <p>
+ * El almacén avanza la versión después de escribir (o en la misma transacción que la escritura), así que quien
+ * la lee antes que los datos nunca asocia datos viejos a una versión nueva: como mucho asocia datos nuevos a la
+ * versión anterior, que deja de servirse en cuanto avanza el contador.
+ */
+public final class StudentStoreVersion {
+
+    private final long version;
+    private final long lastModified;
+
+    public StudentStoreVersion(long version, long lastModified) {
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Momento del cambio en milisegundos desde epoch.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    StudentStoreVersion next(long now) {
+        return new StudentStoreVersion(this.version + 1, now);
+    }
+}
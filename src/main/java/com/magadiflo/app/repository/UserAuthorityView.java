@@ -0,0 +1,17 @@
+package com.magadiflo.app.repository;
+
+/**
+ * Proyección de solo lectura usada para autenticar a un usuario.
+ * Cada fila corresponde a una combinación usuario-rol (roleName es null si el usuario no tiene roles).
+ */
+public interface UserAuthorityView {
+
+    String getEmail();
+
+    String getPassword();
+
+    boolean isEnabled();
+
+    String getRoleName();
+
+}
@@ -0,0 +1,23 @@
+package com.magadiflo.app.repository.cache;
+
+/**
+ * Regiones de la caché de segundo nivel de Hibernate. Cada una se crea con límites explícitos en
+ * SecondLevelCacheConfig; Hibernate no puede crear otras por su cuenta (missing_cache_strategy=fail).
+ */
+public final class CacheRegions {
+
+    public static final String ROLES = "roles";
+    public static final String PERMISSIONS = "permissions";
+    public static final String ROLE_PERMISSIONS = "roles.permissions";
+    public static final String AUTHORITY_QUERIES = "authority-queries";
+
+    /**
+     * Regiones propias de Hibernate para la caché de consultas: los resultados de las consultas sin región
+     * y la última modificación de cada tabla, con la que se descartan los resultados obsoletos.
+     */
+    public static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,73 @@
+package com.magadiflo.app.repository.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Roles y permisos cambian muy poco y se leen en cada arranque, en cada cambio de authorities y en los
+ * findByName(...) de SetupDataLoader. Con app.jpa.second-level-cache.enabled=true (valor por defecto) Hibernate
+ * guarda en una caché en proceso (Caffeine vía JCache) las entidades Role y Permission, la colección
+ * roles_permissions y los resultados de los findByName(...).
+ * <p>
+ * Las escrituras que pasan por Hibernate invalidan las entradas afectadas por sí solas (READ_WRITE y, para las
+ * consultas, las marcas de tiempo de cada tabla). Las que van por JDBC deben llamar a {@link SecondLevelCaches}.
+ * <p>
+ * Cada contexto de Spring tiene su propio CacheManager (URI único), así dos contextos en la misma JVM (los tests)
+ * no comparten entradas.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.jpa.second-level-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), SecondLevelCacheConfig.class.getClassLoader());
+        properties.getRegions().forEach((name, region) -> cacheManager.createCache(name, configuration(region)));
+        // Una entrada por tabla y nunca se expulsa: si se perdiera, se servirían resultados de consultas obsoletos
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStoreByValue(false);
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(CacheRegions.UPDATE_TIMESTAMPS, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager,
+                                                                    SecondLevelCacheProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, properties.isStatistics());
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(SecondLevelCacheProperties.Region region) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate ya guarda en la caché una copia desensamblada: copiarla otra vez al leer no aporta nada
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        configuration.setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+        if (region.getExpireAfterWrite() != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(region.getExpireAfterWrite().toNanos()));
+        }
+        return configuration;
+    }
+}
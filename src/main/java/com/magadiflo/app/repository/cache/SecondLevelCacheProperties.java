@@ -0,0 +1,84 @@
+package com.magadiflo.app.repository.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de segundo nivel de Hibernate para roles y permisos (app.jpa.second-level-cache.*). Cada región tiene un
+ * número máximo de entradas y una caducidad tras escribirse; por ejemplo, con la población sintética:
+ * <pre>
+ * app.jpa.second-level-cache.regions.permissions.maximum-size=20000
+ * app.jpa.second-level-cache.regions.permissions.expire-after-write=1h
+ * </pre>
+ * Con statistics=true Hibernate lleva las estadísticas de aciertos y fallos, que Actuator publica como
+ * hibernate.second.level.cache.requests y hibernate.query.cache.requests.
+ */
+@ConfigurationProperties(prefix = "app.jpa.second-level-cache")
+public class SecondLevelCacheProperties {
+
+    private boolean enabled = true;
+    private boolean statistics = true;
+    private Map<String, Region> regions = new LinkedHashMap<>(Map.of(
+            CacheRegions.ROLES, new Region(1000, Duration.ofHours(1)),
+            CacheRegions.PERMISSIONS, new Region(20000, Duration.ofHours(1)),
+            CacheRegions.ROLE_PERMISSIONS, new Region(1000, Duration.ofHours(1)),
+            CacheRegions.AUTHORITY_QUERIES, new Region(25000, Duration.ofMinutes(10)),
+            CacheRegions.DEFAULT_QUERY_RESULTS, new Region(1000, Duration.ofMinutes(10))));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(boolean statistics) {
+        this.statistics = statistics;
+    }
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    public static class Region {
+
+        private long maximumSize;
+        private Duration expireAfterWrite;
+
+        public Region() {
+        }
+
+        public Region(long maximumSize, Duration expireAfterWrite) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWrite = expireAfterWrite;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+    }
+}
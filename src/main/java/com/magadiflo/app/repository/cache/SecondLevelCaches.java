@@ -0,0 +1,39 @@
+package com.magadiflo.app.repository.cache;
+
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.domain.Role;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Invalidación de la caché de segundo nivel para las escrituras que no pasan por Hibernate (JdbcTemplate).
+ * Sin caché de segundo nivel Hibernate devuelve una caché deshabilitada y esto no hace nada.
+ */
+@Component
+public class SecondLevelCaches {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SecondLevelCaches.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCaches(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Tras escribir en roles, permissions o roles_permissions por JDBC. Se descartan también todos los resultados
+     * de consultas: un findByName(...) que no encontró nada antes de la inserción seguiría sin encontrarlo.
+     */
+    public void evictAuthorityData() {
+        Cache cache = this.entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(Role.class);
+        cache.evictEntityData(Permission.class);
+        cache.evictCollectionData(Role.class.getName() + ".permissions");
+        cache.evictQueryRegions();
+        LOG.debug("Caché de segundo nivel de roles y permisos invalidada");
+    }
+}
@@ -0,0 +1,177 @@
+package com.magadiflo.app.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.magadiflo.app.repository.IStudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Procesa el cuerpo del endpoint bulk: lee las operaciones (NDJSON o un array JSON) una a una con un
+ * MappingIterator, las aplica por lotes de app.students.bulk.batch-size con IStudentRepository.applyBatch(...)
+ * y escribe, por cada lote aplicado, una línea NDJSON por operación con su resultado. Ni la petición ni la
+ * respuesta se cargan enteras en memoria: solo hay un lote a la vez.
+ * <p>
+ * La última línea es un resumen: {"summary":{"total":..,"succeeded":..,"failed":..,"batches":..,"elapsedMs":..,
+ * "opsPerSecond":..}}. Si el cuerpo tiene un JSON mal formado se aplican las operaciones leídas hasta ese punto,
+ * se escribe una línea {"error":"..."} y después el resumen.
+ */
+@Component
+public class StudentBulkProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StudentBulkProcessor.class);
+
+    private final ObjectReader reader;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Timer batchTimer;
+    private final Map<StudentChange.Result, Counter> resultCounters = new EnumMap<>(StudentChange.Result.class);
+
+    public StudentBulkProcessor(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${app.students.bulk.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.students.bulk.batch-size debe ser mayor que 0");
+        }
+        this.objectMapper = objectMapper;
+        this.reader = objectMapper.readerFor(StudentChange.class);
+        this.batchSize = batchSize;
+        this.batchTimer = Timer.builder("students.bulk.batch")
+                .description("Tiempo en aplicar un lote de operaciones del endpoint bulk")
+                .register(meterRegistry);
+        for (StudentChange.Result result : StudentChange.Result.values()) {
+            this.resultCounters.put(result, Counter.builder("students.bulk.operations")
+                    .description("Operaciones del endpoint bulk según su resultado")
+                    .tag("result", result.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public Summary process(IStudentRepository repository, InputStream in, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+        List<StudentChange> batch = new ArrayList<>(this.batchSize);
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            String error = null;
+            try (MappingIterator<StudentChange> changes = this.reader.readValues(in)) {
+                while (changes.hasNextValue()) {
+                    batch.add(changes.nextValue());
+                    if (batch.size() == this.batchSize) {
+                        this.applyBatch(repository, batch, summary, generator);
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                error = e.getOriginalMessage();
+            }
+            this.applyBatch(repository, batch, summary, generator);
+            if (error != null) {
+                generator.writeStartObject();
+                generator.writeStringField("error", error);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            summary.elapsedNanos = System.nanoTime() - start;
+            this.writeSummary(generator, summary);
+        }
+        LOG.info("Bulk de estudiantes: {} operaciones ({} correctas, {} fallidas) en {} lotes, {} ms, {} op/s",
+                summary.total, summary.succeeded, summary.total - summary.succeeded, summary.batches,
+                summary.elapsedNanos / 1_000_000, summary.opsPerSecond());
+        return summary;
+    }
+
+    /**
+     * Las operaciones inválidas no llegan al almacén: se responden como INVALID en su posición.
+     */
+    private void applyBatch(IStudentRepository repository, List<StudentChange> batch, Summary summary,
+                            JsonGenerator generator) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<StudentChange> valid = new ArrayList<>(batch.size());
+        batch.stream().filter(StudentChange::isValid).forEach(valid::add);
+        List<StudentChange.Result> applied = valid.isEmpty()
+                ? Collections.emptyList()
+                : this.batchTimer.record(() -> repository.applyBatch(valid));
+
+        int next = 0;
+        for (StudentChange change : batch) {
+            StudentChange.Result result = change.isValid() ? applied.get(next++) : StudentChange.Result.INVALID;
+            this.resultCounters.get(result).increment();
+            if (isSuccess(result)) {
+                summary.succeeded++;
+            }
+            generator.writeStartObject();
+            generator.writeNumberField("index", summary.total++);
+            generator.writeStringField("op", change.getOp());
+            if (change.getStudentId() != null) {
+                generator.writeNumberField("studentId", change.getStudentId());
+            }
+            generator.writeStringField("result", result.name());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+        summary.batches++;
+        batch.clear();
+        generator.flush();
+    }
+
+    private void writeSummary(JsonGenerator generator, Summary summary) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("summary");
+        generator.writeNumberField("total", summary.total);
+        generator.writeNumberField("succeeded", summary.succeeded);
+        generator.writeNumberField("failed", summary.total - summary.succeeded);
+        generator.writeNumberField("batches", summary.batches);
+        generator.writeNumberField("elapsedMs", summary.elapsedNanos / 1_000_000);
+        generator.writeNumberField("opsPerSecond", summary.opsPerSecond());
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static boolean isSuccess(StudentChange.Result result) {
+        return result == StudentChange.Result.CREATED || result == StudentChange.Result.UPDATED
+                || result == StudentChange.Result.DELETED;
+    }
+
+    public static class Summary {
+        private long total;
+        private long succeeded;
+        private long batches;
+        private long elapsedNanos;
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getSucceeded() {
+            return succeeded;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public long opsPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : this.total * 1_000_000_000L / this.elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.magadiflo.app.resource;
+
+/**
+ * Una operación del endpoint bulk: {"op":"create|update|delete","studentId":7,"studentName":"Lucía"}.
+ * studentName no hace falta para delete.
+ */
+public class StudentChange {
+
+    public enum Operation {CREATE, UPDATE, DELETE}
+
+    public enum Result {
+        CREATED, UPDATED, DELETED, NOT_FOUND, ALREADY_EXISTS, INVALID, FAILED;
+
+        /**
+         * true si la operación modificó el almacén
+         */
+        public boolean isChange() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+
+    private String op;
+    private Integer studentId;
+    private String studentName;
+
+    public StudentChange() {
+    }
+
+    public StudentChange(Operation operation, Integer studentId, String studentName) {
+        this.op = operation.name().toLowerCase();
+        this.studentId = studentId;
+        this.studentName = studentName;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Integer getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Integer studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public void setStudentName(String studentName) {
+        this.studentName = studentName;
+    }
+
+    /**
+     * La operación, o null si op no es create, update ni delete.
+     */
+    public Operation operation() {
+        if (this.op != null) {
+            for (Operation operation : Operation.values()) {
+                if (operation.name().equalsIgnoreCase(this.op)) {
+                    return operation;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Operación reconocida, studentId no negativo y, salvo en delete, con studentName.
+     */
+    public boolean isValid() {
+        Operation operation = this.operation();
+        return operation != null && this.studentId != null && this.studentId >= 0
+                && (operation == Operation.DELETE || this.studentName != null);
+    }
+
+    public Student toStudent() {
+        return new Student(this.studentId, this.studentName);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("StudentChange{");
+        sb.append("op='").append(op).append('\'');
+        sb.append(", studentId=").append(studentId);
+        sb.append(", studentName='").append(studentName).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
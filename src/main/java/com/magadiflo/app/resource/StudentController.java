@@ -1,28 +1,54 @@
 package com.magadiflo.app.resource;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.magadiflo.app.repository.IStudentRepository;
+import com.magadiflo.app.repository.StudentStoreVersion;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Arrays;
-import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/v1/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class StudentController {
 
-    private static final List<Student> STUDENTS = Arrays.asList(
-            new Student(1, "Martín"), new Student(2, "Gaspar"), new Student(3, "Alicia"),
-            new Student(4, "Tinkler"), new Student(5, "Raúl"), new Student(6, "Abraham")
-    );
+    private final IStudentRepository studentRepository;
+    private final StudentResponseCache responseCache;
+    private final ObjectMapper objectMapper;
 
+    public StudentController(IStudentRepository studentRepository, StudentResponseCache responseCache,
+                             ObjectMapper objectMapper) {
+        this.studentRepository = studentRepository;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Con ETag y Last-Modified: si el almacén no ha cambiado desde la copia del cliente responde 304 sin buscar
+     * el estudiante, y si no, reutiliza el JSON ya serializado mientras siga siendo válido (ver {@link StudentResponseCache}).
+     */
     @GetMapping(path = "/{studentId}")
-    public Student getStudent(@PathVariable Integer studentId) {
-        return STUDENTS.stream()
-                .filter(student -> student.getStudentId().equals(studentId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("Student ".concat(studentId.toString()).concat(" does not exists")));
+    public void getStudent(@PathVariable Integer studentId, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        StudentStoreVersion version = this.studentRepository.version();
+        if (this.responseCache.checkNotModified(version, "json", request, response)) {
+            return;
+        }
+        StudentResponseCache.CachedResponse cached = this.responseCache.get("student/" + studentId, version, loadedAt -> {
+            Student student = this.studentRepository.findById(studentId)
+                    .orElseThrow(() -> new IllegalStateException("Student ".concat(studentId.toString()).concat(" does not exists")));
+            return new StudentResponseCache.CachedResponse(loadedAt, this.objectMapper.writeValueAsBytes(student), null);
+        });
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(cached.getBody().length);
+        response.getOutputStream().write(cached.getBody());
     }
 
 }
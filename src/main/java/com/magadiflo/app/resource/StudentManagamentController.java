@@ -1,47 +1,175 @@
 package com.magadiflo.app.resource;
 
+import com.magadiflo.app.audit.AuditEventType;
+import com.magadiflo.app.audit.AuditLog;
+import com.magadiflo.app.repository.IStudentRepository;
+import com.magadiflo.app.repository.StudentStoreVersion;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.Arrays;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 @RequestMapping("/management/api/v1/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class StudentManagamentController {
 
-    private static final List<Student> STUDENTS = Arrays.asList(
-            new Student(1, "Martín"), new Student(2, "Gaspar"), new Student(3, "Alicia"),
-            new Student(4, "Tinkler"), new Student(5, "Raúl"), new Student(6, "Abraham")
-    );
+    private static final int MAX_PAGE_SIZE = 1_000;
 
+    private final IStudentRepository studentRepository;
+    private final StudentStreamWriter studentStreamWriter;
+    private final StudentBulkProcessor studentBulkProcessor;
+    private final StudentResponseCache responseCache;
+    private final AuditLog auditLog;
+
+    public StudentManagamentController(IStudentRepository studentRepository, StudentStreamWriter studentStreamWriter,
+                                       StudentBulkProcessor studentBulkProcessor, StudentResponseCache responseCache,
+                                       ObjectProvider<AuditLog> auditLog) {
+        this.studentRepository = studentRepository;
+        this.studentStreamWriter = studentStreamWriter;
+        this.studentBulkProcessor = studentBulkProcessor;
+        this.responseCache = responseCache;
+        this.auditLog = auditLog.getIfAvailable();
+    }
+
+    /**
+     * Sin limit devuelve todos los estudiantes (con studentId mayor que after, si se indica) escribiéndolos a
+     * medida que se leen, sin cargarlos todos en memoria. Con limit devuelve una página (máximo 1000) y, si hay
+     * más, la cabecera Link rel="next" con el cursor de la siguiente (?after=último studentId&limit=...).
+     * Con Accept: application/x-ndjson se responde un estudiante por línea en lugar de un array JSON.
+     * <p>
+     * Con ETag y Last-Modified: si el almacén no ha cambiado desde la copia del cliente responde 304 sin leer
+     * nada, y las páginas ya serializadas se reutilizan mientras sigan siendo válidas (ver {@link StudentResponseCache}).
+     */
     @GetMapping
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_ADMINTRAINEE')")
-    public List<Student> getAllStudents() {
-        System.out.println("getAllStudents");
-        return STUDENTS;
+    public void getAllStudents(@RequestParam(name = "after", required = false, defaultValue = "-1") int after,
+                               @RequestParam(name = "limit", required = false) Integer limit,
+                               @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        this.audit("getAllStudents", "success");
+        boolean ndjson = accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+        StudentStoreVersion version = this.studentRepository.version();
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (this.responseCache.checkNotModified(version, ndjson ? "ndjson" : "json", request, response)) {
+            return;
+        }
+        response.setContentType(ndjson ? MediaType.APPLICATION_NDJSON_VALUE : MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        if (limit == null) {
+            if (ndjson) {
+                this.studentStreamWriter.writeNdjson(this.studentRepository, after, Long.MAX_VALUE, response.getOutputStream());
+            } else {
+                this.studentStreamWriter.writeJsonArray(this.studentRepository, after, Long.MAX_VALUE, response.getOutputStream());
+            }
+            return;
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String key = "page/" + after + "/" + pageSize + (ndjson ? "/ndjson" : "/json");
+        StudentResponseCache.CachedResponse cached = this.responseCache.get(key, version, loadedAt -> {
+            List<Student> page = this.studentRepository.findPage(after, pageSize + 1);
+            Integer nextAfter = null;
+            if (page.size() > pageSize) {
+                page = page.subList(0, pageSize);
+                nextAfter = page.get(pageSize - 1).getStudentId();
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            this.studentStreamWriter.write(page, ndjson, body);
+            return new StudentResponseCache.CachedResponse(loadedAt, body.toByteArray(), nextAfter);
+        });
+        if (cached.getNextAfter() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", cached.getNextAfter())
+                    .replaceQueryParam("limit", pageSize)
+                    .toUriString();
+            response.setHeader(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        response.setContentLength(cached.getBody().length);
+        response.getOutputStream().write(cached.getBody());
     }
 
     @PostMapping
     @PreAuthorize("hasAuthority('student:write')")
     public void registerNewStudent(@RequestBody Student student) {
-        System.out.println("registerNewStudent");
-        System.out.println(student);
+        this.studentRepository.save(student);
+        this.responseCache.invalidateAll();
+        this.audit("registerNewStudent " + student.getStudentId(), "success");
+    }
+
+    /**
+     * Crea, actualiza o elimina estudiantes en bloque. El cuerpo es NDJSON (una operación por línea) o un array
+     * JSON de operaciones {"op":"create|update|delete","studentId":..,"studentName":..}; se lee a medida que
+     * llega y la autorización se comprueba una sola vez para toda la petición. La respuesta es NDJSON con el
+     * resultado de cada operación, en el mismo orden, y un resumen final (ver {@link StudentBulkProcessor}).
+     */
+    @PostMapping(path = "/bulk")
+    @PreAuthorize("hasAuthority('student:write')")
+    public void bulkChange(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        this.studentBulkProcessor.process(this.studentRepository, request.getInputStream(), response.getOutputStream());
+        this.responseCache.invalidateAll();
+        this.audit("bulkChange", "success");
     }
 
     @DeleteMapping(path = "/{studentId}")
     @PreAuthorize("hasAuthority('student:write')")
     public void deleteStudent(@PathVariable Integer studentId) {
-        System.out.println("deleteStudent");
-        System.out.println(studentId);
+        if (!this.studentRepository.deleteById(studentId)) {
+            this.audit("deleteStudent " + studentId, "not-found");
+            throw notFound(studentId);
+        }
+        this.responseCache.invalidateAll();
+        this.audit("deleteStudent " + studentId, "success");
     }
 
     @PutMapping(path = "/{studentId}")
     @PreAuthorize("hasAuthority('student:write')")
     public void updateStudent(@PathVariable Integer studentId, @RequestBody Student student) {
-        System.out.println("updateStudent");
-        System.out.println(String.format("%s %s", studentId, student));
+        if (!this.studentRepository.existsById(studentId)) {
+            this.audit("updateStudent " + studentId, "not-found");
+            throw notFound(studentId);
+        }
+        // El id de la ruta manda sobre el del cuerpo
+        this.studentRepository.save(new Student(studentId, student.getStudentName()));
+        this.responseCache.invalidateAll();
+        this.audit("updateStudent " + studentId, "success");
     }
 
+    /**
+     * Registra la operación en el log de auditoría (si app.audit.enabled=true) con el usuario y la IP de la
+     * petición actual. No hace E/S: el evento se escribe en segundo plano.
+     */
+    private void audit(String action, String outcome) {
+        if (this.auditLog == null) {
+            return;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String remoteAddress = RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes
+                ? ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest().getRemoteAddr()
+                : null;
+        this.auditLog.record(AuditEventType.MANAGEMENT_OPERATION, authentication == null ? null : authentication.getName(),
+                action, outcome, remoteAddress);
+    }
+
+    private static IllegalStateException notFound(Integer studentId) {
+        return new IllegalStateException("Student ".concat(studentId.toString()).concat(" does not exists"));
+    }
 
 }
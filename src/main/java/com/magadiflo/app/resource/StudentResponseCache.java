@@ -0,0 +1,132 @@
+package com.magadiflo.app.resource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.magadiflo.app.repository.StudentStoreVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Peticiones condicionales y caché de respuestas ya serializadas para las lecturas de estudiantes.
+ * <p>
+ * El ETag es la versión del almacén (IStudentRepository.version()) más el formato de la respuesta, y el
+ * Last-Modified, el momento de ese cambio: si el cliente ya tiene esa versión se responde 304 sin leer ni
+ * serializar nada. Si no, los bytes de la respuesta se guardan con la versión con la que se generaron y se
+ * reutilizan mientras el almacén no cambie (hasta app.students.response-cache.maximum-size bytes en total).
+ * Las escrituras de StudentManagamentController además vacían la caché con {@link #invalidateAll()}, y ninguna
+ * entrada dura más de app.students.response-cache.time-to-live, por si la versión dejara de reflejar un cambio.
+ * <p>
+ * Tanto el 304 como la caché van después de la autorización (filtros y @PreAuthorize), y el contenido no depende
+ * de quién lo pide: cualquier authority que puede leer un recurso recibe los mismos bytes. Cache-Control:
+ * private, no-cache impide que una caché compartida se lo sirva a otro usuario y obliga al navegador a revalidar.
+ * <p>
+ * Sus estadísticas se publican como métricas cache.* con cache=studentResponses.
+ */
+@Component
+public class StudentResponseCache implements MeterBinder {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * La versión del almacén en memoria empieza de cero en cada arranque: el instante de arranque en el ETag evita
+     * que un ETag de antes de reiniciar coincida con uno nuevo.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final boolean enabled;
+    private final Cache<String, CachedResponse> cache;
+
+    public StudentResponseCache(@Value("${app.students.response-cache.enabled:true}") boolean enabled,
+                                @Value("${app.students.response-cache.maximum-size:16MB}") DataSize maximumSize,
+                                @Value("${app.students.response-cache.time-to-live:5m}") Duration timeToLive) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .expireAfterWrite(timeToLive)
+                .weigher((String key, CachedResponse response) -> ENTRY_OVERHEAD + 2 * key.length() + response.body.length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Añade ETag, Last-Modified y Cache-Control a la respuesta y comprueba If-None-Match / If-Modified-Since.
+     *
+     * @param variant distingue representaciones de la misma URL (p. ej. json y ndjson)
+     * @return true si ya se respondió 304 y no hay que escribir el cuerpo
+     */
+    public boolean checkNotModified(StudentStoreVersion version, String variant,
+                                    HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        String etag = "\"" + this.epoch + "-" + Long.toString(version.getVersion(), 36) + "-" + variant + "\"";
+        return new ServletWebRequest(request, response).checkNotModified(etag, version.getLastModified());
+    }
+
+    /**
+     * La respuesta guardada para key si se generó con esta versión del almacén; si no, la genera con loader y la
+     * guarda. La versión debe leerse antes que los datos que usa loader (ver StudentStoreVersion).
+     */
+    public CachedResponse get(String key, StudentStoreVersion version, Loader loader) throws IOException {
+        if (!this.enabled) {
+            return loader.load(version.getVersion());
+        }
+        CachedResponse cached = this.cache.getIfPresent(key);
+        if (cached != null && cached.version == version.getVersion()) {
+            return cached;
+        }
+        CachedResponse loaded = loader.load(version.getVersion());
+        // Otra petición pudo guardar mientras tanto una versión posterior: no se sustituye por una anterior
+        this.cache.asMap().merge(key, loaded, (current, candidate) -> candidate.version >= current.version ? candidate : current);
+        return loaded;
+    }
+
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, this.cache, "studentResponses");
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+
+        CachedResponse load(long version) throws IOException;
+    }
+
+    /**
+     * Cuerpo serializado de una respuesta y, en las páginas, el cursor de la siguiente (o null si es la última).
+     */
+    public static final class CachedResponse {
+
+        private final long version;
+        private final byte[] body;
+        private final Integer nextAfter;
+
+        public CachedResponse(long version, byte[] body, Integer nextAfter) {
+            this.version = version;
+            this.body = body;
+            this.nextAfter = nextAfter;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public Integer getNextAfter() {
+            return nextAfter;
+        }
+    }
+}
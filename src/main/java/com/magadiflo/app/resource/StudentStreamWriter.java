@@ -0,0 +1,105 @@
+package com.magadiflo.app.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.magadiflo.app.repository.IStudentRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Escribe estudiantes en la respuesta a medida que se leen del almacén, por bloques de {@link #CHUNK_SIZE}
+ * pedidos con paginación por cursor. En memoria solo hay un bloque a la vez, así que el heap que usa una
+ * respuesta no depende del número de estudiantes. Cada bloque se vuelca al cliente (chunked) al terminarlo.
+ */
+@Component
+public class StudentStreamWriter {
+
+    static final int CHUNK_SIZE = 1_000;
+
+    private final ObjectMapper objectMapper;
+
+    public StudentStreamWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Un único array JSON: [{"studentId":1,...},{"studentId":2,...}]
+     *
+     * @return número de estudiantes escritos
+     */
+    public long writeJsonArray(IStudentRepository repository, int afterId, long limit, OutputStream out) throws IOException {
+        try (JsonGenerator generator = this.createGenerator(out)) {
+            generator.writeStartArray();
+            long written = this.writeStudents(repository, afterId, limit, generator, false);
+            generator.writeEndArray();
+            return written;
+        }
+    }
+
+    /**
+     * NDJSON (application/x-ndjson): un objeto JSON por línea, procesable por el cliente línea a línea.
+     *
+     * @return número de estudiantes escritos
+     */
+    public long writeNdjson(IStudentRepository repository, int afterId, long limit, OutputStream out) throws IOException {
+        try (JsonGenerator generator = this.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            return this.writeStudents(repository, afterId, limit, generator, true);
+        }
+    }
+
+    /**
+     * Escribe estudiantes ya leídos (una página) con el mismo formato.
+     */
+    public void write(List<Student> students, boolean ndjson, OutputStream out) throws IOException {
+        try (JsonGenerator generator = this.createGenerator(out)) {
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            for (Student student : students) {
+                this.writeStudent(generator, student, ndjson);
+            }
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private long writeStudents(IStudentRepository repository, int afterId, long limit, JsonGenerator generator,
+                               boolean ndjson) throws IOException {
+        long written = 0;
+        int cursor = afterId;
+        while (written < limit) {
+            int requested = (int) Math.min(CHUNK_SIZE, limit - written);
+            List<Student> chunk = repository.findPage(cursor, requested);
+            for (Student student : chunk) {
+                this.writeStudent(generator, student, ndjson);
+            }
+            written += chunk.size();
+            generator.flush();
+            if (chunk.size() < requested) {
+                break;
+            }
+            cursor = chunk.get(chunk.size() - 1).getStudentId();
+        }
+        return written;
+    }
+
+    private void writeStudent(JsonGenerator generator, Student student, boolean ndjson) throws IOException {
+        generator.writeObject(student);
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+}
@@ -1,40 +1,127 @@
 package com.magadiflo.app.security;
 
 import com.magadiflo.app.auth.ApplicationUserService;
+import com.magadiflo.app.auth.UserDetailsCache;
+import com.magadiflo.app.auth.refresh.AuthorityRefreshFilter;
+import com.magadiflo.app.auth.refresh.AuthorityVersionRegistry;
+import com.magadiflo.app.security.throttle.LoginThrottle;
+import com.magadiflo.app.security.throttle.LoginThrottleFilter;
+import com.magadiflo.app.security.token.AuthTokenService;
+import com.magadiflo.app.security.token.TokenAuthenticationFilter;
+import com.magadiflo.app.security.token.TokenAuthenticationSuccessHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
-import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
+import org.springframework.security.config.annotation.web.configurers.FormLoginConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.AuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.HeaderWriterFilter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ApplicationSecurityConfig extends WebSecurityConfigurerAdapter {
 
+    /**
+     * Reglas de autorización por URL, en orden: gana la primera cuyo patrón coincide. La última equivale a
+     * anyRequest().authenticated().
+     */
+    static final List<UrlAuthorizationRule> URL_RULES = Collections.unmodifiableList(Arrays.asList(
+            UrlAuthorizationRule.permitAll("/", "index", "/css/*", "/js/*"),
+            UrlAuthorizationRule.hasRole("STUDENT", "/api/**"),
+            UrlAuthorizationRule.permitAll("/actuator/health"),
+            UrlAuthorizationRule.hasRole("ADMIN", "/actuator/**"),
+            UrlAuthorizationRule.authenticated("/**")));
+
     private final PasswordEncoder passwordEncoder;
     private final ApplicationUserService applicationUserService;
+    private final UserDetailsCache userDetailsCache;
+    private final ObjectProvider<AuthTokenService> authTokenService;
+    private final ObjectProvider<AuthorityVersionRegistry> authorityVersionRegistry;
+    private final ObjectProvider<LoginThrottle> loginThrottle;
+    private final MeterRegistry meterRegistry;
+    private final boolean precompiledUrlAuthorization;
 
 
-    public ApplicationSecurityConfig(PasswordEncoder passwordEncoder, ApplicationUserService applicationUserService) {
+    public ApplicationSecurityConfig(PasswordEncoder passwordEncoder, ApplicationUserService applicationUserService,
+                                     UserDetailsCache userDetailsCache, ObjectProvider<AuthTokenService> authTokenService,
+                                     ObjectProvider<AuthorityVersionRegistry> authorityVersionRegistry,
+                                     ObjectProvider<LoginThrottle> loginThrottle, MeterRegistry meterRegistry,
+                                     @Value("${app.security.url-authorization.precompiled:true}") boolean precompiledUrlAuthorization) {
         this.passwordEncoder = passwordEncoder;
         this.applicationUserService = applicationUserService;
+        this.userDetailsCache = userDetailsCache;
+        this.authTokenService = authTokenService;
+        this.authorityVersionRegistry = authorityVersionRegistry;
+        this.loginThrottle = loginThrottle;
+        this.meterRegistry = meterRegistry;
+        this.precompiledUrlAuthorization = precompiledUrlAuthorization;
     }
 
+    /**
+     * Con app.security.url-authorization.precompiled=true (valor por defecto) las URL_RULES se compilan en un
+     * árbol de segmentos (ver {@link UrlAuthorizationTrie}) y cada petición se resuelve en un tiempo proporcional
+     * a la profundidad de su ruta; con false se registran con antMatchers(...) y se comparan una a una.
+     */
     @Override
     protected void configure(HttpSecurity http) throws Exception {
+        http.csrf().disable();
+        if (this.precompiledUrlAuthorization) {
+            http.authorizeHttpRequests().anyRequest().access(new UrlTrieAuthorizationManager(URL_RULES));
+        } else {
+            ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry registry = http.authorizeRequests();
+            URL_RULES.forEach(rule -> rule.applyTo(registry));
+        }
+        FormLoginConfigurer<HttpSecurity> formLogin = http.formLogin();
+        this.loginThrottle.ifAvailable(throttle ->
+                http.addFilterBefore(new LoginThrottleFilter(throttle), UsernamePasswordAuthenticationFilter.class));
+
+        AuthTokenService tokenService = this.authTokenService.getIfAvailable();
+        AuthorityVersionRegistry versionRegistry = this.authorityVersionRegistry.getIfAvailable();
+        if (tokenService != null) {
+            this.configureStatelessTokens(http, formLogin, tokenService);
+        } else if (versionRegistry != null) {
+            // Los tokens llevan sus authorities firmados y caducan pronto; lo que se refresca son las sesiones. Va justo
+            // después de cargar el SecurityContext de la sesión, antes de cualquier decisión de autorización
+            http.addFilterBefore(new AuthorityRefreshFilter(versionRegistry, this.applicationUserService,
+                    this.userDetailsCache, this.meterRegistry), HeaderWriterFilter.class);
+        }
+    }
+
+    /**
+     * Modo stateless (app.security.token.enabled=true): POST /login devuelve un token en vez de crear una sesión,
+     * y /api/** y /management/** se autentican con "Authorization: Bearer <token>", respondiendo 401 si falta.
+     */
+    private void configureStatelessTokens(HttpSecurity http, FormLoginConfigurer<HttpSecurity> formLogin,
+                                          AuthTokenService tokenService) throws Exception {
+        formLogin
+                .successHandler(new TokenAuthenticationSuccessHandler(tokenService))
+                .failureHandler(new AuthenticationEntryPointFailureHandler(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
         http
-                .csrf().disable()
-                .authorizeRequests()
-                .antMatchers("/", "index", "/css/*", "/js/*").permitAll()
-                .antMatchers("/api/**").hasRole("STUDENT")
-                .anyRequest().authenticated()
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
+                .exceptionHandling()
+                .defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                        TokenAuthenticationFilter.PROTECTED_PATHS)
                 .and()
-                .formLogin();
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class);
     }
 
     @Override
@@ -44,9 +131,11 @@ public class ApplicationSecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Bean
     public DaoAuthenticationProvider daoAuthenticationProvider() {
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        DaoAuthenticationProvider provider = new MeteredDaoAuthenticationProvider(this.meterRegistry);
         provider.setPasswordEncoder(this.passwordEncoder);
         provider.setUserDetailsService(this.applicationUserService);
+        provider.setUserDetailsPasswordService(this.applicationUserService);
+        provider.setUserCache(this.userDetailsCache);
         return provider;
     }
 }
@@ -0,0 +1,176 @@
+package com.magadiflo.app.security;
+
+import com.magadiflo.app.auth.AuthoritySet;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.core.Authentication;
+
+import java.io.Serializable;
+
+/**
+ * Raíz de las expresiones de @PreAuthorize/@PostAuthorize. Hace lo mismo que la raíz por defecto de Spring
+ * (MethodSecurityExpressionRoot), pero hasAuthority, hasAnyAuthority, hasRole y hasAnyRole consultan
+ * directamente el {@link AuthoritySet} del principal (O(1) por authority) en vez de construir, en cada
+ * invocación, un Set<String> con todos sus authorities.
+ */
+public class AuthoritySetExpressionRoot implements MethodSecurityExpressionOperations {
+
+    // Mismos campos públicos que SecurityExpressionRoot, para expresiones como "permitAll" o hasPermission(#x, write)
+    public final boolean permitAll = true;
+    public final boolean denyAll = false;
+    public final String read = "read";
+    public final String write = "write";
+    public final String create = "create";
+    public final String delete = "delete";
+    public final String admin = "administration";
+
+    private final Authentication authentication;
+    private final Object target;
+    private final String rolePrefix;
+    private AuthenticationTrustResolver trustResolver;
+    private PermissionEvaluator permissionEvaluator;
+    private AuthoritySet authorities;
+    private Object filterObject;
+    private Object returnObject;
+
+    public AuthoritySetExpressionRoot(Authentication authentication, Object target, String rolePrefix) {
+        if (authentication == null) {
+            throw new IllegalArgumentException("Authentication object cannot be null");
+        }
+        this.authentication = authentication;
+        this.target = target;
+        this.rolePrefix = rolePrefix;
+    }
+
+    @Override
+    public final boolean hasAuthority(String authority) {
+        return this.authorities().contains(authority);
+    }
+
+    @Override
+    public final boolean hasAnyAuthority(String... authorities) {
+        AuthoritySet authoritySet = this.authorities();
+        for (String authority : authorities) {
+            if (authoritySet.contains(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public final boolean hasRole(String role) {
+        return this.hasAnyRole(role);
+    }
+
+    @Override
+    public final boolean hasAnyRole(String... roles) {
+        AuthoritySet authoritySet = this.authorities();
+        for (String role : roles) {
+            if (authoritySet.contains(withRolePrefix(this.rolePrefix, role))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Igual que en SecurityExpressionRoot: se antepone el prefijo (ROLE_) solo si el rol aún no lo tiene.
+     */
+    static String withRolePrefix(String rolePrefix, String role) {
+        if (role == null || rolePrefix == null || rolePrefix.isEmpty() || role.startsWith(rolePrefix)) {
+            return role;
+        }
+        return rolePrefix + role;
+    }
+
+    @Override
+    public final boolean permitAll() {
+        return true;
+    }
+
+    @Override
+    public final boolean denyAll() {
+        return false;
+    }
+
+    @Override
+    public final boolean isAnonymous() {
+        return this.trustResolver.isAnonymous(this.authentication);
+    }
+
+    @Override
+    public final boolean isAuthenticated() {
+        return !this.isAnonymous();
+    }
+
+    @Override
+    public final boolean isRememberMe() {
+        return this.trustResolver.isRememberMe(this.authentication);
+    }
+
+    @Override
+    public final boolean isFullyAuthenticated() {
+        return !this.trustResolver.isAnonymous(this.authentication) && !this.trustResolver.isRememberMe(this.authentication);
+    }
+
+    @Override
+    public boolean hasPermission(Object target, Object permission) {
+        return this.permissionEvaluator.hasPermission(this.authentication, target, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Object targetId, String targetType, Object permission) {
+        return this.permissionEvaluator.hasPermission(this.authentication, (Serializable) targetId, targetType, permission);
+    }
+
+    @Override
+    public final Authentication getAuthentication() {
+        return this.authentication;
+    }
+
+    public Object getPrincipal() {
+        return this.authentication.getPrincipal();
+    }
+
+    @Override
+    public void setFilterObject(Object filterObject) {
+        this.filterObject = filterObject;
+    }
+
+    @Override
+    public Object getFilterObject() {
+        return this.filterObject;
+    }
+
+    @Override
+    public void setReturnObject(Object returnObject) {
+        this.returnObject = returnObject;
+    }
+
+    @Override
+    public Object getReturnObject() {
+        return this.returnObject;
+    }
+
+    @Override
+    public Object getThis() {
+        return this.target;
+    }
+
+    public void setTrustResolver(AuthenticationTrustResolver trustResolver) {
+        this.trustResolver = trustResolver;
+    }
+
+    public void setPermissionEvaluator(PermissionEvaluator permissionEvaluator) {
+        this.permissionEvaluator = permissionEvaluator;
+    }
+
+    private AuthoritySet authorities() {
+        if (this.authorities == null) {
+            this.authorities = AuthoritySet.from(this.authentication.getAuthorities());
+        }
+        return this.authorities;
+    }
+}
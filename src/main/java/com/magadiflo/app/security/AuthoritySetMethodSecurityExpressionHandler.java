@@ -0,0 +1,23 @@
+package com.magadiflo.app.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Expression handler de la seguridad a nivel de método que usa {@link AuthoritySetExpressionRoot}
+ * como raíz de las expresiones SpEL.
+ */
+public class AuthoritySetMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+                                                                             MethodInvocation invocation) {
+        AuthoritySetExpressionRoot root = new AuthoritySetExpressionRoot(authentication, invocation.getThis(),
+                this.getDefaultRolePrefix());
+        root.setTrustResolver(this.getTrustResolver());
+        root.setPermissionEvaluator(this.getPermissionEvaluator());
+        return root;
+    }
+}
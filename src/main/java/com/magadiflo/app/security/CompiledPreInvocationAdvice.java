@@ -0,0 +1,26 @@
+package com.magadiflo.app.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.security.access.prepost.PreInvocationAttribute;
+import org.springframework.security.access.prepost.PreInvocationAuthorizationAdvice;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Decide los atributos compilados con su predicado y delega el resto en el advice basado en SpEL.
+ */
+public class CompiledPreInvocationAdvice implements PreInvocationAuthorizationAdvice {
+
+    private final PreInvocationAuthorizationAdvice delegate;
+
+    public CompiledPreInvocationAdvice(PreInvocationAuthorizationAdvice delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean before(Authentication authentication, MethodInvocation invocation, PreInvocationAttribute attribute) {
+        if (attribute instanceof CompiledPreInvocationAttribute) {
+            return ((CompiledPreInvocationAttribute) attribute).isGranted(authentication);
+        }
+        return this.delegate.before(authentication, invocation, attribute);
+    }
+}
@@ -0,0 +1,37 @@
+package com.magadiflo.app.security;
+
+import org.springframework.security.access.prepost.PreInvocationAttribute;
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Predicate;
+
+/**
+ * Atributo de @PreAuthorize cuya expresión se compiló a un predicado (ver {@link PreAuthorizeExpressionCompiler}).
+ */
+public class CompiledPreInvocationAttribute implements PreInvocationAttribute {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String expression;
+    private final transient Predicate<Authentication> predicate;
+
+    public CompiledPreInvocationAttribute(String expression, Predicate<Authentication> predicate) {
+        this.expression = expression;
+        this.predicate = predicate;
+    }
+
+    public boolean isGranted(Authentication authentication) {
+        return authentication != null && this.predicate.test(authentication);
+    }
+
+    // Igual que los atributos basados en expresiones de Spring: null para que RoleVoter y compañía lo ignoren
+    @Override
+    public String getAttribute() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "[authorize (compiled): '" + this.expression + "']";
+    }
+}
@@ -0,0 +1,42 @@
+package com.magadiflo.app.security;
+
+import org.springframework.security.access.prepost.PostInvocationAttribute;
+import org.springframework.security.access.prepost.PreInvocationAttribute;
+import org.springframework.security.access.prepost.PrePostInvocationAttributeFactory;
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Predicate;
+
+/**
+ * Crea los atributos de @PreAuthorize intentando primero compilar la expresión; si no se puede
+ * (o si el método usa @PreFilter) delega en la fábrica basada en SpEL.
+ * Los atributos se crean una sola vez por método, al leer sus anotaciones.
+ */
+public class CompiledPrePostInvocationAttributeFactory implements PrePostInvocationAttributeFactory {
+
+    private final PrePostInvocationAttributeFactory delegate;
+    private final PreAuthorizeExpressionCompiler compiler;
+
+    public CompiledPrePostInvocationAttributeFactory(PrePostInvocationAttributeFactory delegate,
+                                                     PreAuthorizeExpressionCompiler compiler) {
+        this.delegate = delegate;
+        this.compiler = compiler;
+    }
+
+    @Override
+    public PreInvocationAttribute createPreInvocationAttribute(String preFilterAttribute, String filterObject,
+                                                               String preAuthorizeAttribute) {
+        if (preFilterAttribute == null && preAuthorizeAttribute != null) {
+            Predicate<Authentication> predicate = this.compiler.compile(preAuthorizeAttribute);
+            if (predicate != null) {
+                return new CompiledPreInvocationAttribute(preAuthorizeAttribute, predicate);
+            }
+        }
+        return this.delegate.createPreInvocationAttribute(preFilterAttribute, filterObject, preAuthorizeAttribute);
+    }
+
+    @Override
+    public PostInvocationAttribute createPostInvocationAttribute(String postFilterAttribute, String postAuthorizeAttribute) {
+        return this.delegate.createPostInvocationAttribute(postFilterAttribute, postAuthorizeAttribute);
+    }
+}
@@ -0,0 +1,110 @@
+package com.magadiflo.app.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DaoAuthenticationProvider que mide:
+ * <ul>
+ *     <li>security.authentication: duración total de authenticate(...) con el tag outcome
+ *     (success, bad_credentials, user_not_found, disabled, locked, credentials_expired, unavailable, error).
+ *     El count de cada serie es el contador de intentos por resultado.</li>
+ *     <li>security.user.lookup: duración de loadUserByUsername(...) (solo cuando no hay acierto en la caché),
+ *     con el tag outcome found o not_found.</li>
+ * </ul>
+ * Para distinguir user_not_found de bad_credentials se desactiva hideUserNotFoundExceptions y se hace aquí
+ * lo mismo que haría el provider: relanzar la excepción como BadCredentialsException, así que hacia fuera
+ * un email inexistente sigue siendo indistinguible de un password incorrecto.
+ */
+public class MeteredDaoAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer userFoundTimer;
+    private final Timer userNotFoundTimer;
+
+    public MeteredDaoAuthenticationProvider(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.userFoundTimer = lookupTimer(meterRegistry, "found");
+        this.userNotFoundTimer = lookupTimer(meterRegistry, "not_found");
+        super.setHideUserNotFoundExceptions(false);
+    }
+
+    @Override
+    public void setUserDetailsService(UserDetailsService userDetailsService) {
+        super.setUserDetailsService(username -> {
+            long start = System.nanoTime();
+            try {
+                UserDetails user = userDetailsService.loadUserByUsername(username);
+                this.userFoundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return user;
+            } catch (UsernameNotFoundException e) {
+                this.userNotFoundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Timer.Sample sample = Timer.start(this.meterRegistry);
+        String outcome = "error";
+        try {
+            Authentication result = super.authenticate(authentication);
+            outcome = "success";
+            return result;
+        } catch (UsernameNotFoundException e) {
+            outcome = "user_not_found";
+            throw new BadCredentialsException(this.messages.getMessage(
+                    "AbstractUserDetailsAuthenticationProvider.badCredentials", "Bad credentials"));
+        } catch (AuthenticationException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("security.authentication")
+                    .description("Duración de la autenticación con usuario y password")
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(this.meterRegistry));
+        }
+    }
+
+    private static String outcomeOf(AuthenticationException e) {
+        if (e instanceof BadCredentialsException) {
+            return "bad_credentials";
+        }
+        if (e instanceof DisabledException) {
+            return "disabled";
+        }
+        if (e instanceof LockedException) {
+            return "locked";
+        }
+        if (e instanceof CredentialsExpiredException) {
+            return "credentials_expired";
+        }
+        if (e instanceof AuthenticationServiceException) {
+            return "unavailable";
+        }
+        return "error";
+    }
+
+    private static Timer lookupTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("security.user.lookup")
+                .description("Duración de loadUserByUsername(...)")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+}
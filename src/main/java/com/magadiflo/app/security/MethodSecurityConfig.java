@@ -0,0 +1,80 @@
+package com.magadiflo.app.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.AccessDecisionManager;
+import org.springframework.security.access.AccessDecisionVoter;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.expression.method.ExpressionBasedPreInvocationAdvice;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.access.method.MethodSecurityMetadataSource;
+import org.springframework.security.access.prepost.PreInvocationAuthorizationAdviceVoter;
+import org.springframework.security.access.prepost.PrePostAnnotationSecurityMetadataSource;
+import org.springframework.security.access.vote.AffirmativeBased;
+import org.springframework.security.access.vote.AuthenticatedVoter;
+import org.springframework.security.access.vote.RoleVoter;
+import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
+import org.springframework.security.config.annotation.method.configuration.GlobalMethodSecurityConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración de la seguridad a nivel de método (@PreAuthorize, @PostAuthorize).
+ * Se separa de ApplicationSecurityConfig porque para personalizar el expression handler hay que
+ * extender GlobalMethodSecurityConfiguration.
+ * <p>
+ * Con app.security.method-security.precompiled=true (valor por defecto) las expresiones simples de
+ * @PreAuthorize se compilan una sola vez a predicados (ver {@link PreAuthorizeExpressionCompiler});
+ * con false todas se evalúan con SpEL en cada invocación, como en la configuración estándar de Spring.
+ */
+@Configuration
+@EnableGlobalMethodSecurity(prePostEnabled = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MethodSecurityConfig extends GlobalMethodSecurityConfiguration {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final ApplicationContext applicationContext;
+    private final boolean precompiled;
+
+    public MethodSecurityConfig(ApplicationContext applicationContext,
+                                @Value("${app.security.method-security.precompiled:true}") boolean precompiled) {
+        this.applicationContext = applicationContext;
+        this.precompiled = precompiled;
+    }
+
+    @Override
+    protected MethodSecurityExpressionHandler createExpressionHandler() {
+        AuthoritySetMethodSecurityExpressionHandler expressionHandler = new AuthoritySetMethodSecurityExpressionHandler();
+        expressionHandler.setApplicationContext(this.applicationContext);
+        return expressionHandler;
+    }
+
+    // Se consulta antes que la fuente estándar de @PreAuthorize, así que sus atributos son los que se usan
+    @Override
+    protected MethodSecurityMetadataSource customMethodSecurityMetadataSource() {
+        if (!this.precompiled) {
+            return null;
+        }
+        return new PrePostAnnotationSecurityMetadataSource(new CompiledPrePostInvocationAttributeFactory(
+                new ExpressionBasedAnnotationAttributeFactory(this.getExpressionHandler()),
+                new PreAuthorizeExpressionCompiler(ROLE_PREFIX)));
+    }
+
+    @Override
+    protected AccessDecisionManager accessDecisionManager() {
+        if (!this.precompiled) {
+            return super.accessDecisionManager();
+        }
+        ExpressionBasedPreInvocationAdvice expressionAdvice = new ExpressionBasedPreInvocationAdvice();
+        expressionAdvice.setExpressionHandler(this.getExpressionHandler());
+        List<AccessDecisionVoter<?>> decisionVoters = new ArrayList<>();
+        decisionVoters.add(new PreInvocationAuthorizationAdviceVoter(new CompiledPreInvocationAdvice(expressionAdvice)));
+        decisionVoters.add(new RoleVoter());
+        decisionVoters.add(new AuthenticatedVoter());
+        return new AffirmativeBased(decisionVoters);
+    }
+}
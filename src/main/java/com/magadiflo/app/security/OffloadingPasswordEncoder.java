@@ -0,0 +1,192 @@
+package com.magadiflo.app.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PasswordEncoder que ejecuta encode(...) y matches(...) (BCrypt, lo más caro de un login) en un pool de hilos
+ * propio y acotado, en lugar de hacerlo sin límite en los hilos de Tomcat. Así una ráfaga de logins ocupa como
+ * mucho poolSize núcleos y no deja sin CPU al resto del tráfico de la API.
+ * <p>
+ * Si el pool y su cola están llenos se falla de inmediato con AuthenticationServiceException (backpressure),
+ * en lugar de encolar peticiones que igualmente acabarían expirando. upgradeEncoding(...) es barato y se
+ * ejecuta en el hilo que llama.
+ * <p>
+ * Como MeterBinder publica el tiempo de matches(...) por resultado (security.password.match) y el estado
+ * del pool (security.password.pool.*).
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffloadingPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    private volatile Timer matchedTimer;
+    private volatile Timer mismatchedTimer;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity, Duration timeout) {
+        this.delegate = delegate;
+        this.timeoutNanos = timeout.toNanos();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new PasswordWorkerThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return this.execute(() -> this.delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        boolean matched = this.execute(() -> this.delegate.matches(rawPassword, encodedPassword));
+        Timer timer = matched ? this.matchedTimer : this.mismatchedTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return matched;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return this.delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public long getSubmittedCount() {
+        return this.submitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    public long getTimedOutCount() {
+        return this.timedOut.sum();
+    }
+
+    public long getCompletedCount() {
+        return this.executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Tiempo total (en nanosegundos) que las tareas pasaron en la cola antes de empezar a ejecutarse.
+     */
+    public long getQueueWaitNanos() {
+        return this.queueWaitNanos.sum();
+    }
+
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return this.executor.getQueue().size();
+    }
+
+    public int getPoolSize() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.matchedTimer = matchTimer(registry, "matched");
+        this.mismatchedTimer = matchTimer(registry, "mismatched");
+        Gauge.builder("security.password.pool.active", this, OffloadingPasswordEncoder::getActiveCount)
+                .description("Verificaciones de password en ejecución").register(registry);
+        Gauge.builder("security.password.pool.queued", this, OffloadingPasswordEncoder::getQueueSize)
+                .description("Verificaciones de password esperando un hilo").register(registry);
+        FunctionCounter.builder("security.password.pool.rejected", this, OffloadingPasswordEncoder::getRejectedCount)
+                .description("Verificaciones rechazadas por pool saturado").register(registry);
+        FunctionCounter.builder("security.password.pool.timeouts", this, OffloadingPasswordEncoder::getTimedOutCount)
+                .description("Verificaciones que excedieron el tiempo máximo").register(registry);
+        FunctionCounter.builder("security.password.pool.queue.wait", this, e -> e.getQueueWaitNanos() / 1e9)
+                .baseUnit("seconds").description("Tiempo total en cola").register(registry);
+    }
+
+    private static Timer matchTimer(MeterRegistry registry, String result) {
+        return Timer.builder("security.password.match")
+                .description("Tiempo de verificación del password, incluida la espera en el pool")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = this.executor.submit(() -> {
+                this.queueWaitNanos.add(System.nanoTime() - enqueuedAt);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            LOG.warn("Pool de verificación de passwords saturado ({} activos, {} en cola)",
+                    this.executor.getActiveCount(), this.executor.getQueue().size());
+            throw new AuthenticationServiceException("Servicio de autenticación saturado, inténtelo más tarde", e);
+        }
+        this.submitted.increment();
+        try {
+            return future.get(this.timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            this.timedOut.increment();
+            throw new AuthenticationServiceException("La verificación del password excedió el tiempo máximo", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Verificación del password interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AuthenticationServiceException("Error al verificar el password", e.getCause());
+        }
+    }
+
+    private static final class PasswordWorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-encoder-" + this.counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,16 +1,42 @@
 package com.magadiflo.app.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 public class PasswordConfig {
 
+    private static final String BCRYPT = "bcrypt";
+
+    /**
+     * Los passwords se guardan con prefijo de algoritmo ({bcrypt}$2a$12$...). Los hashes antiguos sin prefijo
+     * se siguen verificando como BCrypt y, gracias a upgradeEncoding(...), el DaoAuthenticationProvider los
+     * vuelve a codificar tras un login correcto (ver ApplicationUserService.updatePassword), igual que los
+     * generados con un coste menor que app.security.password.bcrypt-strength. Así se puede subir el coste
+     * sin obligar a nadie a cambiar su password.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public OffloadingPasswordEncoder passwordEncoder(@Value("${app.security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${app.security.password.pool-size:0}") int poolSize,
+                                           @Value("${app.security.password.queue-capacity:64}") int queueCapacity,
+                                           @Value("${app.security.password.timeout:5s}") Duration timeout) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder(BCRYPT, encoders);
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        // Por defecto, la mitad de los núcleos: el resto queda libre para atender la API durante una ráfaga de logins
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new OffloadingPasswordEncoder(delegatingPasswordEncoder, threads, queueCapacity, timeout);
     }
 
 }
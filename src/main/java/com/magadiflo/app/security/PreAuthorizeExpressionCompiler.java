@@ -0,0 +1,145 @@
+package com.magadiflo.app.security;
+
+import com.magadiflo.app.auth.AuthoritySet;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.OpAnd;
+import org.springframework.expression.spel.ast.OpOr;
+import org.springframework.expression.spel.ast.OperatorNot;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.StringLiteral;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Predicate;
+
+/**
+ * Traduce, una sola vez al arrancar, las expresiones simples de @PreAuthorize a un Predicate&lt;Authentication&gt;
+ * que se evalúa sin SpEL: sin contexto de evaluación, sin reflexión y sin descubrir los nombres de los parámetros.
+ * <p>
+ * Se compilan hasRole, hasAnyRole, hasAuthority y hasAnyAuthority con argumentos literales, permitAll, denyAll,
+ * isAuthenticated(), isAnonymous(), isRememberMe(), isFullyAuthenticated() y sus combinaciones con and, or y !.
+ * Para cualquier otra expresión (referencias a #parámetros, @beans, hasPermission, etc.) compile(...) devuelve
+ * null y la evaluación sigue pasando por SpEL.
+ */
+public class PreAuthorizeExpressionCompiler {
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+    private final String rolePrefix;
+
+    public PreAuthorizeExpressionCompiler(String rolePrefix) {
+        this.rolePrefix = rolePrefix;
+    }
+
+    public Predicate<Authentication> compile(String expression) {
+        try {
+            return this.compile(this.parser.parseRaw(expression).getAST());
+        } catch (ParseException e) {
+            // Dejamos que SpEL reporte el error de sintaxis con su mensaje habitual
+            return null;
+        }
+    }
+
+    private Predicate<Authentication> compile(SpelNode node) {
+        if (node instanceof OpAnd || node instanceof OpOr) {
+            Predicate<Authentication> left = this.compile(node.getChild(0));
+            Predicate<Authentication> right = this.compile(node.getChild(1));
+            if (left == null || right == null) {
+                return null;
+            }
+            return node instanceof OpAnd ? left.and(right) : left.or(right);
+        }
+        if (node instanceof OperatorNot) {
+            Predicate<Authentication> operand = this.compile(node.getChild(0));
+            return operand == null ? null : operand.negate();
+        }
+        if (node instanceof PropertyOrFieldReference) {
+            return this.compileProperty(((PropertyOrFieldReference) node).getName());
+        }
+        if (node instanceof MethodReference) {
+            String[] arguments = stringArguments(node);
+            return arguments == null ? null : this.compileMethod(((MethodReference) node).getName(), arguments);
+        }
+        return null;
+    }
+
+    private Predicate<Authentication> compileProperty(String name) {
+        switch (name) {
+            case "permitAll":
+                return authentication -> true;
+            case "denyAll":
+                return authentication -> false;
+            default:
+                return null;
+        }
+    }
+
+    private Predicate<Authentication> compileMethod(String name, String[] arguments) {
+        switch (name) {
+            case "hasAuthority":
+            case "hasAnyAuthority":
+                return arguments.length == 0 ? null : hasAnyAuthority(arguments);
+            case "hasRole":
+            case "hasAnyRole":
+                if (arguments.length == 0) {
+                    return null;
+                }
+                String[] roles = new String[arguments.length];
+                for (int i = 0; i < arguments.length; i++) {
+                    roles[i] = AuthoritySetExpressionRoot.withRolePrefix(this.rolePrefix, arguments[i]);
+                }
+                return hasAnyAuthority(roles);
+            default:
+                return arguments.length == 0 ? this.compileNoArgMethod(name) : null;
+        }
+    }
+
+    private Predicate<Authentication> compileNoArgMethod(String name) {
+        switch (name) {
+            case "permitAll":
+                return authentication -> true;
+            case "denyAll":
+                return authentication -> false;
+            case "isAnonymous":
+                return this.trustResolver::isAnonymous;
+            case "isAuthenticated":
+                return authentication -> !this.trustResolver.isAnonymous(authentication);
+            case "isRememberMe":
+                return this.trustResolver::isRememberMe;
+            case "isFullyAuthenticated":
+                return authentication -> !this.trustResolver.isAnonymous(authentication)
+                        && !this.trustResolver.isRememberMe(authentication);
+            default:
+                return null;
+        }
+    }
+
+    private static Predicate<Authentication> hasAnyAuthority(String[] authorities) {
+        return authentication -> {
+            AuthoritySet authoritySet = AuthoritySet.from(authentication.getAuthorities());
+            for (String authority : authorities) {
+                if (authoritySet.contains(authority)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    // Devuelve los argumentos si todos son literales de texto, o null si alguno no lo es
+    private static String[] stringArguments(SpelNode method) {
+        String[] arguments = new String[method.getChildCount()];
+        for (int i = 0; i < arguments.length; i++) {
+            SpelNode argument = method.getChild(i);
+            if (!(argument instanceof StringLiteral)) {
+                return null;
+            }
+            arguments[i] = (String) ((StringLiteral) argument).getLiteralValue().getValue();
+        }
+        return arguments;
+    }
+}
@@ -0,0 +1,99 @@
+package com.magadiflo.app.security;
+
+import com.magadiflo.app.auth.AuthoritySet;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
+import org.springframework.security.core.Authentication;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Una regla de autorización por URL: unos patrones Ant y lo que se exige a quien los pide. Las reglas se
+ * declaran una sola vez (ApplicationSecurityConfig.URL_RULES) y se aplican, según
+ * app.security.url-authorization.precompiled, con antMatchers(...) o compiladas en un {@link UrlAuthorizationTrie}.
+ */
+public final class UrlAuthorizationRule {
+
+    public enum Access {PERMIT_ALL, AUTHENTICATED, HAS_ROLE}
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final List<String> patterns;
+    private final Access access;
+    private final String authority;
+
+    private UrlAuthorizationRule(Access access, String authority, String... patterns) {
+        this.patterns = Collections.unmodifiableList(Arrays.asList(patterns));
+        this.access = access;
+        this.authority = authority;
+    }
+
+    public static UrlAuthorizationRule permitAll(String... patterns) {
+        return new UrlAuthorizationRule(Access.PERMIT_ALL, null, patterns);
+    }
+
+    public static UrlAuthorizationRule authenticated(String... patterns) {
+        return new UrlAuthorizationRule(Access.AUTHENTICATED, null, patterns);
+    }
+
+    /**
+     * Igual que hasRole(...) de Spring: el rol se indica sin el prefijo ROLE_.
+     */
+    public static UrlAuthorizationRule hasRole(String role, String... patterns) {
+        return new UrlAuthorizationRule(Access.HAS_ROLE, ROLE_PREFIX + role, patterns);
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public Access getAccess() {
+        return access;
+    }
+
+    /**
+     * Con un principal de ApplicationUserService la comprobación del rol es una consulta O(1) a su AuthoritySet.
+     */
+    public boolean isGranted(Authentication authentication, AuthenticationTrustResolver trustResolver) {
+        switch (this.access) {
+            case PERMIT_ALL:
+                return true;
+            case AUTHENTICATED:
+                return authentication != null && authentication.isAuthenticated()
+                        && !trustResolver.isAnonymous(authentication);
+            default:
+                return authentication != null && AuthoritySet.from(authentication.getAuthorities()).contains(this.authority);
+        }
+    }
+
+    /**
+     * Configuración equivalente con la API estándar (authorizeRequests().antMatchers(...)).
+     */
+    public void applyTo(ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry registry) {
+        ExpressionUrlAuthorizationConfigurer<HttpSecurity>.AuthorizedUrl url =
+                registry.antMatchers(this.patterns.toArray(new String[0]));
+        switch (this.access) {
+            case PERMIT_ALL:
+                url.permitAll();
+                break;
+            case AUTHENTICATED:
+                url.authenticated();
+                break;
+            default:
+                url.hasAuthority(this.authority);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("UrlAuthorizationRule{");
+        sb.append("patterns=").append(patterns);
+        sb.append(", access=").append(access);
+        sb.append(", authority='").append(authority).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
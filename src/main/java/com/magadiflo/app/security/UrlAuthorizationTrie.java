@@ -0,0 +1,139 @@
+package com.magadiflo.app.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Las reglas de autorización por URL compiladas en un árbol de segmentos de ruta. Con antMatchers(...) cada
+ * petición se compara, en orden, con todos los patrones hasta dar con uno que coincida; aquí se baja por el
+ * árbol segmento a segmento, así que el coste depende de la profundidad de la ruta y no del número de reglas.
+ * <p>
+ * Se conserva la semántica de antMatchers: gana la primera regla declarada cuyo patrón coincida (cada
+ * nodo guarda el índice de la regla y, de las que coinciden, se devuelve la de menor índice). Los segmentos
+ * pueden ser literales, * (un segmento cualquiera) o ** al final (cero o más segmentos). Los patrones con
+ * otros comodines (*.css, ?, {id}, ** en medio) no entran en el árbol: se comprueban con AntPathMatcher, y
+ * solo si su regla va antes que la encontrada en el árbol. Igual que AntPathMatcher, un patrón que no empieza
+ * por / (p. ej. "index") nunca coincide con una ruta.
+ */
+public class UrlAuthorizationTrie {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UrlAuthorizationTrie.class);
+    private static final int NONE = Integer.MAX_VALUE;
+    private static final String SEPARATOR = "/";
+
+    private final List<UrlAuthorizationRule> rules;
+    private final Node root = new Node();
+    private final List<FallbackPattern> fallbackPatterns = new ArrayList<>();
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    public UrlAuthorizationTrie(List<UrlAuthorizationRule> rules) {
+        this.rules = new ArrayList<>(rules);
+        for (int index = 0; index < this.rules.size(); index++) {
+            for (String pattern : this.rules.get(index).getPatterns()) {
+                this.add(pattern, index);
+            }
+        }
+    }
+
+    /**
+     * La primera regla cuyo patrón coincide con la ruta (servletPath + pathInfo), o null si ninguna coincide.
+     */
+    public UrlAuthorizationRule match(String path) {
+        int best = NONE;
+        if (path.startsWith(SEPARATOR)) {
+            best = this.find(this.root, segments(path), 0, NONE);
+        }
+        for (FallbackPattern fallback : this.fallbackPatterns) {
+            if (fallback.ruleIndex >= best) {
+                break;
+            }
+            if (this.antPathMatcher.match(fallback.pattern, path)) {
+                best = fallback.ruleIndex;
+            }
+        }
+        return best == NONE ? null : this.rules.get(best);
+    }
+
+    private int find(Node node, String[] segments, int position, int best) {
+        best = Math.min(best, node.anyPathRule);
+        if (position == segments.length) {
+            return Math.min(best, node.terminalRule);
+        }
+        Node literal = node.literals.get(segments[position]);
+        if (literal != null) {
+            best = this.find(literal, segments, position + 1, best);
+        }
+        if (node.anySegment != null) {
+            best = this.find(node.anySegment, segments, position + 1, best);
+        }
+        return best;
+    }
+
+    private void add(String pattern, int ruleIndex) {
+        if (!pattern.startsWith(SEPARATOR)) {
+            LOG.warn("El patrón '{}' no empieza por '/' y nunca coincide con una ruta", pattern);
+            return;
+        }
+        String[] segments = segments(pattern);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean trailingAnyPath = "**".equals(segment) && i == segments.length - 1;
+            if (!trailingAnyPath && !"*".equals(segment) && (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0
+                    || segment.indexOf('{') >= 0)) {
+                this.fallbackPatterns.add(new FallbackPattern(pattern, ruleIndex));
+                return;
+            }
+        }
+        Node node = this.root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (i == segments.length - 1 && "**".equals(segment)) {
+                node.anyPathRule = Math.min(node.anyPathRule, ruleIndex);
+                return;
+            }
+            node = "*".equals(segment) ? node.anySegment() : node.literal(segment);
+        }
+        node.terminalRule = Math.min(node.terminalRule, ruleIndex);
+    }
+
+    /**
+     * "/" no tiene segmentos; "/css/" tiene "css" y un segmento vacío, que solo coincide con * o **.
+     */
+    private static String[] segments(String path) {
+        return path.length() == 1 ? new String[0] : path.substring(1).split(SEPARATOR, -1);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node anySegment;
+        private int terminalRule = NONE;
+        private int anyPathRule = NONE;
+
+        private Node literal(String segment) {
+            return this.literals.computeIfAbsent(segment, key -> new Node());
+        }
+
+        private Node anySegment() {
+            if (this.anySegment == null) {
+                this.anySegment = new Node();
+            }
+            return this.anySegment;
+        }
+    }
+
+    private static final class FallbackPattern {
+        private final String pattern;
+        private final int ruleIndex;
+
+        private FallbackPattern(String pattern, int ruleIndex) {
+            this.pattern = pattern;
+            this.ruleIndex = ruleIndex;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.magadiflo.app.security;
+
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * AuthorizationManager de authorizeHttpRequests() que resuelve la regla de cada petición con un
+ * {@link UrlAuthorizationTrie}. Si ninguna regla coincide se deniega el acceso. Con permitAll ni siquiera
+ * se obtiene el Authentication.
+ */
+public class UrlTrieAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final UrlAuthorizationTrie trie;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    public UrlTrieAuthorizationManager(List<UrlAuthorizationRule> rules) {
+        this.trie = new UrlAuthorizationTrie(rules);
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        UrlAuthorizationRule rule = this.trie.match(requestPath(context.getRequest()));
+        if (rule == null) {
+            return DENIED;
+        }
+        if (rule.getAccess() == UrlAuthorizationRule.Access.PERMIT_ALL) {
+            return GRANTED;
+        }
+        return rule.isGranted(authentication.get(), this.trustResolver) ? GRANTED : DENIED;
+    }
+
+    // La misma ruta que compara AntPathRequestMatcher
+    private static String requestPath(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        return pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo;
+    }
+}
@@ -0,0 +1,193 @@
+package com.magadiflo.app.security.session;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Memoria fuera del heap dividida en bloques de tamaño fijo. Cada registro es una cadena de bloques: los 4
+ * primeros bytes de cada bloque son el índice del siguiente (-1 en el último) y el primer bloque empieza además
+ * con la longitud del registro. Los bloques libres forman una lista enlazada dentro de los propios bloques, así
+ * que el heap solo guarda un DirectByteBuffer por página, sin importar cuántos registros haya.
+ * <p>
+ * Al ser todos los bloques iguales no hay fragmentación: cualquier bloque liberado sirve para cualquier registro.
+ * Las páginas se reservan a medida que hacen falta, hasta la capacidad indicada.
+ * <p>
+ * No es thread-safe: write y free necesitan exclusión con todo lo demás; read y los long del principio del
+ * registro admiten lectores concurrentes entre sí (ver OffHeapSessionRepository).
+ */
+final class OffHeapBlockStore {
+
+    /**
+     * Desplazamiento del contenido del registro dentro de su primer bloque: índice del siguiente y longitud.
+     * Múltiplo de 8 para que los long del principio del registro estén alineados.
+     */
+    static final int RECORD_START = 8;
+
+    private static final int NEXT = 0;
+    private static final int LENGTH = 4;
+    private static final int CONTINUATION_START = 4;
+    private static final int END = -1;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final int blockSize;
+    private final int blocksPerPage;
+    private final int maxBlocks;
+    private final ByteBuffer[] pages;
+    private int freeHead = END;
+    private volatile int freeBlocks;
+    private volatile int unusedFrom;
+
+    OffHeapBlockStore(long capacityBytes, int blockSize, int pageSize) {
+        if (blockSize < 32 || blockSize % 8 != 0) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser múltiplo de 8 y de al menos 32 bytes: " + blockSize);
+        }
+        if (pageSize < blockSize) {
+            throw new IllegalArgumentException("La página (" + pageSize + ") es menor que el bloque (" + blockSize + ")");
+        }
+        this.blockSize = blockSize;
+        this.blocksPerPage = pageSize / blockSize;
+        this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, capacityBytes / blockSize);
+        this.pages = new ByteBuffer[(this.maxBlocks + this.blocksPerPage - 1) / this.blocksPerPage];
+    }
+
+    int blockSize() {
+        return this.blockSize;
+    }
+
+    int blocksFor(int length) {
+        int payload = this.blockSize - CONTINUATION_START;
+        return (length + RECORD_START - CONTINUATION_START + payload - 1) / payload;
+    }
+
+    /**
+     * Copia el registro en bloques libres y devuelve el primero, o -1 si no quedan bloques suficientes.
+     */
+    int write(byte[] record) {
+        int blocks = this.blocksFor(record.length);
+        if (blocks > this.availableBlocks()) {
+            return END;
+        }
+        int first = this.take();
+        ByteBuffer page = this.page(first);
+        int offset = this.offset(first);
+        page.putInt(offset + LENGTH, record.length);
+        int position = offset + RECORD_START;
+        int room = this.blockSize - RECORD_START;
+        int written = 0;
+        while (true) {
+            int chunk = Math.min(room, record.length - written);
+            page.put(position, record, written, chunk);
+            written += chunk;
+            if (written == record.length) {
+                page.putInt(offset + NEXT, END);
+                return first;
+            }
+            int next = this.take();
+            page.putInt(offset + NEXT, next);
+            page = this.page(next);
+            offset = this.offset(next);
+            position = offset + CONTINUATION_START;
+            room = this.blockSize - CONTINUATION_START;
+        }
+    }
+
+    /**
+     * Copia el registro al heap. Si los bloques se están reutilizando a la vez (lectura optimista) el contenido
+     * puede ser incoherente o lanzar una excepción; quien llama debe validar la lectura.
+     */
+    byte[] read(int first) {
+        ByteBuffer page = this.page(first);
+        int offset = this.offset(first);
+        int length = page.getInt(offset + LENGTH);
+        if (length < 0 || length > this.capacityBytes()) {
+            throw new IllegalStateException("Longitud de registro inválida: " + length);
+        }
+        byte[] record = new byte[length];
+        int position = offset + RECORD_START;
+        int room = this.blockSize - RECORD_START;
+        int read = 0;
+        while (true) {
+            int chunk = Math.min(room, length - read);
+            page.get(position, record, read, chunk);
+            read += chunk;
+            if (read == length) {
+                return record;
+            }
+            int next = page.getInt(offset + NEXT);
+            if (next < 0 || next >= this.unusedFrom) {
+                throw new IllegalStateException("Cadena de bloques inválida: " + next);
+            }
+            page = this.page(next);
+            offset = this.offset(next);
+            position = offset + CONTINUATION_START;
+            room = this.blockSize - CONTINUATION_START;
+        }
+    }
+
+    /**
+     * Lee un long alineado del principio del registro (position es relativa a su contenido y múltiplo de 8).
+     */
+    long getLong(int first, int position) {
+        return (long) LONGS.getOpaque(this.page(first), this.offset(first) + RECORD_START + position);
+    }
+
+    /**
+     * Sobrescribe un long del principio del registro sin copiarlo entero; los lectores concurrentes ven el valor
+     * anterior o el nuevo, nunca una mezcla.
+     */
+    void putLong(int first, int position, long value) {
+        LONGS.setOpaque(this.page(first), this.offset(first) + RECORD_START + position, value);
+    }
+
+    void free(int first) {
+        int block = first;
+        while (block != END) {
+            ByteBuffer page = this.page(block);
+            int offset = this.offset(block);
+            int next = page.getInt(offset + NEXT);
+            page.putInt(offset + NEXT, this.freeHead);
+            this.freeHead = block;
+            this.freeBlocks++;
+            block = next;
+        }
+    }
+
+    long usedBytes() {
+        return (long) (this.unusedFrom - this.freeBlocks) * this.blockSize;
+    }
+
+    long capacityBytes() {
+        return (long) this.maxBlocks * this.blockSize;
+    }
+
+    private int availableBlocks() {
+        return this.freeBlocks + (this.maxBlocks - this.unusedFrom);
+    }
+
+    private int take() {
+        if (this.freeHead != END) {
+            int block = this.freeHead;
+            this.freeHead = this.page(block).getInt(this.offset(block) + NEXT);
+            this.freeBlocks--;
+            return block;
+        }
+        int block = this.unusedFrom;
+        int index = block / this.blocksPerPage;
+        if (this.pages[index] == null) {
+            // alignedSlice garantiza que los long del principio de cada bloque estén alineados en memoria
+            this.pages[index] = ByteBuffer.allocateDirect(this.blocksPerPage * this.blockSize + 7).alignedSlice(8);
+        }
+        this.unusedFrom = block + 1;
+        return block;
+    }
+
+    private ByteBuffer page(int block) {
+        return this.pages[block / this.blocksPerPage];
+    }
+
+    private int offset(int block) {
+        return (block % this.blocksPerPage) * this.blockSize;
+    }
+}
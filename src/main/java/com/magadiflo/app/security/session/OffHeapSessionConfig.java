@@ -0,0 +1,33 @@
+package com.magadiflo.app.security.session;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * Con app.session.store=off-heap las sesiones HTTP pasan a Spring Session con {@link OffHeapSessionRepository}:
+ * el SecurityContext de cada sesión ocupa unas decenas de bytes fuera del heap en lugar de un grafo de objetos
+ * serializable dentro de él. La cookie pasa a llamarse SESSION (configurable con server.servlet.session.cookie.name).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "app.session", name = "store", havingValue = "off-heap")
+@EnableSpringHttpSession
+@EnableConfigurationProperties(SessionStoreProperties.class)
+public class OffHeapSessionConfig {
+
+    @Bean
+    public OffHeapSessionRepository sessionRepository(SessionStoreProperties properties, MeterRegistry meterRegistry,
+                                                      @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        SessionStoreProperties.OffHeap offHeap = properties.getOffHeap();
+        return new OffHeapSessionRepository(offHeap.getMaxSize().toBytes(), offHeap.getBlockSize(),
+                (int) offHeap.getPageSize().toBytes(), timeout, new SecurityContextCodec(), meterRegistry);
+    }
+}
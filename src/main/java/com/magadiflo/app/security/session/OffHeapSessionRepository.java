@@ -0,0 +1,412 @@
+package com.magadiflo.app.security.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Repositorio de Spring Session que guarda cada sesión como un registro binario en memoria fuera del heap
+ * ({@link OffHeapBlockStore}). El SecurityContext se escribe con {@link SecurityContextCodec} y el resto de
+ * atributos con serialización Java. En el heap solo queda el índice id → bloques, un Caffeine acotado por peso
+ * (los bytes que ocupa cada sesión) que expulsa las sesiones menos usadas al llenarse y las inactivas según su
+ * maxInactiveInterval. Con millones de sesiones el heap no crece con sus atributos y el GC no tiene que recorrerlos.
+ * <p>
+ * Concurrencia: escribir o liberar bloques exige el cerrojo de escritura. Las lecturas copian el registro con una
+ * lectura optimista de StampedLock y, si un escritor intervino, repiten con el cerrojo de lectura. Las entradas
+ * que Caffeine expulsa (desde cualquier hilo) no se liberan en el momento: se encolan y las libera el siguiente
+ * escritor, así un lector nunca ve bloques reutilizados sin que la validación lo detecte.
+ * <p>
+ * La mayoría de las peticiones solo cambian lastAccessedTime: en ese caso save(...) lo sobrescribe en su sitio,
+ * sin volver a codificar ni copiar la sesión.
+ */
+public class OffHeapSessionRepository implements SessionRepository<OffHeapSessionRepository.OffHeapSession> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapSessionRepository.class);
+
+    private static final int LAST_ACCESSED_TIME = 8;
+    private static final byte SECURITY_CONTEXT = 0;
+    private static final byte SERIALIZED = 1;
+
+    private final OffHeapBlockStore store;
+    private final Cache<String, Slot> index;
+    private final Queue<Slot> released = new ConcurrentLinkedQueue<>();
+    private final StampedLock lock = new StampedLock();
+    private final SecurityContextCodec codec;
+    private final Duration defaultMaxInactiveInterval;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+    private final Counter evictions;
+
+    public OffHeapSessionRepository(long capacityBytes, int blockSize, int pageSize, Duration defaultMaxInactiveInterval,
+                                    SecurityContextCodec codec, MeterRegistry meterRegistry) {
+        this.store = new OffHeapBlockStore(capacityBytes, blockSize, pageSize);
+        this.codec = codec;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.evictions = Counter.builder("session.offheap.evictions")
+                .description("Sesiones expulsadas por tamaño o por inactividad").register(meterRegistry);
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(this.store.capacityBytes())
+                .weigher((String id, Slot slot) -> slot.blocks * this.store.blockSize())
+                .expireAfter(new SlotExpiry())
+                // Expulsiones y notificaciones en el propio hilo: los bloques quedan en released al volver de put(...)
+                .executor(Runnable::run)
+                .removalListener((String id, Slot slot, RemovalCause cause) -> {
+                    this.released.add(slot);
+                    if (cause.wasEvicted()) {
+                        this.evictions.increment();
+                    }
+                })
+                .build();
+        Gauge.builder("session.offheap.sessions", this.index, Cache::estimatedSize)
+                .description("Sesiones en el almacén off-heap").register(meterRegistry);
+        Gauge.builder("session.offheap.bytes", this.store, OffHeapBlockStore::usedBytes)
+                .description("Bytes ocupados fuera del heap por las sesiones").baseUnit("bytes").register(meterRegistry);
+    }
+
+    @Override
+    public OffHeapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(this.defaultMaxInactiveInterval);
+        return new OffHeapSession(session, null);
+    }
+
+    @Override
+    public void save(OffHeapSession session) {
+        if (session.slot != null && !session.changed && session.getId().equals(session.originalId)) {
+            long stamp = this.lock.readLock();
+            try {
+                // Mientras se tenga el cerrojo de lectura los bloques de la entrada vigente no se liberan
+                if (this.index.asMap().get(session.getId()) == session.slot) {
+                    this.store.putLong(session.slot.firstBlock, LAST_ACCESSED_TIME, session.getLastAccessedTime().toEpochMilli());
+                    return;
+                }
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+        this.write(session);
+    }
+
+    @Override
+    public OffHeapSession findById(String id) {
+        Snapshot snapshot = null;
+        long stamp = this.lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                snapshot = this.read(id);
+            } catch (RuntimeException e) {
+                // Con la lectura aún válida no es una carrera con un escritor sino un error real
+                if (this.lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        if (stamp == 0L || !this.lock.validate(stamp)) {
+            stamp = this.lock.readLock();
+            try {
+                snapshot = this.read(id);
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+        if (snapshot == null) {
+            return null;
+        }
+        MapSession session = this.decode(id, snapshot);
+        if (session.isExpired()) {
+            this.deleteById(id);
+            return null;
+        }
+        return new OffHeapSession(session, snapshot.slot);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        this.index.invalidate(id);
+    }
+
+    long usedBytes() {
+        return this.store.usedBytes();
+    }
+
+    long size() {
+        this.index.cleanUp();
+        return this.index.estimatedSize();
+    }
+
+    private Snapshot read(String id) {
+        Slot slot = this.index.getIfPresent(id);
+        if (slot == null) {
+            return null;
+        }
+        // lastAccessedTime se lee aparte porque save(...) puede estar sobrescribiéndolo con el cerrojo de lectura
+        return new Snapshot(slot, this.store.read(slot.firstBlock), this.store.getLong(slot.firstBlock, LAST_ACCESSED_TIME));
+    }
+
+    private void write(OffHeapSession session) {
+        byte[] record = this.encode(session.delegate);
+        Slot slot;
+        long stamp = this.lock.writeLock();
+        try {
+            this.releasePending();
+            slot = new Slot(this.allocate(record), this.store.blocksFor(record.length),
+                    session.getMaxInactiveInterval());
+            this.index.put(session.getId(), slot);
+            if (session.originalId != null && !session.originalId.equals(session.getId())) {
+                this.index.invalidate(session.originalId);
+            }
+            this.releasePending();
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+        session.saved(slot);
+    }
+
+    /**
+     * Con el cerrojo de escritura. Caffeine suele haber expulsado ya lo necesario (su peso máximo es la capacidad
+     * del almacén); si no, se expulsan las sesiones más frías hasta que el registro cabe.
+     */
+    private int allocate(byte[] record) {
+        int first = this.store.write(record);
+        if (first < 0) {
+            this.index.cleanUp();
+            this.releasePending();
+            first = this.store.write(record);
+        }
+        while (first < 0) {
+            Map<String, Slot> coldest = this.index.policy().eviction()
+                    .map(eviction -> eviction.coldest(1)).orElse(Map.of());
+            if (coldest.isEmpty()) {
+                throw new IllegalStateException("La sesión (" + record.length + " bytes) no cabe en el almacén off-heap ("
+                        + this.store.capacityBytes() + " bytes)");
+            }
+            this.index.invalidateAll(coldest.keySet());
+            this.evictions.increment();
+            this.releasePending();
+            first = this.store.write(record);
+        }
+        return first;
+    }
+
+    private void releasePending() {
+        for (Slot slot = this.released.poll(); slot != null; slot = this.released.poll()) {
+            this.store.free(slot.firstBlock);
+        }
+    }
+
+    private byte[] encode(MapSession session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(session.getCreationTime().toEpochMilli());
+            out.writeLong(session.getLastAccessedTime().toEpochMilli());
+            out.writeLong(session.getMaxInactiveInterval().getSeconds());
+            Set<String> names = session.getAttributeNames();
+            out.writeInt(names.size());
+            for (String name : names) {
+                Object value = session.getAttribute(name);
+                out.writeUTF(name);
+                if (this.codec.supports(value)) {
+                    out.writeByte(SECURITY_CONTEXT);
+                    this.codec.encode((SecurityContext) value, out);
+                } else {
+                    byte[] serialized = this.serializer.convert(value);
+                    out.writeByte(SERIALIZED);
+                    out.writeInt(serialized.length);
+                    out.write(serialized);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private MapSession decode(String id, Snapshot snapshot) {
+        MapSession session = new MapSession(id);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot.record))) {
+            session.setCreationTime(Instant.ofEpochMilli(in.readLong()));
+            in.readLong();
+            session.setLastAccessedTime(Instant.ofEpochMilli(snapshot.lastAccessedTime));
+            session.setMaxInactiveInterval(Duration.ofSeconds(in.readLong()));
+            int attributes = in.readInt();
+            for (int i = 0; i < attributes; i++) {
+                String name = in.readUTF();
+                if (in.readByte() == SECURITY_CONTEXT) {
+                    session.setAttribute(name, this.codec.decode(in));
+                } else {
+                    byte[] serialized = new byte[in.readInt()];
+                    in.readFully(serialized);
+                    session.setAttribute(name, this.deserializer.convert(serialized));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        LOG.trace("Sesión {} leída del almacén off-heap ({} bytes)", id, snapshot.record.length);
+        return session;
+    }
+
+    /**
+     * Sesión de Spring Session que recuerda si cambió algo más que lastAccessedTime desde que se leyó o guardó.
+     */
+    public static final class OffHeapSession implements Session {
+
+        private final MapSession delegate;
+        private Slot slot;
+        private String originalId;
+        private boolean changed;
+
+        private OffHeapSession(MapSession delegate, Slot slot) {
+            this.delegate = delegate;
+            this.slot = slot;
+            this.originalId = slot == null ? null : delegate.getId();
+            this.changed = slot == null;
+        }
+
+        private void saved(Slot slot) {
+            this.slot = slot;
+            this.originalId = this.delegate.getId();
+            this.changed = false;
+        }
+
+        @Override
+        public String getId() {
+            return this.delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return this.delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return this.delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return this.delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            this.delegate.setAttribute(attributeName, attributeValue);
+            this.changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            this.delegate.removeAttribute(attributeName);
+            this.changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return this.delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            this.delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return this.delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            this.delegate.setMaxInactiveInterval(interval);
+            this.changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return this.delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return this.delegate.isExpired();
+        }
+    }
+
+    /**
+     * Entrada del índice: dónde está el registro, cuántos bloques ocupa y tras cuánta inactividad expira.
+     */
+    private static final class Slot {
+
+        private final int firstBlock;
+        private final int blocks;
+        private final long maxInactiveNanos;
+
+        private Slot(int firstBlock, int blocks, Duration maxInactiveInterval) {
+            this.firstBlock = firstBlock;
+            this.blocks = blocks;
+            this.maxInactiveNanos = maxInactiveInterval.isNegative() ? Long.MAX_VALUE : maxInactiveInterval.toNanos();
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Slot slot;
+        private final byte[] record;
+        private final long lastAccessedTime;
+
+        private Snapshot(Slot slot, byte[] record, long lastAccessedTime) {
+            this.slot = slot;
+            this.record = record;
+            this.lastAccessedTime = lastAccessedTime;
+        }
+    }
+
+    /**
+     * Caffeine descarta la entrada tras maxInactiveInterval sin lecturas; findById(...) comprueba además la
+     * expiración con el lastAccessedTime guardado, que es el que cuenta para Spring Session.
+     */
+    private static final class SlotExpiry implements Expiry<String, Slot> {
+
+        @Override
+        public long expireAfterCreate(String id, Slot slot, long currentTime) {
+            return slot.maxInactiveNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String id, Slot slot, long currentTime, long currentDuration) {
+            return slot.maxInactiveNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String id, Slot slot, long currentTime, long currentDuration) {
+            return slot.maxInactiveNanos;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.magadiflo.app.security.session;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthorityRegistry;
+import com.magadiflo.app.auth.AuthoritySet;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Codificación binaria compacta del SecurityContext que guarda la sesión tras un formLogin: un
+ * UsernamePasswordAuthenticationToken con un {@link ApplicationUser} como principal y, opcionalmente,
+ * WebAuthenticationDetails. Se escriben el email, los flags, la versión de authorities y los ids del
+ * {@link AuthorityRegistry} (codificados como diferencias en varint), en lugar de la serialización Java del token,
+ * sus SimpleGrantedAuthority y los nombres de clase. Un principal típico ocupa unas decenas de bytes. El
+ * LoadStamp del principal solo sirve al autenticar y no se guarda.
+ * <p>
+ * Los ids solo valen dentro del proceso que los asignó (ver AuthorityRegistry), así que este formato sirve para
+ * almacenes locales como {@link OffHeapSessionRepository}, no para replicar sesiones entre nodos. Cualquier otro
+ * contenido (otro tipo de Authentication, credenciales sin borrar) no se soporta y se serializa como siempre.
+ */
+public class SecurityContextCodec {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int ANONYMOUS = 1;
+    private static final int ENABLED = 1 << 1;
+    private static final int SAME_AUTHORITIES = 1 << 2;
+    private static final int REMOTE_ADDRESS = 1 << 3;
+    private static final int SESSION_ID = 1 << 4;
+
+    private final AuthorityRegistry registry;
+
+    public SecurityContextCodec() {
+        this(AuthorityRegistry.shared());
+    }
+
+    public SecurityContextCodec(AuthorityRegistry registry) {
+        this.registry = registry;
+    }
+
+    public boolean supports(Object value) {
+        if (value == null || value.getClass() != SecurityContextImpl.class) {
+            return false;
+        }
+        Authentication authentication = ((SecurityContext) value).getAuthentication();
+        if (authentication == null) {
+            return true;
+        }
+        if (authentication.getClass() != UsernamePasswordAuthenticationToken.class || !authentication.isAuthenticated()
+                || authentication.getCredentials() != null) {
+            return false;
+        }
+        Object principal = authentication.getPrincipal();
+        Object details = authentication.getDetails();
+        return principal != null && principal.getClass() == ApplicationUser.class
+                && ((ApplicationUser) principal).getPassword() == null
+                && (details == null || details.getClass() == WebAuthenticationDetails.class);
+    }
+
+    /**
+     * Solo para valores aceptados por {@link #supports(Object)}.
+     */
+    public void encode(SecurityContext context, DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        Authentication authentication = context.getAuthentication();
+        if (authentication == null) {
+            out.writeByte(ANONYMOUS);
+            return;
+        }
+        ApplicationUser principal = (ApplicationUser) authentication.getPrincipal();
+        WebAuthenticationDetails details = (WebAuthenticationDetails) authentication.getDetails();
+        int[] principalIds = this.ids(principal.getAuthorities());
+        int[] tokenIds = this.ids(authentication.getAuthorities());
+        boolean sameAuthorities = Arrays.equals(principalIds, tokenIds);
+        int flags = (principal.isEnabled() ? ENABLED : 0)
+                | (sameAuthorities ? SAME_AUTHORITIES : 0)
+                | (details != null && details.getRemoteAddress() != null ? REMOTE_ADDRESS : 0)
+                | (details != null && details.getSessionId() != null ? SESSION_ID : 0);
+        out.writeByte(flags);
+        out.writeUTF(principal.getUsername());
+        writeVarLong(out, principal.getAuthorityVersion());
+        writeIds(out, principalIds);
+        if (!sameAuthorities) {
+            writeIds(out, tokenIds);
+        }
+        if ((flags & REMOTE_ADDRESS) != 0) {
+            out.writeUTF(details.getRemoteAddress());
+        }
+        if ((flags & SESSION_ID) != 0) {
+            out.writeUTF(details.getSessionId());
+        }
+    }
+
+    public SecurityContext decode(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new InvalidObjectException("Versión de SecurityContext desconocida: " + version);
+        }
+        int flags = in.readUnsignedByte();
+        if ((flags & ANONYMOUS) != 0) {
+            return new SecurityContextImpl();
+        }
+        String username = in.readUTF();
+        long authorityVersion = readVarLong(in);
+        AuthoritySet principalAuthorities = AuthoritySet.ofIds(this.registry, readIds(in));
+        AuthoritySet tokenAuthorities = (flags & SAME_AUTHORITIES) != 0
+                ? principalAuthorities : AuthoritySet.ofIds(this.registry, readIds(in));
+        String remoteAddress = (flags & REMOTE_ADDRESS) != 0 ? in.readUTF() : null;
+        String sessionId = (flags & SESSION_ID) != 0 ? in.readUTF() : null;
+
+        ApplicationUser principal = new ApplicationUser(username, null, (flags & ENABLED) != 0,
+                principalAuthorities, authorityVersion);
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(principal, null, tokenAuthorities);
+        if (remoteAddress != null || sessionId != null) {
+            authentication.setDetails(new WebAuthenticationDetails(remoteAddress, sessionId));
+        }
+        return new SecurityContextImpl(authentication);
+    }
+
+    private int[] ids(Collection<? extends GrantedAuthority> authorities) {
+        int[] ids = new int[authorities.size()];
+        int i = 0;
+        for (GrantedAuthority authority : authorities) {
+            ids[i++] = this.registry.intern(authority.getAuthority());
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static void writeIds(DataOutput out, int[] ids) throws IOException {
+        writeVarLong(out, ids.length);
+        int previous = 0;
+        for (int id : ids) {
+            writeVarLong(out, id - previous);
+            previous = id;
+        }
+    }
+
+    private int[] readIds(DataInput in) throws IOException {
+        int count = (int) readVarLong(in);
+        if (count < 0 || count > this.registry.size()) {
+            throw new InvalidObjectException("Número de authorities fuera de rango: " + count);
+        }
+        int[] ids = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += (int) readVarLong(in);
+            if (previous >= this.registry.size()) {
+                throw new InvalidObjectException("Id de authority desconocido: " + previous);
+            }
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InvalidObjectException("Varint demasiado largo");
+    }
+}
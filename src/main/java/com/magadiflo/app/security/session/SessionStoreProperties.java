@@ -0,0 +1,72 @@
+package com.magadiflo.app.security.session;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Dónde se guardan las sesiones HTTP (app.session.*): servlet deja las del contenedor (objetos en el heap,
+ * valor por defecto) y off-heap usa {@link OffHeapSessionRepository}. Por ejemplo:
+ * <pre>
+ * app.session.store=off-heap
+ * app.session.off-heap.max-size=256MB
+ * app.session.off-heap.block-size=256
+ * </pre>
+ * La memoria directa de la JVM (-XX:MaxDirectMemorySize, por defecto igual al heap máximo) debe admitir max-size.
+ */
+@ConfigurationProperties(prefix = "app.session")
+public class SessionStoreProperties {
+
+    public enum Store {
+        SERVLET, OFF_HEAP
+    }
+
+    private Store store = Store.SERVLET;
+    private OffHeap offHeap = new OffHeap();
+
+    public Store getStore() {
+        return store;
+    }
+
+    public void setStore(Store store) {
+        this.store = store;
+    }
+
+    public OffHeap getOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(OffHeap offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public static class OffHeap {
+
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+        private int blockSize = 256;
+        private DataSize pageSize = DataSize.ofMegabytes(1);
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        public DataSize getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(DataSize pageSize) {
+            this.pageSize = pageSize;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.magadiflo.app.security.throttle;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decide si un intento de login se atiende o se rechaza antes de llegar al DaoAuthenticationProvider (y por tanto
+ * antes de loadUserByUsername(...) y de BCrypt). Cada ruta configurada tiene su limitador por IP y su limitador
+ * por username (normalizado a minúsculas); basta con que uno esté agotado para rechazar.
+ * <p>
+ * Métricas: security.login.throttle (counter, tags route y result=allowed|rejected_ip|rejected_username) y
+ * security.login.throttle.keys (gauge, claves en memoria por route y limit).
+ */
+public class LoginThrottle {
+
+    private final List<RouteThrottle> routes = new ArrayList<>();
+
+    public LoginThrottle(LoginThrottleProperties properties, MeterRegistry meterRegistry) {
+        for (LoginThrottleProperties.Route route : properties.getRoutes()) {
+            this.routes.add(new RouteThrottle(route, properties.getMaximumKeys(), meterRegistry));
+        }
+    }
+
+    /**
+     * Consume los tokens del intento. Devuelve null si se atiende o el tiempo que falta para poder reintentar.
+     */
+    public Duration tryAcquire(HttpServletRequest request) {
+        for (RouteThrottle route : this.routes) {
+            if (route.matcher.matches(request)) {
+                return route.tryAcquire(request);
+            }
+        }
+        return null;
+    }
+
+    private static final class RouteThrottle {
+
+        private final AntPathRequestMatcher matcher;
+        private final String usernameParameter;
+        private final TokenBucketRateLimiter perIp;
+        private final TokenBucketRateLimiter perUsername;
+        private final Counter allowed;
+        private final Counter rejectedIp;
+        private final Counter rejectedUsername;
+
+        private RouteThrottle(LoginThrottleProperties.Route route, long maximumKeys, MeterRegistry meterRegistry) {
+            this.matcher = new AntPathRequestMatcher(route.getPath(), "POST");
+            this.usernameParameter = route.getUsernameParameter();
+            this.perIp = limiter(route.getPerIp(), maximumKeys);
+            this.perUsername = limiter(route.getPerUsername(), maximumKeys);
+            this.allowed = counter(meterRegistry, route.getPath(), "allowed");
+            this.rejectedIp = counter(meterRegistry, route.getPath(), "rejected_ip");
+            this.rejectedUsername = counter(meterRegistry, route.getPath(), "rejected_username");
+            gauge(meterRegistry, route.getPath(), "ip", this.perIp);
+            gauge(meterRegistry, route.getPath(), "username", this.perUsername);
+        }
+
+        private Duration tryAcquire(HttpServletRequest request) {
+            if (this.perIp != null) {
+                long wait = this.perIp.tryAcquire(request.getRemoteAddr());
+                if (wait > 0) {
+                    this.rejectedIp.increment();
+                    return Duration.ofNanos(wait);
+                }
+            }
+            String username = request.getParameter(this.usernameParameter);
+            if (this.perUsername != null && username != null) {
+                long wait = this.perUsername.tryAcquire(username.trim().toLowerCase(Locale.ROOT));
+                if (wait > 0) {
+                    this.rejectedUsername.increment();
+                    return Duration.ofNanos(wait);
+                }
+            }
+            this.allowed.increment();
+            return null;
+        }
+
+        private static TokenBucketRateLimiter limiter(LoginThrottleProperties.Limit limit, long maximumKeys) {
+            return limit == null || limit.getCapacity() <= 0 ? null
+                    : new TokenBucketRateLimiter(limit.getCapacity(), limit.getRefillPeriod(), maximumKeys);
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String route, String result) {
+            return Counter.builder("security.login.throttle")
+                    .description("Intentos de login atendidos o rechazados por el limitador")
+                    .tag("route", route)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        private static void gauge(MeterRegistry meterRegistry, String route, String limit, TokenBucketRateLimiter limiter) {
+            if (limiter != null) {
+                Gauge.builder("security.login.throttle.keys", limiter, TokenBucketRateLimiter::size)
+                        .description("Claves con bucket en memoria")
+                        .tag("route", route)
+                        .tag("limit", limit)
+                        .register(meterRegistry);
+            }
+        }
+    }
+}
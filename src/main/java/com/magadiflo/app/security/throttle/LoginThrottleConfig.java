@@ -0,0 +1,24 @@
+package com.magadiflo.app.security.throttle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cada login fallido cuesta una comparación BCrypt completa (y una ficticia si el email no existe), así que una
+ * ráfaga de credential stuffing puede ocupar todos los núcleos. Con app.security.login-throttle.enabled=true
+ * (valor por defecto) los intentos que superan el límite por username o por IP se rechazan antes (ver
+ * {@link LoginThrottleFilter}).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.security.login-throttle", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(LoginThrottleProperties.class)
+public class LoginThrottleConfig {
+
+    @Bean
+    public LoginThrottle loginThrottle(LoginThrottleProperties properties, MeterRegistry meterRegistry) {
+        return new LoginThrottle(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.magadiflo.app.security.throttle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Antes del UsernamePasswordAuthenticationFilter: si el intento de login supera el límite se responde
+ * 429 Too Many Requests con Retry-After (en segundos) sin tocar la BD ni calcular ningún hash.
+ * <p>
+ * No se registra como bean (igual que TokenAuthenticationFilter): lo instancia ApplicationSecurityConfig.
+ */
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoginThrottleFilter.class);
+
+    private final LoginThrottle loginThrottle;
+
+    public LoginThrottleFilter(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Duration retryAfter = this.loginThrottle.tryAcquire(request);
+        if (retryAfter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        LOG.debug("Intento de login rechazado desde {}, reintentar en {}", request.getRemoteAddr(), retryAfter);
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+}
@@ -0,0 +1,121 @@
+package com.magadiflo.app.security.throttle;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Límites de intentos de login (app.security.login-throttle.*), por ruta y, dentro de cada una, por username y por
+ * IP del cliente. Un límite con capacity=0 queda desactivado. Por ejemplo:
+ * <pre>
+ * app.security.login-throttle.routes[0].path=/login
+ * app.security.login-throttle.routes[0].per-username.capacity=10
+ * app.security.login-throttle.routes[0].per-username.refill-period=1m
+ * app.security.login-throttle.routes[0].per-ip.capacity=100
+ * app.security.login-throttle.routes[0].per-ip.refill-period=1m
+ * </pre>
+ * Detrás de un proxy la IP del cliente solo es la real con server.forward-headers-strategy configurado.
+ */
+@ConfigurationProperties(prefix = "app.security.login-throttle")
+public class LoginThrottleProperties {
+
+    private boolean enabled = true;
+    private long maximumKeys = 100000;
+    private List<Route> routes = new ArrayList<>(List.of(new Route()));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumKeys() {
+        return maximumKeys;
+    }
+
+    public void setMaximumKeys(long maximumKeys) {
+        this.maximumKeys = maximumKeys;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    public static class Route {
+
+        private String path = "/login";
+        private String usernameParameter = "username";
+        private Limit perUsername = new Limit(10, Duration.ofMinutes(1));
+        private Limit perIp = new Limit(100, Duration.ofMinutes(1));
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getUsernameParameter() {
+            return usernameParameter;
+        }
+
+        public void setUsernameParameter(String usernameParameter) {
+            this.usernameParameter = usernameParameter;
+        }
+
+        public Limit getPerUsername() {
+            return perUsername;
+        }
+
+        public void setPerUsername(Limit perUsername) {
+            this.perUsername = perUsername;
+        }
+
+        public Limit getPerIp() {
+            return perIp;
+        }
+
+        public void setPerIp(Limit perIp) {
+            this.perIp = perIp;
+        }
+    }
+
+    public static class Limit {
+
+        private int capacity;
+        private Duration refillPeriod;
+
+        public Limit() {
+        }
+
+        public Limit(int capacity, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.refillPeriod = refillPeriod;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getRefillPeriod() {
+            return refillPeriod;
+        }
+
+        public void setRefillPeriod(Duration refillPeriod) {
+            this.refillPeriod = refillPeriod;
+        }
+    }
+}
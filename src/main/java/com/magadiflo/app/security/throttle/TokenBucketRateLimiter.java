@@ -0,0 +1,67 @@
+package com.magadiflo.app.security.throttle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket por clave (capacity intentos que se recargan a lo largo de refillPeriod) sin locks: se usa la
+ * formulación GCRA, en la que todo el estado de un bucket es un único long (el "instante teórico de llegada" del
+ * siguiente intento) que se actualiza con compareAndSet. Dos intentos simultáneos con la misma clave compiten
+ * solo por ese AtomicLong; con claves distintas no comparten nada más que el mapa concurrente de Caffeine.
+ * <p>
+ * La memoria está acotada (maximumSize) y una clave sin actividad durante refillPeriod se descarta sola: para
+ * entonces su bucket volvería a estar lleno, así que olvidarla no cambia ninguna decisión.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(int capacity, Duration refillPeriod, long maximumKeys) {
+        this(capacity, refillPeriod, maximumKeys, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(int capacity, Duration refillPeriod, long maximumKeys, LongSupplier nanoClock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity debe ser mayor que 0: " + capacity);
+        }
+        this.emissionIntervalNanos = refillPeriod.toNanos() / capacity;
+        this.burstToleranceNanos = this.emissionIntervalNanos * (capacity - 1);
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(refillPeriod)
+                .build();
+    }
+
+    /**
+     * Consume un token de la clave. Devuelve 0 si había token o, si no, cuántos nanosegundos faltan para el siguiente.
+     */
+    public long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = this.buckets.get(key, k -> new AtomicLong());
+        long now = this.nanoClock.getAsLong() - this.origin;
+        while (true) {
+            long current = theoreticalArrival.get();
+            long start = Math.max(current, now);
+            long wait = start - now - this.burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, start + this.emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public long size() {
+        return this.buckets.estimatedSize();
+    }
+}
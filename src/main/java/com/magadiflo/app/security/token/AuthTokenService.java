@@ -0,0 +1,225 @@
+package com.magadiflo.app.security.token;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthoritySet;
+import com.magadiflo.app.auth.LoadStamp;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Emite y verifica los tokens firmados del modo stateless.
+ * <p>
+ * Formato: {@code <kid>.<payload>.<firma>}, con payload y firma en Base64url sin relleno.
+ * La firma es HMAC-SHA256 de {@code <kid>.<payload>} con la clave kid. El payload es, comprimido con deflate:
+ * versión de formato, email, emitido y expira (segundos epoch), versión de token del usuario, versión global de
+ * authorities y los nombres de sus authorities (roles y permisos). Así cada petición se autoriza sin sesión y sin
+ * consultar la BD. Si después de emitirse se revocó alguno de esos authorities (ver TokenRevocationRegistry), el
+ * token deja de valer. Las versiones que se firman son las leídas antes de cargar el usuario ({@link LoadStamp}),
+ * así una revocación entre la carga y la emisión también invalida el token.
+ * <p>
+ * La firma se comprueba antes de descomprimir nada, por lo que solo se descomprimen payloads emitidos por
+ * nosotros; aun así la descompresión está acotada a {@link #MAX_PAYLOAD_BYTES}.
+ */
+public class AuthTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte FORMAT_VERSION = 2;
+    private static final int MAX_PAYLOAD_BYTES = 64 * 1024;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SigningKeyProvider keyProvider;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    public AuthTokenService(SigningKeyProvider keyProvider, TokenRevocationRegistry revocationRegistry,
+                            Duration timeToLive, Clock clock) {
+        this.keyProvider = keyProvider;
+        this.revocationRegistry = revocationRegistry;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Emite el token de un usuario ya autenticado. Si es un {@link ApplicationUser} cargado de la BD se usan las
+     * versiones de su {@link LoadStamp}; si no, las vigentes ahora.
+     */
+    public String issue(UserDetails user) {
+        LoadStamp loadStamp = user instanceof ApplicationUser ? ((ApplicationUser) user).getLoadStamp() : null;
+        long tokenVersion = loadStamp != null ? loadStamp.getTokenVersion()
+                : this.revocationRegistry.currentVersion(user.getUsername());
+        long authorityVersion = loadStamp != null ? loadStamp.getTokenAuthorityVersion()
+                : this.revocationRegistry.currentAuthorityVersion();
+        long issuedAt = this.clock.instant().getEpochSecond();
+        Collection<? extends GrantedAuthority> authorities = user.getAuthorities();
+        List<String> names = new ArrayList<>(authorities.size());
+        authorities.forEach(authority -> names.add(authority.getAuthority()));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(user.getUsername());
+            out.writeLong(issuedAt);
+            out.writeLong(issuedAt + this.timeToLive.getSeconds());
+            out.writeLong(tokenVersion);
+            out.writeLong(authorityVersion);
+            out.writeShort(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo serializar el token", e);
+        } finally {
+            deflater.end();
+        }
+
+        SigningKey key = this.keyProvider.activeKey();
+        String signedPart = key.getId() + "." + ENCODER.encodeToString(bytes.toByteArray());
+        return signedPart + "." + ENCODER.encodeToString(sign(key, signedPart));
+    }
+
+    /**
+     * Verifica el token y devuelve una autenticación con un {@link ApplicationUser} sin password.
+     *
+     * @throws BadCredentialsException     si el token está mal formado o la firma no es válida
+     * @throws CredentialsExpiredException si el token expiró o fue revocado
+     */
+    public Authentication authenticate(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            throw new BadCredentialsException("Token mal formado");
+        }
+        SigningKey key = this.keyProvider.findKey(token.substring(0, firstDot));
+        if (key == null) {
+            throw new BadCredentialsException("Token firmado con una clave desconocida");
+        }
+        String signedPart = token.substring(0, lastDot);
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(firstDot + 1, lastDot));
+            signature = DECODER.decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Token mal formado");
+        }
+        if (!MessageDigest.isEqual(sign(key, signedPart), signature)) {
+            throw new BadCredentialsException("Firma del token no válida");
+        }
+
+        Inflater inflater = new Inflater(true);
+        try (DataInputStream in = new DataInputStream(new BoundedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(payload), inflater), MAX_PAYLOAD_BYTES))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new BadCredentialsException("Versión de token no soportada");
+            }
+            String username = in.readUTF();
+            in.readLong(); // emitido, se conserva en el formato para auditoría
+            long expiresAt = in.readLong();
+            long tokenVersion = in.readLong();
+            long authorityVersion = in.readLong();
+            if (this.clock.instant().getEpochSecond() >= expiresAt) {
+                throw new CredentialsExpiredException("Token expirado");
+            }
+            if (tokenVersion < this.revocationRegistry.currentVersion(username)) {
+                throw new CredentialsExpiredException("Token revocado");
+            }
+            int count = in.readUnsignedShort();
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(in.readUTF());
+            }
+            // Sin revocaciones de authorities desde la emisión no hace falta mirarlos uno a uno
+            if (authorityVersion < this.revocationRegistry.currentAuthorityVersion()) {
+                for (String name : names) {
+                    if (this.revocationRegistry.authorityRevokedAt(name) > authorityVersion) {
+                        throw new CredentialsExpiredException("Token revocado: cambió " + name);
+                    }
+                }
+            }
+            ApplicationUser principal = new ApplicationUser(username, null, true, AuthoritySet.of(names));
+            return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        } catch (IOException e) {
+            throw new BadCredentialsException("Payload del token no válido");
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] sign(SigningKey key, String signedPart) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key.getSecret(), ALGORITHM));
+            return mac.doFinal(signedPart.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar el token", e);
+        }
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private int remaining;
+
+        BoundedInputStream(InputStream in, int limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0) {
+                throw new IOException("Payload demasiado grande");
+            }
+            int b = super.read();
+            if (b >= 0) {
+                this.remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (this.remaining <= 0) {
+                throw new IOException("Payload demasiado grande");
+            }
+            int n = super.read(b, off, Math.min(len, this.remaining));
+            if (n > 0) {
+                this.remaining -= n;
+            }
+            return n;
+        }
+    }
+}
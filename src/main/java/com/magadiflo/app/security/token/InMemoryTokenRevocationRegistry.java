@@ -0,0 +1,39 @@
+package com.magadiflo.app.security.token;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class InMemoryTokenRevocationRegistry implements TokenRevocationRegistry {
+
+    private final ConcurrentMap<String, Long> versions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> authorityRevocations = new ConcurrentHashMap<>();
+    private final AtomicLong authorityVersion = new AtomicLong();
+
+    @Override
+    public long currentVersion(String username) {
+        return this.versions.getOrDefault(username, 0L);
+    }
+
+    @Override
+    public void revokeAll(String username) {
+        this.versions.merge(username, 1L, Long::sum);
+    }
+
+    @Override
+    public long currentAuthorityVersion() {
+        return this.authorityVersion.get();
+    }
+
+    @Override
+    public void revokeAuthorities(Collection<String> authorities) {
+        long version = this.authorityVersion.incrementAndGet();
+        authorities.forEach(authority -> this.authorityRevocations.merge(authority, version, Math::max));
+    }
+
+    @Override
+    public long authorityRevokedAt(String authority) {
+        return this.authorityRevocations.getOrDefault(authority, 0L);
+    }
+}
@@ -0,0 +1,48 @@
+package com.magadiflo.app.security.token;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proveedor de claves en memoria con un gancho de rotación: rotate(...) activa una clave nueva
+ * y conserva las anteriores para verificar los tokens que siguen vigentes; retire(...) retira una
+ * clave antigua, con lo que todos los tokens firmados con ella dejan de ser válidos.
+ */
+public class RotatingSigningKeyProvider implements SigningKeyProvider {
+
+    private final Map<String, SigningKey> keys = new ConcurrentHashMap<>();
+    private volatile SigningKey activeKey;
+
+    public RotatingSigningKeyProvider(SigningKey activeKey) {
+        this.rotate(activeKey);
+    }
+
+    @Override
+    public SigningKey activeKey() {
+        return this.activeKey;
+    }
+
+    @Override
+    public SigningKey findKey(String id) {
+        return this.keys.get(id);
+    }
+
+    /**
+     * Registra una clave solo para verificación (por ejemplo la clave anterior tras un reinicio).
+     */
+    public void addVerificationKey(SigningKey key) {
+        this.keys.put(key.getId(), key);
+    }
+
+    public void rotate(SigningKey newActiveKey) {
+        this.keys.put(newActiveKey.getId(), newActiveKey);
+        this.activeKey = newActiveKey;
+    }
+
+    public void retire(String id) {
+        if (this.activeKey.getId().equals(id)) {
+            throw new IllegalStateException("No se puede retirar la clave activa " + id);
+        }
+        this.keys.remove(id);
+    }
+}
@@ -0,0 +1,48 @@
+package com.magadiflo.app.security.token;
+
+import java.util.Objects;
+
+/**
+ * Clave HMAC identificada por un id (kid) que viaja en claro en el token.
+ */
+public final class SigningKey {
+
+    private final String id;
+    private final byte[] secret;
+
+    public SigningKey(String id, byte[] secret) {
+        if (id == null || id.isEmpty() || id.indexOf('.') >= 0) {
+            throw new IllegalArgumentException("El id de la clave no puede estar vacío ni contener puntos");
+        }
+        if (secret == null || secret.length < 32) {
+            throw new IllegalArgumentException("La clave " + id + " debe tener al menos 256 bits");
+        }
+        this.id = id;
+        this.secret = secret.clone();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    byte[] getSecret() {
+        return secret;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SigningKey)) return false;
+        return this.id.equals(((SigningKey) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "SigningKey{id='" + id + "'}";
+    }
+}
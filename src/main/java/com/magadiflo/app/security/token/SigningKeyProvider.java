@@ -0,0 +1,17 @@
+package com.magadiflo.app.security.token;
+
+/**
+ * Origen de las claves con las que se firman y verifican los tokens.
+ * Se firma siempre con la clave activa y se verifica con la clave cuyo id indica el token,
+ * lo que permite rotar claves sin invalidar los tokens ya emitidos.
+ */
+public interface SigningKeyProvider {
+
+    SigningKey activeKey();
+
+    /**
+     * Devuelve la clave con ese id o null si no existe (o ya fue retirada).
+     */
+    SigningKey findKey(String id);
+
+}
@@ -0,0 +1,95 @@
+package com.magadiflo.app.security.token;
+
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+import com.magadiflo.app.auth.RoleHierarchyClosure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modo stateless (opcional, app.security.token.enabled=true): tras el login con usuario y password se emite
+ * un token firmado con los authorities del usuario, y las peticiones a /api/** y /management/** se autorizan
+ * solo con ese token, sin sesión HTTP y sin consultar la BD.
+ * <p>
+ * Si no se configuran claves se genera una aleatoria al arrancar: sirve para un solo nodo, pero los tokens
+ * dejan de valer al reiniciar.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.security.token", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(TokenProperties.class)
+public class StatelessTokenConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StatelessTokenConfig.class);
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SigningKeyProvider signingKeyProvider(TokenProperties properties) {
+        Map<String, String> keys = properties.getKeys();
+        if (keys.isEmpty()) {
+            LOG.warn("No se configuraron claves en app.security.token.keys; se usará una clave aleatoria");
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            return new RotatingSigningKeyProvider(new SigningKey("generated", secret));
+        }
+        String activeKeyId = properties.getActiveKeyId() != null ? properties.getActiveKeyId() : keys.keySet().iterator().next();
+        if (!keys.containsKey(activeKeyId)) {
+            throw new IllegalStateException("app.security.token.active-key-id=" + activeKeyId + " no está en app.security.token.keys");
+        }
+        RotatingSigningKeyProvider provider = new RotatingSigningKeyProvider(
+                new SigningKey(activeKeyId, Base64.getDecoder().decode(keys.get(activeKeyId))));
+        keys.forEach((id, secret) -> {
+            if (!id.equals(activeKeyId)) {
+                provider.addVerificationKey(new SigningKey(id, Base64.getDecoder().decode(secret)));
+            }
+        });
+        return provider;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenRevocationRegistry tokenRevocationRegistry() {
+        return new InMemoryTokenRevocationRegistry();
+    }
+
+    @Bean
+    public AuthTokenService authTokenService(SigningKeyProvider signingKeyProvider,
+                                             TokenRevocationRegistry tokenRevocationRegistry,
+                                             TokenProperties properties) {
+        return new AuthTokenService(signingKeyProvider, tokenRevocationRegistry, properties.getTimeToLive(),
+                Clock.systemUTC());
+    }
+
+    /**
+     * Si cambian el password, el estado o los roles de un usuario, sus tokens llevan datos obsoletos:
+     * se revocan para obligarle a volver a hacer login. Si cambia un rol se revocan los tokens que lo llevan a él
+     * o a un rol que hereda de él (la clausura ya está actualizada, su listener va antes), y si cambia un
+     * permiso, los que lo llevan.
+     */
+    @Bean
+    public ApplicationListener<AuthorityDataChangedEvent> tokenRevocationListener(TokenRevocationRegistry registry,
+                                                                                RoleHierarchyClosure roleHierarchyClosure) {
+        return event -> {
+            if (event.getKind() == AuthorityDataChangedEvent.Kind.USER) {
+                event.getNames().forEach(registry::revokeAll);
+            } else if (event.getKind() == AuthorityDataChangedEvent.Kind.ROLE) {
+                Set<String> roles = new LinkedHashSet<>(event.getNames());
+                roles.addAll(roleHierarchyClosure.descendantsOf(event.getNames()));
+                registry.revokeAuthorities(roles);
+            } else {
+                registry.revokeAuthorities(event.getNames());
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.magadiflo.app.security.token;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Autentica las peticiones a /api/** y /management/** a partir del header "Authorization: Bearer &lt;token&gt;".
+ * Sin header la petición sigue sin autenticar (y la rechazará la autorización); con un token no válido se
+ * responde 401 directamente.
+ * <p>
+ * No se registra como bean para que Spring Boot no lo añada también a la cadena de filtros del servlet;
+ * lo instancia ApplicationSecurityConfig dentro de la cadena de Spring Security.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TokenAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    public static final RequestMatcher PROTECTED_PATHS = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/**"), new AntPathRequestMatcher("/management/**"));
+
+    private final AuthTokenService authTokenService;
+
+    public TokenAuthenticationFilter(AuthTokenService authTokenService) {
+        this.authTokenService = authTokenService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !PROTECTED_PATHS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(this.authTokenService.authenticate(header.substring(BEARER_PREFIX.length()).trim()));
+            SecurityContextHolder.setContext(context);
+        } catch (AuthenticationException e) {
+            LOG.debug("Token rechazado: {}", e.getMessage());
+            SecurityContextHolder.clearContext();
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
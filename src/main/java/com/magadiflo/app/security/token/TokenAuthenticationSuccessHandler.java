@@ -0,0 +1,41 @@
+package com.magadiflo.app.security.token;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tras un login correcto (POST /login) responde con el token en JSON en lugar de redirigir:
+ * {"access_token": "...", "token_type": "Bearer", "expires_in": 900}
+ */
+public class TokenAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
+
+    private final AuthTokenService authTokenService;
+
+    public TokenAuthenticationSuccessHandler(AuthTokenService authTokenService) {
+        this.authTokenService = authTokenService;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException {
+        String token = this.authTokenService.issue((UserDetails) authentication.getPrincipal());
+        // El token solo contiene caracteres Base64url y puntos, no hace falta escaparlo
+        StringBuffer sb = new StringBuffer("{");
+        sb.append("\"access_token\":\"").append(token).append('"');
+        sb.append(",\"token_type\":\"Bearer\"");
+        sb.append(",\"expires_in\":").append(this.authTokenService.getTimeToLive().getSeconds());
+        sb.append('}');
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-store");
+        response.getWriter().write(sb.toString());
+    }
+}
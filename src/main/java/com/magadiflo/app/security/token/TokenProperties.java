@@ -0,0 +1,58 @@
+package com.magadiflo.app.security.token;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuración del modo stateless (app.security.token.*).
+ * Las claves HMAC se indican en Base64 por id, por ejemplo:
+ * <pre>
+ * app.security.token.enabled=true
+ * app.security.token.active-key-id=2024-05
+ * app.security.token.keys.2024-05=...base64...
+ * app.security.token.keys.2024-01=...base64... (clave anterior, solo para verificar)
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "app.security.token")
+public class TokenProperties {
+
+    private boolean enabled;
+    private Duration timeToLive = Duration.ofMinutes(15);
+    private String activeKeyId;
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public void setActiveKeyId(String activeKeyId) {
+        this.activeKeyId = activeKeyId;
+    }
+
+    public Map<String, String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(Map<String, String> keys) {
+        this.keys = keys;
+    }
+}
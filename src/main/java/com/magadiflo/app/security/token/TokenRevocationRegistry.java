@@ -0,0 +1,37 @@
+package com.magadiflo.app.security.token;
+
+import java.util.Collection;
+
+/**
+ * Versiones de token por usuario y por authority. Cada token lleva la versión vigente del usuario y la versión
+ * global de authorities al emitirse, y se rechaza si después se revocaron los tokens del usuario o alguno de
+ * los authorities que lleva (porque el rol o el permiso cambió y su lista ya no es fiable).
+ * La implementación por defecto vive en memoria; para varios nodos se debe registrar un bean compartido
+ * (BD, Redis, ...), que debe responder sin ir a la BD en cada petición (cacheando, por ejemplo).
+ */
+public interface TokenRevocationRegistry {
+
+    long currentVersion(String username);
+
+    /**
+     * Invalida todos los tokens emitidos hasta ahora para el usuario.
+     */
+    void revokeAll(String username);
+
+    /**
+     * Versión global de authorities: avanza con cada {@link #revokeAuthorities(Collection)}.
+     */
+    long currentAuthorityVersion();
+
+    /**
+     * Invalida todos los tokens emitidos hasta ahora que lleven alguno de estos authorities.
+     */
+    void revokeAuthorities(Collection<String> authorities);
+
+    /**
+     * Versión de authorities de la última revocación del authority, o 0 si nunca se revocó: los tokens emitidos
+     * con una versión menor que esta no son válidos.
+     */
+    long authorityRevokedAt(String authority);
+
+}
@@ -0,0 +1,188 @@
+package com.magadiflo.app.setup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Descripción de los datos iniciales de autorización (permisos, roles con su padre y sus permisos propios, y
+ * usuarios con sus roles directos) que {@link SetupDataLoader} garantiza en la BD. Su {@link #checksum()} se
+ * guarda en seed_state al aplicarlo: mientras no cambie el manifiesto (ni el formato del checksum) los arranques
+ * siguientes no necesitan comparar nada con la BD.
+ * <p>
+ * Los roles se declaran después de su padre, así se pueden crear en orden en una sola pasada.
+ */
+public final class SeedManifest {
+
+    /**
+     * Cambiarlo obliga a volver a aplicar el manifiesto en todas las BD, por ejemplo si cambia cómo se aplica.
+     */
+    private static final int CHECKSUM_FORMAT = 1;
+
+    private final String name;
+    private final List<String> permissions;
+    private final List<RoleSeed> roles;
+    private final List<UserSeed> users;
+
+    public SeedManifest(String name, List<String> permissions, List<RoleSeed> roles, List<UserSeed> users) {
+        this.name = name;
+        this.permissions = List.copyOf(permissions);
+        this.roles = List.copyOf(roles);
+        this.users = List.copyOf(users);
+        this.validate();
+    }
+
+    /**
+     * Los datos que SetupDataLoader crea desde el principio: ROLE_ADMIN ⊇ ROLE_ADMINTRAINEE ⊇ ROLE_STUDENT, cada
+     * rol solo con sus permisos propios, y un usuario de prueba por combinación de roles.
+     */
+    public static SeedManifest initialData() {
+        return new SeedManifest("initial-data",
+                Arrays.asList("student:read", "student:write", "course:read", "course:write"),
+                Arrays.asList(
+                        new RoleSeed("ROLE_STUDENT", null, Arrays.asList("student:read")),
+                        new RoleSeed("ROLE_ADMINTRAINEE", "ROLE_STUDENT", Arrays.asList("course:read")),
+                        new RoleSeed("ROLE_ADMIN", "ROLE_ADMINTRAINEE", Arrays.asList("student:write", "course:write"))),
+                Arrays.asList(
+                        new UserSeed("Admin Test", "Admin Test", "admin.test@test.com", "test",
+                                Arrays.asList("ROLE_ADMIN")),
+                        new UserSeed("Admin Trainee test", "Admin Trainee Test", "admin.trainee.test@test.com", "test",
+                                Arrays.asList("ROLE_ADMINTRAINEE")),
+                        new UserSeed("Student test", "Student Test", "student.test@test.com", "test",
+                                Arrays.asList("ROLE_STUDENT")),
+                        new UserSeed("Student and Admin Trainee test", "Student and Admin Trainee test",
+                                "student.admin.trainee.test@test.com", "test",
+                                Arrays.asList("ROLE_STUDENT", "ROLE_ADMINTRAINEE"))));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getPermissions() {
+        return permissions;
+    }
+
+    public List<RoleSeed> getRoles() {
+        return roles;
+    }
+
+    public List<UserSeed> getUsers() {
+        return users;
+    }
+
+    /**
+     * SHA-256 (en hexadecimal) de una representación canónica del manifiesto, una línea por elemento.
+     */
+    public String checksum() {
+        StringBuffer canonical = new StringBuffer();
+        canonical.append("format|").append(CHECKSUM_FORMAT).append('\n');
+        this.permissions.forEach(permission -> canonical.append("permission|").append(permission).append('\n'));
+        for (RoleSeed role : this.roles) {
+            canonical.append("role|").append(role.getName()).append('|').append(role.getParent()).append('|')
+                    .append(String.join(",", role.getPermissions())).append('\n');
+        }
+        for (UserSeed user : this.users) {
+            canonical.append("user|").append(user.getEmail()).append('|').append(user.getFirstName()).append('|')
+                    .append(user.getLastName()).append('|').append(user.getPassword()).append('|')
+                    .append(String.join(",", user.getRoles())).append('\n');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private void validate() {
+        Set<String> permissionNames = new HashSet<>(this.permissions);
+        Set<String> roleNames = new HashSet<>();
+        for (RoleSeed role : this.roles) {
+            if (role.getParent() != null && !roleNames.contains(role.getParent())) {
+                throw new IllegalArgumentException("El rol " + role.getName() + " debe declararse después de su padre "
+                        + role.getParent());
+            }
+            if (!permissionNames.containsAll(role.getPermissions())) {
+                throw new IllegalArgumentException("El rol " + role.getName() + " usa permisos no declarados: "
+                        + role.getPermissions());
+            }
+            roleNames.add(role.getName());
+        }
+        for (UserSeed user : this.users) {
+            if (!roleNames.containsAll(user.getRoles())) {
+                throw new IllegalArgumentException("El usuario " + user.getEmail() + " usa roles no declarados: "
+                        + user.getRoles());
+            }
+        }
+    }
+
+    public static final class RoleSeed {
+
+        private final String name;
+        private final String parent;
+        private final List<String> permissions;
+
+        public RoleSeed(String name, String parent, List<String> permissions) {
+            this.name = name;
+            this.parent = parent;
+            this.permissions = Collections.unmodifiableList(new ArrayList<>(permissions));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getParent() {
+            return parent;
+        }
+
+        public List<String> getPermissions() {
+            return permissions;
+        }
+    }
+
+    public static final class UserSeed {
+
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+        private final String password;
+        private final List<String> roles;
+
+        public UserSeed(String firstName, String lastName, String email, String password, List<String> roles) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.password = password;
+            this.roles = Collections.unmodifiableList(new ArrayList<>(roles));
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+    }
+}
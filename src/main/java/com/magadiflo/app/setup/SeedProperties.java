@@ -0,0 +1,24 @@
+package com.magadiflo.app.setup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Carga de los datos iniciales (app.setup.seed.*), ver {@link SetupDataLoader}.
+ */
+@ConfigurationProperties(prefix = "app.setup.seed")
+public class SeedProperties {
+
+    /**
+     * No tocar la BD si el checksum del manifiesto coincide con el guardado en seed_state. Con false se compara
+     * siempre el manifiesto con la BD (por ejemplo para recrear un usuario inicial borrado a mano).
+     */
+    private boolean skipIfUnchanged = true;
+
+    public boolean isSkipIfUnchanged() {
+        return skipIfUnchanged;
+    }
+
+    public void setSkipIfUnchanged(boolean skipIfUnchanged) {
+        this.skipIfUnchanged = skipIfUnchanged;
+    }
+}
@@ -5,27 +5,52 @@ import com.magadiflo.app.domain.Role;
 import com.magadiflo.app.domain.User;
 import com.magadiflo.app.repository.IPermissionRepository;
 import com.magadiflo.app.repository.IRoleRepository;
+import com.magadiflo.app.repository.IStudentRepository;
 import com.magadiflo.app.repository.IUserRepository;
+import com.magadiflo.app.resource.Student;
+import com.magadiflo.app.threads.VirtualThreadsConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * El ContextRefreshEvent se genera cuando se inicializa o actualiza un contexto de aplicación,
  * lo que significa que el método onApplicationEvent(...) se puede ejecutar más de una vez. Por lo tanto,
  * es posible que deba poner un tipo de estado en su componente para asegurarse de que el código
  * de inicialización se ejecute solo una vez. En nuestro caso usamos una bandera "alreadySetup"
+ * <p>
+ * Los permisos, roles y usuarios se describen en un {@link SeedManifest} cuyo checksum se guarda en la tabla
+ * seed_state: si no cambió desde el último arranque no se consulta nada más (reinicios rápidos); si cambió se
+ * aplica solo la diferencia con la BD.
  */
 @Component
+@EnableConfigurationProperties(SeedProperties.class)
 public class SetupDataLoader implements ApplicationListener<ContextRefreshedEvent> {
 
     private static final Logger LOG = LoggerFactory.getLogger(SetupDataLoader.class);
@@ -33,84 +58,191 @@ public class SetupDataLoader implements ApplicationListener<ContextRefreshedEven
     private final IUserRepository userRepository;
     private final IRoleRepository roleRepository;
     private final IPermissionRepository permissionRepository;
+    private final IStudentRepository studentRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ExecutorService> virtualThreadExecutor;
+    private final JdbcTemplate jdbcTemplate;
+    private final SeedProperties seedProperties;
+    private final SeedManifest manifest = SeedManifest.initialData();
 
     public SetupDataLoader(IUserRepository userRepository, IRoleRepository roleRepository,
-                           IPermissionRepository permissionRepository, PasswordEncoder passwordEncoder) {
+                           IPermissionRepository permissionRepository, IStudentRepository studentRepository,
+                           PasswordEncoder passwordEncoder, PlatformTransactionManager transactionManager,
+                           @Qualifier(VirtualThreadsConfig.EXECUTOR_BEAN_NAME) ObjectProvider<ExecutorService> virtualThreadExecutor,
+                           JdbcTemplate jdbcTemplate, SeedProperties seedProperties) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.permissionRepository = permissionRepository;
+        this.studentRepository = studentRepository;
         this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.virtualThreadExecutor = virtualThreadExecutor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.seedProperties = seedProperties;
     }
 
     @Override
-    @Transactional
     public void onApplicationEvent(ContextRefreshedEvent event) {
         LOG.info("Accediendo al método onApplicationEvent(...)");
         LOG.info("Número de beans inicializados en el contenedor: {}", event.getApplicationContext().getBeanDefinitionCount());
 
         if (!this.alreadySetup) {
-            // Creamos los permisos iniciales
-            Permission readStudentPermission = this.createPermissionIfNotFound("student:read");
-            Permission writeStudentPermission = this.createPermissionIfNotFound("student:write");
-            Permission readCoursePermission = this.createPermissionIfNotFound("course:read");
-            Permission writeCoursePermission = this.createPermissionIfNotFound("course:write");
-
-            //Creamos los roles iniciales
-            List<Permission> adminPermissions = new ArrayList<>(Arrays.asList(readStudentPermission, writeStudentPermission, readCoursePermission, writeCoursePermission));
-            List<Permission> adminTraineePermissions = new ArrayList<>(Arrays.asList(readStudentPermission, readCoursePermission));
-            List<Permission> studentPermissions = new ArrayList<>(Arrays.asList(readStudentPermission));
-
-            Role adminRole = this.createRoleIfNotFound("ROLE_ADMIN", adminPermissions);
-            Role adminTraineeRole = this.createRoleIfNotFound("ROLE_ADMINTRAINEE", adminTraineePermissions);
-            Role studentRole = this.createRoleIfNotFound("ROLE_STUDENT", studentPermissions);
-
-            //Creamos un usuarios iniciales
-            this.createUserIfNotFound("Admin Test", "Admin Test", "admin.test@test.com", "test", new ArrayList<>(Arrays.asList(adminRole)));
-            this.createUserIfNotFound("Admin Trainee test", "Admin Trainee Test", "admin.trainee.test@test.com", "test", new ArrayList<>(Arrays.asList(adminTraineeRole)));
-            this.createUserIfNotFound("Student test", "Student Test", "student.test@test.com", "test", new ArrayList<>(Arrays.asList(studentRole)));
-            this.createUserIfNotFound("Student and Admin Trainee test", "Student and Admin Trainee test", "student.admin.trainee.test@test.com", "test", new ArrayList<>(Arrays.asList(studentRole, adminTraineeRole)));
-
+            // Con app.threads.virtual.enabled=true la carga se hace en un hilo virtual; se espera a que termine
+            // para que los datos estén listos antes de atender peticiones, como en el modo normal
+            ExecutorService executor = this.virtualThreadExecutor.getIfAvailable();
+            if (executor == null) {
+                this.loadInitialData();
+            } else {
+                CompletableFuture.runAsync(this::loadInitialData, executor).join();
+            }
             this.alreadySetup = true;
         }
     }
 
-    @Transactional
-    private Permission createPermissionIfNotFound(final String name) {
-        Permission permission = this.permissionRepository.findByName(name);
-        if (permission == null) {
-            permission = new Permission(name);
-            permission = this.permissionRepository.save(permission);
+    private void loadInitialData() {
+        this.seed(this.manifest);
+        //Creamos los estudiantes iniciales (solo si el almacén está vacío: con jpa persisten entre arranques, con
+        //memory hay que cargarlos siempre, por eso no dependen del checksum)
+        if (this.studentRepository.count() == 0) {
+            this.transactionTemplate.executeWithoutResult(status -> Arrays.asList(
+                    new Student(1, "Martín"), new Student(2, "Gaspar"), new Student(3, "Alicia"),
+                    new Student(4, "Tinkler"), new Student(5, "Raúl"), new Student(6, "Abraham")
+            ).forEach(this.studentRepository::save));
         }
-        return permission;
     }
 
-    @Transactional
-    private Role createRoleIfNotFound(final String name, final Collection<Permission> permissions) {
-        Role role = this.roleRepository.findByName(name);
-        if (role == null) {
-            role = new Role(name);
+    /**
+     * Aplica el manifiesto salvo que su checksum coincida con el guardado en seed_state (una sola consulta).
+     * Devuelve si se aplicó.
+     */
+    public boolean seed(SeedManifest manifest) {
+        long start = System.nanoTime();
+        String checksum = manifest.checksum();
+        if (this.seedProperties.isSkipIfUnchanged() && checksum.equals(this.storedChecksum(manifest.getName()))) {
+            LOG.info("Datos iniciales '{}' sin cambios (checksum {}), no se vuelven a cargar", manifest.getName(), checksum);
+            return false;
         }
-        role.setPermissions(permissions);
-        //Si el id del role tiene valor se hará un update, caso contrario se creará nuevo role
-        return this.roleRepository.save(role);
+        Integer changes = this.transactionTemplate.execute(status -> {
+            int applied = this.apply(manifest);
+            this.storeChecksum(manifest.getName(), checksum);
+            return applied;
+        });
+        LOG.info("Datos iniciales '{}' aplicados: {} permisos, roles o usuarios creados o actualizados en {} ms",
+                manifest.getName(), changes, (System.nanoTime() - start) / 1_000_000L);
+        return true;
+    }
+
+    /**
+     * Lleva la BD al estado del manifiesto con el menor número de escrituras: se crea lo que falta y, de lo que
+     * ya existe, solo se modifican los roles cuyo padre o permisos propios difieren y los usuarios cuyos roles
+     * difieren (sus datos personales y su password no se tocan). Lo que no está en el manifiesto no se borra.
+     * Cada tipo se lee con una sola consulta. Debe ejecutarse dentro de una transacción: las entidades leídas
+     * quedan gestionadas y Hibernate solo escribe las que cambiaron (y publica sus AuthorityDataChangedEvent).
+     */
+    int apply(SeedManifest manifest) {
+        Map<String, Permission> permissions = new HashMap<>();
+        Map<String, Role> roles = new HashMap<>();
+        return this.applyPermissions(manifest, permissions)
+                + this.applyRoles(manifest, permissions, roles)
+                + this.applyUsers(manifest, roles);
     }
 
-    @Transactional
-    private User createUserIfNotFound(final String firstName, final String lastName, final String email,
-                                      final String password, final Collection<Role> roles) {
-        User user = this.userRepository.findByEmail(email);
-        if (user == null) {
-            user = new User();
-            user.setFirstName(firstName);
-            user.setLastName(lastName);
-            user.setEmail(email);
-            user.setPassword(this.passwordEncoder.encode(password));
-            user.setEnabled(true);
+    private int applyPermissions(SeedManifest manifest, Map<String, Permission> permissions) {
+        this.permissionRepository.findByNameIn(manifest.getPermissions())
+                .forEach(permission -> permissions.put(permission.getName(), permission));
+        int changes = 0;
+        for (String name : manifest.getPermissions()) {
+            if (!permissions.containsKey(name)) {
+                permissions.put(name, this.permissionRepository.save(new Permission(name)));
+                changes++;
+            }
         }
-        user.setRoles(roles);
-        //Si el id del user tiene valor se hará un update, caso contrario se creará nuevo user
-        return this.userRepository.save(user);
+        return changes;
+    }
+
+    private int applyRoles(SeedManifest manifest, Map<String, Permission> permissions, Map<String, Role> roles) {
+        List<String> names = manifest.getRoles().stream().map(SeedManifest.RoleSeed::getName).collect(Collectors.toList());
+        this.roleRepository.findByNameIn(names).forEach(role -> roles.put(role.getName(), role));
+        int changes = 0;
+        //Los padres se declaran antes que sus hijos: cuando se llega a un rol su padre ya existe
+        for (SeedManifest.RoleSeed seed : manifest.getRoles()) {
+            Role role = roles.get(seed.getName());
+            boolean created = role == null;
+            if (created) {
+                role = new Role(seed.getName());
+            }
+            Role parent = seed.getParent() == null ? null : roles.get(seed.getParent());
+            boolean changed = created;
+            //Se comparan ids: el padre puede ser un proxy sin inicializar
+            if (created || !Objects.equals(id(role.getParent()), id(parent))) {
+                role.setParent(parent);
+                changed = true;
+            }
+            if (created || !names(role.getPermissions(), Permission::getName).equals(new HashSet<>(seed.getPermissions()))) {
+                role.setPermissions(seed.getPermissions().stream().map(permissions::get)
+                        .collect(Collectors.toCollection(ArrayList::new)));
+                changed = true;
+            }
+            if (created) {
+                role = this.roleRepository.save(role);
+                roles.put(role.getName(), role);
+            }
+            changes += changed ? 1 : 0;
+        }
+        return changes;
+    }
+
+    private int applyUsers(SeedManifest manifest, Map<String, Role> roles) {
+        List<String> emails = manifest.getUsers().stream().map(SeedManifest.UserSeed::getEmail).collect(Collectors.toList());
+        Map<String, User> users = new HashMap<>();
+        this.userRepository.findByEmailIn(emails).forEach(user -> users.put(user.getEmail(), user));
+        int changes = 0;
+        for (SeedManifest.UserSeed seed : manifest.getUsers()) {
+            User user = users.get(seed.getEmail());
+            if (user == null) {
+                user = new User();
+                user.setFirstName(seed.getFirstName());
+                user.setLastName(seed.getLastName());
+                user.setEmail(seed.getEmail());
+                user.setPassword(this.passwordEncoder.encode(seed.getPassword()));
+                user.setEnabled(true);
+                user.setRoles(this.roles(seed, roles));
+                this.userRepository.save(user);
+                changes++;
+            } else if (!names(user.getRoles(), Role::getName).equals(new HashSet<>(seed.getRoles()))) {
+                user.setRoles(this.roles(seed, roles));
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    private Collection<Role> roles(SeedManifest.UserSeed seed, Map<String, Role> roles) {
+        return seed.getRoles().stream().map(roles::get).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private String storedChecksum(String name) {
+        return this.jdbcTemplate.query("select checksum from seed_state where name = ?",
+                rs -> rs.next() ? rs.getString(1) : null, name);
+    }
+
+    private void storeChecksum(String name, String checksum) {
+        Timestamp now = Timestamp.from(Instant.now());
+        int updated = this.jdbcTemplate.update("update seed_state set checksum = ?, applied_at = ? where name = ?",
+                checksum, now, name);
+        if (updated == 0) {
+            this.jdbcTemplate.update("insert into seed_state (name, checksum, applied_at) values (?, ?, ?)",
+                    name, checksum, now);
+        }
+    }
+
+    private static Long id(Role role) {
+        return role == null ? null : role.getId();
+    }
+
+    private static <T> Set<String> names(Collection<T> values, Function<T, String> name) {
+        return values == null ? Collections.emptySet() : values.stream().map(name).collect(Collectors.toSet());
     }
 
 }
@@ -123,7 +255,7 @@ public class SetupDataLoader implements ApplicationListener<ContextRefreshedEven
  * Entonces, ¿qué está sucediendo durante este simple código de configuración? Nada complicado:
  * <p>
  * - Estamos creando los permisos (privilegios).
- * - Luego estamos creando los roles y asignándoles los permisos.
+ * - Luego estamos creando los roles, asignándoles sus permisos propios y el rol padre del que heredan el resto.
  * - Finalmente, estamos creando un usuario y asignándole un rol.
  * <p>
  * Observe cómo estamos usando una bandera (indicador) alreadySetup para determinar si la instalación (generación de
@@ -0,0 +1,264 @@
+package com.magadiflo.app.setup;
+
+import com.magadiflo.app.repository.cache.SecondLevelCaches;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera una población sintética (por defecto 1M usuarios, 500 roles y 10k permisos) para pruebas de carga,
+ * con app.setup.synthetic.enabled=true. Se ejecuta al terminar el arranque, después de que SetupDataLoader
+ * haya creado (y confirmado) los datos base, y antes de que AuthorityRegistryInitializer interne los nombres.
+ * <p>
+ * Las entidades usan GenerationType.IDENTITY, que impide a Hibernate agrupar los INSERT en batches. Por eso aquí
+ * se inserta con JdbcTemplate.batchUpdate(...) y con ids explícitos: se reserva el rango siguiente al max(id)
+ * de cada tabla y, al terminar, se reajusta el contador de identidad (H2 no lo hace solo; MySQL sí).
+ * En MySQL conviene añadir rewriteBatchedStatements=true a la URL para que el driver envíe cada batch como
+ * un único INSERT multi-fila.
+ * <p>
+ * El hash BCrypt del password se calcula una sola vez y se comparte entre todos los usuarios. Cada batch va en
+ * su propia transacción y se informa del progreso cada 10%. Si ya existe población sintética no se hace nada.
+ * Estos INSERT no pasan por Hibernate, así que no generan AuthorityDataChangedEvent (no hay nada que invalidar);
+ * solo hay que descartar la caché de segundo nivel de roles y permisos, que Hibernate no sabe que cambió.
+ */
+@Component
+@EnableConfigurationProperties(SyntheticDataProperties.class)
+public class SyntheticDataGenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    static final String EMAIL_DOMAIN = "@synthetic.test";
+    private static final String[] ACTIONS = {"read", "write", "delete", "admin"};
+
+    private final SyntheticDataProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final SecondLevelCaches secondLevelCaches;
+
+    public SyntheticDataGenerator(SyntheticDataProperties properties, JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager, PasswordEncoder passwordEncoder,
+                                  SecondLevelCaches secondLevelCaches) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.secondLevelCaches = secondLevelCaches;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void generateIfEnabled() {
+        if (!this.properties.isEnabled()) {
+            return;
+        }
+        Integer existing = this.jdbcTemplate.queryForObject(
+                "select count(*) from users where email = ?", Integer.class, userEmail(0));
+        if (existing != null && existing > 0) {
+            LOG.info("Ya existe una población sintética, no se genera de nuevo");
+            return;
+        }
+        Long baseRoleId = this.jdbcTemplate.query("select id from roles where name = ?",
+                rs -> rs.next() ? rs.getLong(1) : null, this.properties.getBaseRole());
+        if (baseRoleId == null) {
+            throw new IllegalStateException("No existe el rol base " + this.properties.getBaseRole());
+        }
+        this.generate(baseRoleId);
+    }
+
+    private void generate(long baseRoleId) {
+        long start = System.nanoTime();
+        Random random = new Random(this.properties.getSeed());
+        long firstPermissionId = this.nextId("permissions");
+        long firstRoleId = this.nextId("roles");
+        long firstUserId = this.nextId("users");
+        LOG.info("Generando población sintética: {} usuarios, {} roles, {} permisos (batches de {})",
+                this.properties.getUsers(), this.properties.getRoles(), this.properties.getPermissions(),
+                this.properties.getBatchSize());
+
+        this.insertPermissions(firstPermissionId);
+        this.insertRoles(firstRoleId, firstPermissionId, random);
+        this.insertUsers(firstUserId, firstRoleId, baseRoleId, random);
+
+        this.restartIdentity("permissions", firstPermissionId + this.properties.getPermissions());
+        this.restartIdentity("roles", firstRoleId + this.properties.getRoles());
+        this.restartIdentity("users", firstUserId + this.properties.getUsers());
+        this.secondLevelCaches.evictAuthorityData();
+        LOG.info("Población sintética generada en {} s", (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    private void insertPermissions(long firstId) {
+        int total = this.properties.getPermissions();
+        Progress progress = new Progress("permisos", total);
+        for (int from = 0; from < total; from += this.properties.getBatchSize()) {
+            int to = Math.min(total, from + this.properties.getBatchSize());
+            List<Object[]> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                rows.add(new Object[]{firstId + i, permissionName(i)});
+            }
+            this.batch("insert into permissions (id, name) values (?, ?)", rows);
+            progress.advance(to);
+        }
+    }
+
+    /**
+     * Cada rol recibe entre min y max permisos. Se eligen con sesgo hacia los primeros permisos
+     * (índice = n·u², con u uniforme), así unos pocos permisos aparecen en muchos roles, como en la realidad.
+     */
+    private void insertRoles(long firstId, long firstPermissionId, Random random) {
+        int total = this.properties.getRoles();
+        int permissions = this.properties.getPermissions();
+        Progress progress = new Progress("roles", total);
+        List<Object[]> roles = new ArrayList<>();
+        List<Object[]> rolePermissions = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            roles.add(new Object[]{firstId + i, roleName(i)});
+            int count = between(random, this.properties.getMinPermissionsPerRole(), this.properties.getMaxPermissionsPerRole());
+            for (int permission : skewedDistinct(random, Math.min(count, permissions), permissions)) {
+                rolePermissions.add(new Object[]{firstId + i, firstPermissionId + permission});
+            }
+            if (roles.size() >= this.properties.getBatchSize() || i == total - 1) {
+                this.batch("insert into roles (id, name, version) values (?, ?, 0)", roles);
+                this.batch("insert into roles_permissions (role_id, permission_id) values (?, ?)", rolePermissions);
+                roles.clear();
+                rolePermissions.clear();
+                progress.advance(i + 1);
+            }
+        }
+    }
+
+    private void insertUsers(long firstId, long firstRoleId, long baseRoleId, Random random) {
+        int total = this.properties.getUsers();
+        int roleCount = this.properties.getRoles();
+        String passwordHash = this.passwordEncoder.encode(this.properties.getPassword());
+        Progress progress = new Progress("usuarios", total);
+        List<Object[]> users = new ArrayList<>(this.properties.getBatchSize());
+        List<Object[]> userRoles = new ArrayList<>(this.properties.getBatchSize() * 2);
+        for (int i = 0; i < total; i++) {
+            long userId = firstId + i;
+            users.add(new Object[]{userId, "Synthetic", "User " + i, userEmail(i), passwordHash, true, false});
+            userRoles.add(new Object[]{userId, baseRoleId});
+            int count = between(random, this.properties.getMinRolesPerUser(), this.properties.getMaxRolesPerUser());
+            if (roleCount > 0) {
+                for (int role : skewedDistinct(random, Math.min(count, roleCount), roleCount)) {
+                    userRoles.add(new Object[]{userId, firstRoleId + role});
+                }
+            }
+            if (users.size() >= this.properties.getBatchSize() || i == total - 1) {
+                this.batch("insert into users (id, first_name, last_name, email, password, enabled, token_expired, version) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, 0)", users, "insert into users_roles (user_id, role_id) values (?, ?)", userRoles);
+                users.clear();
+                userRoles.clear();
+                progress.advance(i + 1);
+            }
+        }
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.batchUpdate(sql, rows));
+    }
+
+    private void batch(String sql, List<Object[]> rows, String joinSql, List<Object[]> joinRows) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            this.jdbcTemplate.batchUpdate(sql, rows);
+            this.jdbcTemplate.batchUpdate(joinSql, joinRows);
+        });
+    }
+
+    private long nextId(String table) {
+        Long max = this.jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        return max == null ? 1L : max + 1L;
+    }
+
+    private void restartIdentity(String table, long next) {
+        String product = this.jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if ("H2".equals(product)) {
+            this.jdbcTemplate.execute("alter table " + table + " alter column id restart with " + next);
+        } else if (!"MySQL".equals(product)) {
+            LOG.warn("Revise el contador de identidad de {} en {}: el próximo id debe ser {}", table, product, next);
+        }
+    }
+
+    static String permissionName(int i) {
+        return "resource" + (i / ACTIONS.length) + ":" + ACTIONS[i % ACTIONS.length];
+    }
+
+    static String roleName(int i) {
+        return "ROLE_SYNTHETIC_" + i;
+    }
+
+    static String userEmail(int i) {
+        return "synthetic.user" + i + EMAIL_DOMAIN;
+    }
+
+    private static int between(Random random, int min, int max) {
+        return max <= min ? min : min + random.nextInt(max - min + 1);
+    }
+
+    // count índices distintos en [0, bound), sesgados hacia los primeros
+    private static int[] skewedDistinct(Random random, int count, int bound) {
+        int[] chosen = new int[count];
+        int size = 0;
+        for (int attempts = 0; size < count && attempts < count * 20; attempts++) {
+            double u = random.nextDouble();
+            int candidate = (int) (bound * u * u);
+            boolean repeated = false;
+            for (int j = 0; j < size && !repeated; j++) {
+                repeated = chosen[j] == candidate;
+            }
+            if (!repeated) {
+                chosen[size++] = candidate;
+            }
+        }
+        // Si count se acerca a bound el muestreo sesgado apenas encuentra huecos: se completa en orden
+        for (int candidate = 0; size < count; candidate++) {
+            boolean repeated = false;
+            for (int j = 0; j < size && !repeated; j++) {
+                repeated = chosen[j] == candidate;
+            }
+            if (!repeated) {
+                chosen[size++] = candidate;
+            }
+        }
+        return chosen;
+    }
+
+    private static final class Progress {
+
+        private final String what;
+        private final int total;
+        private final long start = System.nanoTime();
+        private int nextReport;
+
+        Progress(String what, int total) {
+            this.what = what;
+            this.total = total;
+            this.nextReport = Math.max(1, total / 10);
+        }
+
+        void advance(int done) {
+            if (done >= this.nextReport || done == this.total) {
+                double seconds = Math.max(1e-3, (System.nanoTime() - this.start) / 1e9);
+                LOG.info("{}: {}/{} ({}%, {} por segundo)", this.what, done, this.total,
+                        done * 100L / Math.max(1, this.total), (long) (done / seconds));
+                while (this.nextReport <= done) {
+                    this.nextReport += Math.max(1, this.total / 10);
+                }
+            }
+        }
+    }
+}
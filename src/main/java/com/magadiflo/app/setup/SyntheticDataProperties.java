@@ -0,0 +1,119 @@
+package com.magadiflo.app.setup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Población sintética para pruebas de carga (app.setup.synthetic.*), ver {@link SyntheticDataGenerator}.
+ */
+@ConfigurationProperties(prefix = "app.setup.synthetic")
+public class SyntheticDataProperties {
+
+    private boolean enabled;
+    private int users = 1_000_000;
+    private int roles = 500;
+    private int permissions = 10_000;
+    private int minPermissionsPerRole = 5;
+    private int maxPermissionsPerRole = 60;
+    private int minRolesPerUser = 0;
+    private int maxRolesPerUser = 3;
+    private String baseRole = "ROLE_STUDENT";
+    private String password = "test";
+    private int batchSize = 1_000;
+    private long seed = 42L;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    public int getRoles() {
+        return roles;
+    }
+
+    public void setRoles(int roles) {
+        this.roles = roles;
+    }
+
+    public int getPermissions() {
+        return permissions;
+    }
+
+    public void setPermissions(int permissions) {
+        this.permissions = permissions;
+    }
+
+    public int getMinPermissionsPerRole() {
+        return minPermissionsPerRole;
+    }
+
+    public void setMinPermissionsPerRole(int minPermissionsPerRole) {
+        this.minPermissionsPerRole = minPermissionsPerRole;
+    }
+
+    public int getMaxPermissionsPerRole() {
+        return maxPermissionsPerRole;
+    }
+
+    public void setMaxPermissionsPerRole(int maxPermissionsPerRole) {
+        this.maxPermissionsPerRole = maxPermissionsPerRole;
+    }
+
+    public int getMinRolesPerUser() {
+        return minRolesPerUser;
+    }
+
+    public void setMinRolesPerUser(int minRolesPerUser) {
+        this.minRolesPerUser = minRolesPerUser;
+    }
+
+    public int getMaxRolesPerUser() {
+        return maxRolesPerUser;
+    }
+
+    public void setMaxRolesPerUser(int maxRolesPerUser) {
+        this.maxRolesPerUser = maxRolesPerUser;
+    }
+
+    public String getBaseRole() {
+        return baseRole;
+    }
+
+    public void setBaseRole(String baseRole) {
+        this.baseRole = baseRole;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
@@ -0,0 +1,46 @@
+package com.magadiflo.app.startup;
+
+import com.magadiflo.app.auth.AuthorityDataChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Soporte del perfil fast-startup (application-fast-startup.properties y el perfil fast-startup de Maven).
+ * <p>
+ * Con spring.main.lazy-initialization=true un bean solo se crea cuando otro lo usa. Los que solo se enganchan a
+ * algo en su inicialización, sin que nadie los inyecte, se excluyen para que sigan creándose al arrancar.
+ * <p>
+ * Con app.startup.exit-on-ready=true la aplicación termina en cuanto está lista: es la ejecución de entrenamiento
+ * que genera el archivo CDS (-XX:ArchiveClassesAtExit) con todas las clases cargadas durante el arranque.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FastStartupConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FastStartupConfig.class);
+
+    /**
+     * AuthorityDataChangeListener se registra en Hibernate en su @PostConstruct: sin él no se invalidarían las
+     * cachés de authorities.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupHooks() {
+        return LazyInitializationExcludeFilter.forBeanTypes(AuthorityDataChangeListener.class);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.startup.exit-on-ready", havingValue = "true")
+    ApplicationListener<ApplicationReadyEvent> exitOnReady() {
+        return event -> {
+            LOG.info("Arranque completado en {} ms, app.startup.exit-on-ready=true: se detiene la aplicación",
+                    event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.magadiflo.app.threads;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Acceso a los hilos virtuales (JDK 21+) por reflexión: el proyecto compila para Java 17, la versión más
+ * alta que soporta Spring Boot 2.7, y se ejecuta igual en un JDK sin hilos virtuales mientras el modo
+ * virtual (app.threads.virtual.enabled) esté desactivado.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method IS_VIRTUAL = findMethod(Thread.class, "isVirtual");
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        try {
+            return IS_VIRTUAL != null && (boolean) IS_VIRTUAL.invoke(thread);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory()): un hilo virtual nuevo
+     * por tarea, llamados prefix0, prefix1...
+     *
+     * @throws IllegalStateException si la JVM no tiene hilos virtuales
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        if (!isSupported()) {
+            throw new IllegalStateException("app.threads.virtual.enabled=true requiere un JDK 21 o superior (JDK actual: "
+                    + System.getProperty("java.version") + ")");
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se pudo crear el executor de hilos virtuales", e);
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.magadiflo.app.threads;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Modo de hilos virtuales (app.threads.virtual.enabled=true, requiere JDK 21+). Un login pasa casi todo su
+ * tiempo esperando a la BD o al pool de BCrypt (OffloadingPasswordEncoder); con hilos virtuales esa espera
+ * no ocupa un hilo de plataforma y el número de peticiones en curso deja de estar limitado por
+ * server.tomcat.threads.max:
+ * <ul>
+ *     <li>Tomcat atiende cada petición en un hilo virtual nuevo.</li>
+ *     <li>applicationTaskExecutor (@Async, peticiones asíncronas de Spring MVC) también usa hilos virtuales y
+ *     propaga el SecurityContext del hilo que envía la tarea. El SecurityContextHolder sigue en modo
+ *     ThreadLocal: cada petición tiene su propio hilo y no se hereda nada entre hilos.</li>
+ *     <li>SetupDataLoader hace la carga inicial en un hilo virtual.</li>
+ * </ul>
+ * Lo que sigue limitando la concurrencia son los recursos reales: las conexiones de Hikari
+ * (spring.datasource.hikari.maximum-pool-size; los hilos virtuales esperan una conexión sin ocupar un hilo de
+ * plataforma) y el pool de BCrypt. El driver JDBC hace la E/S dentro de bloques synchronized, que en JDK 21
+ * fijan el hilo virtual a su hilo portador; para que las conexiones ocupadas no dejen sin portadores al resto
+ * de peticiones se reservan tantos portadores extra como conexiones tiene el pool (ver
+ * {@link #reserveCarriersForPinnedJdbcCalls(int)}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    public static final String EXECUTOR_BEAN_NAME = "virtualThreadExecutor";
+
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+    private static final String PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+    private static final String MAX_POOL_SIZE = "jdk.virtualThreadScheduler.maxPoolSize";
+
+    @Bean(name = EXECUTOR_BEAN_NAME, destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int jdbcPoolSize) {
+        reserveCarriersForPinnedJdbcCalls(jdbcPoolSize);
+        return VirtualThreads.newThreadPerTaskExecutor("virtual-");
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new DelegatingSecurityContextAsyncTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+    @ConditionalOnClass(ProtocolHandler.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class TomcatVirtualThreadsConfig {
+
+        @Bean
+        public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+                ExecutorService virtualThreadExecutor) {
+            return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+        }
+    }
+
+    /**
+     * El planificador de hilos virtuales lee estas propiedades al crear el primer hilo virtual, así que solo
+     * se ajustan si nadie las ha fijado (p. ej. con -Djdk.virtualThreadScheduler.parallelism=...).
+     */
+    static void reserveCarriersForPinnedJdbcCalls(int jdbcPoolSize) {
+        if (System.getProperty(PARALLELISM) != null) {
+            return;
+        }
+        int carriers = Runtime.getRuntime().availableProcessors() + Math.max(0, jdbcPoolSize);
+        System.setProperty(PARALLELISM, String.valueOf(carriers));
+        if (System.getProperty(MAX_POOL_SIZE) == null) {
+            System.setProperty(MAX_POOL_SIZE, String.valueOf(Math.max(256, carriers)));
+        }
+        LOG.info("Hilos virtuales: {} hilos portadores ({} núcleos + {} conexiones JDBC)", carriers,
+                Runtime.getRuntime().availableProcessors(), jdbcPoolSize);
+    }
+}
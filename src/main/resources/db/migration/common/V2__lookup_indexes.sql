@@ -0,0 +1,16 @@
+-- Búsquedas por nombre: findByEmail en cada login y findByName de roles y permisos. Únicos, así además la BD
+-- impide duplicados (en una BD existente con duplicados esta migración falla y hay que depurarlos antes).
+create unique index ux_users_email on users (email);
+create unique index ux_roles_name on roles (name);
+create unique index ux_permissions_name on permissions (name);
+
+-- Tablas de unión: la clave primaria compuesta resuelve los roles de un usuario y los permisos de un rol (su
+-- primera columna) e impide filas repetidas; el índice inverso resuelve los usuarios de un rol y los roles que
+-- tienen un permiso (invalidación de UserDetailsCache y RoleHierarchyClosure), sin volver a la tabla.
+alter table users_roles add constraint pk_users_roles primary key (user_id, role_id);
+create index ix_users_roles_role on users_roles (role_id, user_id);
+alter table roles_permissions add constraint pk_roles_permissions primary key (role_id, permission_id);
+create index ix_roles_permissions_permission on roles_permissions (permission_id, role_id);
+
+-- Purga periódica de JdbcPollingAuthorityChangeBus (delete ... where created_at < ?)
+create index ix_authority_change_log_created_at on authority_change_log (created_at);
@@ -0,0 +1,3 @@
+-- Checksum del último manifiesto de datos iniciales aplicado (ver SetupDataLoader): si al arrancar coincide con
+-- el del manifiesto actual no se vuelve a sembrar nada.
+create table seed_state (name varchar(64) not null, checksum varchar(64) not null, applied_at timestamp not null, primary key (name));
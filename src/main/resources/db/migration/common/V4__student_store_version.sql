@@ -0,0 +1,4 @@
+-- Versión del almacén JPA de estudiantes (ver JpaStudentRepository): una sola fila que cada escritura incrementa
+-- en su transacción, de la que salen el ETag y el Last-Modified de las lecturas en todos los nodos.
+create table student_store_version (id integer not null, version bigint not null, updated_at timestamp not null, primary key (id));
+insert into student_store_version (id, version, updated_at) values (1, 0, current_timestamp);
@@ -0,0 +1,11 @@
+-- Esquema original que generaba Hibernate con ddl-auto=update (usuarios, roles, permisos y sus tablas de unión).
+-- Lo que se añadió después va en las migraciones siguientes.
+create table permissions (id bigint generated by default as identity, name varchar(255), primary key (id));
+create table roles (id bigint generated by default as identity, name varchar(255), primary key (id));
+create table roles_permissions (role_id bigint not null, permission_id bigint not null);
+create table users (id bigint generated by default as identity, email varchar(255), enabled boolean not null, first_name varchar(255), last_name varchar(255), password varchar(255), token_expired boolean not null, primary key (id));
+create table users_roles (user_id bigint not null, role_id bigint not null);
+alter table roles_permissions add constraint FKbx9r9uw77p58gsq4mus0mec0o foreign key (permission_id) references permissions;
+alter table roles_permissions add constraint FKqi9odri6c1o81vjox54eedwyh foreign key (role_id) references roles;
+alter table users_roles add constraint FKj6m8fwv7oqv74fcehir1a9ffy foreign key (role_id) references roles;
+alter table users_roles add constraint FK2o0jvgh89lemvvo17cbqvdxaa foreign key (user_id) references users;
@@ -0,0 +1,8 @@
+-- Columnas @Version de usuarios y roles (las filas existentes empiezan en 0), jerarquía de roles, almacén JPA de
+-- estudiantes y registro de cambios de authorities de JdbcPollingAuthorityChangeBus.
+alter table users add column version bigint not null default 0;
+alter table roles add column version bigint not null default 0;
+alter table roles add column parent_id bigint;
+alter table roles add constraint FKc8p0cleevyq7r83sa85bn13gm foreign key (parent_id) references roles (id);
+create table students (id integer not null, name varchar(255), primary key (id)) engine=InnoDB;
+create table authority_change_log (id bigint not null auto_increment, created_at datetime(6) not null, kind varchar(16) not null, name varchar(255) not null, node_id varchar(36) not null, primary key (id)) engine=InnoDB;
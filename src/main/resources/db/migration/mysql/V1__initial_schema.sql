@@ -0,0 +1,12 @@
+-- Esquema original que generaba Hibernate con ddl-auto=update (usuarios, roles, permisos y sus tablas de unión).
+-- Las BD creadas así no lo ejecutan: Flyway las marca como versión 1 (spring.flyway.baseline-on-migrate) y aplica
+-- solo las migraciones siguientes.
+create table permissions (id bigint not null auto_increment, name varchar(255), primary key (id)) engine=InnoDB;
+create table roles (id bigint not null auto_increment, name varchar(255), primary key (id)) engine=InnoDB;
+create table roles_permissions (role_id bigint not null, permission_id bigint not null) engine=InnoDB;
+create table users (id bigint not null auto_increment, email varchar(255), enabled bit not null, first_name varchar(255), last_name varchar(255), password varchar(255), token_expired bit not null, primary key (id)) engine=InnoDB;
+create table users_roles (user_id bigint not null, role_id bigint not null) engine=InnoDB;
+alter table roles_permissions add constraint FKbx9r9uw77p58gsq4mus0mec0o foreign key (permission_id) references permissions (id);
+alter table roles_permissions add constraint FKqi9odri6c1o81vjox54eedwyh foreign key (role_id) references roles (id);
+alter table users_roles add constraint FKj6m8fwv7oqv74fcehir1a9ffy foreign key (role_id) references roles (id);
+alter table users_roles add constraint FK2o0jvgh89lemvvo17cbqvdxaa foreign key (user_id) references users (id);
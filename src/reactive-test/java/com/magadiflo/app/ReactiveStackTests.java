@@ -0,0 +1,85 @@
+package com.magadiflo.app;
+
+import com.magadiflo.app.auth.R2dbcUserDetailsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveStackTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private R2dbcUserDetailsService userDetailsService;
+
+    @Test
+    void resolvesRolesAndPermissionsThroughR2dbc() {
+        StepVerifier.create(this.userDetailsService.findByUsername("student.admin.trainee.test@test.com"))
+                .assertNext(user -> assertThat(user.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                        .contains("ROLE_STUDENT", "ROLE_ADMINTRAINEE", "student:read", "course:read")
+                        .doesNotContain("student:write"))
+                .verifyComplete();
+        StepVerifier.create(this.userDetailsService.findByUsername("nobody@test.com")).verifyComplete();
+    }
+
+    @Test
+    void formLoginAuthorizesUrlsAndPreAuthorizeReactively() {
+        String student = this.login("student.test@test.com");
+        String trainee = this.login("admin.trainee.test@test.com");
+        String admin = this.login("admin.test@test.com");
+
+        this.webTestClient.get().uri("/api/v1/students/1").cookie("SESSION", student).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.studentName").isEqualTo("Martín");
+        this.webTestClient.get().uri("/api/v1/students/1").exchange()
+                .expectStatus().isFound();
+        this.webTestClient.get().uri("/management/api/v1/students").cookie("SESSION", student).exchange()
+                .expectStatus().isForbidden();
+        this.webTestClient.get().uri("/management/api/v1/students?limit=2").cookie("SESSION", trainee).exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, link -> assertThat(link).contains("after=2&limit=2>; rel=\"next\""))
+                .expectBody().jsonPath("$[1].studentId").isEqualTo(2);
+
+        String body = "{\"studentId\":70,\"studentName\":\"Irene\"}";
+        this.webTestClient.post().uri("/management/api/v1/students").cookie("SESSION", trainee)
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange()
+                .expectStatus().isForbidden();
+        this.webTestClient.post().uri("/management/api/v1/students").cookie("SESSION", admin)
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(body).exchange()
+                .expectStatus().isOk();
+        this.webTestClient.get().uri("/management/api/v1/students?after=69").cookie("SESSION", admin)
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("{\"studentId\":70,\"studentName\":\"Irene\"}\n");
+        this.webTestClient.delete().uri("/management/api/v1/students/70").cookie("SESSION", admin).exchange()
+                .expectStatus().isOk();
+    }
+
+    private String login(String email) {
+        ResponseCookie session = this.webTestClient.post().uri("/login")
+                .body(BodyInserters.fromFormData("username", email).with("password", "test"))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.FOUND)
+                .expectHeader().location("/")
+                .returnResult(Void.class)
+                .getResponseCookies().getFirst("SESSION");
+        assertThat(session).isNotNull();
+        return session.getValue();
+    }
+}
@@ -0,0 +1,145 @@
+package com.magadiflo.app;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga comparativa: arranca la aplicación servlet y después la reactiva en un puerto aleatorio y
+ * lanza contra cada una las mismas peticiones autenticadas (GET /api/v1/students/1 con la sesión de un login
+ * previo) con muchas peticiones en vuelo a la vez. Registra throughput y percentiles de latencia de ambas.
+ * <p>
+ * Es lenta, así que solo se ejecuta si se pide: mvn -Preactive test -Dtest=ServletVsReactiveLoadTest
+ * -Dloadtest=true [-Dloadtest.concurrency=512] [-Dloadtest.requests=50000]
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ServletVsReactiveLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ServletVsReactiveLoadTest.class);
+
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 512);
+    private final int requests = Integer.getInteger("loadtest.requests", 50_000);
+
+    @Test
+    void servletAndReactiveStacksUnderHighConcurrency() {
+        Result servlet = this.run(WebApplicationType.SERVLET, "JSESSIONID");
+        Result reactive = this.run(WebApplicationType.REACTIVE, "SESSION");
+
+        LOG.info("Concurrencia {}, {} peticiones por variante", this.concurrency, this.requests);
+        LOG.info("servlet:  {}", servlet);
+        LOG.info("reactive: {}", reactive);
+        assertThat(servlet.errors).isZero();
+        assertThat(reactive.errors).isZero();
+    }
+
+    private Result run(WebApplicationType type, String sessionCookie) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(SpringSecurityRolesPermissionsApplication.class)
+                .web(type)
+                .properties("logging.level.root=WARN", "logging.level.com.magadiflo.app.ServletVsReactiveLoadTest=INFO",
+                        "server.port=0", "spring.main.banner-mode=off");
+        if (type == WebApplicationType.REACTIVE) {
+            builder.profiles("reactive");
+        }
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(this.concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                    .build();
+            String session = login(client, sessionCookie);
+
+            // Calentamiento: JIT, pools de conexiones y cachés
+            this.load(client, sessionCookie, session, Math.min(this.requests, 5_000));
+            return this.load(client, sessionCookie, session, this.requests);
+        } finally {
+            connections.dispose();
+        }
+    }
+
+    private Result load(WebClient client, String sessionCookie, String session, int count) {
+        long[] latencies = new long[count];
+        AtomicInteger index = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        Flux.range(0, count)
+                .flatMap(i -> Mono.defer(() -> {
+                    long requestStart = System.nanoTime();
+                    return client.get().uri("/api/v1/students/1").cookie(sessionCookie, session)
+                            .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                            .doOnNext(status -> {
+                                if (status != HttpStatus.OK) {
+                                    errors.incrementAndGet();
+                                }
+                            })
+                            .onErrorResume(e -> {
+                                errors.incrementAndGet();
+                                return Mono.empty();
+                            })
+                            .doFinally(signal -> latencies[index.getAndIncrement()] = System.nanoTime() - requestStart);
+                }), this.concurrency)
+                .blockLast(Duration.ofMinutes(10));
+        return new Result(count, System.nanoTime() - start, latencies, errors.get());
+    }
+
+    private static String login(WebClient client, String sessionCookie) {
+        ResponseCookie cookie = client.post().uri("/login")
+                .body(BodyInserters.fromFormData("username", "student.test@test.com").with("password", "test"))
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.cookies()))
+                .map(cookies -> cookies.getFirst(sessionCookie))
+                .block(Duration.ofSeconds(30));
+        assertThat(cookie).as("cookie %s tras el login", sessionCookie).isNotNull();
+        return cookie.getValue();
+    }
+
+    private static final class Result {
+        private final int requests;
+        private final long elapsedNanos;
+        private final long[] latencies;
+        private final long errors;
+
+        private Result(int requests, long elapsedNanos, long[] latencies, long errors) {
+            this.requests = requests;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies.clone();
+            this.errors = errors;
+            Arrays.sort(this.latencies);
+        }
+
+        private double percentileMillis(double percentile) {
+            int position = (int) Math.ceil(percentile * this.latencies.length) - 1;
+            return this.latencies[Math.max(0, position)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms, errores %d",
+                    this.requests * 1_000_000_000.0 / this.elapsedNanos, this.percentileMillis(0.50),
+                    this.percentileMillis(0.99), this.percentileMillis(1.0), this.errors);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.magadiflo.app.auth;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Equivalente reactivo de ApplicationUserService: el usuario y sus roles directos se leen con R2DBC en
+ * una única consulta sobre las tablas users, users_roles y roles, sin bloquear ningún hilo, y los permisos
+ * (propios y heredados) salen de la clausura precalculada de {@link RoleHierarchyClosure}. El resultado es el
+ * mismo {@link ApplicationUser} con un {@link AuthoritySet}.
+ * <p>
+ * La clausura se carga al arrancar; si algún rol aún no está en ella (creado sin evento), su carga consulta
+ * la BD con JPA y por eso se hace en boundedElastic y no en el hilo del event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcUserDetailsService implements ReactiveUserDetailsService {
+
+    private static final String ROLES_BY_EMAIL = "select u.email, u.password, u.enabled, r.name as role_name " +
+            "from users u " +
+            "left join users_roles ur on ur.user_id = u.id " +
+            "left join roles r on r.id = ur.role_id " +
+            "where u.email = :email";
+
+    private final DatabaseClient databaseClient;
+    private final RoleHierarchyClosure roleHierarchyClosure;
+
+    public R2dbcUserDetailsService(DatabaseClient databaseClient, RoleHierarchyClosure roleHierarchyClosure) {
+        this.databaseClient = databaseClient;
+        this.roleHierarchyClosure = roleHierarchyClosure;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return this.databaseClient.sql(ROLES_BY_EMAIL)
+                .bind("email", username)
+                .map((row, metadata) -> new Row(row.get("email", String.class), row.get("password", String.class),
+                        Boolean.TRUE.equals(row.get("enabled", Boolean.class)), row.get("role_name", String.class)))
+                .all()
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .<UserDetails>flatMap(rows -> {
+                    Set<String> roles = new LinkedHashSet<>();
+                    rows.stream().map(row -> row.roleName).filter(Objects::nonNull).forEach(roles::add);
+                    Row user = rows.get(0);
+                    Mono<AuthoritySet> authorities = this.roleHierarchyClosure.isLoaded(roles)
+                            ? Mono.just(this.roleHierarchyClosure.resolve(roles))
+                            : Mono.fromCallable(() -> this.roleHierarchyClosure.resolve(roles)).subscribeOn(Schedulers.boundedElastic());
+                    return authorities.map(resolved -> new ApplicationUser(user.email, user.password, user.enabled, resolved));
+                });
+    }
+
+    private static final class Row {
+        private final String email;
+        private final String password;
+        private final boolean enabled;
+        private final String roleName;
+
+        private Row(String email, String password, boolean enabled, String roleName) {
+            this.email = email;
+            this.password = password;
+            this.enabled = enabled;
+            this.roleName = roleName;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.magadiflo.app.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Con R2DBC en el classpath Spring Boot deja de configurar el DataSource JDBC (DataSourceAutoConfiguration
+ * se desactiva si hay un ConnectionFactory), pero JPA lo sigue necesitando: SetupDataLoader, los listeners de
+ * Hibernate y el almacén jpa de estudiantes no cambian en la variante reactiva. Se declara aquí con las mismas
+ * propiedades spring.datasource.* que usaría la autoconfiguración.
+ * <p>
+ * Por lo mismo hay dos gestores de transacciones (JPA y R2DBC); el de JPA es el principal, así que los
+ * {@code @Transactional} existentes siguen usándolo.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class JdbcDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+}
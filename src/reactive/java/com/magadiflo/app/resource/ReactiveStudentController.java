@@ -0,0 +1,30 @@
+package com.magadiflo.app.resource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Equivalente WebFlux de StudentController.
+ */
+@RestController
+@RequestMapping("/api/v1/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentController {
+
+    private final ReactiveStudentStore studentStore;
+
+    public ReactiveStudentController(ReactiveStudentStore studentStore) {
+        this.studentStore = studentStore;
+    }
+
+    @GetMapping(path = "/{studentId}")
+    public Mono<Student> getStudent(@PathVariable Integer studentId) {
+        return this.studentStore.findById(studentId)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Student ".concat(studentId.toString()).concat(" does not exists"))));
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.magadiflo.app.resource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Equivalente WebFlux de StudentManagamentController, con las mismas reglas de @PreAuthorize (evaluadas
+ * de forma reactiva: los métodos devuelven Mono/Flux). El listado se escribe a medida que se lee del
+ * almacén, como array JSON o, con Accept: application/x-ndjson, un estudiante por línea.
+ */
+@RestController
+@RequestMapping("/management/api/v1/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentManagamentController {
+
+    private static final int MAX_PAGE_SIZE = 1_000;
+
+    private final ReactiveStudentStore studentStore;
+
+    public ReactiveStudentManagamentController(ReactiveStudentStore studentStore) {
+        this.studentStore = studentStore;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_ADMINTRAINEE')")
+    public Flux<Student> getAllStudents(@RequestParam(name = "after", required = false, defaultValue = "-1") int after,
+                                        @RequestParam(name = "limit", required = false) Integer limit,
+                                        ServerHttpRequest request, ServerHttpResponse response) {
+        if (limit == null) {
+            return this.studentStore.findAllAfter(after);
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return this.studentStore.findPage(after, pageSize + 1)
+                .flatMapIterable(page -> {
+                    if (page.size() <= pageSize) {
+                        return page;
+                    }
+                    String next = UriComponentsBuilder.fromHttpRequest(request)
+                            .replaceQueryParam("after", page.get(pageSize - 1).getStudentId())
+                            .replaceQueryParam("limit", pageSize)
+                            .toUriString();
+                    response.getHeaders().set(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                    return page.subList(0, pageSize);
+                });
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAuthority('student:write')")
+    public Mono<Void> registerNewStudent(@RequestBody Student student) {
+        return this.studentStore.save(student).then();
+    }
+
+    @DeleteMapping(path = "/{studentId}")
+    @PreAuthorize("hasAuthority('student:write')")
+    public Mono<Void> deleteStudent(@PathVariable Integer studentId) {
+        return this.studentStore.deleteById(studentId)
+                .flatMap(deleted -> deleted ? Mono.<Void>empty() : Mono.error(notFound(studentId)));
+    }
+
+    @PutMapping(path = "/{studentId}")
+    @PreAuthorize("hasAuthority('student:write')")
+    public Mono<Void> updateStudent(@PathVariable Integer studentId, @RequestBody Student student) {
+        // El id de la ruta manda sobre el del cuerpo
+        return this.studentStore.existsById(studentId)
+                .flatMap(exists -> exists
+                        ? this.studentStore.save(new Student(studentId, student.getStudentName())).then()
+                        : Mono.error(notFound(studentId)));
+    }
+
+    private static IllegalStateException notFound(Integer studentId) {
+        return new IllegalStateException("Student ".concat(studentId.toString()).concat(" does not exists"));
+    }
+
+}
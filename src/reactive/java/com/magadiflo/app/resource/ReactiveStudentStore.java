@@ -0,0 +1,68 @@
+package com.magadiflo.app.resource;
+
+import com.magadiflo.app.repository.IStudentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * IStudentRepository visto desde los controladores reactivos. El almacén en memoria nunca bloquea y se llama
+ * en el propio hilo del event loop; el almacén jpa sí (JDBC), así que con app.students.store=jpa cada llamada
+ * se ejecuta en Schedulers.boundedElastic() para no detener el event loop.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentStore {
+
+    private final IStudentRepository studentRepository;
+    private final boolean blocking;
+
+    public ReactiveStudentStore(IStudentRepository studentRepository,
+                                @Value("${app.students.store:memory}") String store) {
+        this.studentRepository = studentRepository;
+        this.blocking = !"memory".equals(store);
+    }
+
+    public Mono<Student> findById(int studentId) {
+        return this.call(() -> this.studentRepository.findById(studentId).orElse(null));
+    }
+
+    public Mono<List<Student>> findPage(int afterId, int limit) {
+        return this.call(() -> this.studentRepository.findPage(afterId, limit));
+    }
+
+    /**
+     * Todos los estudiantes con studentId mayor que afterId, pedidos al almacén por bloques de
+     * StudentStreamWriter.CHUNK_SIZE a medida que el cliente los consume.
+     */
+    public Flux<Student> findAllAfter(int afterId) {
+        return this.findPage(afterId, StudentStreamWriter.CHUNK_SIZE)
+                .expand(chunk -> chunk.size() < StudentStreamWriter.CHUNK_SIZE
+                        ? Mono.empty()
+                        : this.findPage(chunk.get(chunk.size() - 1).getStudentId(), StudentStreamWriter.CHUNK_SIZE))
+                .flatMapIterable(chunk -> chunk);
+    }
+
+    public Mono<Boolean> existsById(int studentId) {
+        return this.call(() -> this.studentRepository.existsById(studentId));
+    }
+
+    public Mono<Student> save(Student student) {
+        return this.call(() -> this.studentRepository.save(student));
+    }
+
+    public Mono<Boolean> deleteById(int studentId) {
+        return this.call(() -> this.studentRepository.deleteById(studentId));
+    }
+
+    private <T> Mono<T> call(Callable<T> operation) {
+        Mono<T> mono = Mono.fromCallable(operation);
+        return this.blocking ? mono.subscribeOn(Schedulers.boundedElastic()) : mono;
+    }
+}
@@ -0,0 +1,34 @@
+package com.magadiflo.app.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+/**
+ * Seguridad de la variante reactiva (spring.main.web-application-type=reactive). Reproduce la de
+ * ApplicationSecurityConfig: las mismas URL_RULES resueltas con el mismo árbol, formLogin sin CSRF y
+ * @PreAuthorize en los métodos que devuelven Mono/Flux. La autenticación usa R2dbcUserDetailsService
+ * y el PasswordEncoder de PasswordConfig, que Spring Security recoge del contexto.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf().disable()
+                .authorizeExchange()
+                .anyExchange().access(new UrlTrieReactiveAuthorizationManager(ApplicationSecurityConfig.URL_RULES))
+                .and()
+                .formLogin()
+                .and()
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.magadiflo.app.security;
+
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Versión WebFlux de {@link UrlTrieAuthorizationManager}: las mismas reglas y el mismo árbol. Un usuario
+ * anónimo llega como un Mono vacío, así que solo pasa por las reglas permitAll.
+ */
+public class UrlTrieReactiveAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private final UrlAuthorizationTrie trie;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    public UrlTrieReactiveAuthorizationManager(List<UrlAuthorizationRule> rules) {
+        this.trie = new UrlAuthorizationTrie(rules);
+    }
+
+    @Override
+    public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+        UrlAuthorizationRule rule = this.trie.match(context.getExchange().getRequest().getPath().pathWithinApplication().value());
+        if (rule == null) {
+            return Mono.just(DENIED);
+        }
+        if (rule.getAccess() == UrlAuthorizationRule.Access.PERMIT_ALL) {
+            return Mono.just(GRANTED);
+        }
+        return authentication
+                .map(value -> rule.isGranted(value, this.trustResolver) ? GRANTED : DENIED)
+                .defaultIfEmpty(DENIED);
+    }
+}
@@ -0,0 +1,104 @@
+package com.magadiflo.app.audit;
+
+import com.magadiflo.app.auth.ApplicationUserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"app.audit.enabled=true", "app.audit.poll-interval=1ms"})
+@AutoConfigureMockMvc
+class AuditLogTests {
+
+    @TempDir
+    static Path auditDir;
+
+    @DynamicPropertySource
+    static void auditPath(DynamicPropertyRegistry registry) {
+        registry.add("app.audit.path", () -> auditDir.resolve("audit.log").toString());
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Test
+    void loginOutcomesAreAudited() throws Exception {
+        this.mockMvc.perform(post("/login").param("username", "student.test@test.com").param("password", "test"));
+        this.mockMvc.perform(post("/login").param("username", "student.test@test.com").param("password", "wrong"));
+
+        this.awaitLine("\"type\":\"AUTHENTICATION_SUCCESS\",\"principal\":\"student.test@test.com\",\"action\":\"login\",\"outcome\":\"success\"");
+        this.awaitLine("\"type\":\"AUTHENTICATION_FAILURE\",\"principal\":\"student.test@test.com\",\"action\":\"login\",\"outcome\":\"BadCredentialsException\"");
+    }
+
+    @Test
+    void deniedRequestsAreAuditedByUrlAndByMethod() throws Exception {
+        this.mockMvc.perform(get("/actuator/metrics").with(this.as("student.test@test.com")))
+                .andExpect(status().isForbidden());
+        this.mockMvc.perform(post("/management/api/v1/students").with(this.as("admin.trainee.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\":70,\"studentName\":\"Rosa\"}"))
+                .andExpect(status().isForbidden());
+
+        this.awaitLine("\"type\":\"ACCESS_DENIED\",\"principal\":\"student.test@test.com\",\"action\":\"GET /actuator/metrics\",\"outcome\":\"denied\",\"remoteAddress\":\"127.0.0.1\"");
+        this.awaitLine("\"type\":\"ACCESS_DENIED\",\"principal\":\"admin.trainee.test@test.com\",\"action\":\"StudentManagamentController.registerNewStudent\",\"outcome\":\"AccessDeniedException\",\"remoteAddress\":\"127.0.0.1\"");
+    }
+
+    @Test
+    void managementOperationsAreAuditedWithTheirOutcome() throws Exception {
+        this.mockMvc.perform(post("/management/api/v1/students").with(this.as("admin.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\":71,\"studentName\":\"Iván\"}"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(delete("/management/api/v1/students/71").with(this.as("admin.test@test.com")))
+                .andExpect(status().isOk());
+
+        this.awaitLine("\"type\":\"MANAGEMENT_OPERATION\",\"principal\":\"admin.test@test.com\",\"action\":\"registerNewStudent 71\",\"outcome\":\"success\",\"remoteAddress\":\"127.0.0.1\"");
+        this.awaitLine("\"action\":\"deleteStudent 71\",\"outcome\":\"success\"");
+        assertThat(this.meterRegistry.get("audit.events.written").counter().count()).isPositive();
+        assertThat(this.auditLog.dropped()).isZero();
+    }
+
+    private void awaitLine(String fragment) throws Exception {
+        Path path = auditDir.resolve("audit.log");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<String> lines = List.of();
+        while (System.nanoTime() < deadline) {
+            lines = Files.readAllLines(path);
+            if (lines.stream().anyMatch(line -> line.contains(fragment))) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertThat(lines).as("líneas del log de auditoría").anyMatch(line -> line.contains(fragment));
+    }
+
+    private RequestPostProcessor as(String username) {
+        return user(this.applicationUserService.loadUserByUsername(username));
+    }
+}
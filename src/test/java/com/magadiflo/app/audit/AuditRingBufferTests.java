@@ -0,0 +1,141 @@
+package com.magadiflo.app.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AuditRingBufferTests {
+
+    @Test
+    void rejectsCapacitiesThatAreNotPowersOfTwo() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new AuditRingBuffer(1000));
+        assertThat(new AuditRingBuffer(1024).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void refusesToClaimWhenFullUntilTheConsumerFreesSlots() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            long sequence = buffer.tryClaim();
+            buffer.slot(sequence).set(i, AuditEventType.MANAGEMENT_OPERATION, "ana", "op" + i, "success", null);
+            buffer.publish(sequence);
+        }
+        assertThat(buffer.tryClaim()).isEqualTo(-1L);
+
+        List<String> actions = new ArrayList<>();
+        assertThat(buffer.drain(event -> actions.add(event.getAction()), 2)).isEqualTo(2);
+        assertThat(actions).containsExactly("op0", "op1");
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(buffer.tryClaim()).isEqualTo(4L);
+    }
+
+    @Test
+    void theConsumerStopsAtTheFirstUnpublishedSlot() {
+        AuditRingBuffer buffer = new AuditRingBuffer(8);
+        long first = buffer.tryClaim();
+        long second = buffer.tryClaim();
+        buffer.slot(second).set(1, AuditEventType.ACCESS_DENIED, "luis", "b", "denied", null);
+        buffer.publish(second);
+
+        assertThat(buffer.drain(event -> { }, 8)).as("first aún no se ha publicado").isZero();
+
+        buffer.slot(first).set(0, AuditEventType.ACCESS_DENIED, "ana", "a", "denied", null);
+        buffer.publish(first);
+        List<String> principals = new ArrayList<>();
+        assertThat(buffer.drain(event -> principals.add(event.getPrincipal()), 8)).isEqualTo(2);
+        assertThat(principals).containsExactly("ana", "luis");
+    }
+
+    @Test
+    void concurrentProducersKeepTheirOwnOrderAndLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(256);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        try {
+            for (int p = 0; p < producers; p++) {
+                String principal = "p" + p;
+                executor.execute(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        long sequence;
+                        while ((sequence = buffer.tryClaim()) < 0) {
+                            Thread.onSpinWait();
+                        }
+                        buffer.slot(sequence).set(i, AuditEventType.MANAGEMENT_OPERATION, principal, null, null, null);
+                        buffer.publish(sequence);
+                    }
+                    done.countDown();
+                });
+            }
+            long[] lastByProducer = new long[producers];
+            Arrays.fill(lastByProducer, -1L);
+            int[] received = {0};
+            boolean[] ordered = {true};
+            while (received[0] < producers * perProducer) {
+                int drained = buffer.drain(event -> {
+                    int producer = event.getPrincipal().charAt(1) - '0';
+                    ordered[0] &= event.getTimestamp() == lastByProducer[producer] + 1;
+                    lastByProducer[producer] = event.getTimestamp();
+                    received[0]++;
+                }, 64);
+                if (drained == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(ordered[0]).as("cada productor ve sus eventos en orden").isTrue();
+            assertThat(lastByProducer).containsOnly(perProducer - 1L);
+            assertThat(buffer.size()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void theMappedFileKeepsAppendingAfterReopeningAndIsTruncatedOnClose(@TempDir Path dir) throws Exception {
+        Path path = dir.resolve("audit.log");
+        try (AuditFile file = AuditFile.open(path, true, 16)) {
+            file.append(ByteBuffer.wrap("0123456789\n".getBytes(StandardCharsets.UTF_8)));
+            file.append(ByteBuffer.wrap("abcdefghij\n".getBytes(StandardCharsets.UTF_8)));
+        }
+        try (AuditFile file = AuditFile.open(path, true, 16)) {
+            file.append(ByteBuffer.wrap("klm\n".getBytes(StandardCharsets.UTF_8)));
+        }
+        assertThat(Files.readString(path)).isEqualTo("0123456789\nabcdefghij\nklm\n");
+    }
+
+    @Test
+    void theLogStopsAfterTheWebServerAndCountsWhatArrivesLater(@TempDir Path dir) throws Exception {
+        AuditProperties properties = new AuditProperties();
+        properties.setPath(dir.resolve("audit.log").toString());
+        AuditLog log = new AuditLog(properties, new SimpleMeterRegistry());
+        // El servidor web se para en la fase SMART_LIFECYCLE_PHASE - 1 y las fases altas se paran antes
+        assertThat(log.getPhase()).isLessThan(WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1);
+
+        log.start();
+        log.record(AuditEventType.AUTHENTICATION_SUCCESS, "a", null, null, null);
+        log.stop();
+        log.record(AuditEventType.AUTHENTICATION_SUCCESS, "b", null, null, null);
+
+        assertThat(log.written()).isEqualTo(1);
+        assertThat(log.dropped()).isEqualTo(1);
+        assertThat(Files.readAllLines(dir.resolve("audit.log"))).hasSize(1);
+    }
+}
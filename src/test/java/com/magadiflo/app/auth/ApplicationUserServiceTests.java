@@ -0,0 +1,135 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.domain.Role;
+import com.magadiflo.app.domain.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ApplicationUserService.class, UserDetailsCache.class, RoleHierarchyClosure.class})
+class ApplicationUserServiceTests {
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Autowired
+    private RoleHierarchyClosure roleHierarchyClosure;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void statementCountPerLoginDoesNotDependOnTheNumberOfRoles() {
+        long withOneRole = this.statementsToLoad(this.persistUser("one.role@test.com", "ROLE_ONE_", 1, 4));
+        long withManyRoles = this.statementsToLoad(this.persistUser("many.roles@test.com", "ROLE_MANY_", 20, 4));
+
+        assertThat(withOneRole).isEqualTo(1);
+        assertThat(withManyRoles).isEqualTo(withOneRole);
+    }
+
+    @Test
+    void authoritiesContainRoleAndPermissionNamesWithoutDuplicates() {
+        this.persistUser("authorities@test.com", "ROLE_", 3, 2);
+
+        UserDetails user = this.applicationUserService.loadUserByUsername("authorities@test.com");
+
+        // 3 roles + 2 permisos compartidos por los 3 roles
+        assertThat(user.getAuthorities()).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_0", "ROLE_1", "ROLE_2", "perm:0", "perm:1");
+    }
+
+    @Test
+    void inheritsThePermissionsOfAncestorRolesButNotTheirNames() {
+        Role parent = this.persistRole("ROLE_PARENT", null, "perm:parent");
+        Role child = this.persistRole("ROLE_CHILD", parent, "perm:child");
+        Role grandchild = this.persistRole("ROLE_GRANDCHILD", child, "perm:parent");
+        String email = this.persistUser("hierarchy@test.com", grandchild);
+
+        assertThat(this.statementsToLoad(email)).isEqualTo(1);
+        assertThat(this.applicationUserService.loadUserByUsername(email).getAuthorities()).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_GRANDCHILD", "perm:parent", "perm:child");
+    }
+
+    private long statementsToLoad(String email) {
+        this.entityManager.flush();
+        this.entityManager.clear();
+        // La clausura de la jerarquía se calcula fuera del login (al arrancar o cuando cambia un rol)
+        this.roleHierarchyClosure.load();
+        this.statistics.clear();
+        this.applicationUserService.loadUserByUsername(email);
+        return this.statistics.getPrepareStatementCount();
+    }
+
+    private String persistUser(String email, String rolePrefix, int roles, int permissionsPerRole) {
+        List<Permission> permissions = new ArrayList<>();
+        for (int i = 0; i < permissionsPerRole; i++) {
+            permissions.add(this.findOrCreatePermission("perm:" + i));
+        }
+        List<Role> userRoles = new ArrayList<>();
+        for (int i = 0; i < roles; i++) {
+            Role role = new Role(rolePrefix + i);
+            role.setPermissions(new ArrayList<>(permissions));
+            userRoles.add(this.entityManager.persist(role));
+        }
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("Test");
+        user.setEmail(email);
+        user.setPassword("{noop}test");
+        user.setEnabled(true);
+        user.setRoles(userRoles);
+        this.entityManager.persist(user);
+        return email;
+    }
+
+    private Role persistRole(String name, Role parent, String permission) {
+        Role role = new Role(name);
+        role.setParent(parent);
+        role.setPermissions(new ArrayList<>(List.of(this.findOrCreatePermission(permission))));
+        return this.entityManager.persist(role);
+    }
+
+    private String persistUser(String email, Role role) {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("Test");
+        user.setEmail(email);
+        user.setPassword("{noop}test");
+        user.setEnabled(true);
+        user.setRoles(new ArrayList<>(List.of(role)));
+        this.entityManager.persist(user);
+        return email;
+    }
+
+    private Permission findOrCreatePermission(String name) {
+        List<Permission> found = this.entityManager.getEntityManager()
+                .createQuery("select p from Permission p where p.name = :name", Permission.class)
+                .setParameter("name", name)
+                .getResultList();
+        return found.isEmpty() ? this.entityManager.persist(new Permission(name)) : found.get(0);
+    }
+}
@@ -0,0 +1,72 @@
+package com.magadiflo.app.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthoritySetTests {
+
+    private final AuthorityRegistry registry = new AuthorityRegistry();
+
+    @Test
+    void membershipIsResolvedThroughTheRegistry() {
+        AuthoritySet authorities = AuthoritySet.of(this.registry, Arrays.asList("ROLE_ADMIN", "student:write"));
+
+        assertThat(authorities.contains("ROLE_ADMIN")).isTrue();
+        assertThat(authorities.contains("student:write")).isTrue();
+        assertThat(authorities.contains("student:read")).isFalse();
+        assertThat(authorities.contains("never-registered")).isFalse();
+        assertThat(authorities).hasSize(2).extracting("authority").containsExactly("ROLE_ADMIN", "student:write");
+    }
+
+    @Test
+    void sharesOneGrantedAuthorityInstancePerName() {
+        AuthoritySet first = AuthoritySet.of(this.registry, Arrays.asList("student:read"));
+        AuthoritySet second = AuthoritySet.of(this.registry, Arrays.asList("student:read", "course:read"));
+
+        assertThat(first.iterator().next()).isSameAs(second.iterator().next());
+    }
+
+    @Test
+    void unionMergesBothSets() {
+        for (int i = 0; i < 200; i++) {
+            this.registry.intern("perm:" + i);
+        }
+        AuthoritySet low = AuthoritySet.of(this.registry, Arrays.asList("perm:1"));
+        AuthoritySet high = AuthoritySet.of(this.registry, Arrays.asList("perm:150", "perm:199"));
+
+        AuthoritySet union = low.union(high);
+
+        assertThat(union).extracting("authority").containsExactly("perm:1", "perm:150", "perm:199");
+        assertThat(union.ids()).containsExactly(this.registry.idOf("perm:1"), this.registry.idOf("perm:150"),
+                this.registry.idOf("perm:199"));
+    }
+
+    @Test
+    void convertsForeignAuthorityCollections() {
+        AuthoritySet authorities = AuthoritySet.from(AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        assertThat(authorities.contains("ROLE_ANONYMOUS")).isTrue();
+        assertThat(AuthoritySet.from(authorities)).isSameAs(authorities);
+    }
+
+    @Test
+    void serializesByName() throws Exception {
+        AuthoritySet authorities = AuthoritySet.of(Arrays.asList("ROLE_STUDENT", "student:read"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(authorities);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertThat(in.readObject()).isEqualTo(authorities);
+        }
+    }
+}
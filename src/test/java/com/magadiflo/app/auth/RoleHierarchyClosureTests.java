@@ -0,0 +1,123 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.domain.Role;
+import com.magadiflo.app.repository.IPermissionRepository;
+import com.magadiflo.app.repository.IRoleRepository;
+import com.magadiflo.app.repository.RolePermissionView;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RoleHierarchyClosureTests {
+
+    private static final String ADMIN = "admin.test@test.com";
+    private static final String ADMIN_TRAINEE = "admin.trainee.test@test.com";
+
+    @Autowired
+    private RoleHierarchyClosure roleHierarchyClosure;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Autowired
+    private IRoleRepository roleRepository;
+
+    @Autowired
+    private IPermissionRepository permissionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void seededRolesInheritThePermissionsOfTheirAncestors() {
+        assertThat(this.roleHierarchyClosure.permissionsOf("ROLE_STUDENT")).extracting("authority")
+                .containsExactlyInAnyOrder("student:read");
+        assertThat(this.roleHierarchyClosure.permissionsOf("ROLE_ADMINTRAINEE")).extracting("authority")
+                .containsExactlyInAnyOrder("student:read", "course:read");
+        assertThat(this.roleHierarchyClosure.permissionsOf("ROLE_ADMIN")).extracting("authority")
+                .containsExactlyInAnyOrder("student:read", "student:write", "course:read", "course:write");
+        assertThat(this.roleHierarchyClosure.descendantsOf(Set.of("ROLE_STUDENT")))
+                .containsExactlyInAnyOrder("ROLE_ADMINTRAINEE", "ROLE_ADMIN");
+    }
+
+    @Test
+    void aChangeInAParentRoleReachesDescendantsAndTheirCachedUsers() {
+        this.userDetailsCache.putUserInCache(this.applicationUserService.loadUserByUsername(ADMIN));
+        this.userDetailsCache.putUserInCache(this.applicationUserService.loadUserByUsername(ADMIN_TRAINEE));
+        this.transactionTemplate.executeWithoutResult(status -> {
+            Permission report = this.permissionRepository.save(new Permission("report:read"));
+            this.roleRepository.findByName("ROLE_STUDENT").getPermissions().add(report);
+        });
+
+        try {
+            assertThat(this.roleHierarchyClosure.permissionsOf("ROLE_ADMIN").contains("report:read")).isTrue();
+            assertThat(this.userDetailsCache.getUserFromCache(ADMIN)).isNull();
+            assertThat(this.userDetailsCache.getUserFromCache(ADMIN_TRAINEE)).isNull();
+            assertThat(this.applicationUserService.loadUserByUsername(ADMIN).getAuthorities()).extracting("authority")
+                    .contains("report:read").doesNotContain("ROLE_STUDENT");
+        } finally {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.roleRepository.findByName("ROLE_STUDENT").getPermissions()
+                        .removeIf(permission -> permission.getName().equals("report:read"));
+                this.permissionRepository.delete(this.permissionRepository.findByName("report:read"));
+            });
+        }
+        assertThat(this.roleHierarchyClosure.permissionsOf("ROLE_ADMIN").contains("report:read")).isFalse();
+    }
+
+    @Test
+    void reparentingARoleRecomputesItsSubtree() {
+        this.transactionTemplate.executeWithoutResult(status ->
+                this.roleRepository.findByName("ROLE_ADMIN").setParent(null));
+
+        try {
+            assertThat(this.roleHierarchyClosure.permissionsOf("ROLE_ADMIN")).extracting("authority")
+                    .containsExactlyInAnyOrder("student:write", "course:write");
+            assertThat(this.roleHierarchyClosure.descendantsOf(Set.of("ROLE_STUDENT"))).containsExactly("ROLE_ADMINTRAINEE");
+        } finally {
+            this.transactionTemplate.executeWithoutResult(status ->
+                    this.roleRepository.findByName("ROLE_ADMIN").setParent(this.roleRepository.findByName("ROLE_ADMINTRAINEE")));
+        }
+        assertThat(this.roleHierarchyClosure.permissionsOf("ROLE_ADMIN")).hasSize(4);
+    }
+
+    @Test
+    void aCycleInTheHierarchyIsCutInsteadOfLoopingForever() {
+        RoleHierarchyClosure closure = new RoleHierarchyClosure(null, null);
+        closure.replaceAll(List.of(row("ROLE_A", "ROLE_B", "perm:a"), row("ROLE_B", "ROLE_A", "perm:b")));
+
+        assertThat(closure.resolve(Set.of("ROLE_A"))).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_A", "perm:a", "perm:b");
+        assertThat(closure.descendantsOf(Set.of("ROLE_A"))).containsExactly("ROLE_B");
+    }
+
+    private static RolePermissionView row(String roleName, String parentName, String permissionName) {
+        return new RolePermissionView() {
+            @Override
+            public String getRoleName() {
+                return roleName;
+            }
+
+            @Override
+            public String getParentName() {
+                return parentName;
+            }
+
+            @Override
+            public String getPermissionName() {
+                return permissionName;
+            }
+        };
+    }
+}
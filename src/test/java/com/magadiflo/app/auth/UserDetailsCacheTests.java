@@ -0,0 +1,104 @@
+package com.magadiflo.app.auth;
+
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.domain.Role;
+import com.magadiflo.app.domain.User;
+import com.magadiflo.app.repository.IPermissionRepository;
+import com.magadiflo.app.repository.IRoleRepository;
+import com.magadiflo.app.repository.IUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class UserDetailsCacheTests {
+
+    private static final String ADMIN = "admin.test@test.com";
+    private static final String ADMIN_TRAINEE = "admin.trainee.test@test.com";
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private IRoleRepository roleRepository;
+
+    @Autowired
+    private IPermissionRepository permissionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void fillCache() {
+        this.userDetailsCache.clear();
+        this.userDetailsCache.putUserInCache(this.applicationUserService.loadUserByUsername(ADMIN));
+        this.userDetailsCache.putUserInCache(this.applicationUserService.loadUserByUsername(ADMIN_TRAINEE));
+    }
+
+    @Test
+    void returnsACopyThatSurvivesCredentialErasure() {
+        UserDetails cached = this.userDetailsCache.getUserFromCache(ADMIN);
+        ((CredentialsContainer) cached).eraseCredentials();
+
+        assertThat(this.userDetailsCache.getUserFromCache(ADMIN).getPassword()).isNotNull();
+        assertThat(this.userDetailsCache.stats().hitCount()).isPositive();
+    }
+
+    @Test
+    void evictsOnlyTheUserThatChanged() {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            User user = this.userRepository.findByEmail(ADMIN);
+            user.setFirstName("Admin Test Modificado");
+        });
+
+        assertThat(this.userDetailsCache.getUserFromCache(ADMIN)).isNull();
+        assertThat(this.userDetailsCache.getUserFromCache(ADMIN_TRAINEE)).isNotNull();
+    }
+
+    @Test
+    void aUserLoadedBeforeAnInvalidationIsNotCachedAfterIt() {
+        this.userDetailsCache.clear();
+        UserDetails loaded = this.applicationUserService.loadUserByUsername(ADMIN);
+        this.transactionTemplate.executeWithoutResult(status -> {
+            User user = this.userRepository.findByEmail(ADMIN);
+            user.setFirstName(user.getFirstName() + "*");
+        });
+
+        this.userDetailsCache.putUserInCache(loaded);
+        assertThat(this.userDetailsCache.getUserFromCache(ADMIN)).isNull();
+
+        this.userDetailsCache.putUserInCache(this.applicationUserService.loadUserByUsername(ADMIN));
+        assertThat(this.userDetailsCache.getUserFromCache(ADMIN)).isNotNull();
+    }
+
+    @Test
+    void evictsUsersHoldingARoleWhosePermissionsChanged() {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            Role role = this.roleRepository.findByName("ROLE_ADMIN");
+            role.getPermissions().removeIf(permission -> permission.getName().equals("course:write"));
+        });
+
+        try {
+            assertThat(this.userDetailsCache.getUserFromCache(ADMIN)).isNull();
+            assertThat(this.userDetailsCache.getUserFromCache(ADMIN_TRAINEE)).isNotNull();
+        } finally {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                Permission courseWrite = this.permissionRepository.findByName("course:write");
+                this.roleRepository.findByName("ROLE_ADMIN").getPermissions().add(courseWrite);
+            });
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.domain.User;
+import com.magadiflo.app.repository.IPermissionRepository;
+import com.magadiflo.app.repository.IRoleRepository;
+import com.magadiflo.app.repository.IStudentRepository;
+import com.magadiflo.app.repository.IUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthorityRefreshTests {
+
+    private static final String ADMIN_TRAINEE = "admin.trainee.test@test.com";
+    private static final String STUDENT = "student.test@test.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IRoleRepository roleRepository;
+
+    @Autowired
+    private IPermissionRepository permissionRepository;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private IStudentRepository studentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void grantingAPermissionReachesAnOpenSessionWithoutLoggingInAgain() throws Exception {
+        MockHttpSession session = this.login(ADMIN_TRAINEE);
+        this.mockMvc.perform(this.createStudent(62).session(session)).andExpect(status().isForbidden());
+
+        this.setStudentWrite("ROLE_ADMINTRAINEE", true);
+        try {
+            this.mockMvc.perform(this.createStudent(62).session(session)).andExpect(status().isOk());
+            assertThat(this.studentRepository.findById(62)).isPresent();
+        } finally {
+            this.setStudentWrite("ROLE_ADMINTRAINEE", false);
+            this.studentRepository.deleteById(62);
+        }
+        this.mockMvc.perform(this.createStudent(63).session(session)).andExpect(status().isForbidden());
+        assertThat(this.meterRegistry.get("security.authority.refresh").tag("result", "refreshed").counter().count())
+                .isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void disablingAUserEndsTheirOpenSession() throws Exception {
+        MockHttpSession session = this.login(STUDENT);
+        this.mockMvc.perform(get("/api/v1/students/1").session(session)).andExpect(status().isOk());
+
+        this.setEnabled(STUDENT, false);
+        try {
+            this.mockMvc.perform(get("/api/v1/students/1").session(session)).andExpect(status().is3xxRedirection());
+        } finally {
+            this.setEnabled(STUDENT, true);
+        }
+    }
+
+    private MockHttpSession login(String email) throws Exception {
+        return (MockHttpSession) this.mockMvc.perform(formLogin().user(email).password("test"))
+                .andExpect(status().is3xxRedirection())
+                .andReturn().getRequest().getSession(false);
+    }
+
+    private MockHttpServletRequestBuilder createStudent(int id) {
+        return post("/management/api/v1/students").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"studentId\":" + id + ",\"studentName\":\"Irene\"}");
+    }
+
+    private void setStudentWrite(String roleName, boolean granted) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            Permission studentWrite = this.permissionRepository.findByName("student:write");
+            if (granted) {
+                this.roleRepository.findByName(roleName).getPermissions().add(studentWrite);
+            } else {
+                this.roleRepository.findByName(roleName).getPermissions().remove(studentWrite);
+            }
+        });
+    }
+
+    private void setEnabled(String email, boolean enabled) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            User user = this.userRepository.findByEmail(email);
+            user.setEnabled(enabled);
+        });
+    }
+}
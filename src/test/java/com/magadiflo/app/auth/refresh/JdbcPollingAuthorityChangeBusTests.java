@@ -0,0 +1,75 @@
+package com.magadiflo.app.auth.refresh;
+
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dos nodos simulados con dos buses sobre la misma BD. El sondeo automático se deja en 1h y se llama a poll() a mano.
+ */
+@SpringBootTest
+class JdbcPollingAuthorityChangeBusTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcPollingAuthorityChangeBus nodeA;
+    private JdbcPollingAuthorityChangeBus nodeB;
+    private final List<AuthorityChange> receivedByA = new CopyOnWriteArrayList<>();
+    private final List<AuthorityChange> receivedByB = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startNodes() {
+        this.nodeA = this.node(this.receivedByA);
+        this.nodeB = this.node(this.receivedByB);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        this.nodeA.stop();
+        this.nodeB.stop();
+    }
+
+    @Test
+    void everyNodeReceivesTheSameVersionsAndKnowsWhichChangesAreItsOwn() {
+        this.nodeA.publish(AuthorityDataChangedEvent.Kind.ROLE, Set.of("ROLE_ADMINTRAINEE"));
+        this.nodeA.publish(AuthorityDataChangedEvent.Kind.USER, Set.of("student.test@test.com"));
+        this.nodeB.poll();
+        this.nodeA.poll();
+
+        assertThat(this.receivedByB).extracting(AuthorityChange::getKind)
+                .containsExactly(AuthorityDataChangedEvent.Kind.ROLE, AuthorityDataChangedEvent.Kind.USER);
+        assertThat(this.receivedByB).noneMatch(AuthorityChange::isLocal);
+        assertThat(this.receivedByA).allMatch(AuthorityChange::isLocal);
+        assertThat(this.receivedByA).extracting(AuthorityChange::getVersion)
+                .containsExactlyElementsOf(this.receivedByB.stream().map(AuthorityChange::getVersion)::iterator);
+        assertThat(this.receivedByB.get(0).getVersion()).isLessThan(this.receivedByB.get(1).getVersion());
+
+        this.nodeB.poll();
+        assertThat(this.receivedByB).hasSize(2);
+    }
+
+    private JdbcPollingAuthorityChangeBus node(List<AuthorityChange> received) {
+        JdbcPollingAuthorityChangeBus bus = new JdbcPollingAuthorityChangeBus(this.dataSource, this.transactionManager,
+                Duration.ofHours(1), Duration.ofSeconds(5), Duration.ofHours(1), Clock.systemUTC());
+        bus.subscribe(received::add);
+        bus.start();
+        return bus;
+    }
+}
@@ -0,0 +1,302 @@
+package com.magadiflo.app.loadtest;
+
+import com.magadiflo.app.SpringSecurityRolesPermissionsApplication;
+import com.magadiflo.app.setup.SeedManifest;
+import com.magadiflo.app.setup.SetupDataLoader;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca la aplicación en un puerto aleatorio sobre la BD H2 embebida,
+ * siembra N usuarios con SetupDataLoader (cada uno con su hash BCrypt, como los reales) y lanza tantos hilos
+ * cliente como se indique. Cada hilo repite: login por formulario con un usuario al azar y, con esa sesión,
+ * varias llamadas que alternan GET /api/v1/students/{id} y GET /management/api/v1/students.
+ * <p>
+ * Por endpoint informa de throughput (peticiones correctas por segundo), percentiles de latencia (HdrHistogram,
+ * con precisión de 3 dígitos) y tasa de error. Es un modelo cerrado (cada hilo espera su respuesta antes de enviar
+ * la siguiente), así que las latencias no incluyen el tiempo que una petición habría esperado para salir con el
+ * servidor saturado.
+ * <p>
+ * Modo umbral: si se indica algún loadtest.threshold.* la prueba falla cuando algún endpoint no lo cumple, lo
+ * que permite usarla como puerta de una release. Cada umbral se puede dar para todos los endpoints o para uno
+ * (login, student, management), que tiene prioridad: p99 y p999 en ms (máximo), error-rate entre 0 y 1 (máximo)
+ * y throughput en peticiones correctas/s (mínimo). Por ejemplo -Dloadtest.threshold.p99=250
+ * -Dloadtest.threshold.error-rate=0 -Dloadtest.threshold.login.p99=1500 -Dloadtest.threshold.student.throughput=500
+ * <p>
+ * Solo se ejecuta si se pide: mvn test -Dtest=EndToEndLoadTest -Dloadtest=true [-Dloadtest.threads=32]
+ * [-Dloadtest.users=100] [-Dloadtest.calls-per-login=20] [-Dloadtest.warmup=10] [-Dloadtest.duration=30]
+ * [-Dloadtest.store=jpa]
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class EndToEndLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EndToEndLoadTest.class);
+    private static final String PASSWORD = "test";
+    private static final int STUDENTS = 6;
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final int threads = Integer.getInteger("loadtest.threads", 32);
+    private final int users = Integer.getInteger("loadtest.users", 100);
+    private final int callsPerLogin = Integer.getInteger("loadtest.calls-per-login", 20);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+    private final String store = System.getProperty("loadtest.store", "jpa");
+
+    enum Endpoint {
+        LOGIN, STUDENT, MANAGEMENT;
+
+        String key() {
+            return this.name().toLowerCase();
+        }
+    }
+
+    @Test
+    void loginAndApiThroughput() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringSecurityRolesPermissionsApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("logging.level.root=WARN", "logging.level.com.magadiflo.app.loadtest=INFO",
+                        "server.port=0", "spring.main.banner-mode=off", "app.students.store=" + this.store,
+                        "app.security.login-throttle.enabled=false")
+                .run()) {
+            long seedStart = System.nanoTime();
+            context.getBean(SetupDataLoader.class).seed(this.manifest());
+            LOG.info("{} usuarios sembrados en {} ms", this.users, (System.nanoTime() - seedStart) / 1_000_000L);
+
+            URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(Math.max(2, this.threads / 4));
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(clientExecutor)
+                    .build();
+            Map<Endpoint, Stats> results;
+            try {
+                // Calentamiento: JIT, pools de conexiones y cachés; sus resultados se descartan
+                this.run(client, base, this.warmupSeconds);
+                results = this.run(client, base, this.durationSeconds);
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+
+            LOG.info("{} hilos cliente, {} usuarios, {} llamadas por login, {} s medidos, almacén {}", this.threads,
+                    this.users, this.callsPerLogin, this.durationSeconds, this.store);
+            results.forEach((endpoint, stats) -> LOG.info("{}", stats.report(endpoint, this.durationSeconds)));
+
+            List<String> violations = new ArrayList<>();
+            results.forEach((endpoint, stats) -> violations.addAll(stats.violations(endpoint, this.durationSeconds)));
+            violations.forEach(violation -> LOG.error("Umbral no cumplido: {}", violation));
+            results.forEach((endpoint, stats) -> assertThat(stats.ok).as("peticiones correctas a %s", endpoint.key()).isPositive());
+            assertThat(violations).as("umbrales loadtest.threshold.*").isEmpty();
+        }
+    }
+
+    private SeedManifest manifest() {
+        SeedManifest initial = SeedManifest.initialData();
+        List<SeedManifest.UserSeed> seeds = new ArrayList<>(this.users);
+        for (int i = 0; i < this.users; i++) {
+            seeds.add(new SeedManifest.UserSeed("Load", "User " + i, email(i), PASSWORD,
+                    Arrays.asList("ROLE_STUDENT", "ROLE_ADMINTRAINEE")));
+        }
+        return new SeedManifest("load-test", initial.getPermissions(), initial.getRoles(), seeds);
+    }
+
+    private Map<Endpoint, Stats> run(HttpClient client, URI base, int seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(this.threads);
+        List<Future<Map<Endpoint, Stats>>> futures = new ArrayList<>(this.threads);
+        try {
+            for (int i = 0; i < this.threads; i++) {
+                futures.add(workers.submit(() -> this.virtualUser(client, base, deadline)));
+            }
+            Map<Endpoint, Stats> total = newStats();
+            for (Future<Map<Endpoint, Stats>> future : futures) {
+                future.get().forEach((endpoint, stats) -> total.get(endpoint).add(stats));
+            }
+            return total;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Bucle de un hilo cliente; cada hilo acumula sus propios histogramas y al final se suman.
+     */
+    private Map<Endpoint, Stats> virtualUser(HttpClient client, URI base, long deadline) {
+        Map<Endpoint, Stats> stats = newStats();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            String form = "username=" + URLEncoder.encode(email(random.nextInt(this.users)), StandardCharsets.UTF_8)
+                    + "&password=" + PASSWORD;
+            HttpResponse<Void> login = this.send(client, stats.get(Endpoint.LOGIN), HttpRequest.newBuilder(base.resolve("/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build(), EndToEndLoadTest::loggedIn);
+            if (login == null) {
+                continue;
+            }
+            String cookie = sessionCookie(login);
+            for (int call = 0; call < this.callsPerLogin && System.nanoTime() < deadline; call++) {
+                if (call % 2 == 0) {
+                    this.send(client, stats.get(Endpoint.STUDENT), HttpRequest.newBuilder(
+                            base.resolve("/api/v1/students/" + (1 + random.nextInt(STUDENTS))))
+                            .header("Cookie", cookie).GET().build(), status(200));
+                } else {
+                    this.send(client, stats.get(Endpoint.MANAGEMENT), HttpRequest.newBuilder(
+                            base.resolve("/management/api/v1/students"))
+                            .header("Cookie", cookie).GET().build(), status(200));
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Devuelve la respuesta si cumple success; null (y cuenta un error) en otro caso.
+     */
+    private HttpResponse<Void> send(HttpClient client, Stats stats, HttpRequest request,
+                                    Predicate<HttpResponse<Void>> success) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            boolean ok = success.test(response);
+            stats.record(System.nanoTime() - start, ok);
+            return ok ? response : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            stats.record(System.nanoTime() - start, false);
+            return null;
+        }
+    }
+
+    private static Predicate<HttpResponse<Void>> status(int expected) {
+        return response -> response.statusCode() == expected;
+    }
+
+    /**
+     * Un login por formulario responde 302 tanto si funciona como si no: solo es correcto si no redirige a
+     * /login?error y crea la sesión.
+     */
+    private static boolean loggedIn(HttpResponse<Void> response) {
+        return response.statusCode() == 302
+                && !response.headers().firstValue("Location").orElse("").contains("error")
+                && sessionCookie(response) != null;
+    }
+
+    private static String sessionCookie(HttpResponse<Void> response) {
+        return response.headers().firstValue("Set-Cookie").map(value -> value.split(";")[0]).orElse(null);
+    }
+
+    private static Map<Endpoint, Stats> newStats() {
+        Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+        return stats;
+    }
+
+    private static String email(int user) {
+        return "load.user." + user + "@loadtest.test";
+    }
+
+    private static Double threshold(Endpoint endpoint, String name) {
+        String value = System.getProperty("loadtest.threshold." + endpoint.key() + "." + name,
+                System.getProperty("loadtest.threshold." + name));
+        return value == null ? null : Double.valueOf(value);
+    }
+
+    /**
+     * Latencias (en microsegundos, también las de peticiones fallidas) y contadores de un endpoint.
+     */
+    private static final class Stats {
+
+        private final Histogram latencies = new Histogram(HIGHEST_LATENCY_MICROS, 3);
+        private long ok;
+        private long errors;
+
+        void record(long nanos, boolean success) {
+            this.latencies.recordValue(Math.min(HIGHEST_LATENCY_MICROS, Math.max(1, nanos / 1_000L)));
+            if (success) {
+                this.ok++;
+            } else {
+                this.errors++;
+            }
+        }
+
+        void add(Stats other) {
+            this.latencies.add(other.latencies);
+            this.ok += other.ok;
+            this.errors += other.errors;
+        }
+
+        /**
+         * Peticiones correctas por segundo: las fallidas (p. ej. rechazos rápidos) no cuentan como trabajo hecho.
+         */
+        double throughput(int seconds) {
+            return this.ok / (double) seconds;
+        }
+
+        double errorRate() {
+            long total = this.ok + this.errors;
+            return total == 0 ? 1.0 : this.errors / (double) total;
+        }
+
+        double percentileMillis(double percentile) {
+            return this.latencies.getValueAtPercentile(percentile) / 1_000.0;
+        }
+
+        String report(Endpoint endpoint, int seconds) {
+            return String.format("%-10s %8.1f req/s ok  p50 %7.2f ms  p90 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms  " +
+                            "max %7.2f ms  errores %.3f%% (%d de %d)", endpoint.key(), this.throughput(seconds),
+                    this.percentileMillis(50), this.percentileMillis(90), this.percentileMillis(99),
+                    this.percentileMillis(99.9), this.latencies.getMaxValue() / 1_000.0, this.errorRate() * 100,
+                    this.errors, this.ok + this.errors);
+        }
+
+        List<String> violations(Endpoint endpoint, int seconds) {
+            List<String> violations = new ArrayList<>();
+            check(violations, endpoint, "p99", this.percentileMillis(99), true);
+            check(violations, endpoint, "p999", this.percentileMillis(99.9), true);
+            check(violations, endpoint, "error-rate", this.errorRate(), true);
+            check(violations, endpoint, "throughput", this.throughput(seconds), false);
+            return violations;
+        }
+
+        private static void check(List<String> violations, Endpoint endpoint, String name, double value, boolean maximum) {
+            Double limit = threshold(endpoint, name);
+            if (limit != null && (maximum ? value > limit : value < limit)) {
+                violations.add(String.format("%s %s = %.3f, %s %.3f", endpoint.key(), name, value,
+                        maximum ? "máximo" : "mínimo", limit));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.magadiflo.app.metrics;
+
+import com.magadiflo.app.auth.ApplicationUserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=hibernatestatements")
+@AutoConfigureMockMvc
+class SecurityMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Test
+    void loginAttemptsAreTimedByOutcome() throws Exception {
+        double success = this.authenticationCount("success");
+        double badCredentials = this.authenticationCount("bad_credentials");
+        double userNotFound = this.authenticationCount("user_not_found");
+
+        this.login("student.test@test.com", "test").andExpect(redirectedUrl("/"));
+        this.login("student.test@test.com", "wrong").andExpect(redirectedUrl("/login?error"));
+        this.login("nobody@test.com", "test").andExpect(redirectedUrl("/login?error"));
+
+        assertThat(this.authenticationCount("success")).isEqualTo(success + 1);
+        assertThat(this.authenticationCount("bad_credentials")).isEqualTo(badCredentials + 1);
+        assertThat(this.authenticationCount("user_not_found")).isEqualTo(userNotFound + 1);
+        assertThat(this.meterRegistry.get("security.user.lookup").tag("outcome", "not_found").timer().count()).isPositive();
+        assertThat(this.meterRegistry.get("security.password.match").tag("result", "mismatched").timer().count()).isPositive();
+        assertThat(this.meterRegistry.get("security.filter").tag("filter", "UsernamePasswordAuthenticationFilter").timer().count()).isPositive();
+    }
+
+    @Test
+    void statementsPerRequestAreExposedByRoute() throws Exception {
+        this.mockMvc.perform(get("/api/v1/students/1")
+                        .with(user(this.applicationUserService.loadUserByUsername("student.test@test.com"))))
+                .andExpect(status().isOk());
+        this.login("student.test@test.com", "test");
+
+        this.mockMvc.perform(get("/actuator/hibernatestatements")
+                        .with(user(this.applicationUserService.loadUserByUsername("admin.test@test.com"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['GET /api/v1/students/{studentId}'].last").value(0))
+                .andExpect(jsonPath("$['POST /login'].requests").isNumber());
+    }
+
+    private ResultActions login(String username, String password) throws Exception {
+        return this.mockMvc.perform(post("/login").param("username", username).param("password", password));
+    }
+
+    private double authenticationCount(String outcome) {
+        Timer timer = this.meterRegistry.find("security.authentication").tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
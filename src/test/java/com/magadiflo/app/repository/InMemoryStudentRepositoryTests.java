@@ -0,0 +1,93 @@
+package com.magadiflo.app.repository;
+
+import com.magadiflo.app.resource.Student;
+import com.magadiflo.app.resource.StudentChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InMemoryStudentRepositoryTests {
+
+    private final InMemoryStudentRepository repository = new InMemoryStudentRepository();
+
+    @Test
+    void savesReplacesAndDeletesById() {
+        this.repository.save(new Student(1, "Martín"));
+        this.repository.save(new Student(1, "Martín Pérez"));
+
+        assertThat(this.repository.count()).isEqualTo(1);
+        assertThat(this.repository.findById(1)).map(Student::getStudentName).hasValue("Martín Pérez");
+        assertThat(this.repository.deleteById(1)).isTrue();
+        assertThat(this.repository.deleteById(1)).isFalse();
+        assertThat(this.repository.findById(1)).isEmpty();
+        assertThat(this.repository.count()).isZero();
+    }
+
+    @Test
+    void sparseIdsAreFoundAndListedInOrder() {
+        this.repository.save(new Student(Integer.MAX_VALUE, "Max"));
+        this.repository.save(new Student(5_000_000, "Cinco millones"));
+        this.repository.save(new Student(0, "Cero"));
+
+        assertThat(this.repository.findById(5_000_000)).isPresent();
+        assertThat(this.repository.findById(4_999_999)).isEmpty();
+        assertThat(this.repository.findById(-1)).isEmpty();
+        assertThat(this.repository.findAll()).extracting(Student::getStudentId)
+                .containsExactly(0, 5_000_000, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void theVersionAdvancesOnlyWhenSomethingChanges() {
+        long initial = this.repository.version().getVersion();
+        this.repository.save(new Student(3, "Irene"));
+        assertThat(this.repository.version().getVersion()).isEqualTo(initial + 1);
+
+        assertThat(this.repository.deleteById(99)).isFalse();
+        this.repository.applyBatch(List.of(new StudentChange(StudentChange.Operation.UPDATE, 98, "Nadie"),
+                new StudentChange(StudentChange.Operation.CREATE, 3, "Irene")));
+        assertThat(this.repository.version().getVersion()).as("ninguna operación modificó el almacén").isEqualTo(initial + 1);
+
+        this.repository.applyBatch(List.of(new StudentChange(StudentChange.Operation.CREATE, 4, "Jorge"),
+                new StudentChange(StudentChange.Operation.DELETE, 3, null)));
+        assertThat(this.repository.version().getVersion()).as("un avance por lote").isEqualTo(initial + 2);
+        assertThat(this.repository.version().getLastModified()).isLessThanOrEqualTo(System.currentTimeMillis());
+    }
+
+    @Test
+    void rejectsNegativeIds() {
+        assertThrows(IllegalArgumentException.class, () -> this.repository.save(new Student(-3, "Negativo")));
+    }
+
+    @Test
+    void concurrentWritersOnNewPagesDoNotLoseStudents() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = thread; i < 200_000; i += 8) {
+                        this.repository.save(new Student(i * 7, "S" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(this.repository.count()).isEqualTo(200_000);
+        List<Integer> ids = this.repository.findAll().stream().map(Student::getStudentId).collect(Collectors.toList());
+        assertThat(ids).hasSize(200_000).isSorted();
+    }
+}
@@ -0,0 +1,97 @@
+package com.magadiflo.app.repository;
+
+import com.magadiflo.app.resource.Student;
+import com.magadiflo.app.resource.StudentChange;
+import com.magadiflo.app.resource.StudentChange.Operation;
+import com.magadiflo.app.resource.StudentChange.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@TestPropertySource(properties = "app.students.store=jpa")
+@Import(JpaStudentRepository.class)
+class JpaStudentRepositoryTests {
+
+    @Autowired
+    private IStudentRepository studentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void storesStudentsInTheStudentsTable() {
+        this.studentRepository.save(new Student(20, "Beatriz"));
+        this.studentRepository.save(new Student(10, "Ana"));
+        this.studentRepository.save(new Student(20, "Beatriz Ruiz"));
+
+        assertThat(this.studentRepository.count()).isEqualTo(2);
+        assertThat(this.studentRepository.findById(20)).map(Student::getStudentName).hasValue("Beatriz Ruiz");
+        assertThat(this.studentRepository.findAll()).extracting(Student::getStudentId).containsExactly(10, 20);
+        assertThat(this.studentRepository.deleteById(10)).isTrue();
+        assertThat(this.studentRepository.deleteById(10)).isFalse();
+    }
+
+    /**
+     * La versión vive en la BD: la ve cualquier nodo, avanza con la escritura y se deshace con ella.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void theVersionIsStoredWithTheWrites() {
+        long initial = this.studentRepository.version().getVersion();
+        this.studentRepository.save(new Student(300, "Diana"));
+        assertThat(this.studentRepository.version().getVersion()).isEqualTo(initial + 1);
+
+        new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+            this.studentRepository.save(new Student(301, "Elsa"));
+            status.setRollbackOnly();
+        });
+        assertThat(this.studentRepository.version().getVersion()).as("la escritura se deshizo").isEqualTo(initial + 1);
+
+        // Una escritura de otro nodo sobre la misma BD
+        this.jdbcTemplate.update("update student_store_version set version = version + 1 where id = 1");
+        assertThat(this.studentRepository.version().getVersion()).isEqualTo(initial + 2);
+
+        assertThat(this.studentRepository.deleteById(300)).isTrue();
+        assertThat(this.studentRepository.version().getVersion()).isEqualTo(initial + 3);
+    }
+
+    // applyBatch(...) abre sus propias transacciones, así que este test no va en la del @DataJpaTest y deja la tabla como estaba
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void appliesBatchesInOrderWithJdbcBatches() {
+        assertThat(this.studentRepository.applyBatch(Arrays.asList(
+                new StudentChange(Operation.CREATE, 100, "Ana"),
+                new StudentChange(Operation.CREATE, 101, "Beatriz"),
+                new StudentChange(Operation.CREATE, 100, "Ana bis"),
+                new StudentChange(Operation.UPDATE, 101, "Beatriz Ruiz"),
+                new StudentChange(Operation.DELETE, 100, null),
+                new StudentChange(Operation.CREATE, 100, "Carla"),
+                new StudentChange(Operation.UPDATE, 999, "Nadie"))))
+                .containsExactly(Result.CREATED, Result.CREATED, Result.ALREADY_EXISTS, Result.UPDATED, Result.DELETED,
+                        Result.CREATED, Result.NOT_FOUND);
+
+        assertThat(this.studentRepository.findById(100)).map(Student::getStudentName).hasValue("Carla");
+        assertThat(this.studentRepository.findById(101)).map(Student::getStudentName).hasValue("Beatriz Ruiz");
+
+        assertThat(this.studentRepository.applyBatch(Arrays.asList(
+                new StudentChange(Operation.DELETE, 100, null),
+                new StudentChange(Operation.DELETE, 101, null))))
+                .containsExactly(Result.DELETED, Result.DELETED);
+        assertThat(this.studentRepository.count()).isZero();
+    }
+}
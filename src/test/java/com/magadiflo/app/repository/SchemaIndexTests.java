@@ -0,0 +1,103 @@
+package com.magadiflo.app.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * El esquema sale de las migraciones de Flyway (Hibernate solo lo valida) y las búsquedas frecuentes usan sus
+ * índices: se comprueba con el EXPLAIN de H2, que nombra el índice elegido en lugar de un recorrido de la tabla.
+ */
+@SpringBootTest
+class SchemaIndexTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @Test
+    void theSchemaComesFromTheMigrations() {
+        assertThat(this.flyway.info().current().getVersion().getVersion()).isEqualTo("4");
+        assertThat(this.flyway.info().pending()).isEmpty();
+    }
+
+    /**
+     * Una BD creada por la versión original de la aplicación (ddl-auto=update, sin versiones, jerarquía ni
+     * estudiantes) se toma como V1 y recibe todo lo posterior.
+     */
+    @Test
+    void anOriginalDatabaseIsBaselinedAndUpgraded() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:original-schema;DB_CLOSE_DELAY=-1");
+        JdbcTemplate original = new JdbcTemplate(dataSource);
+        original.execute("create table permissions (id bigint generated by default as identity, name varchar(255), primary key (id))");
+        original.execute("create table roles (id bigint generated by default as identity, name varchar(255), primary key (id))");
+        original.execute("create table roles_permissions (role_id bigint not null, permission_id bigint not null)");
+        original.execute("create table users (id bigint generated by default as identity, email varchar(255), enabled boolean not null, "
+                + "first_name varchar(255), last_name varchar(255), password varchar(255), token_expired boolean not null, primary key (id))");
+        original.execute("create table users_roles (user_id bigint not null, role_id bigint not null)");
+        original.update("insert into users (email, enabled, token_expired) values ('old.user@test.com', true, false)");
+        original.update("insert into roles (name) values ('ROLE_STUDENT')");
+
+        Flyway.configure().dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true).baselineVersion("1")
+                .load().migrate();
+
+        assertThat(original.queryForObject("select version from users where email = 'old.user@test.com'", Long.class)).isZero();
+        assertThat(original.queryForObject("select version from roles where name = 'ROLE_STUDENT'", Long.class)).isZero();
+        assertThat(original.queryForObject("select parent_id from roles where name = 'ROLE_STUDENT'", Long.class)).isNull();
+        assertThat(original.queryForObject("select count(*) from students", Long.class)).isZero();
+        assertThat(original.queryForObject("select count(*) from authority_change_log", Long.class)).isZero();
+        assertThat(original.queryForObject("select count(*) from seed_state", Long.class)).isZero();
+        assertThat(original.queryForObject("select version from student_store_version where id = 1", Long.class)).isZero();
+        original.execute("drop all objects");
+    }
+
+    @Test
+    void lookupsByNameUseTheUniqueIndexes() {
+        assertThat(this.explain("select id, password, enabled from users where email = 'student.test@test.com'"))
+                .containsIgnoringCase("UX_USERS_EMAIL");
+        assertThat(this.explain("select id from roles where name = 'ROLE_STUDENT'")).containsIgnoringCase("UX_ROLES_NAME");
+        assertThat(this.explain("select id from permissions where name = 'student:read'"))
+                .containsIgnoringCase("UX_PERMISSIONS_NAME");
+    }
+
+    @Test
+    void joinTablesAreIndexedInBothDirections() {
+        // H2 llama PRIMARY_KEY_n al índice de la clave primaria, sin importar el nombre de la restricción
+        assertThat(this.explain("select role_id from users_roles where user_id = 1")).doesNotContainIgnoringCase("tableScan");
+        assertThat(this.explain("select user_id from users_roles where role_id = 1")).containsIgnoringCase("IX_USERS_ROLES_ROLE");
+        assertThat(this.explain("select permission_id from roles_permissions where role_id = 1"))
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(this.explain("select role_id from roles_permissions where permission_id = 1"))
+                .containsIgnoringCase("IX_ROLES_PERMISSIONS_PERMISSION");
+    }
+
+    @Test
+    void theLoginQueryJoinsThroughIndexesOnly() {
+        String plan = this.explain("select u.email, u.password, u.enabled, r.name from users u " +
+                "left join users_roles ur on ur.user_id = u.id left join roles r on r.id = ur.role_id " +
+                "where u.email = 'student.test@test.com'");
+
+        assertThat(plan).containsIgnoringCase("UX_USERS_EMAIL").doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void duplicateEmailsAreRejectedByTheDatabase() {
+        assertThrows(DataIntegrityViolationException.class, () -> this.jdbcTemplate.update(
+                "insert into users (email, enabled, token_expired, version) values ('student.test@test.com', true, false, 0)"));
+    }
+
+    private String explain(String sql) {
+        return this.jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
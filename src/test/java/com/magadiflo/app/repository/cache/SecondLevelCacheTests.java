@@ -0,0 +1,109 @@
+package com.magadiflo.app.repository.cache;
+
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.repository.IPermissionRepository;
+import com.magadiflo.app.repository.IRoleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTests {
+
+    @Autowired
+    private IRoleRepository roleRepository;
+
+    @Autowired
+    private IPermissionRepository permissionRepository;
+
+    @Autowired
+    private SecondLevelCaches secondLevelCaches;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @Autowired
+    void setStatistics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    void warmUp() {
+        this.permissionRepository.findByName("student:read");
+        this.roleRepository.findByName("ROLE_STUDENT");
+        this.statistics.clear();
+    }
+
+    @Test
+    void findByNameIsServedFromTheQueryAndEntityCachesWithoutSql() {
+        assertThat(this.permissionRepository.findByName("student:read").getName()).isEqualTo("student:read");
+        assertThat(this.roleRepository.findByName("ROLE_STUDENT").getName()).isEqualTo("ROLE_STUDENT");
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+        assertThat(this.statistics.getQueryCacheHitCount()).isEqualTo(2);
+        assertThat(this.statistics.getCacheRegionStatistics(CacheRegions.PERMISSIONS).getHitCount()).isEqualTo(1);
+        assertThat(this.meterRegistry.find("hibernate.second.level.cache.requests")
+                .tag("region", CacheRegions.PERMISSIONS).tag("result", "hit").functionCounter()).isNotNull();
+    }
+
+    @Test
+    void aRolesPermissionsComeFromTheCollectionCacheAndAreInvalidatedOnWrite() {
+        this.transactionTemplate.executeWithoutResult(status ->
+                assertThat(this.roleRepository.findByName("ROLE_STUDENT").getPermissions()).hasSize(1));
+        this.transactionTemplate.executeWithoutResult(status ->
+                assertThat(this.roleRepository.findByName("ROLE_STUDENT").getPermissions()).hasSize(1));
+        assertThat(this.statistics.getCacheRegionStatistics(CacheRegions.ROLE_PERMISSIONS).getHitCount()).isPositive();
+
+        this.transactionTemplate.executeWithoutResult(status -> {
+            Permission export = this.permissionRepository.save(new Permission("student:export"));
+            this.roleRepository.findByName("ROLE_STUDENT").getPermissions().add(export);
+        });
+        try {
+            this.transactionTemplate.executeWithoutResult(status ->
+                    assertThat(this.roleRepository.findByName("ROLE_STUDENT").getPermissions()).extracting("name")
+                            .containsExactlyInAnyOrder("student:read", "student:export"));
+        } finally {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.roleRepository.findByName("ROLE_STUDENT").getPermissions()
+                        .removeIf(permission -> permission.getName().equals("student:export"));
+                this.permissionRepository.delete(this.permissionRepository.findByName("student:export"));
+            });
+        }
+        assertThat(this.permissionRepository.findByName("student:export")).isNull();
+    }
+
+    @Test
+    void jdbcWritesAreVisibleOnceTheAuthorityDataIsEvicted() {
+        assertThat(this.permissionRepository.findByName("report:export")).isNull();
+        this.jdbcTemplate.update("insert into permissions (name) values (?)", "report:export");
+        try {
+            assertThat(this.permissionRepository.findByName("report:export"))
+                    .as("Hibernate no ve las escrituras por JDBC: el resultado vacío sigue en la caché").isNull();
+
+            this.secondLevelCaches.evictAuthorityData();
+
+            assertThat(this.permissionRepository.findByName("report:export").getName()).isEqualTo("report:export");
+        } finally {
+            this.jdbcTemplate.update("delete from permissions where name = ?", "report:export");
+            this.secondLevelCaches.evictAuthorityData();
+        }
+    }
+}
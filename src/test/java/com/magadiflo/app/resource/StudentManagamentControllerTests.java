@@ -0,0 +1,181 @@
+package com.magadiflo.app.resource;
+
+import com.magadiflo.app.auth.ApplicationUserService;
+import com.magadiflo.app.repository.IStudentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class StudentManagamentControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Autowired
+    private IStudentRepository studentRepository;
+
+    @Test
+    void adminTraineeCanReadButNotWrite() throws Exception {
+        this.mockMvc.perform(get("/management/api/v1/students").with(this.as("admin.trainee.test@test.com")))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(post("/management/api/v1/students").with(this.as("admin.trainee.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\":7,\"studentName\":\"Lucía\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void adminCanWrite() throws Exception {
+        this.mockMvc.perform(post("/management/api/v1/students").with(this.as("admin.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\":7,\"studentName\":\"Lucía\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void writesAreVisibleThroughTheStudentApi() throws Exception {
+        this.mockMvc.perform(post("/management/api/v1/students").with(this.as("admin.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\":40,\"studentName\":\"Elena\"}"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(put("/management/api/v1/students/40").with(this.as("admin.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\":40,\"studentName\":\"Elena Díaz\"}"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/api/v1/students/40").with(this.as("student.test@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.studentName").value("Elena Díaz"));
+        this.mockMvc.perform(delete("/management/api/v1/students/40").with(this.as("admin.test@test.com")))
+                .andExpect(status().isOk());
+        assertThat(this.studentRepository.findById(40)).isEmpty();
+    }
+
+    @Test
+    void pagesWithCursorAndStreamsNdjson() throws Exception {
+        this.mockMvc.perform(get("/management/api/v1/students").param("limit", "2").with(this.as("admin.test@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].studentId").value(contains(1, 2)))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("after=2&limit=2>; rel=\"next\"")));
+        this.mockMvc.perform(get("/management/api/v1/students").param("after", "4").param("limit", "1000")
+                        .with(this.as("admin.test@test.com")))
+                .andExpect(jsonPath("$[0].studentId").value(5))
+                .andExpect(jsonPath("$[1].studentId").value(6))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+        this.mockMvc.perform(get("/management/api/v1/students").param("after", "3")
+                        .accept(MediaType.APPLICATION_NDJSON).with(this.as("admin.test@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(startsWith("{\"studentId\":4,\"studentName\":\"Tinkler\"}\n" +
+                        "{\"studentId\":5,\"studentName\":\"Raúl\"}\n")));
+    }
+
+    @Test
+    void bulkAppliesNdjsonAndJsonArrayOperationsWithPerItemResults() throws Exception {
+        this.mockMvc.perform(post("/management/api/v1/students/bulk").with(this.as("admin.test@test.com"))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"op\":\"create\",\"studentId\":60,\"studentName\":\"Marta\"}\n" +
+                                "{\"op\":\"create\",\"studentId\":60,\"studentName\":\"Marta bis\"}\n" +
+                                "{\"op\":\"update\",\"studentId\":60,\"studentName\":\"Marta Gil\"}\n" +
+                                "{\"op\":\"rename\",\"studentId\":60}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(startsWith(
+                        "{\"index\":0,\"op\":\"create\",\"studentId\":60,\"result\":\"CREATED\"}\n" +
+                        "{\"index\":1,\"op\":\"create\",\"studentId\":60,\"result\":\"ALREADY_EXISTS\"}\n" +
+                        "{\"index\":2,\"op\":\"update\",\"studentId\":60,\"result\":\"UPDATED\"}\n" +
+                        "{\"index\":3,\"op\":\"rename\",\"studentId\":60,\"result\":\"INVALID\"}\n" +
+                        "{\"summary\":{\"total\":4,\"succeeded\":2,\"failed\":2,\"batches\":1,")));
+        assertThat(this.studentRepository.findById(60)).map(Student::getStudentName).hasValue("Marta Gil");
+
+        this.mockMvc.perform(post("/management/api/v1/students/bulk").with(this.as("admin.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"op\":\"delete\",\"studentId\":60},{\"op\":\"delete\",\"studentId\":60}]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"studentId\":60,\"result\":\"DELETED\"}\n" +
+                        "{\"index\":1,\"op\":\"delete\",\"studentId\":60,\"result\":\"NOT_FOUND\"}\n")));
+        assertThat(this.studentRepository.findById(60)).isEmpty();
+
+        this.mockMvc.perform(post("/management/api/v1/students/bulk").with(this.as("admin.trainee.test@test.com"))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"op\":\"create\",\"studentId\":61,\"studentName\":\"Pablo\"}\n"))
+                .andExpect(status().isForbidden());
+        assertThat(this.studentRepository.findById(61)).isEmpty();
+    }
+
+    @Test
+    void studentCannotReadTheManagementApi() throws Exception {
+        this.mockMvc.perform(get("/management/api/v1/students").with(this.as("student.test@test.com")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void unchangedStudentsAreNotModifiedForAnyAuthorityUntilAWrite() throws Exception {
+        String etag = this.mockMvc.perform(get("/api/v1/students/2").with(this.as("student.test@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$.studentId").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        this.mockMvc.perform(get("/api/v1/students/2").header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(this.as("student.admin.trainee.test@test.com")))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        // La autorización va antes que el 304
+        this.mockMvc.perform(get("/api/v1/students/2").header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(this.as("admin.trainee.test@test.com")))
+                .andExpect(status().isForbidden());
+
+        String pageEtag = this.mockMvc.perform(get("/management/api/v1/students").param("limit", "2")
+                        .with(this.as("admin.trainee.test@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, notNullValue()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        this.mockMvc.perform(get("/management/api/v1/students").param("limit", "2").header(HttpHeaders.IF_NONE_MATCH, pageEtag)
+                        .with(this.as("admin.test@test.com")))
+                .andExpect(status().isNotModified());
+        // Otra representación de la misma URL, otro ETag
+        this.mockMvc.perform(get("/management/api/v1/students").param("limit", "2").header(HttpHeaders.IF_NONE_MATCH, pageEtag)
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE).with(this.as("admin.test@test.com")))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(put("/management/api/v1/students/2").with(this.as("admin.test@test.com"))
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"studentId\":2,\"studentName\":\"Maria Jones\"}"))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/api/v1/students/2").header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(this.as("student.test@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.studentName").value("Maria Jones"));
+        this.mockMvc.perform(get("/management/api/v1/students").param("limit", "2").header(HttpHeaders.IF_NONE_MATCH, pageEtag)
+                        .with(this.as("admin.test@test.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].studentName").value("Maria Jones"));
+        this.studentRepository.save(new Student(2, "Gaspar"));
+    }
+
+    private RequestPostProcessor as(String email) {
+        return user(this.applicationUserService.loadUserByUsername(email));
+    }
+}
@@ -0,0 +1,151 @@
+package com.magadiflo.app.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.magadiflo.app.repository.IStudentRepository;
+import com.magadiflo.app.repository.StudentStoreVersion;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentStreamWriterTests {
+
+    private static final long MB = 1024 * 1024;
+
+    private final StudentStreamWriter writer = new StudentStreamWriter(new ObjectMapper());
+
+    @Test
+    void writesJsonArrayAndNdjsonInCursorOrder() throws Exception {
+        SyntheticStudentRepository repository = new SyntheticStudentRepository(2_500);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        long written = this.writer.writeJsonArray(repository, 2_497, Long.MAX_VALUE, json);
+        assertThat(written).isEqualTo(3);
+        assertThat(json.toString("UTF-8")).isEqualTo("[{\"studentId\":2498,\"studentName\":\"Student 2498\"}," +
+                "{\"studentId\":2499,\"studentName\":\"Student 2499\"},{\"studentId\":2500,\"studentName\":\"Student 2500\"}]");
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        this.writer.writeNdjson(repository, 0, 2, ndjson);
+        assertThat(ndjson.toString("UTF-8")).isEqualTo("{\"studentId\":1,\"studentName\":\"Student 1\"}\n" +
+                "{\"studentId\":2,\"studentName\":\"Student 2\"}\n");
+    }
+
+    /**
+     * El almacén sintético crea los estudiantes al vuelo y no guarda nada, así que cualquier crecimiento del heap
+     * retenido durante la escritura vendría del propio writer. Se mide el heap usado tras un GC en varios puntos
+     * de la respuesta: con 5M estudiantes debe quedarse igual que con 10k (materializarlos ocuparía cientos de MB).
+     */
+    @Test
+    void retainedHeapStaysFlatFrom10kTo5mStudents() throws Exception {
+        long small = this.peakRetainedHeapWhileStreaming(10_000);
+        long large = this.peakRetainedHeapWhileStreaming(5_000_000);
+
+        assertThat(large - small).isLessThan(16 * MB);
+    }
+
+    private long peakRetainedHeapWhileStreaming(int students) throws Exception {
+        SyntheticStudentRepository repository = new SyntheticStudentRepository(students);
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream(students * 40L / 10);
+        long written = this.writer.writeNdjson(repository, -1, Long.MAX_VALUE, out);
+
+        assertThat(written).isEqualTo(students);
+        assertThat(repository.maxPageSize).isLessThanOrEqualTo(StudentStreamWriter.CHUNK_SIZE);
+        return out.peakUsedHeap;
+    }
+
+    private static final class SyntheticStudentRepository implements IStudentRepository {
+
+        private final int size;
+        private int maxPageSize;
+
+        private SyntheticStudentRepository(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public List<Student> findPage(int afterId, int limit) {
+            this.maxPageSize = Math.max(this.maxPageSize, limit);
+            List<Student> page = new ArrayList<>(limit);
+            for (int id = Math.max(1, afterId + 1); id <= this.size && page.size() < limit; id++) {
+                page.add(new Student(id, "Student " + id));
+            }
+            return page;
+        }
+
+        @Override
+        public Optional<Student> findById(int studentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Student> findAll() {
+            throw new UnsupportedOperationException("El streaming no debe cargar todos los estudiantes");
+        }
+
+        @Override
+        public boolean existsById(int studentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Student save(Student student) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean deleteById(int studentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long count() {
+            return this.size;
+        }
+
+        @Override
+        public StudentStoreVersion version() {
+            return new StudentStoreVersion(0, 0);
+        }
+    }
+
+    // Descarta lo escrito y, cada sampleEvery bytes, anota el heap usado tras un GC (unas 10 muestras por respuesta)
+    private static final class HeapSamplingOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long sampleEvery;
+        private long bytes;
+        private long nextSample;
+        private long peakUsedHeap;
+
+        private HeapSamplingOutputStream(long sampleEvery) {
+            this.sampleEvery = Math.max(1, sampleEvery);
+            this.nextSample = this.sampleEvery;
+        }
+
+        @Override
+        public void write(int b) {
+            this.advance(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.advance(len);
+        }
+
+        private void advance(int len) {
+            this.bytes += len;
+            if (this.bytes >= this.nextSample) {
+                this.nextSample += this.sampleEvery;
+                System.gc();
+                this.peakUsedHeap = Math.max(this.peakUsedHeap, this.memory.getHeapMemoryUsage().getUsed());
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.magadiflo.app.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffloadingPasswordEncoderTests {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private final OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(new BlockingEncoder(),
+            1, 1, Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() {
+        this.release.countDown();
+        this.callers.shutdownNow();
+        this.encoder.destroy();
+    }
+
+    @Test
+    void runsOnWorkerThread() {
+        this.release.countDown();
+        assertTrue(this.encoder.matches("password-encoder-", "ignored"));
+        assertEquals(1, this.encoder.getSubmittedCount());
+    }
+
+    @Test
+    void failsFastWhenPoolAndQueueAreFull() throws Exception {
+        this.callers.submit(() -> this.encoder.matches("a", "a"));
+        assertTrue(this.started.await(5, TimeUnit.SECONDS));
+        this.callers.submit(() -> this.encoder.matches("b", "b"));
+        while (this.encoder.getQueueSize() < 1) {
+            Thread.sleep(1);
+        }
+
+        assertThrows(AuthenticationServiceException.class, () -> this.encoder.matches("c", "c"));
+        assertEquals(1, this.encoder.getRejectedCount());
+    }
+
+    // Bloquea hasta que el test lo libere; matches(...) indica si se ejecutó en un hilo del pool
+    private class BlockingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Thread.currentThread().getName().startsWith(rawPassword.toString());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.magadiflo.app.security;
+
+import com.magadiflo.app.auth.UserDetailsCache;
+import com.magadiflo.app.repository.IUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PasswordUpgradeTests {
+
+    private static final String EMAIL = "student.admin.trainee.test@test.com";
+
+    @Autowired
+    private DaoAuthenticationProvider daoAuthenticationProvider;
+
+    @Autowired
+    private IUserRepository userRepository;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void legacyHashIsReencodedOnSuccessfulLogin() {
+        String legacyHash = new BCryptPasswordEncoder(4).encode("test");
+        this.transactionTemplate.executeWithoutResult(status -> this.userRepository.updatePassword(EMAIL, legacyHash));
+        this.userDetailsCache.removeUserFromCache(EMAIL);
+
+        this.daoAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "test"));
+
+        assertThat(this.userRepository.findByEmail(EMAIL).getPassword()).startsWith("{bcrypt}$2a$10$");
+        this.daoAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "test"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.magadiflo.app.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PreAuthorizeExpressionCompilerTests {
+
+    private final PreAuthorizeExpressionCompiler compiler = new PreAuthorizeExpressionCompiler("ROLE_");
+
+    private final Authentication trainee = new UsernamePasswordAuthenticationToken("trainee", null,
+            AuthorityUtils.createAuthorityList("ROLE_ADMINTRAINEE", "student:read", "course:read"));
+
+    private final Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    @Test
+    void compilesTheExpressionsUsedByTheControllers() {
+        assertThat(this.compiler.compile("hasAnyRole('ROLE_ADMIN', 'ROLE_ADMINTRAINEE')").test(this.trainee)).isTrue();
+        assertThat(this.compiler.compile("hasAuthority('student:write')").test(this.trainee)).isFalse();
+    }
+
+    @Test
+    void addsTheRolePrefixOnlyWhenMissing() {
+        assertThat(this.compiler.compile("hasRole('ADMINTRAINEE')").test(this.trainee)).isTrue();
+        assertThat(this.compiler.compile("hasRole('ROLE_ADMINTRAINEE')").test(this.trainee)).isTrue();
+    }
+
+    @Test
+    void compilesBooleanCombinations() {
+        assertThat(this.compiler.compile("hasAuthority('student:read') and !hasRole('ADMIN')").test(this.trainee)).isTrue();
+        assertThat(this.compiler.compile("hasRole('ADMIN') or hasAuthority('course:write')").test(this.trainee)).isFalse();
+        assertThat(this.compiler.compile("isAuthenticated()").test(this.anonymous)).isFalse();
+        assertThat(this.compiler.compile("permitAll").test(this.anonymous)).isTrue();
+    }
+
+    @Test
+    void leavesDynamicExpressionsToSpel() {
+        assertThat(this.compiler.compile("#studentId == principal.username")).isNull();
+        assertThat(this.compiler.compile("hasPermission(#student, 'write')")).isNull();
+        assertThat(this.compiler.compile("hasRole(#role)")).isNull();
+    }
+}
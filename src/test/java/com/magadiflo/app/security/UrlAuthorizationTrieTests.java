@@ -0,0 +1,61 @@
+package com.magadiflo.app.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlAuthorizationTrieTests {
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    @Test
+    void resolvesTheApplicationRules() {
+        UrlAuthorizationTrie trie = new UrlAuthorizationTrie(ApplicationSecurityConfig.URL_RULES);
+
+        assertThat(trie.match("/").getAccess()).isEqualTo(UrlAuthorizationRule.Access.PERMIT_ALL);
+        assertThat(trie.match("/css/site.css").getAccess()).isEqualTo(UrlAuthorizationRule.Access.PERMIT_ALL);
+        assertThat(trie.match("/api/v1/students/1")).isSameAs(ApplicationSecurityConfig.URL_RULES.get(1));
+        assertThat(trie.match("/actuator/health")).isSameAs(ApplicationSecurityConfig.URL_RULES.get(2));
+        assertThat(trie.match("/actuator/metrics")).isSameAs(ApplicationSecurityConfig.URL_RULES.get(3));
+        // "index" no empieza por / y, como con antMatchers, nunca coincide
+        assertThat(trie.match("/index").getAccess()).isEqualTo(UrlAuthorizationRule.Access.AUTHENTICATED);
+        assertThat(trie.match("/css/a/b").getAccess()).isEqualTo(UrlAuthorizationRule.Access.AUTHENTICATED);
+    }
+
+    @Test
+    void keepsFirstMatchSemanticsOfAntMatchers() {
+        List<UrlAuthorizationRule> rules = Arrays.asList(
+                UrlAuthorizationRule.hasRole("A", "/api/v1/students/*"),
+                UrlAuthorizationRule.permitAll("/api/*/public/**", "/static/*.css", "index"),
+                UrlAuthorizationRule.hasRole("B", "/api/**"),
+                UrlAuthorizationRule.hasRole("C", "/api/v1/students/42", "/management/*/students"),
+                UrlAuthorizationRule.permitAll("/", "/css/*"),
+                UrlAuthorizationRule.hasRole("D", "/**/reports"),
+                UrlAuthorizationRule.authenticated("/management/**"));
+        UrlAuthorizationTrie trie = new UrlAuthorizationTrie(rules);
+
+        List<String> paths = Arrays.asList("/", "/index", "/api", "/api/", "/api/v1", "/api/v1/students",
+                "/api/v1/students/", "/api/v1/students/42", "/api/v1/students/42/courses", "/api/v2/public",
+                "/api/v2/public/a/b", "/static/site.css", "/static/site.js", "/css/", "/css/a", "/css/a/",
+                "/management/api/students", "/management/api/v1/students", "/management/x/reports", "/reports",
+                "/other", "/Api/v1");
+        for (String path : paths) {
+            assertThat(trie.match(path)).as(path).isSameAs(this.firstMatch(rules, path));
+        }
+    }
+
+    private UrlAuthorizationRule firstMatch(List<UrlAuthorizationRule> rules, String path) {
+        for (UrlAuthorizationRule rule : rules) {
+            for (String pattern : rule.getPatterns()) {
+                if (this.antPathMatcher.match(pattern, path)) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+package com.magadiflo.app.security.session;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthoritySet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapSessionRepositoryTests {
+
+    private static final String SECURITY_CONTEXT = HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void storesTheSecurityContextAndOtherAttributesOffHeap() {
+        OffHeapSessionRepository repository = this.repository(1024 * 1024);
+        OffHeapSessionRepository.OffHeapSession session = repository.createSession();
+        session.setAttribute(SECURITY_CONTEXT, context("student.test@test.com"));
+        session.setAttribute("locale", "es_PE");
+        repository.save(session);
+
+        OffHeapSessionRepository.OffHeapSession found = repository.findById(session.getId());
+
+        SecurityContext context = found.getAttribute(SECURITY_CONTEXT);
+        assertThat(context.getAuthentication().getName()).isEqualTo("student.test@test.com");
+        assertThat(context.getAuthentication().getAuthorities()).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_STUDENT", "student:read");
+        assertThat(found.<String>getAttribute("locale")).isEqualTo("es_PE");
+        assertThat(found.getCreationTime()).isEqualTo(session.getCreationTime().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(found.getMaxInactiveInterval()).isEqualTo(Duration.ofMinutes(30));
+        assertThat(repository.usedBytes()).isEqualTo(256);
+    }
+
+    @Test
+    void aRequestThatOnlyTouchesTheSessionUpdatesItInPlace() {
+        OffHeapSessionRepository repository = this.repository(1024 * 1024);
+        OffHeapSessionRepository.OffHeapSession session = repository.createSession();
+        session.setAttribute(SECURITY_CONTEXT, context("student.test@test.com"));
+        repository.save(session);
+
+        OffHeapSessionRepository.OffHeapSession found = repository.findById(session.getId());
+        Instant later = found.getLastAccessedTime().plusSeconds(60);
+        found.setLastAccessedTime(later);
+        repository.save(found);
+
+        assertThat(repository.findById(session.getId()).getLastAccessedTime()).isEqualTo(later);
+        assertThat(repository.usedBytes()).isEqualTo(256);
+    }
+
+    @Test
+    void changingTheSessionIdMovesTheRecordAndFreesTheOldOne() {
+        OffHeapSessionRepository repository = this.repository(1024 * 1024);
+        OffHeapSessionRepository.OffHeapSession session = repository.createSession();
+        repository.save(session);
+        String oldId = session.getId();
+
+        OffHeapSessionRepository.OffHeapSession found = repository.findById(oldId);
+        found.changeSessionId();
+        found.setAttribute(SECURITY_CONTEXT, context("admin.test@test.com"));
+        repository.save(found);
+
+        assertThat(repository.findById(oldId)).isNull();
+        assertThat(repository.findById(found.getId())).isNotNull();
+        assertThat(repository.size()).isEqualTo(1);
+        assertThat(repository.usedBytes()).isEqualTo(256);
+    }
+
+    @Test
+    void expiredSessionsAreNotReturned() {
+        OffHeapSessionRepository repository = this.repository(1024 * 1024);
+        OffHeapSessionRepository.OffHeapSession session = repository.createSession();
+        session.setMaxInactiveInterval(Duration.ofMinutes(1));
+        session.setLastAccessedTime(Instant.now().minus(Duration.ofMinutes(2)));
+        repository.save(session);
+
+        assertThat(repository.findById(session.getId())).isNull();
+        assertThat(repository.size()).isZero();
+    }
+
+    @Test
+    void evictsTheColdestSessionsInsteadOfGrowingPastItsCapacity() {
+        OffHeapSessionRepository repository = this.repository(64 * 256);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            OffHeapSessionRepository.OffHeapSession session = repository.createSession();
+            session.setAttribute(SECURITY_CONTEXT, context("user" + i + "@test.com"));
+            repository.save(session);
+            ids.add(session.getId());
+        }
+
+        assertThat(repository.usedBytes()).isLessThanOrEqualTo(64 * 256);
+        assertThat(repository.size()).isLessThanOrEqualTo(64);
+        assertThat(repository.findById(ids.get(ids.size() - 1))).isNotNull();
+        assertThat(this.meterRegistry.get("session.offheap.evictions").counter().count()).isGreaterThanOrEqualTo(436);
+    }
+
+    @Test
+    void concurrentReadersNeverSeeAnotherSessionsRecord() throws Exception {
+        OffHeapSessionRepository repository = this.repository(32 * 256);
+        OffHeapSessionRepository.OffHeapSession stable = repository.createSession();
+        stable.setAttribute(SECURITY_CONTEXT, context("stable@test.com"));
+        repository.save(stable);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        OffHeapSessionRepository.OffHeapSession session = repository.createSession();
+                        session.setAttribute(SECURITY_CONTEXT, context("churn" + i + "@test.com"));
+                        repository.save(session);
+                        repository.deleteById(session.getId());
+                    }
+                }));
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        OffHeapSessionRepository.OffHeapSession found = repository.findById(stable.getId());
+                        SecurityContext context = found.getAttribute(SECURITY_CONTEXT);
+                        assertThat(context.getAuthentication().getName()).isEqualTo("stable@test.com");
+                        found.setLastAccessedTime(Instant.now());
+                        repository.save(found);
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private OffHeapSessionRepository repository(long capacityBytes) {
+        return new OffHeapSessionRepository(capacityBytes, 256, 4096, Duration.ofMinutes(30),
+                new SecurityContextCodec(), this.meterRegistry);
+    }
+
+    private static SecurityContext context(String username) {
+        ApplicationUser user = new ApplicationUser(username, null, true, AuthoritySet.of(List.of("ROLE_STUDENT", "student:read")));
+        return new SecurityContextImpl(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,80 @@
+package com.magadiflo.app.security.session;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+import com.magadiflo.app.auth.refresh.AuthorityVersionRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.http.Cookie;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.session.store=off-heap")
+@AutoConfigureMockMvc
+class OffHeapSessionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OffHeapSessionRepository sessionRepository;
+
+    @Autowired
+    private AuthorityVersionRegistry versionRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void aFormLoginSessionLivesInTheOffHeapStore() throws Exception {
+        MvcResult login = this.mockMvc.perform(formLogin().user("student.test@test.com").password("test"))
+                .andExpect(status().is3xxRedirection())
+                .andReturn();
+        Cookie cookie = login.getResponse().getCookie("SESSION");
+        assertThat(cookie).isNotNull();
+
+        this.mockMvc.perform(get("/api/v1/students/1").cookie(cookie)).andExpect(status().isOk());
+        this.mockMvc.perform(get("/api/v1/students/1")).andExpect(status().is3xxRedirection());
+
+        String sessionId = new String(Base64.getDecoder().decode(cookie.getValue()), StandardCharsets.UTF_8);
+        SecurityContext context = this.sessionRepository.findById(sessionId)
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertThat(context.getAuthentication().getPrincipal()).isInstanceOf(ApplicationUser.class);
+        assertThat(context.getAuthentication().getAuthorities()).extracting("authority").contains("ROLE_STUDENT", "student:read");
+    }
+
+    @Test
+    void theAdvancedAuthorityVersionIsWrittenBackToTheSession() throws Exception {
+        Cookie cookie = this.mockMvc.perform(formLogin().user("student.test@test.com").password("test"))
+                .andReturn().getResponse().getCookie("SESSION");
+        String sessionId = new String(Base64.getDecoder().decode(cookie.getValue()), StandardCharsets.UTF_8);
+
+        // Un cambio que no afecta a este usuario
+        this.eventPublisher.publishEvent(new AuthorityDataChangedEvent(this, AuthorityDataChangedEvent.Kind.USER,
+                Collections.singleton("someone.else@test.com")));
+        assertThat(this.authorityVersionOf(sessionId)).isLessThan(this.versionRegistry.currentVersion());
+
+        this.mockMvc.perform(get("/api/v1/students/1").cookie(cookie)).andExpect(status().isOk());
+        assertThat(this.authorityVersionOf(sessionId)).isEqualTo(this.versionRegistry.currentVersion());
+    }
+
+    private long authorityVersionOf(String sessionId) {
+        SecurityContext context = this.sessionRepository.findById(sessionId)
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        return ((ApplicationUser) context.getAuthentication().getPrincipal()).getAuthorityVersion();
+    }
+}
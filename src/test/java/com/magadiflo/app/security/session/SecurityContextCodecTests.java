@@ -0,0 +1,90 @@
+package com.magadiflo.app.security.session;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthoritySet;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SecurityContextCodecTests {
+
+    private final SecurityContextCodec codec = new SecurityContextCodec();
+
+    @Test
+    void roundTripsTheAuthenticatedPrincipalInAFractionOfTheJavaSerializedSize() throws IOException {
+        AuthoritySet authorities = AuthoritySet.of(List.of("ROLE_ADMIN", "student:read", "student:write", "course:read", "course:write"));
+        ApplicationUser user = new ApplicationUser("admin.test@test.com", null, true, authorities, 42L);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, authorities);
+        authentication.setDetails(new WebAuthenticationDetails("10.0.0.7", null));
+        SecurityContext context = new SecurityContextImpl(authentication);
+
+        assertThat(this.codec.supports(context)).isTrue();
+        byte[] encoded = this.encode(context);
+        SecurityContext decoded = this.decode(encoded);
+
+        ApplicationUser principal = (ApplicationUser) decoded.getAuthentication().getPrincipal();
+        assertThat(principal.getUsername()).isEqualTo("admin.test@test.com");
+        assertThat(principal.isEnabled()).isTrue();
+        assertThat(principal.getAuthorityVersion()).isEqualTo(42L);
+        assertThat(principal.getAuthorities()).isEqualTo(authorities);
+        assertThat(decoded.getAuthentication().isAuthenticated()).isTrue();
+        assertThat(decoded.getAuthentication().getAuthorities()).extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_ADMIN", "student:read", "student:write", "course:read", "course:write");
+        assertThat(decoded.getAuthentication().getDetails()).isEqualTo(new WebAuthenticationDetails("10.0.0.7", null));
+        assertThat(encoded.length).isLessThan(64)
+                .isLessThan(new SerializingConverter().convert(context).length / 10);
+    }
+
+    @Test
+    void keepsTokenAuthoritiesThatDifferFromThePrincipal() throws IOException {
+        ApplicationUser user = new ApplicationUser("student.test@test.com", null, false,
+                AuthoritySet.of(List.of("ROLE_STUDENT", "student:read")));
+        SecurityContext context = new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(user, null, AuthoritySet.of(List.of("ROLE_STUDENT"))));
+
+        SecurityContext decoded = this.decode(this.encode(context));
+
+        assertThat(((ApplicationUser) decoded.getAuthentication().getPrincipal()).isEnabled()).isFalse();
+        assertThat(decoded.getAuthentication().getAuthorities()).extracting("authority").containsExactly("ROLE_STUDENT");
+        assertThat(decoded.getAuthentication().getDetails()).isNull();
+    }
+
+    @Test
+    void leavesAnythingElseToJavaSerialization() {
+        ApplicationUser user = new ApplicationUser("student.test@test.com", "{noop}test", true, AuthoritySet.of(List.of()));
+
+        assertThat(this.codec.supports(new SecurityContextImpl(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()))))
+                .as("password sin borrar").isFalse();
+        assertThat(this.codec.supports(new SecurityContextImpl(new TestingAuthenticationToken("user", null, "ROLE_USER"))))
+                .isFalse();
+        assertThat(this.codec.supports("SPRING_SECURITY_SAVED_REQUEST")).isFalse();
+        assertThat(this.codec.supports(new SecurityContextImpl())).isTrue();
+    }
+
+    private byte[] encode(SecurityContext context) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            this.codec.encode(context, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private SecurityContext decode(byte[] encoded) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            return this.codec.decode(in);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.magadiflo.app.security.throttle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.security.login-throttle.routes[0].path=/login",
+        "app.security.login-throttle.routes[0].per-username.capacity=2",
+        "app.security.login-throttle.routes[0].per-ip.capacity=3"})
+@AutoConfigureMockMvc
+class LoginThrottleTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void rejectsExcessAttemptsPerUsernameAndPerIpBeforeAuthenticating() throws Exception {
+        this.login("10.0.0.1", "student.test@test.com", "wrong").andExpect(redirectedUrl("/login?error"));
+        this.login("10.0.0.2", "Student.Test@test.com", "wrong").andExpect(redirectedUrl("/login?error"));
+        long authenticationsBefore = this.authentications();
+
+        this.login("10.0.0.3", "student.test@test.com", "test")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        this.login("10.0.0.1", "admin.test@test.com", "test").andExpect(redirectedUrl("/"));
+        this.login("10.0.0.1", "nobody@test.com", "wrong").andExpect(redirectedUrl("/login?error"));
+        this.login("10.0.0.1", "admin.trainee.test@test.com", "test").andExpect(status().isTooManyRequests());
+
+        assertThat(this.authentications()).isEqualTo(authenticationsBefore + 2);
+        assertThat(this.rejected("rejected_username")).isEqualTo(1);
+        assertThat(this.rejected("rejected_ip")).isEqualTo(1);
+    }
+
+    private ResultActions login(String ip, String username, String password) throws Exception {
+        return this.mockMvc.perform(post("/login").param("username", username).param("password", password)
+                .with(request -> {
+                    request.setRemoteAddr(ip);
+                    return request;
+                }));
+    }
+
+    private long authentications() {
+        return this.meterRegistry.get("security.authentication").timers().stream().mapToLong(timer -> timer.count()).sum();
+    }
+
+    private double rejected(String result) {
+        return this.meterRegistry.get("security.login.throttle").tag("result", result).counter().count();
+    }
+}
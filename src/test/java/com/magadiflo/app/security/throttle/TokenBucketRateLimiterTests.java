@@ -0,0 +1,59 @@
+package com.magadiflo.app.security.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTests {
+
+    @Test
+    void allowsABurstOfCapacityAndThenRefillsOneTokenPerInterval() {
+        AtomicLong clock = new AtomicLong(1_000);
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, Duration.ofSeconds(3), 100, clock::get);
+
+        assertThat(limiter.tryAcquire("ana")).isZero();
+        assertThat(limiter.tryAcquire("ana")).isZero();
+        assertThat(limiter.tryAcquire("ana")).isZero();
+        assertThat(limiter.tryAcquire("ana")).isEqualTo(Duration.ofSeconds(1).toNanos());
+        assertThat(limiter.tryAcquire("luis")).as("cada clave tiene su bucket").isZero();
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(limiter.tryAcquire("ana")).isZero();
+        assertThat(limiter.tryAcquire("ana")).isPositive();
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedTheCapacity() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(50, Duration.ofHours(1), 100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < 100; i++) {
+                        if (limiter.tryAcquire("shared") == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get();
+            }
+            assertThat(allowed).isEqualTo(50);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
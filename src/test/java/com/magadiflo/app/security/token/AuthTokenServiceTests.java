@@ -0,0 +1,125 @@
+package com.magadiflo.app.security.token;
+
+import com.magadiflo.app.auth.ApplicationUser;
+import com.magadiflo.app.auth.AuthoritySet;
+import com.magadiflo.app.auth.LoadStamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.Authentication;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthTokenServiceTests {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    private RotatingSigningKeyProvider keyProvider;
+    private InMemoryTokenRevocationRegistry revocationRegistry;
+    private ApplicationUser user;
+
+    @BeforeEach
+    void setUp() {
+        this.keyProvider = new RotatingSigningKeyProvider(key("k1", (byte) 1));
+        this.revocationRegistry = new InMemoryTokenRevocationRegistry();
+        this.user = new ApplicationUser("admin.test@test.com", "secret", true,
+                AuthoritySet.of(Arrays.asList("ROLE_ADMIN", "student:read", "student:write")));
+    }
+
+    @Test
+    void roundTripCarriesUsernameAndAuthorities() {
+        AuthTokenService service = this.service(NOW);
+        Authentication authentication = service.authenticate(service.issue(this.user));
+
+        ApplicationUser principal = (ApplicationUser) authentication.getPrincipal();
+        assertTrue(authentication.isAuthenticated());
+        assertEquals("admin.test@test.com", principal.getUsername());
+        assertEquals(null, principal.getPassword());
+        assertEquals(this.user.getAuthorities(), principal.getAuthorities());
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = this.service(NOW).issue(this.user);
+        int i = token.indexOf('.') + 5;
+        String tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+
+        assertThrows(BadCredentialsException.class, () -> this.service(NOW).authenticate(tampered));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = this.service(NOW).issue(this.user);
+
+        assertThrows(CredentialsExpiredException.class,
+                () -> this.service(NOW.plus(Duration.ofMinutes(16))).authenticate(token));
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        String token = this.service(NOW).issue(this.user);
+        this.revocationRegistry.revokeAll("admin.test@test.com");
+
+        assertThrows(CredentialsExpiredException.class, () -> this.service(NOW).authenticate(token));
+        this.service(NOW).authenticate(this.service(NOW).issue(this.user));
+    }
+
+    @Test
+    void tokensCarryingARevokedAuthorityAreRejected() {
+        ApplicationUser student = new ApplicationUser("student.test@test.com", "secret", true,
+                AuthoritySet.of(Arrays.asList("ROLE_STUDENT", "student:read")));
+        String adminToken = this.service(NOW).issue(this.user);
+        String studentToken = this.service(NOW).issue(student);
+        this.revocationRegistry.revokeAuthorities(Arrays.asList("student:write"));
+
+        assertThrows(CredentialsExpiredException.class, () -> this.service(NOW).authenticate(adminToken));
+        this.service(NOW).authenticate(studentToken);
+        this.service(NOW).authenticate(this.service(NOW).issue(this.user));
+    }
+
+    @Test
+    void aRevocationBetweenLoadingTheUserAndIssuingTheTokenIsNotMissed() {
+        // Como ApplicationUserService: las versiones se leen antes de resolver los authorities
+        ApplicationUser loaded = new ApplicationUser(this.user.getUsername(), "secret", true, this.user.getAuthorities(),
+                0L, new LoadStamp(0L, this.revocationRegistry.currentVersion(this.user.getUsername()),
+                this.revocationRegistry.currentAuthorityVersion()));
+        this.revocationRegistry.revokeAuthorities(Arrays.asList("student:write"));
+
+        String token = this.service(NOW).issue(loaded);
+
+        assertThrows(CredentialsExpiredException.class, () -> this.service(NOW).authenticate(token));
+    }
+
+    @Test
+    void rotatedKeyKeepsVerifyingUntilRetired() {
+        String oldToken = this.service(NOW).issue(this.user);
+        this.keyProvider.rotate(key("k2", (byte) 2));
+        String newToken = this.service(NOW).issue(this.user);
+
+        assertTrue(newToken.startsWith("k2."));
+        this.service(NOW).authenticate(oldToken);
+        this.keyProvider.retire("k1");
+        assertThrows(BadCredentialsException.class, () -> this.service(NOW).authenticate(oldToken));
+        this.service(NOW).authenticate(newToken);
+    }
+
+    private AuthTokenService service(Instant now) {
+        return new AuthTokenService(this.keyProvider, this.revocationRegistry, Duration.ofMinutes(15),
+                Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static SigningKey key(String id, byte seed) {
+        byte[] secret = new byte[32];
+        Arrays.fill(secret, seed);
+        return new SigningKey(id, secret);
+    }
+}
@@ -0,0 +1,116 @@
+package com.magadiflo.app.security.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.magadiflo.app.auth.ApplicationUserService;
+import com.magadiflo.app.auth.AuthorityDataChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.security.token.enabled=true")
+@AutoConfigureMockMvc
+class StatelessTokenModeTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenRevocationRegistry revocationRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Autowired
+    private AuthTokenService authTokenService;
+
+    @Test
+    void loginIssuesTokenAndApiIsAuthorizedWithoutSession() throws Exception {
+        MvcResult login = this.mockMvc.perform(post("/login")
+                        .param("username", "student.test@test.com").param("password", "test"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNull(login.getRequest().getSession(false));
+        String token = this.objectMapper.readTree(login.getResponse().getContentAsString()).get("access_token").asText();
+
+        this.mockMvc.perform(get("/api/v1/students/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/management/api/v1/students").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void missingInvalidOrRevokedTokenIsUnauthorized() throws Exception {
+        this.mockMvc.perform(get("/api/v1/students/1"))
+                .andExpect(status().isUnauthorized());
+        this.mockMvc.perform(get("/api/v1/students/1").header(HttpHeaders.AUTHORIZATION, "Bearer k.x.y"))
+                .andExpect(status().isUnauthorized());
+
+        MvcResult login = this.mockMvc.perform(post("/login")
+                        .param("username", "admin.test@test.com").param("password", "test"))
+                .andReturn();
+        String token = this.objectMapper.readTree(login.getResponse().getContentAsString()).get("access_token").asText();
+        this.revocationRegistry.revokeAll("admin.test@test.com");
+        this.mockMvc.perform(get("/management/api/v1/students").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void changingARoleRevokesTheTokensThatCarryItOrInheritFromIt() throws Exception {
+        String admin = this.login("admin.test@test.com");
+        String student = this.login("student.test@test.com");
+
+        this.eventPublisher.publishEvent(new AuthorityDataChangedEvent(this, AuthorityDataChangedEvent.Kind.ROLE,
+                Collections.singleton("ROLE_ADMINTRAINEE")));
+
+        this.mockMvc.perform(get("/management/api/v1/students").header(HttpHeaders.AUTHORIZATION, "Bearer " + admin))
+                .andExpect(status().isUnauthorized());
+        this.mockMvc.perform(get("/api/v1/students/1").header(HttpHeaders.AUTHORIZATION, "Bearer " + student))
+                .andExpect(status().isOk());
+        this.mockMvc.perform(get("/management/api/v1/students")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + this.login("admin.test@test.com")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void aRoleChangeBetweenLoadingTheUserAndIssuingTheTokenRevokesIt() throws Exception {
+        UserDetails loaded = this.applicationUserService.loadUserByUsername("admin.test@test.com");
+        this.eventPublisher.publishEvent(new AuthorityDataChangedEvent(this, AuthorityDataChangedEvent.Kind.ROLE,
+                Collections.singleton("ROLE_ADMIN")));
+        String token = this.authTokenService.issue(loaded);
+
+        this.mockMvc.perform(get("/management/api/v1/students").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void wrongPasswordIsUnauthorized() throws Exception {
+        this.mockMvc.perform(post("/login").param("username", "student.test@test.com").param("password", "nope"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String login(String username) throws Exception {
+        MvcResult login = this.mockMvc.perform(post("/login").param("username", username).param("password", "test"))
+                .andExpect(status().isOk())
+                .andReturn();
+        return this.objectMapper.readTree(login.getResponse().getContentAsString()).get("access_token").asText();
+    }
+}
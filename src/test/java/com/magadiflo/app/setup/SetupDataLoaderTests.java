@@ -0,0 +1,82 @@
+package com.magadiflo.app.setup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Contexto propio (el manifiesto modificado deja datos extra en la BD)
+@SpringBootTest(properties = "app.setup.seed.skip-if-unchanged=true")
+class SetupDataLoaderTests {
+
+    @Autowired
+    private SetupDataLoader setupDataLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void unchangedManifestIsSkippedAndReapplyingItWritesNothing() {
+        SeedManifest manifest = SeedManifest.initialData();
+        // Deshace lo que haya aplicado el otro test (si se ejecutó antes)
+        this.setupDataLoader.seed(manifest);
+        assertThat(this.storedChecksum()).isEqualTo(manifest.checksum());
+        Map<String, Long> versions = this.roleVersions();
+
+        assertThat(this.setupDataLoader.seed(manifest)).isFalse();
+        Integer changes = new TransactionTemplate(this.transactionManager).execute(status -> this.setupDataLoader.apply(manifest));
+
+        assertThat(changes).isZero();
+        assertThat(this.roleVersions()).isEqualTo(versions);
+    }
+
+    @Test
+    void changedManifestAppliesOnlyTheDifference() {
+        SeedManifest initial = SeedManifest.initialData();
+        List<String> permissions = new ArrayList<>(initial.getPermissions());
+        permissions.add("course:delete");
+        List<SeedManifest.RoleSeed> roles = new ArrayList<>(initial.getRoles());
+        roles.set(2, new SeedManifest.RoleSeed("ROLE_ADMIN", "ROLE_ADMINTRAINEE",
+                Arrays.asList("student:write", "course:write", "course:delete")));
+        List<SeedManifest.UserSeed> users = new ArrayList<>(initial.getUsers());
+        users.add(new SeedManifest.UserSeed("Second Admin", "Second Admin", "second.admin@test.com", "test",
+                Arrays.asList("ROLE_ADMIN")));
+        SeedManifest changed = new SeedManifest(initial.getName(), permissions, roles, users);
+        Map<String, Long> versions = this.roleVersions();
+
+        assertThat(this.setupDataLoader.seed(changed)).isTrue();
+
+        Map<String, Long> after = this.roleVersions();
+        assertThat(after.get("ROLE_ADMIN")).isGreaterThan(versions.get("ROLE_ADMIN"));
+        assertThat(after.get("ROLE_STUDENT")).isEqualTo(versions.get("ROLE_STUDENT"));
+        assertThat(after.get("ROLE_ADMINTRAINEE")).isEqualTo(versions.get("ROLE_ADMINTRAINEE"));
+        assertThat(this.jdbcTemplate.queryForObject("select count(*) from roles_permissions rp " +
+                "join roles r on r.id = rp.role_id where r.name = 'ROLE_ADMIN'", Integer.class)).isEqualTo(3);
+        assertThat(this.jdbcTemplate.queryForObject("select count(*) from users where email = 'second.admin@test.com'",
+                Integer.class)).isEqualTo(1);
+        assertThat(this.storedChecksum()).isEqualTo(changed.checksum()).isNotEqualTo(initial.checksum());
+        assertThat(this.setupDataLoader.seed(changed)).isFalse();
+    }
+
+    private String storedChecksum() {
+        return this.jdbcTemplate.queryForObject("select checksum from seed_state where name = 'initial-data'", String.class);
+    }
+
+    private Map<String, Long> roleVersions() {
+        return this.jdbcTemplate.queryForList("select name, version from roles").stream()
+                .collect(Collectors.toMap(row -> (String) row.get("NAME"), row -> ((Number) row.get("VERSION")).longValue()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.magadiflo.app.setup;
+
+import com.magadiflo.app.auth.ApplicationUserService;
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.repository.IPermissionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.setup.synthetic.enabled=true",
+        "app.setup.synthetic.users=2500",
+        "app.setup.synthetic.roles=40",
+        "app.setup.synthetic.permissions=300",
+        "app.setup.synthetic.batch-size=500"
+})
+class SyntheticDataGeneratorTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationUserService applicationUserService;
+
+    @Autowired
+    private DaoAuthenticationProvider daoAuthenticationProvider;
+
+    @Autowired
+    private IPermissionRepository permissionRepository;
+
+    @Test
+    void generatesTheConfiguredPopulationWithFanOut() {
+        assertThat(this.count("select count(*) from users where email like 'synthetic.%'")).isEqualTo(2500);
+        assertThat(this.count("select count(*) from roles where name like 'ROLE_SYNTHETIC_%'")).isEqualTo(40);
+        assertThat(this.count("select count(*) from permissions where name like 'resource%'")).isEqualTo(300);
+        assertThat(this.count("select count(*) from users_roles ur join users u on u.id = ur.user_id " +
+                "where u.email like 'synthetic.%'")).isGreaterThan(2500);
+
+        UserDetails user = this.applicationUserService.loadUserByUsername(SyntheticDataGenerator.userEmail(7));
+        assertThat(user.getAuthorities()).extracting("authority").contains("ROLE_STUDENT", "student:read");
+        this.daoAuthenticationProvider.authenticate(
+                new UsernamePasswordAuthenticationToken(SyntheticDataGenerator.userEmail(2499), "test"));
+    }
+
+    @Test
+    void identityContinuesAfterTheReservedRange() {
+        Permission permission = this.permissionRepository.save(new Permission("synthetic:after"));
+
+        assertThat(permission.getId()).isGreaterThan(this.count("select count(*) from permissions") - 1L);
+        this.permissionRepository.delete(permission);
+    }
+
+    private long count(String sql) {
+        return this.jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
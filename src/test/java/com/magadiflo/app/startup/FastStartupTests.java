@@ -0,0 +1,91 @@
+package com.magadiflo.app.startup;
+
+import com.magadiflo.app.SpringSecurityRolesPermissionsApplication;
+import com.magadiflo.app.domain.Permission;
+import com.magadiflo.app.repository.IPermissionRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Arranca varias veces la aplicación sobre la misma BD H2, como en reinicios sucesivos: primero con la
+ * configuración normal (migra el esquema y siembra los datos iniciales), luego otra vez igual y por último con el
+ * perfil fast-startup. Los reinicios encuentran el checksum en seed_state y no vuelven a escribir nada. Informa
+ * del tiempo de cada arranque; el primero incluye además la carga de clases de la JVM, así que la comparación
+ * justa es entre los dos reinicios.
+ */
+class FastStartupTests {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FastStartupTests.class);
+
+    @Test
+    void restartWithTheFastStartupProfileSkipsSeeding() throws Exception {
+        String url = "jdbc:h2:mem:fast-startup-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        long start = System.nanoTime();
+        List<Map<String, Object>> seeded;
+        try (ConfigurableApplicationContext context = start(url)) {
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            seeded = seedState(context);
+            LOG.info("Arranque normal con la BD vacía: {} ms", elapsed);
+        }
+        assertThat(seeded).hasSize(1);
+
+        start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(url)) {
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            LOG.info("Reinicio normal: {} ms", elapsed);
+
+            assertThat(seedState(context)).isEqualTo(seeded);
+        }
+
+        start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(url, "fast-startup")) {
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            LOG.info("Reinicio con el perfil fast-startup: {} ms", elapsed);
+
+            assertThat(seedState(context)).isEqualTo(seeded);
+            assertThat(login(context)).isEqualTo(302);
+            // Sin metadatos JDBC las claves generadas se siguen obteniendo del driver
+            assertThat(context.getBean(IPermissionRepository.class).save(new Permission("fast:startup")).getId()).isNotNull();
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String url, String... profiles) {
+        return new SpringApplicationBuilder(SpringSecurityRolesPermissionsApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles(profiles)
+                .properties("logging.level.root=WARN", "logging.level.com.magadiflo.app.startup.FastStartupTests=INFO",
+                        "server.port=0", "spring.main.banner-mode=off", "spring.datasource.url=" + url,
+                        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+                .run();
+    }
+
+    // applied_at incluido: si se hubiera vuelto a sembrar cambiaría
+    private static List<Map<String, Object>> seedState(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class).queryForList("select name, checksum, applied_at from seed_state");
+    }
+
+    private static int login(ConfigurableApplicationContext context) throws Exception {
+        URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+        HttpRequest login = HttpRequest.newBuilder(base.resolve("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("username=student.test%40test.com&password=test"))
+                .build();
+        return HttpClient.newHttpClient().send(login, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,146 @@
+package com.magadiflo.app.threads;
+
+import com.magadiflo.app.SpringSecurityRolesPermissionsApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga del modo de hilos virtuales: arranca la aplicación con el pool de hilos de Tomcat
+ * (server.tomcat.threads.max) y después, si la JVM los soporta, con hilos virtuales, y mide el throughput de
+ * POST /login y de GET /api/v1/students/{id} (almacén jpa: una consulta por petición) con muchas peticiones
+ * en vuelo. El cliente es java.net.http.HttpClient.
+ * <p>
+ * El throughput cuenta solo las peticiones correctas (un login lo es si no redirige a /login?error y crea la
+ * sesión), y un escenario con más de loadtest.max-error-rate de errores (1% por defecto) hace fallar la prueba
+ * antes de informar de la comparación.
+ * <p>
+ * Solo se ejecuta si se pide, y el modo virtual requiere JDK 21+:
+ * mvn test -Dtest=VirtualThreadsLoadTest -Dloadtest=true [-Dloadtest.concurrency=400] [-Dloadtest.requests=20000]
+ * [-Dloadtest.tomcat-threads=50] [-Dloadtest.max-error-rate=0.01]
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class VirtualThreadsLoadTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadsLoadTest.class);
+    private static final String LOGIN_FORM = "username=student.test%40test.com&password=test";
+
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 400);
+    private final int requests = Integer.getInteger("loadtest.requests", 20_000);
+    private final int tomcatThreads = Integer.getInteger("loadtest.tomcat-threads", 50);
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    @Test
+    void comparesPlatformAndVirtualThreads() throws Exception {
+        List<String> report = new ArrayList<>();
+        report.addAll(this.run(false));
+        if (VirtualThreads.isSupported()) {
+            report.addAll(this.run(true));
+        } else {
+            LOG.warn("JDK {} sin hilos virtuales: solo se mide el pool de Tomcat", System.getProperty("java.version"));
+        }
+        LOG.info("Concurrencia {}, {} peticiones por escenario, server.tomcat.threads.max={}", this.concurrency,
+                this.requests, this.tomcatThreads);
+        report.forEach(LOG::info);
+    }
+
+    private List<String> run(boolean virtual) throws Exception {
+        List<String> report = new ArrayList<>();
+        String mode = virtual ? "virtual " : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringSecurityRolesPermissionsApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("logging.level.root=WARN", "logging.level.com.magadiflo.app.threads.VirtualThreadsLoadTest=INFO",
+                        "server.port=0", "spring.main.banner-mode=off", "app.students.store=jpa",
+                        "server.tomcat.threads.max=" + this.tomcatThreads, "app.threads.virtual.enabled=" + virtual,
+                        "app.security.login-throttle.enabled=false")
+                .run()) {
+            URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            Supplier<HttpRequest> login = () -> HttpRequest.newBuilder(base.resolve("/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(LOGIN_FORM))
+                    .build();
+            HttpResponse<Void> session = client.send(login.get(), HttpResponse.BodyHandlers.discarding());
+            assertThat(loggedIn(session)).as("login inicial").isTrue();
+            String cookie = sessionCookie(session);
+            Supplier<HttpRequest> api = () -> HttpRequest.newBuilder(base.resolve("/api/v1/students/1"))
+                    .header("Cookie", cookie)
+                    .GET()
+                    .build();
+
+            // Calentamiento
+            this.load(client, api, status(200), Math.min(this.requests, 2_000));
+            report.add(mode + " login: " + this.load(client, login, VirtualThreadsLoadTest::loggedIn,
+                    Math.max(1, this.requests / 10)));
+            report.add(mode + " /api:  " + this.load(client, api, status(200), this.requests));
+        }
+        return report;
+    }
+
+    private String load(HttpClient client, Supplier<HttpRequest> request, Predicate<HttpResponse<Void>> success,
+                        int count) throws Exception {
+        Semaphore inFlight = new Semaphore(this.concurrency);
+        AtomicLong errors = new AtomicLong();
+        List<CompletableFuture<?>> futures = new ArrayList<>(count);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            inFlight.acquire();
+            futures.add(client.sendAsync(request.get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (failure != null || !success.test(response)) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        long elapsed = System.nanoTime() - start;
+        assertThat(errors.get()).as("peticiones fallidas de %d", count)
+                .isLessThanOrEqualTo((long) (count * this.maxErrorRate));
+        long ok = count - errors.get();
+        return String.format("%.0f req/s ok (%d peticiones, %d con error)", ok * 1_000_000_000.0 / elapsed, count,
+                errors.get());
+    }
+
+    private static Predicate<HttpResponse<Void>> status(int expected) {
+        return response -> response.statusCode() == expected;
+    }
+
+    /**
+     * Un login por formulario responde 302 tanto si funciona como si no: solo es correcto si no redirige a
+     * /login?error y crea la sesión.
+     */
+    private static boolean loggedIn(HttpResponse<Void> response) {
+        return response.statusCode() == 302
+                && !response.headers().firstValue("Location").orElse("").contains("error")
+                && sessionCookie(response) != null;
+    }
+
+    private static String sessionCookie(HttpResponse<Void> response) {
+        return response.headers().firstValue("Set-Cookie").map(value -> value.split(";")[0]).orElse(null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.magadiflo.app.threads;
+
+import com.magadiflo.app.SpringSecurityRolesPermissionsApplication;
+import org.apache.catalina.connector.Connector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VirtualThreadsTests {
+
+    @Test
+    @EnabledIf("com.magadiflo.app.threads.VirtualThreads#isSupported")
+    void servesRequestsAndAsyncTasksOnVirtualThreads() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringSecurityRolesPermissionsApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0", "app.threads.virtual.enabled=true")
+                .run()) {
+            ExecutorService virtualThreadExecutor = context.getBean(VirtualThreadsConfig.EXECUTOR_BEAN_NAME, ExecutorService.class);
+            Connector connector = ((TomcatWebServer) ((ServletWebServerApplicationContext) context).getWebServer())
+                    .getTomcat().getConnector();
+            assertThat(connector.getProtocolHandler().getExecutor()).isSameAs(virtualThreadExecutor);
+
+            AsyncTaskExecutor taskExecutor = context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class);
+            Authentication authentication = new TestingAuthenticationToken("admin.test@test.com", "test", "ROLE_ADMIN");
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            try {
+                Future<Authentication> seen = taskExecutor.submit(() -> {
+                    assertThat(VirtualThreads.isVirtual(Thread.currentThread())).isTrue();
+                    return SecurityContextHolder.getContext().getAuthentication();
+                });
+                assertThat(seen.get()).isSameAs(authentication);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+
+    @Test
+    @DisabledIf("com.magadiflo.app.threads.VirtualThreads#isSupported")
+    void failsFastWithoutVirtualThreadSupport() {
+        assertThatThrownBy(() -> VirtualThreads.newThreadPerTaskExecutor("virtual-"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JDK 21");
+    }
+}